@@ -0,0 +1,82 @@
+package com.limac.diffservice.benchmark;
+
+import com.limac.diffservice.engine.WordDiffEngine;
+import com.limac.diffservice.rest.dto.DiffResultDto;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Inputs shared by the benchmarks, generated from a fixed seed so the runs of different releases compare the same data.
+ * The benchmarks run them with sizes from 1 KB to 100 MB and with each density of differences.
+ */
+public final class BenchmarkPayloads {
+
+    private static final int SPARSE_INTERVAL = 4096;
+    private static final double DENSE_RATIO = 0.3d;
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * Generates a random left input.
+     *
+     * @param size size of the input in bytes.
+     * @return left input.
+     */
+    public static byte[] left(int size) {
+        final byte[] left = new byte[size];
+        new Random(size).nextBytes(left);
+
+        return left;
+    }
+
+    /**
+     * Generates a right input of the same size differing from the left input with the given density:
+     * {@code none} for an equal input, {@code sparse} for a byte every 4 KB, {@code dense} for 30% of random bytes
+     * and {@code alternating} for every other byte, the worst case of the number of diff results.
+     *
+     * @param left left input.
+     * @param density density of the differences.
+     * @return right input.
+     */
+    public static byte[] right(byte[] left, String density) {
+        final byte[] right = left.clone();
+        final Random random = new Random(left.length + 1L);
+
+        for (int index = 0; index < right.length; index++) {
+            if (differs(density, index, random)) {
+                right[index] = (byte) ~right[index];
+            }
+        }
+
+        return right;
+    }
+
+    /**
+     * Compares the inputs with the {@link WordDiffEngine}.
+     *
+     * @param left left input.
+     * @param right right input.
+     * @return diff results of the inputs.
+     */
+    public static List<DiffResultDto> diffResults(byte[] left, byte[] right) {
+        return new WordDiffEngine().compare(ByteBuffer.wrap(left), ByteBuffer.wrap(right));
+    }
+
+    private static boolean differs(String density, int index, Random random) {
+        switch (density) {
+            case "none":
+                return false;
+            case "sparse":
+                return index % SPARSE_INTERVAL == SPARSE_INTERVAL / 2;
+            case "dense":
+                return random.nextDouble() < DENSE_RATIO;
+            case "alternating":
+                return index % 2 == 1;
+            default:
+                throw new IllegalArgumentException("unknown density: " + density);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.limac.diffservice.mapping;
+
+import com.limac.diffservice.benchmark.BenchmarkPayloads;
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.domain.DiffResult;
+import com.limac.diffservice.rest.dto.Base64Dto;
+import com.limac.diffservice.rest.dto.DiffDto;
+import com.limac.diffservice.type.ResultType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures the {@link DiffMapperImpl} generated by MapStruct, mapping a request to a {@link Diff} and a compared
+ * {@link Diff} to a {@link DiffDto}, whose diff results are copied one by one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DiffMapperBenchmark {
+
+    @Param({"1024", "1048576", "104857600"})
+    private int size;
+
+    @Param({"none", "sparse", "dense", "alternating"})
+    private String density;
+
+    private DiffMapper diffMapper;
+    private Base64Dto base64Dto;
+    private Diff diff;
+
+    /**
+     * Builds a {@link Base64Dto} and a compared {@link Diff} with inputs of the benchmark size.
+     */
+    @Setup
+    public void setup() {
+        diffMapper = new DiffMapperImpl();
+
+        final byte[] left = BenchmarkPayloads.left(size);
+        final byte[] right = BenchmarkPayloads.right(left, density);
+
+        base64Dto = new Base64Dto();
+        base64Dto.setBase64Value(Base64.getEncoder().encodeToString(left));
+
+        diff = new Diff();
+        diff.setDiffId("diffId");
+        diff.setLeft(base64Dto.getBase64Value());
+        diff.setRight(Base64.getEncoder().encodeToString(right));
+        diff.setDiffResults(BenchmarkPayloads.diffResults(left, right).stream()
+            .map(diffResult -> new DiffResult(diffResult.getOffset(), diffResult.getLength()))
+            .collect(Collectors.toList()));
+        diff.setResultType(diff.getDiffResults().isEmpty() ? ResultType.EQUAL : ResultType.SAME_SIZE_BUT_DIFFERENT);
+    }
+
+    /**
+     * Maps the {@link Base64Dto} to a {@link Diff}.
+     *
+     * @return mapped {@link Diff}.
+     */
+    @Benchmark
+    public Diff base64DtoToLeftDiff() {
+        return diffMapper.base64DtoToLeftDiff(base64Dto);
+    }
+
+    /**
+     * Maps the compared {@link Diff} to a {@link DiffDto}.
+     *
+     * @return mapped {@link DiffDto}.
+     */
+    @Benchmark
+    public DiffDto diffToDiffDto() {
+        return diffMapper.diffToDiffDto(diff);
+    }
+}
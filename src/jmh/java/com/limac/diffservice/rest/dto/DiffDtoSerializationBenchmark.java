@@ -0,0 +1,132 @@
+package com.limac.diffservice.rest.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.limac.diffservice.benchmark.BenchmarkPayloads;
+import com.limac.diffservice.type.ResultType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of serializing and deserializing a {@link DiffDto} as JSON, CBOR and Smile.
+ * The bytes on the wire of each encoding are reported by the {@link WireSize} counter.
+ * The largest inputs with alternating differences encode tens of millions of diff results, so the forks run with a large heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DiffDtoSerializationBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String encoding;
+
+    @Param({"1024", "1048576", "104857600"})
+    private int size;
+
+    @Param({"none", "sparse", "dense", "alternating"})
+    private String density;
+
+    private ObjectMapper objectMapper;
+    private DiffDto diffDto;
+    private byte[] encoded;
+
+    /**
+     * Bytes on the wire of the encoded {@link DiffDto}, reported once per benchmark invocation.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireSize {
+
+        public long bytes;
+
+        /**
+         * Resets the counter before each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Builds a {@link DiffDto} with base64 inputs of the benchmark size and their diff results.
+     *
+     * @throws IOException if the {@link DiffDto} could not be encoded.
+     */
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper(factory(encoding));
+
+        final byte[] left = BenchmarkPayloads.left(size);
+        final byte[] right = BenchmarkPayloads.right(left, density);
+        final List<DiffResultDto> diffResults = BenchmarkPayloads.diffResults(left, right);
+
+        diffDto = DiffDto.builder()
+            .diffId("diffId")
+            .left(Base64.getEncoder().encodeToString(left))
+            .right(Base64.getEncoder().encodeToString(right))
+            .resultType(diffResults.isEmpty() ? ResultType.EQUAL : ResultType.SAME_SIZE_BUT_DIFFERENT)
+            .diffResults(diffResults)
+            .build();
+
+        encoded = objectMapper.writeValueAsBytes(diffDto);
+    }
+
+    /**
+     * Serializes the {@link DiffDto}.
+     *
+     * @param wireSize counter of the encoded bytes.
+     * @return encoded {@link DiffDto}.
+     * @throws IOException if the {@link DiffDto} could not be encoded.
+     */
+    @Benchmark
+    public byte[] serialize(WireSize wireSize) throws IOException {
+        final byte[] bytes = objectMapper.writeValueAsBytes(diffDto);
+        wireSize.bytes += bytes.length;
+
+        return bytes;
+    }
+
+    /**
+     * Deserializes the encoded {@link DiffDto}.
+     *
+     * @return decoded {@link DiffDto}.
+     * @throws IOException if the {@link DiffDto} could not be decoded.
+     */
+    @Benchmark
+    public DiffDto deserialize() throws IOException {
+        return objectMapper.readValue(encoded, DiffDto.class);
+    }
+
+    private static JsonFactory factory(String encoding) {
+        switch (encoding) {
+            case "cbor":
+                return new CBORFactory();
+            case "smile":
+                return new SmileFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.limac.diffservice.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.limac.diffservice.admission.AdmissionController;
+import com.limac.diffservice.benchmark.BenchmarkPayloads;
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.domain.MerkleTree;
+import com.limac.diffservice.engine.DiffEngine;
+import com.limac.diffservice.engine.ForkJoinDiffEngine;
+import com.limac.diffservice.engine.MerkleTreeHasher;
+import com.limac.diffservice.engine.MyersEditEngine;
+import com.limac.diffservice.engine.WordDiffEngine;
+import com.limac.diffservice.logging.PayloadLogArguments;
+import com.limac.diffservice.metrics.DiffMetrics;
+import com.limac.diffservice.repository.PayloadCodec;
+import com.limac.diffservice.rest.dto.DiffDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the comparison of the inputs by the {@link DiffServiceImpl}, decoding the base64 inputs and collecting the
+ * diff results with or without the {@link MerkleTree}s of the inputs, and by each {@link DiffEngine} alone,
+ * passing the diff results to a listener without collecting them.
+ * The {@link ForkJoinDiffEngine} runs with the default threshold and segment size of the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class DiffServiceBenchmark {
+
+    private static final int PARALLEL_THRESHOLD = 16777216;
+    private static final int SEGMENT_SIZE = 4194304;
+    private static final int MERKLE_BLOCK_SIZE = 65536;
+
+    @Param({"1024", "1048576", "104857600"})
+    private int size;
+
+    @Param({"none", "sparse", "dense", "alternating"})
+    private String density;
+
+    private ForkJoinPool forkJoinPool;
+    private AdmissionController admissionController;
+    private DiffEngine wordDiffEngine;
+    private DiffEngine forkJoinDiffEngine;
+    private DiffService diffService;
+
+    private Diff diff;
+    private Diff indexedDiff;
+    private ByteBuffer left;
+    private ByteBuffer right;
+
+    /**
+     * Generates the inputs and creates the service without any repository, as the base64 inputs are compared in memory.
+     */
+    @Setup
+    public void setup() {
+        final byte[] leftBytes = BenchmarkPayloads.left(size);
+        final byte[] rightBytes = BenchmarkPayloads.right(leftBytes, density);
+
+        left = ByteBuffer.wrap(leftBytes);
+        right = ByteBuffer.wrap(rightBytes);
+
+        diff = new Diff();
+        diff.setDiffId("diffId");
+        diff.setLeft(Base64.getEncoder().encodeToString(leftBytes));
+        diff.setRight(Base64.getEncoder().encodeToString(rightBytes));
+
+        final MerkleTreeHasher merkleTreeHasher = new MerkleTreeHasher(MERKLE_BLOCK_SIZE);
+
+        indexedDiff = new Diff();
+        indexedDiff.setDiffId("indexedDiffId");
+        indexedDiff.setLeft(diff.getLeft());
+        indexedDiff.setRight(diff.getRight());
+        indexedDiff.setLeftTree(merkleTreeHasher.tree(leftBytes));
+        indexedDiff.setRightTree(merkleTreeHasher.tree(rightBytes));
+
+        forkJoinPool = new ForkJoinPool();
+        wordDiffEngine = new WordDiffEngine();
+        forkJoinDiffEngine = new ForkJoinDiffEngine(wordDiffEngine, forkJoinPool, PARALLEL_THRESHOLD, SEGMENT_SIZE);
+
+        final DiffMetrics diffMetrics = new DiffMetrics(new SimpleMeterRegistry());
+        admissionController = new AdmissionController(Long.MAX_VALUE, 0, 1, 1, 1, diffMetrics);
+
+        diffService = new DiffServiceImpl(null, null, null, new PayloadCodec(true, 256, 4194304), merkleTreeHasher, forkJoinDiffEngine,
+            new MyersEditEngine(10000, 1000L), Caffeine.newBuilder().build(), new SyncTaskExecutor(), new SyncTaskExecutor(),
+            new PayloadLogArguments(64, 0.0d), diffMetrics, admissionController);
+    }
+
+    /**
+     * Shuts the pool of the {@link ForkJoinDiffEngine} and the executor of the {@link AdmissionController} down.
+     */
+    @TearDown
+    public void tearDown() {
+        forkJoinPool.shutdown();
+        admissionController.shutdown();
+    }
+
+    /**
+     * Compares the base64 inputs with the service.
+     *
+     * @return {@link DiffDto} with the diff results.
+     */
+    @Benchmark
+    public DiffDto diff() {
+        return diffService.diff(diff, true);
+    }
+
+    /**
+     * Compares the base64 inputs with the service, only comparing the blocks whose hashes differ in their {@link MerkleTree}s.
+     *
+     * @return {@link DiffDto} with the diff results.
+     */
+    @Benchmark
+    public DiffDto indexedDiff() {
+        return diffService.diff(indexedDiff, true);
+    }
+
+    /**
+     * Compares the inputs with the {@link WordDiffEngine}.
+     *
+     * @param blackhole consumer of the diff results.
+     */
+    @Benchmark
+    public void wordDiffEngine(Blackhole blackhole) {
+        compare(wordDiffEngine, blackhole);
+    }
+
+    /**
+     * Compares the inputs with the {@link ForkJoinDiffEngine}.
+     *
+     * @param blackhole consumer of the diff results.
+     */
+    @Benchmark
+    public void forkJoinDiffEngine(Blackhole blackhole) {
+        compare(forkJoinDiffEngine, blackhole);
+    }
+
+    private void compare(DiffEngine diffEngine, Blackhole blackhole) {
+        diffEngine.compare(left.duplicate(), right.duplicate(), (offset, length) -> {
+            blackhole.consume(offset);
+            blackhole.consume(length);
+            return true;
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.limac.diffservice.validation.validator;
+
+import com.limac.diffservice.benchmark.BenchmarkPayloads;
+import com.limac.diffservice.rest.dto.Base64Dto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the validation of the {@code @Base64} constraint of a {@link Base64Dto} by the bean validator,
+ * as done for the request bodies, with inputs from 1 KB to 100 MB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class Base64ConstraintBenchmark {
+
+    @Param({"1024", "1048576", "104857600"})
+    private int size;
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private Base64Dto base64Dto;
+
+    /**
+     * Creates the bean validator and a {@link Base64Dto} with a base64 input of the benchmark size.
+     */
+    @Setup
+    public void setup() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        base64Dto = new Base64Dto();
+        base64Dto.setBase64Value(Base64.getEncoder().encodeToString(BenchmarkPayloads.left(size)));
+    }
+
+    /**
+     * Closes the bean validator.
+     */
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    /**
+     * Validates the {@link Base64Dto}.
+     *
+     * @return constraint violations, empty as the input is valid.
+     */
+    @Benchmark
+    public Set<ConstraintViolation<Base64Dto>> validate() {
+        return validator.validate(base64Dto);
+    }
+}
@@ -0,0 +1,86 @@
+package com.limac.diffservice.validation.validator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the {@link Base64Validator} with the regex previously used by the base64 constraint.
+ * The regex recurses once per quantum, so the forks run with a large stack to let it validate the largest payloads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss256m")
+public class Base64ValidatorBenchmark {
+
+    private static final Pattern BASE64_PATTERN =
+        Pattern.compile("^([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{4}|[A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{2}==)$");
+
+    @Param({"64", "1024", "16384", "262144"})
+    private int size;
+
+    private String value;
+    private byte[] bytes;
+
+    /**
+     * Encodes a random payload of the benchmark size.
+     */
+    @Setup
+    public void setup() {
+        final byte[] payload = new byte[size];
+        new Random(size).nextBytes(payload);
+
+        value = Base64.getEncoder().encodeToString(payload);
+        bytes = value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Validates the value with the regex.
+     *
+     * @return whether the value is valid.
+     */
+    @Benchmark
+    public boolean regex() {
+        return BASE64_PATTERN.matcher(value).matches();
+    }
+
+    /**
+     * Validates the value with the {@link Base64Validator}.
+     *
+     * @return whether the value is valid.
+     */
+    @Benchmark
+    public boolean validator() {
+        return Base64Validator.isBase64(value);
+    }
+
+    /**
+     * Validates the bytes of the value with the {@link StreamingBase64Validator}.
+     *
+     * @return whether the value is valid.
+     */
+    @Benchmark
+    public boolean streamingValidator() {
+        final StreamingBase64Validator streamingBase64Validator = new StreamingBase64Validator();
+        streamingBase64Validator.update(bytes, 0, bytes.length);
+
+        return streamingBase64Validator.finish();
+    }
+}
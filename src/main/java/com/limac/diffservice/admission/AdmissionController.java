@@ -0,0 +1,151 @@
+package com.limac.diffservice.admission;
+
+import com.limac.diffservice.exception.OverloadedException;
+import com.limac.diffservice.metrics.DiffMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.CustomizableThreadFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Admits the work holding decoded payloads in memory against a budget of payload bytes in flight,
+ * and runs the comparisons on a dedicated bounded executor instead of the request threads.
+ * The work exceeding the budgets is rejected with an {@link OverloadedException} rather than queued,
+ * so a burst of large payloads is shed instead of filling the heap.
+ * A payload larger than the whole budget is still admitted when nothing else is in flight, so it can always be retried.
+ */
+@Slf4j
+public class AdmissionController {
+
+    private static final String BYTES = "bytes";
+    private static final String COMPARISONS = "comparisons";
+
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    private final long maxInFlightBytes;
+    private final long streamBytes;
+    private final long retryAfter;
+    private final DiffMetrics diffMetrics;
+    private final ThreadPoolExecutor comparisonExecutor;
+
+    /**
+     * Construct an AdmissionController instance.
+     *
+     * @param maxInFlightBytes maximum number of payload bytes held at the same time, unless a single payload is larger.
+     * @param streamBytes payload bytes held by a streamed save, whose size is not known in advance.
+     * @param maxComparisons maximum number of comparisons running at the same time.
+     * @param queueCapacity maximum number of comparisons waiting for a thread, greater than zero.
+     * @param retryAfter delay in seconds after which the rejected work should be retried.
+     * @param diffMetrics meters of the admitted and rejected work.
+     */
+    public AdmissionController(long maxInFlightBytes, long streamBytes, int maxComparisons, int queueCapacity, long retryAfter,
+                               DiffMetrics diffMetrics) {
+        final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("diff-admission-");
+        threadFactory.setDaemon(true);
+
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.streamBytes = streamBytes;
+        this.retryAfter = retryAfter;
+        this.diffMetrics = diffMetrics;
+        this.comparisonExecutor = new ThreadPoolExecutor(maxComparisons, maxComparisons, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(queueCapacity), threadFactory);
+
+        diffMetrics.registerAdmission(inFlightBytes, comparisonExecutor);
+    }
+
+    /**
+     * Runs the work on the calling thread once its payload bytes are admitted, releasing them when it's done.
+     *
+     * @param size payload bytes held by the work.
+     * @param work work to be run.
+     * @param <T> type of the result.
+     * @return result of the work.
+     * @throws OverloadedException if the payload bytes in flight would exceed the budget.
+     */
+    public <T> T admit(long size, Supplier<T> work) {
+        acquire(size);
+
+        try {
+            return work.get();
+        } finally {
+            inFlightBytes.addAndGet(-size);
+        }
+    }
+
+    /**
+     * Runs a streamed save on the calling thread, admitted with the payload bytes held while the stream is read.
+     *
+     * @param work streamed save to be run.
+     * @param <T> type of the result.
+     * @return result of the save.
+     * @throws OverloadedException if the payload bytes in flight would exceed the budget.
+     */
+    public <T> T admitStream(Supplier<T> work) {
+        return admit(streamBytes, work);
+    }
+
+    /**
+     * Runs the comparison on the dedicated executor once its payload bytes are admitted, and waits for its result.
+     * The exceptions of the comparison are thrown as they are.
+     *
+     * @param size payload bytes of both inputs.
+     * @param comparison comparison to be run.
+     * @param <T> type of the result.
+     * @return result of the comparison.
+     * @throws OverloadedException if the payload bytes in flight would exceed the budget or the queue of the executor is full.
+     */
+    public <T> T compare(long size, Supplier<T> comparison) {
+        return admit(size, () -> {
+            final CompletableFuture<T> future;
+
+            try {
+                future = CompletableFuture.supplyAsync(comparison, comparisonExecutor);
+            } catch (RejectedExecutionException exception) {
+                throw reject(COMPARISONS, "too many comparisons in progress");
+            }
+
+            try {
+                return future.join();
+            } catch (CompletionException exception) {
+                if (exception.getCause() instanceof Error) {
+                    throw (Error) exception.getCause();
+                }
+
+                throw (RuntimeException) exception.getCause();
+            }
+        });
+    }
+
+    /**
+     * Shuts the executor of the comparisons down.
+     */
+    public void shutdown() {
+        comparisonExecutor.shutdown();
+    }
+
+    private void acquire(long size) {
+        final long current = inFlightBytes.getAndAdd(size);
+
+        if (current > 0 && current + size > maxInFlightBytes) {
+            inFlightBytes.addAndGet(-size);
+            throw reject(BYTES, "too many payload bytes in flight");
+        }
+    }
+
+    private OverloadedException reject(String budget, String message) {
+        diffMetrics.recordRejection(budget);
+
+        log.warn("Work rejected by the admission control, {}, {}", kv("budget", budget), kv("inFlightBytes", inFlightBytes.get()));
+
+        return new OverloadedException(message + ", retry later", retryAfter);
+    }
+}
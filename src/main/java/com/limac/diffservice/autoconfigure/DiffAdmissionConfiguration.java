@@ -0,0 +1,41 @@
+package com.limac.diffservice.autoconfigure;
+
+import com.limac.diffservice.admission.AdmissionController;
+import com.limac.diffservice.metrics.DiffMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class to define the budgets of the payload bytes in flight and of the comparisons,
+ * beyond which the requests are rejected with status 503.
+ */
+@Configuration
+public class DiffAdmissionConfiguration {
+
+    @Value("${diff.admission.max-in-flight-bytes:268435456}")
+    private long maxInFlightBytes;
+
+    @Value("${diff.admission.stream-bytes:2097152}")
+    private long streamBytes;
+
+    @Value("${diff.admission.max-comparisons:4}")
+    private int maxComparisons;
+
+    @Value("${diff.admission.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${diff.admission.retry-after:1}")
+    private long retryAfter;
+
+    /**
+     * Defines the {@link AdmissionController} of the saves and the comparisons, which run on its bounded executor.
+     *
+     * @param diffMetrics meters of the admitted and rejected work.
+     * @return {@link AdmissionController} bean.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public AdmissionController admissionController(DiffMetrics diffMetrics) {
+        return new AdmissionController(maxInFlightBytes, streamBytes, maxComparisons, queueCapacity, retryAfter, diffMetrics);
+    }
+}
@@ -0,0 +1,80 @@
+package com.limac.diffservice.autoconfigure;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.limac.diffservice.security.CachingAuthenticationProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration class to define the verification of the Basic credentials, shared by the servlet and the reactive stacks.
+ */
+@Configuration
+public class DiffAuthenticationConfiguration {
+
+    private static final int CREDENTIALS_KEY_BYTES = 32;
+
+    @Value("${security.basic.user:user}")
+    private String user;
+
+    @Value("${security.basic.pass:pass}")
+    private String pass;
+
+    @Value("${security.basic.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    @Value("${security.basic.cache.expire-after-write-seconds:60}")
+    private long cacheExpireAfterWriteSeconds;
+
+    /**
+     * Verifies the Basic credentials with the password encoder, caching the verified credentials for a short time
+     * keyed by their HMAC with a random key generated at startup.
+     *
+     * @param meterRegistry registry of the cache and verification metrics.
+     * @return {@link CachingAuthenticationProvider} bean.
+     */
+    @Bean
+    public AuthenticationProvider diffAuthenticationProvider(MeterRegistry meterRegistry) {
+        final DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder());
+        daoAuthenticationProvider.setUserDetailsService(new InMemoryUserDetailsManager(
+            User.withUsername(user).password(passwordEncoder().encode(pass)).authorities("ROLE_USER").build()));
+
+        final Cache<String, Authentication> verifiedCredentials = Caffeine.newBuilder()
+            .maximumSize(cacheMaximumSize)
+            .expireAfterWrite(cacheExpireAfterWriteSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+
+        final byte[] credentialsKey = new byte[CREDENTIALS_KEY_BYTES];
+        new SecureRandom().nextBytes(credentialsKey);
+
+        return new CachingAuthenticationProvider(daoAuthenticationProvider,
+            CaffeineCacheMetrics.monitor(meterRegistry, verifiedCredentials, "verifiedCredentials"),
+            new SecretKeySpec(credentialsKey, CachingAuthenticationProvider.ALGORITHM), meterRegistry);
+    }
+
+    /**
+     * Defines a {@link BCryptPasswordEncoder} as the password encoder bean.
+     *
+     * @return {@link BCryptPasswordEncoder} bean.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+}
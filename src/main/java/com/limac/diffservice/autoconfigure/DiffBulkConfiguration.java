@@ -0,0 +1,37 @@
+package com.limac.diffservice.autoconfigure;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration class to define the executor of the inputs of the bulk saves and the comparisons of the bulk diffs.
+ */
+@Configuration
+public class DiffBulkConfiguration {
+
+    @Value("${diff.bulk.pool-size:4}")
+    private int poolSize;
+
+    @Value("${diff.bulk.queue-capacity:1000}")
+    private int queueCapacity;
+
+    /**
+     * Defines a bounded {@link TaskExecutor} to save the inputs of a bulk save and compare the Diffs of a bulk diff concurrently.
+     * Tasks rejected by a full queue are executed by the request thread.
+     *
+     * @return {@link TaskExecutor} bean.
+     */
+    @Bean
+    public TaskExecutor diffBulkExecutor() {
+        final ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(poolSize);
+        threadPoolTaskExecutor.setMaxPoolSize(poolSize);
+        threadPoolTaskExecutor.setQueueCapacity(queueCapacity);
+        threadPoolTaskExecutor.setThreadNamePrefix("diff-bulk-");
+
+        return threadPoolTaskExecutor;
+    }
+}
@@ -0,0 +1,45 @@
+package com.limac.diffservice.autoconfigure;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.limac.diffservice.cache.DiffResultWeigher;
+import com.limac.diffservice.rest.dto.DiffDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration class to define the cache of the comparison results.
+ */
+@Configuration
+public class DiffCacheConfiguration {
+
+    @Value("${diff.cache.maximum-weight:67108864}")
+    private long maximumWeight;
+
+    @Value("${diff.cache.expire-after-access-minutes:60}")
+    private long expireAfterAccessMinutes;
+
+    /**
+     * Defines the cache of the comparison results keyed by the digests of the inputs, bounded by the estimated bytes
+     * of the results and publishing its hit, miss and eviction statistics as metrics.
+     *
+     * @param meterRegistry registry of the cache metrics.
+     * @return {@link Cache} bean.
+     */
+    @Bean
+    public Cache<String, DiffDto> diffResultCache(MeterRegistry meterRegistry) {
+        final Cache<String, DiffDto> diffResultCache = Caffeine.newBuilder()
+            .maximumWeight(maximumWeight)
+            .weigher(new DiffResultWeigher())
+            .expireAfterAccess(expireAfterAccessMinutes, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+        return CaffeineCacheMetrics.monitor(meterRegistry, diffResultCache, "diffResults");
+    }
+}
@@ -0,0 +1,38 @@
+package com.limac.diffservice.autoconfigure;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration class to define the executor of the comparisons started when both inputs are saved.
+ */
+@Configuration
+public class DiffComparisonConfiguration {
+
+    @Value("${diff.comparison.pool-size:2}")
+    private int poolSize;
+
+    @Value("${diff.comparison.queue-capacity:1000}")
+    private int queueCapacity;
+
+    /**
+     * Defines a bounded {@link TaskExecutor} to compare the inputs in background.
+     * Comparisons rejected by a full queue are executed when the {@link com.limac.diffservice.domain.Diff} is read.
+     *
+     * @return {@link TaskExecutor} bean.
+     */
+    @Bean
+    public TaskExecutor diffComparisonExecutor() {
+        final ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(poolSize);
+        threadPoolTaskExecutor.setMaxPoolSize(poolSize);
+        threadPoolTaskExecutor.setQueueCapacity(queueCapacity);
+        threadPoolTaskExecutor.setThreadNamePrefix("diff-comparison-");
+        threadPoolTaskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+
+        return threadPoolTaskExecutor;
+    }
+}
@@ -0,0 +1,39 @@
+package com.limac.diffservice.autoconfigure;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuration class to define the message converters of the binary encodings negotiated besides JSON.
+ * The converters are built from the Spring Boot {@link Jackson2ObjectMapperBuilder}, so they share the Jackson configuration of JSON.
+ */
+@Configuration
+public class DiffEncodingConfiguration {
+
+    /**
+     * Defines the converter of the CBOR encoding.
+     *
+     * @param jackson2ObjectMapperBuilder builder configured by Spring Boot.
+     * @return {@link MappingJackson2CborHttpMessageConverter} bean.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        return new MappingJackson2CborHttpMessageConverter(jackson2ObjectMapperBuilder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Defines the converter of the Smile encoding.
+     *
+     * @param jackson2ObjectMapperBuilder builder configured by Spring Boot.
+     * @return {@link MappingJackson2SmileHttpMessageConverter} bean.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
+        return new MappingJackson2SmileHttpMessageConverter(jackson2ObjectMapperBuilder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+}
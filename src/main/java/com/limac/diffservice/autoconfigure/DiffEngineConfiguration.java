@@ -0,0 +1,89 @@
+package com.limac.diffservice.autoconfigure;
+
+import com.limac.diffservice.engine.DiffEngine;
+import com.limac.diffservice.engine.ForkJoinDiffEngine;
+import com.limac.diffservice.engine.MerkleTreeHasher;
+import com.limac.diffservice.engine.MyersEditEngine;
+import com.limac.diffservice.engine.WordDiffEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuration class to define the {@link DiffEngine} used by the comparisons and the {@link MyersEditEngine} used by the edit scripts,
+ * as well as the {@link MerkleTreeHasher} indexing the inputs to skip their equal blocks.
+ */
+@Configuration
+public class DiffEngineConfiguration {
+
+    @Value("${diff.engine.parallel.threshold:16777216}")
+    private int parallelThreshold;
+
+    @Value("${diff.engine.parallel.segment-size:4194304}")
+    private int segmentSize;
+
+    @Value("${diff.engine.parallel.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int parallelism;
+
+    @Value("${diff.engine.merkle.block-size:65536}")
+    private int merkleBlockSize;
+
+    @Value("${diff.edit.max-edit-distance:10000}")
+    private int maxEditDistance;
+
+    @Value("${diff.edit.timeout:1000}")
+    private long editTimeout;
+
+    /**
+     * Defines a bounded {@link ForkJoinPool} to compare the segments of large inputs.
+     *
+     * @return {@link ForkJoinPool} bean.
+     * @throws IllegalArgumentException if the parallelism isn't greater than zero.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool diffEngineForkJoinPool() {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("diff.engine.parallel.parallelism must be greater than zero: " + parallelism);
+        }
+
+        return new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Defines a {@link ForkJoinDiffEngine} as the primary {@link DiffEngine} bean,
+     * comparing inputs smaller than the parallel threshold with the {@link WordDiffEngine}.
+     *
+     * @param wordDiffEngine engine to compare each segment.
+     * @param diffEngineForkJoinPool pool to compare the segments in parallel.
+     * @return {@link ForkJoinDiffEngine} bean.
+     * @throws IllegalArgumentException if the segment size isn't greater than zero.
+     */
+    @Bean
+    @Primary
+    public DiffEngine diffEngine(WordDiffEngine wordDiffEngine, ForkJoinPool diffEngineForkJoinPool) {
+        return new ForkJoinDiffEngine(wordDiffEngine, diffEngineForkJoinPool, parallelThreshold, segmentSize);
+    }
+
+    /**
+     * Defines the {@link MerkleTreeHasher} bean, hashing the inputs in blocks of the Merkle block size.
+     *
+     * @return {@link MerkleTreeHasher} bean.
+     */
+    @Bean
+    public MerkleTreeHasher merkleTreeHasher() {
+        return new MerkleTreeHasher(merkleBlockSize);
+    }
+
+    /**
+     * Defines the {@link MyersEditEngine} bean, bounded by the maximum edit distance and the timeout in milliseconds.
+     *
+     * @return {@link MyersEditEngine} bean.
+     */
+    @Bean
+    public MyersEditEngine editEngine() {
+        return new MyersEditEngine(maxEditDistance, editTimeout);
+    }
+}
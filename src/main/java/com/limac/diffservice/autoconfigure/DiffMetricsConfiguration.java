@@ -0,0 +1,39 @@
+package com.limac.diffservice.autoconfigure;
+
+import com.limac.diffservice.metrics.MongoCommandMetrics;
+import com.mongodb.MongoClientOptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class to define the metrics of the Mongo commands, of both the blocking and the reactive clients.
+ */
+@Configuration
+public class DiffMetricsConfiguration {
+
+    /**
+     * Defines the options of the Mongo client created by Spring Boot, recording the latency of each command.
+     *
+     * @param meterRegistry registry of the command metrics.
+     * @return {@link MongoClientOptions} bean.
+     */
+    @Bean
+    public MongoClientOptions mongoClientOptions(MeterRegistry meterRegistry) {
+        return MongoClientOptions.builder()
+            .addCommandListener(new MongoCommandMetrics(meterRegistry))
+            .build();
+    }
+
+    /**
+     * Records the latency of each command of the reactive Mongo client, used by the reactive stack.
+     *
+     * @param meterRegistry registry of the command metrics.
+     * @return {@link MongoClientSettingsBuilderCustomizer} bean.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoClientSettingsBuilderCustomizer(MeterRegistry meterRegistry) {
+        return builder -> builder.addCommandListener(new MongoCommandMetrics(meterRegistry));
+    }
+}
@@ -0,0 +1,97 @@
+package com.limac.diffservice.autoconfigure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.limac.diffservice.rest.ContextPathWebFilter;
+import com.limac.diffservice.rest.codec.Jackson2CborDecoder;
+import com.limac.diffservice.rest.codec.Jackson2CborEncoder;
+import com.limac.diffservice.rest.exceptionhandler.ResponseStatusExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.limac.diffservice.rest.DiffMediaType.APPLICATION_NDJSON_VALUE;
+
+/**
+ * Configuration class of the reactive stack, enabled by the {@code reactive} profile.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class DiffReactiveConfiguration {
+
+    @Value("${diff.reactive.pool-size:16}")
+    private int poolSize;
+
+    @Value("${diff.reactive.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    /**
+     * Defines a bounded {@link Scheduler} running the saves and the comparisons off the event loop.
+     *
+     * @return {@link Scheduler} bean.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler diffScheduler() {
+        return Schedulers.fromExecutorService(new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("diff-reactive-")));
+    }
+
+    /**
+     * Defines the {@link ContextPathWebFilter} serving the reactive stack under the context path of the servlet stack.
+     *
+     * @return {@link ContextPathWebFilter} bean.
+     */
+    @Bean
+    public ContextPathWebFilter contextPathWebFilter() {
+        return new ContextPathWebFilter(contextPath);
+    }
+
+    /**
+     * Defines the {@link ResponseStatusExceptionHandler} answering the requests without a handler with an error response.
+     *
+     * @param objectMapper mapper of the error response.
+     * @return {@link ResponseStatusExceptionHandler} bean.
+     */
+    @Bean
+    public ResponseStatusExceptionHandler responseStatusExceptionHandler(ObjectMapper objectMapper) {
+        return new ResponseStatusExceptionHandler(objectMapper);
+    }
+
+    /**
+     * Registers the CBOR codecs and the newline delimited JSON encoder, the codecs of JSON and Smile being registered by Spring.
+     *
+     * @param jackson2ObjectMapperBuilder builder configured by Spring Boot.
+     * @param objectMapper mapper of JSON.
+     * @return {@link CodecCustomizer} bean.
+     */
+    @Bean
+    public CodecCustomizer diffCodecCustomizer(Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder, ObjectMapper objectMapper) {
+        final ObjectMapper cborMapper = jackson2ObjectMapperBuilder.createXmlMapper(false).factory(new CBORFactory()).build();
+
+        final MediaType ndjson = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+        final Jackson2JsonEncoder ndjsonEncoder = new Jackson2JsonEncoder(objectMapper, ndjson);
+        ndjsonEncoder.setStreamingMediaTypes(Collections.singletonList(ndjson));
+
+        return codecConfigurer -> {
+            codecConfigurer.customCodecs().encoder(new Jackson2CborEncoder(cborMapper));
+            codecConfigurer.customCodecs().decoder(new Jackson2CborDecoder(cborMapper));
+            codecConfigurer.customCodecs().encoder(ndjsonEncoder);
+        };
+    }
+}
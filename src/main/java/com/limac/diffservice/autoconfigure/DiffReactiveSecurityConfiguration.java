@@ -0,0 +1,53 @@
+package com.limac.diffservice.autoconfigure;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManagerAdapter;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+import java.util.Collections;
+
+/**
+ * Configuration class to define authorization configurations of the reactive stack.
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class DiffReactiveSecurityConfiguration {
+
+    /**
+     * Defines the {@link ReactiveAuthenticationManager} verifying the Basic credentials with the same provider of the servlet stack,
+     * off the event loop.
+     *
+     * @param diffAuthenticationProvider provider caching the verified credentials.
+     * @return {@link ReactiveAuthenticationManager} bean.
+     */
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager(AuthenticationProvider diffAuthenticationProvider) {
+        return new ReactiveAuthenticationManagerAdapter(new ProviderManager(Collections.singletonList(diffAuthenticationProvider)));
+    }
+
+    /**
+     * Requires Basic authentication for any request.
+     *
+     * @param serverHttpSecurity security of the reactive stack.
+     * @param reactiveAuthenticationManager manager verifying the Basic credentials.
+     * @return {@link SecurityWebFilterChain} bean.
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity serverHttpSecurity,
+                                                         ReactiveAuthenticationManager reactiveAuthenticationManager) {
+        return serverHttpSecurity
+            .csrf().disable()
+            .authenticationManager(reactiveAuthenticationManager)
+            .authorizeExchange().anyExchange().authenticated().and()
+            .httpBasic().and()
+            .build();
+    }
+}
@@ -1,14 +1,13 @@
 package com.limac.diffservice.autoconfigure;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 
 /**
@@ -16,22 +15,18 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  */
 @Configuration
 @EnableWebSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
 public class DiffSecurityConfiguration extends WebSecurityConfigurerAdapter {
 
-    @Value("${security.basic.user:user}")
-    private String user;
-
-    @Value("${security.basic.pass:pass}")
-    private String pass;
+    private final AuthenticationProvider diffAuthenticationProvider;
 
     /**
-     * {@inheritDoc}
+     * Verifies the Basic credentials with the provider defined by the {@link DiffAuthenticationConfiguration}.
      */
     @Override
-    protected void configure(AuthenticationManagerBuilder authenticationManagerBuilder) throws Exception {
-        authenticationManagerBuilder.inMemoryAuthentication()
-            .withUser(user).password(passwordEncoder().encode(pass))
-            .authorities("ROLE_USER");
+    protected void configure(AuthenticationManagerBuilder authenticationManagerBuilder) {
+        authenticationManagerBuilder.authenticationProvider(diffAuthenticationProvider);
     }
 
     /**
@@ -43,14 +38,4 @@ public class DiffSecurityConfiguration extends WebSecurityConfigurerAdapter {
             .csrf().disable()
             .authorizeRequests().anyRequest().fullyAuthenticated().and().httpBasic();
     }
-
-    /**
-     * Defines a {@link BCryptPasswordEncoder} as the password encoder bean.
-     *
-     * @return {@link BCryptPasswordEncoder} bean.
-     */
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
@@ -0,0 +1,191 @@
+package com.limac.diffservice.autoconfigure;
+
+import com.limac.diffservice.metrics.DiffStorageEndpoint;
+import com.limac.diffservice.repository.ChunkRepository;
+import com.limac.diffservice.repository.ContentDefinedChunker;
+import com.limac.diffservice.repository.DiffExpiryIndex;
+import com.limac.diffservice.repository.DiffRepository;
+import com.limac.diffservice.repository.PayloadCodec;
+import com.limac.diffservice.repository.PayloadSpill;
+import com.limac.diffservice.service.Base64InputMigration;
+import com.limac.diffservice.service.ChunkCollector;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration class to define the storage of the inline and binary inputs.
+ */
+@Configuration
+@EnableScheduling
+public class DiffStorageConfiguration {
+
+    @Value("${diff.storage.compression.enabled:true}")
+    private boolean compression;
+
+    @Value("${diff.storage.compression.threshold:256}")
+    private int compressionThreshold;
+
+    @Value("${diff.storage.inline-max-size:4194304}")
+    private int inlineMaxSize;
+
+    @Value("${diff.storage.migration.batch-size:100}")
+    private int migrationBatchSize;
+
+    @Value("${diff.storage.spill.threshold:16777216}")
+    private long spillThreshold;
+
+    @Value("${diff.storage.spill.directory:${java.io.tmpdir}}")
+    private String spillDirectory;
+
+    @Value("${diff.storage.chunks.min-size:2048}")
+    private int chunkMinSize;
+
+    @Value("${diff.storage.chunks.average-size:8192}")
+    private int chunkAverageSize;
+
+    @Value("${diff.storage.chunks.max-size:65536}")
+    private int chunkMaxSize;
+
+    @Value("${diff.storage.chunks.grace-period:3600000}")
+    private long chunkGracePeriod;
+
+    @Value("${diff.storage.expiry.ttl:0}")
+    private long expiryTtl;
+
+    @Value("${diff.storage.write-concern:ACKNOWLEDGED}")
+    private String writeConcern;
+
+    @Value("${diff.storage.read-preference:primary}")
+    private String readPreference;
+
+    /**
+     * Defines the {@link MongoTemplate} in place of the one of Spring Boot, writing with the write concern of the saves.
+     *
+     * @param mongoDbFactory factory of the database.
+     * @param mongoConverter converter of the documents.
+     * @return {@link MongoTemplate} bean.
+     * @throws IllegalArgumentException if the write concern is unknown.
+     */
+    @Bean
+    public MongoTemplate mongoTemplate(MongoDbFactory mongoDbFactory, MongoConverter mongoConverter) {
+        final MongoTemplate mongoTemplate = new MongoTemplate(mongoDbFactory, mongoConverter);
+        mongoTemplate.setWriteConcern(Optional.ofNullable(WriteConcern.valueOf(writeConcern))
+            .orElseThrow(() -> new IllegalArgumentException("unknown write concern: " + writeConcern)));
+
+        return mongoTemplate;
+    }
+
+    /**
+     * Defines the {@link ReadPreference} of the Diffs found to be compared, only read from the primary after they're saved.
+     *
+     * @return {@link ReadPreference} bean.
+     * @throws IllegalArgumentException if the read preference is unknown.
+     */
+    @Bean
+    public ReadPreference comparisonReadPreference() {
+        return ReadPreference.valueOf(readPreference);
+    }
+
+    /**
+     * Defines the default {@link GridFSBucket} of the database as the bucket of the binary inputs stored before the chunks.
+     *
+     * @param mongoDbFactory factory of the database.
+     * @return {@link GridFSBucket} bean.
+     */
+    @Bean
+    public GridFSBucket gridFsBucket(MongoDbFactory mongoDbFactory) {
+        return GridFSBuckets.create(mongoDbFactory.getDb());
+    }
+
+    /**
+     * Defines the {@link PayloadCodec} of the inputs stored inline.
+     *
+     * @return {@link PayloadCodec} bean.
+     * @throws IllegalArgumentException if the inline maximum size is too large for both inputs to fit in a document.
+     */
+    @Bean
+    public PayloadCodec payloadCodec() {
+        return new PayloadCodec(compression, compressionThreshold, inlineMaxSize);
+    }
+
+    /**
+     * Defines the {@link PayloadSpill} of the binary inputs compared through memory-mapped temporary files.
+     *
+     * @return {@link PayloadSpill} bean.
+     */
+    @Bean
+    public PayloadSpill payloadSpill() {
+        return new PayloadSpill(spillThreshold, Paths.get(spillDirectory));
+    }
+
+    /**
+     * Defines the {@link ContentDefinedChunker} of the inputs stored as chunks.
+     *
+     * @return {@link ContentDefinedChunker} bean.
+     */
+    @Bean
+    public ContentDefinedChunker contentDefinedChunker() {
+        return new ContentDefinedChunker(chunkMinSize, chunkAverageSize, chunkMaxSize);
+    }
+
+    /**
+     * Defines the {@link ChunkCollector} of the chunks no longer referenced.
+     *
+     * @param chunkRepository repository of the chunks.
+     * @return {@link ChunkCollector} bean.
+     */
+    @Bean
+    public ChunkCollector chunkCollector(ChunkRepository chunkRepository) {
+        return new ChunkCollector(chunkRepository, chunkGracePeriod, TimeUnit.SECONDS.toMillis(expiryTtl));
+    }
+
+    /**
+     * Defines the {@link DiffExpiryIndex} managing the expiry of the Diffs.
+     *
+     * @param mongoOperations operations of the database.
+     * @return {@link DiffExpiryIndex} bean.
+     */
+    @Bean
+    public DiffExpiryIndex diffExpiryIndex(MongoOperations mongoOperations) {
+        return new DiffExpiryIndex(mongoOperations, expiryTtl);
+    }
+
+    /**
+     * Defines the {@link DiffStorageEndpoint} reporting the size and the working set of the stored diffs.
+     *
+     * @param mongoOperations operations of the database.
+     * @return {@link DiffStorageEndpoint} bean.
+     */
+    @Bean
+    public DiffStorageEndpoint diffStorageEndpoint(MongoOperations mongoOperations) {
+        return new DiffStorageEndpoint(mongoOperations, expiryTtl);
+    }
+
+    /**
+     * Defines the {@link Base64InputMigration}, only if it's enabled.
+     *
+     * @param diffRepository repository of the inputs to be migrated.
+     * @param payloadCodec codec of the migrated inputs.
+     * @return {@link Base64InputMigration} bean.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "diff.storage.migration.enabled", havingValue = "true")
+    public Base64InputMigration base64InputMigration(DiffRepository diffRepository, PayloadCodec payloadCodec) {
+        return new Base64InputMigration(diffRepository, payloadCodec, migrationBatchSize);
+    }
+}
@@ -0,0 +1,53 @@
+package com.limac.diffservice.autoconfigure;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration class to define the bounded executor writing the streamed responses, so they don't hold the Tomcat workers.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class DiffStreamConfiguration implements WebMvcConfigurer {
+
+    @Value("${diff.stream.pool-size:8}")
+    private int poolSize;
+
+    @Value("${diff.stream.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${diff.stream.timeout:300000}")
+    private long timeout;
+
+    /**
+     * Defines a bounded {@link ThreadPoolTaskExecutor} to write the streamed responses.
+     *
+     * @return {@link ThreadPoolTaskExecutor} bean.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor diffStreamExecutor() {
+        final ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+        threadPoolTaskExecutor.setCorePoolSize(poolSize);
+        threadPoolTaskExecutor.setMaxPoolSize(poolSize);
+        threadPoolTaskExecutor.setQueueCapacity(queueCapacity);
+        threadPoolTaskExecutor.setThreadNamePrefix("diff-stream-");
+
+        return threadPoolTaskExecutor;
+    }
+
+    /**
+     * Writes the streamed responses with the executor bean and the stream timeout in milliseconds.
+     *
+     * @param configurer configurer of the asynchronous requests.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(diffStreamExecutor());
+        configurer.setDefaultTimeout(timeout);
+    }
+}
@@ -1,6 +1,7 @@
 package com.limac.diffservice.autoconfigure;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
@@ -22,6 +23,7 @@ import java.util.Collections;
 @Configuration
 @PropertySource("classpath:swagger.properties")
 @EnableSwagger2
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SwaggerAutoConfiguration {
 
     private static final String EMPTY_STRING = "";
@@ -0,0 +1,53 @@
+package com.limac.diffservice.cache;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Digests of the decoded inputs, used to detect equal inputs and to key the cached results without reading the inputs.
+ */
+public final class ContentDigest {
+
+    static final String ALGORITHM = "SHA-256";
+
+    private ContentDigest() {
+    }
+
+    /**
+     * Creates a {@link MessageDigest} to digest an input read in chunks.
+     *
+     * @return {@link MessageDigest} of the digest algorithm.
+     */
+    public static MessageDigest newMessageDigest() {
+        return newMessageDigest(ALGORITHM);
+    }
+
+    static MessageDigest newMessageDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalArgumentException("unsupported digest algorithm: " + algorithm, exception);
+        }
+    }
+
+    /**
+     * Digests the whole input.
+     *
+     * @param input decoded input.
+     * @return digest of the input.
+     */
+    public static String digest(byte[] input) {
+        return encode(newMessageDigest().digest(input));
+    }
+
+    /**
+     * Encodes a digest computed by a {@link MessageDigest}.
+     *
+     * @param digest digest bytes.
+     * @return digest encoded in base64.
+     */
+    public static String encode(byte[] digest) {
+        return Base64.getEncoder().encodeToString(digest);
+    }
+}
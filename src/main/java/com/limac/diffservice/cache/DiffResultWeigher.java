@@ -0,0 +1,24 @@
+package com.limac.diffservice.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.limac.diffservice.rest.dto.DiffDto;
+
+/**
+ * {@link Weigher} estimating the bytes retained by a cached result, so the cache is bounded by memory and not by entries.
+ */
+public class DiffResultWeigher implements Weigher<String, DiffDto> {
+
+    static final int ENTRY_WEIGHT = 128;
+    static final int DIFF_RESULT_WEIGHT = 48;
+
+    /**
+     * {@inheritDoc}
+     * The weight is clamped to {@link Integer#MAX_VALUE}, so the results with too many diff results to be weighed are the heaviest.
+     */
+    @Override
+    public int weigh(String key, DiffDto diffDto) {
+        final int diffResults = diffDto.getDiffResults() == null ? 0 : diffDto.getDiffResults().size();
+
+        return (int) Math.min(Integer.MAX_VALUE, ENTRY_WEIGHT + (long) key.length() * Character.BYTES + (long) diffResults * DIFF_RESULT_WEIGHT);
+    }
+}
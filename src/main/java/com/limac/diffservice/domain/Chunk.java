@@ -0,0 +1,33 @@
+package com.limac.diffservice.domain;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.TypeAlias;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/**
+ * Chunk domain object.
+ * The inputs are split in chunks at content-defined boundaries, and each distinct chunk is stored once, addressed by its digest,
+ * with the number of references of the inputs to it. The chunks no longer referenced are removed once the grace period after their
+ * last update has passed.
+ */
+@Data
+@Document(collection = "chunks")
+@TypeAlias("CHUNK")
+@CompoundIndex(name = "unreferenced", def = "{'refCount': 1, 'updatedAt': 1}")
+public class Chunk {
+
+    @Id
+    private String digest;
+
+    private byte[] data;
+
+    private int length;
+
+    private long refCount;
+
+    private Date updatedAt;
+}
@@ -0,0 +1,18 @@
+package com.limac.diffservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reference of an input to one of its {@link Chunk}s, in the order of the input.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkReference {
+
+    private String digest;
+
+    private int length;
+}
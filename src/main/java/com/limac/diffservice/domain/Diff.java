@@ -1,12 +1,22 @@
 package com.limac.diffservice.domain;
 
+import com.limac.diffservice.type.ResultType;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.TypeAlias;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Date;
+import java.util.List;
+
 /**
  * Diff domain object.
+ * The inputs are stored inline as payloads encoded by the {@link com.limac.diffservice.repository.PayloadCodec},
+ * or as references to their {@link Chunk}s. The files in GridFS are only read from the documents saved before the chunks.
+ * The inputs larger than a block have the {@link MerkleTree} of their blocks, to skip the equal blocks when they're compared.
+ * The base64 left and right values are no longer stored, they are only read from the documents
+ * saved before the payloads until they are migrated, and returned by the saves.
+ * The Diffs expire once the time to live after their creation has passed, if the expiry index is enabled.
  */
 @Data
 @Document(collection = "diffs")
@@ -19,4 +29,32 @@ public class Diff {
     private String left;
 
     private String right;
+
+    private byte[] leftPayload;
+
+    private byte[] rightPayload;
+
+    private String leftFileId;
+
+    private String rightFileId;
+
+    private List<ChunkReference> leftChunks;
+
+    private List<ChunkReference> rightChunks;
+
+    private MerkleTree leftTree;
+
+    private MerkleTree rightTree;
+
+    private String leftDigest;
+
+    private String rightDigest;
+
+    private ResultType resultType;
+
+    private List<DiffResult> diffResults;
+
+    private Date createdAt;
+
+    private Date updatedAt;
 }
@@ -0,0 +1,18 @@
+package com.limac.diffservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Mismatch run of the result of the {@link Diff} comparison, stored with the {@link Diff}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiffResult {
+
+    private int offset;
+
+    private int length;
+}
@@ -0,0 +1,22 @@
+package com.limac.diffservice.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Merkle tree of the hashes of the fixed-size blocks of an input, built when the input is saved.
+ * The first level has the hash of each block, in the order of the input, and each next level has the hash of each pair of hashes
+ * of the level below, up to the last level with the root hash of the whole input. Each level is stored as its hashes one after the other.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerkleTree {
+
+    private int blockSize;
+
+    private List<byte[]> levels;
+}
@@ -0,0 +1,96 @@
+package com.limac.diffservice.engine;
+
+import com.limac.diffservice.rest.dto.DiffResultDto;
+import com.limac.diffservice.rest.dto.DiffSummaryDto;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link DiffResultListener} merging the mismatch runs separated by at most a gap of equal bytes, keeping at most a maximum number
+ * of merged runs, and summarizing all the runs in the same pass.
+ * The comparison is never stopped, so the summary covers the whole inputs while only the kept runs are held in memory.
+ * The merge gap is the maximum number of equal bytes between two runs to merge them, so 0 merges none.
+ */
+@RequiredArgsConstructor
+public class CoalescingDiffResultListener implements DiffResultListener {
+
+    private final int mergeGap;
+    private final int maxRuns;
+    private final List<DiffResultDto> diffResults = new ArrayList<>();
+
+    private int pendingOffset = -1;
+    private int pendingLength;
+    private long differingBytes;
+    private int runs;
+    private int firstOffset = -1;
+    private int lastOffset = -1;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean onDiffResult(int offset, int length) {
+        differingBytes += length;
+        lastOffset = offset + length - 1;
+
+        if (firstOffset < 0) {
+            firstOffset = offset;
+        }
+
+        if (pendingOffset >= 0 && (long) offset - pendingOffset - pendingLength <= mergeGap) {
+            pendingLength = offset + length - pendingOffset;
+        } else {
+            flush();
+            pendingOffset = offset;
+            pendingLength = length;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the merged runs kept, once the comparison is finished.
+     *
+     * @return merged runs, in the order of the offsets.
+     */
+    public List<DiffResultDto> getDiffResults() {
+        flush();
+
+        return Collections.unmodifiableList(diffResults);
+    }
+
+    /**
+     * Returns the summary of all the runs, once the comparison is finished.
+     *
+     * @return {@link DiffSummaryDto} with the differing bytes, the number of merged runs, the offsets of the first and last
+     *     differing bytes, if there's any, and whether any merged run was not kept.
+     */
+    public DiffSummaryDto getSummary() {
+        flush();
+
+        return DiffSummaryDto.builder()
+            .differingBytes(differingBytes)
+            .runs(runs)
+            .firstOffset(firstOffset < 0 ? null : firstOffset)
+            .lastOffset(lastOffset < 0 ? null : lastOffset)
+            .truncated(runs > maxRuns)
+            .build();
+    }
+
+    private void flush() {
+        if (pendingOffset < 0) {
+            return;
+        }
+
+        runs++;
+
+        if (diffResults.size() < maxRuns) {
+            diffResults.add(DiffResultDto.builder().offset(pendingOffset).length(pendingLength).build());
+        }
+
+        pendingOffset = -1;
+    }
+}
@@ -0,0 +1,41 @@
+package com.limac.diffservice.engine;
+
+import com.limac.diffservice.rest.dto.DiffResultDto;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Engine to find the mismatch runs between two decoded inputs of the same size.
+ */
+public interface DiffEngine {
+
+    /**
+     * Compares the remaining bytes of the left and right buffers.
+     * The positions of the given buffers are not changed.
+     *
+     * @param left left decoded input.
+     * @param right right decoded input, with the same number of remaining bytes as the left one.
+     *
+     * @return {@link DiffResultDto} for each mismatch run, with offsets relative to the buffer positions.
+     */
+    default List<DiffResultDto> compare(ByteBuffer left, ByteBuffer right) {
+        final List<DiffResultDto> diffResults = new ArrayList<>();
+
+        compare(left, right, (offset, length) -> diffResults.add(DiffResultDto.builder().offset(offset).length(length).build()));
+
+        return diffResults;
+    }
+
+    /**
+     * Compares the remaining bytes of the left and right buffers, passing each mismatch run to the listener as soon as it's found,
+     * so the runs are not held in memory.
+     * The positions of the given buffers are not changed.
+     *
+     * @param left left decoded input.
+     * @param right right decoded input, with the same number of remaining bytes as the left one.
+     * @param listener listener of the mismatch runs, with offsets relative to the buffer positions.
+     */
+    void compare(ByteBuffer left, ByteBuffer right, DiffResultListener listener);
+}
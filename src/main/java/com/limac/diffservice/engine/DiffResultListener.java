@@ -0,0 +1,18 @@
+package com.limac.diffservice.engine;
+
+/**
+ * Listener of the mismatch runs found by a {@link DiffEngine}, called in the order of the offsets as soon as each run is found.
+ */
+@FunctionalInterface
+public interface DiffResultListener {
+
+    /**
+     * Receives a mismatch run.
+     *
+     * @param offset offset of the run, relative to the positions of the compared buffers.
+     * @param length length of the run.
+     *
+     * @return true to keep comparing, false to stop the comparison.
+     */
+    boolean onDiffResult(int offset, int length);
+}
@@ -0,0 +1,26 @@
+package com.limac.diffservice.engine;
+
+import com.limac.diffservice.rest.dto.EditDto;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Edit script found by the {@link MyersEditEngine}, turning the left input into the right input.
+ */
+@Getter
+@RequiredArgsConstructor
+public class EditScript {
+
+    /**
+     * Ranges of equal, deleted and inserted bytes, in the order of the offsets.
+     */
+    private final List<EditDto> edits;
+
+    /**
+     * Whether the budget was exhausted, so some ranges were reported as a deletion followed by an insertion
+     * instead of their shortest edit script.
+     */
+    private final boolean coarse;
+}
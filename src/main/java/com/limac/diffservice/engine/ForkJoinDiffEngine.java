@@ -0,0 +1,180 @@
+package com.limac.diffservice.engine;
+
+import com.limac.diffservice.rest.dto.DiffResultDto;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link DiffEngine} implementation that splits large inputs into segments and compares them in parallel on a {@link ForkJoinPool}.
+ * Inputs smaller than the threshold are compared by the delegate engine on the calling thread.
+ * The mismatch runs of each segment are stitched together, so a run crossing a segment boundary is reported only once
+ * and the results are the same as the ones from the delegate engine.
+ * The segments are compared in windows of one segment per thread of the pool, so only the runs of a window are held in memory
+ * before being passed to the listener.
+ */
+public class ForkJoinDiffEngine implements DiffEngine {
+
+    private final DiffEngine delegate;
+    private final ForkJoinPool forkJoinPool;
+    private final int threshold;
+    private final int segmentSize;
+
+    /**
+     * Construct a ForkJoinDiffEngine instance.
+     *
+     * @param delegate engine comparing the inputs smaller than the threshold and each segment.
+     * @param forkJoinPool pool comparing the segments in parallel.
+     * @param threshold minimum size of the inputs compared in parallel.
+     * @param segmentSize size of each segment, greater than zero.
+     * @throws IllegalArgumentException if the segment size isn't greater than zero.
+     */
+    public ForkJoinDiffEngine(DiffEngine delegate, ForkJoinPool forkJoinPool, int threshold, int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("the segment size must be greater than zero: " + segmentSize);
+        }
+
+        this.delegate = delegate;
+        this.forkJoinPool = forkJoinPool;
+        this.threshold = threshold;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void compare(ByteBuffer left, ByteBuffer right, DiffResultListener listener) {
+        if (left.remaining() != right.remaining()) {
+            throw new IllegalArgumentException("left and right inputs must have the same size");
+        }
+
+        if (left.remaining() < threshold) {
+            delegate.compare(left, right, listener);
+            return;
+        }
+
+        final ByteBuffer leftSlice = left.slice();
+        final ByteBuffer rightSlice = right.slice();
+        final int size = leftSlice.remaining();
+        final long windowSize = (long) segmentSize * forkJoinPool.getParallelism();
+
+        DiffResultDto pending = null;
+
+        for (long from = 0; from < size; from += windowSize) {
+            final List<DiffResultDto> windowResults =
+                forkJoinPool.invoke(new CompareTask(leftSlice, rightSlice, (int) from, (int) Math.min(size - from, windowSize)));
+
+            for (final DiffResultDto diffResult : windowResults) {
+                if (pending != null && pending.getOffset() + pending.getLength() == diffResult.getOffset()) {
+                    pending.setLength(pending.getLength() + diffResult.getLength());
+                } else {
+                    if (pending != null && !listener.onDiffResult(pending.getOffset(), pending.getLength())) {
+                        return;
+                    }
+
+                    pending = diffResult;
+                }
+            }
+        }
+
+        if (pending != null) {
+            listener.onDiffResult(pending.getOffset(), pending.getLength());
+        }
+    }
+
+    private static void stitch(List<DiffResultDto> diffResults, List<DiffResultDto> segmentResults) {
+        if (segmentResults.isEmpty()) {
+            return;
+        }
+
+        int first = 0;
+
+        if (!diffResults.isEmpty()) {
+            final DiffResultDto last = diffResults.get(diffResults.size() - 1);
+            final DiffResultDto next = segmentResults.get(0);
+
+            if (last.getOffset() + last.getLength() == next.getOffset()) {
+                last.setLength(last.getLength() + next.getLength());
+                first = 1;
+            }
+        }
+
+        diffResults.addAll(segmentResults.subList(first, segmentResults.size()));
+    }
+
+    private final class CompareTask extends RecursiveTask<List<DiffResultDto>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ByteBuffer left;
+        private final transient ByteBuffer right;
+        private final int from;
+        private final int length;
+
+        CompareTask(ByteBuffer left, ByteBuffer right, int from, int length) {
+            this.left = left;
+            this.right = right;
+            this.from = from;
+            this.length = length;
+        }
+
+        @Override
+        protected List<DiffResultDto> compute() {
+            final int end = from + length;
+            final List<SegmentTask> segmentTasks = new ArrayList<>();
+
+            for (int segmentFrom = from; segmentFrom < end; segmentFrom += segmentSize) {
+                segmentTasks.add(new SegmentTask(left, right, segmentFrom, Math.min(end - segmentFrom, segmentSize)));
+            }
+
+            invokeAll(segmentTasks);
+
+            final List<DiffResultDto> diffResults = new ArrayList<>();
+
+            for (final SegmentTask segmentTask : segmentTasks) {
+                stitch(diffResults, segmentTask.join());
+            }
+
+            return diffResults;
+        }
+    }
+
+    private final class SegmentTask extends RecursiveTask<List<DiffResultDto>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ByteBuffer left;
+        private final transient ByteBuffer right;
+        private final int from;
+        private final int length;
+
+        SegmentTask(ByteBuffer left, ByteBuffer right, int from, int length) {
+            this.left = left;
+            this.right = right;
+            this.from = from;
+            this.length = length;
+        }
+
+        @Override
+        protected List<DiffResultDto> compute() {
+            final List<DiffResultDto> segmentResults = delegate.compare(segment(left), segment(right));
+
+            segmentResults.forEach(diffResult -> diffResult.setOffset(diffResult.getOffset() + from));
+
+            return segmentResults;
+        }
+
+        private ByteBuffer segment(ByteBuffer byteBuffer) {
+            final ByteBuffer segment = byteBuffer.duplicate();
+
+            segment.position(from);
+            segment.limit(from + length);
+
+            return segment;
+        }
+    }
+}
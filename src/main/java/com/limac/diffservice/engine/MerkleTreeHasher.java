@@ -0,0 +1,154 @@
+package com.limac.diffservice.engine;
+
+import com.limac.diffservice.cache.ContentDigest;
+import com.limac.diffservice.domain.MerkleTree;
+import lombok.RequiredArgsConstructor;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the {@link MerkleTree}s of the inputs larger than a block, and finds the blocks that differ between two inputs of the same size
+ * by descending only into the subtrees whose hashes differ, so the cost of skipping the equal blocks depends on the number of differences
+ * and not on the size of the inputs.
+ * The hashes are the first 16 bytes of the SHA-256 digests of the blocks, and of the pairs of hashes of the level below.
+ */
+@RequiredArgsConstructor
+public class MerkleTreeHasher {
+
+    static final int HASH_LENGTH = 16;
+
+    private final int blockSize;
+
+    /**
+     * Whether the {@link MerkleTree} of an input of the given size is built, as it's only useful for the inputs with several blocks.
+     *
+     * @param size size of the input.
+     * @return true if the input is larger than a block.
+     */
+    public boolean isIndexed(long size) {
+        return size > blockSize;
+    }
+
+    /**
+     * Builds the {@link MerkleTree} of the whole input.
+     *
+     * @param input decoded input.
+     * @return {@link MerkleTree} of the input.
+     */
+    public MerkleTree tree(byte[] input) {
+        final MessageDigest messageDigest = ContentDigest.newMessageDigest();
+        final int blocks = (int) ((input.length + (long) blockSize - 1) / blockSize);
+        final byte[] leaves = new byte[blocks * HASH_LENGTH];
+
+        for (int block = 0; block < blocks; block++) {
+            final int offset = block * blockSize;
+
+            messageDigest.update(input, offset, Math.min(blockSize, input.length - offset));
+            System.arraycopy(messageDigest.digest(), 0, leaves, block * HASH_LENGTH, HASH_LENGTH);
+        }
+
+        return fromLeaves(leaves);
+    }
+
+    /**
+     * Wraps the input read from the given stream to build its {@link MerkleTree} while it's read, without holding the input in memory.
+     *
+     * @param inputStream stream with the input.
+     * @return {@link MerkleTreeInputStream} reading the input.
+     */
+    public MerkleTreeInputStream inputStream(InputStream inputStream) {
+        return new MerkleTreeInputStream(inputStream, this, blockSize);
+    }
+
+    /**
+     * Whether the blocks of two inputs of the same size can be compared by their {@link MerkleTree}s.
+     *
+     * @param left {@link MerkleTree} of the left input, or null if it was not built.
+     * @param right {@link MerkleTree} of the right input, or null if it was not built.
+     * @return true if both trees were built with the same block size and have the same number of blocks.
+     */
+    public boolean isComparable(MerkleTree left, MerkleTree right) {
+        return left != null && right != null && left.getBlockSize() == right.getBlockSize()
+            && left.getLevels().get(0).length == right.getLevels().get(0).length;
+    }
+
+    /**
+     * Finds the ranges of the blocks whose hashes differ, descending from the root hashes only into the subtrees whose hashes differ.
+     *
+     * @param left {@link MerkleTree} of the left input.
+     * @param right {@link MerkleTree} of the right input, comparable with the left one.
+     * @param size size of both inputs.
+     * @return start and end offsets of each range of adjacent differing blocks, in the order of the inputs.
+     */
+    public List<int[]> differingRanges(MerkleTree left, MerkleTree right, int size) {
+        final List<int[]> ranges = new ArrayList<>();
+
+        descend(left, right, left.getLevels().size() - 1, 0, size, ranges);
+
+        return ranges;
+    }
+
+    /**
+     * Builds the upper levels of the {@link MerkleTree} from the hashes of the blocks.
+     */
+    MerkleTree fromLeaves(byte[] leaves) {
+        final MessageDigest messageDigest = ContentDigest.newMessageDigest();
+        final List<byte[]> levels = new ArrayList<>();
+
+        byte[] level = leaves;
+        levels.add(level);
+
+        while (level.length > HASH_LENGTH) {
+            level = parents(level, messageDigest);
+            levels.add(level);
+        }
+
+        return new MerkleTree(blockSize, levels);
+    }
+
+    private static byte[] parents(byte[] level, MessageDigest messageDigest) {
+        final int children = level.length / HASH_LENGTH;
+        final int parents = (children + 1) / 2;
+        final byte[] parentLevel = new byte[parents * HASH_LENGTH];
+
+        for (int parent = 0; parent < parents; parent++) {
+            messageDigest.update(level, 2 * parent * HASH_LENGTH, Math.min(2, children - 2 * parent) * HASH_LENGTH);
+            System.arraycopy(messageDigest.digest(), 0, parentLevel, parent * HASH_LENGTH, HASH_LENGTH);
+        }
+
+        return parentLevel;
+    }
+
+    private static void descend(MerkleTree left, MerkleTree right, int level, int index, int size, List<int[]> ranges) {
+        final int offset = index * HASH_LENGTH;
+
+        if (ByteBuffer.wrap(left.getLevels().get(level), offset, HASH_LENGTH)
+            .equals(ByteBuffer.wrap(right.getLevels().get(level), offset, HASH_LENGTH))) {
+            return;
+        }
+
+        if (level > 0) {
+            descend(left, right, level - 1, 2 * index, size, ranges);
+
+            if ((2 * index + 1) * HASH_LENGTH < left.getLevels().get(level - 1).length) {
+                descend(left, right, level - 1, 2 * index + 1, size, ranges);
+            }
+
+            return;
+        }
+
+        final int start = index * left.getBlockSize();
+        final int end = (int) Math.min((long) start + left.getBlockSize(), size);
+        final int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+
+        if (last != null && last[1] == start) {
+            last[1] = end;
+        } else {
+            ranges.add(new int[] {start, end});
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.limac.diffservice.engine;
+
+import com.limac.diffservice.cache.ContentDigest;
+import com.limac.diffservice.domain.MerkleTree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+/**
+ * {@link FilterInputStream} hashing the blocks of the bytes read from the underlying stream, to build their {@link MerkleTree}
+ * once the stream is read until the end.
+ */
+public class MerkleTreeInputStream extends FilterInputStream {
+
+    private final MerkleTreeHasher merkleTreeHasher;
+    private final int blockSize;
+    private final MessageDigest messageDigest = ContentDigest.newMessageDigest();
+    private final ByteArrayOutputStream leaves = new ByteArrayOutputStream();
+
+    private int blockFilled;
+
+    /**
+     * Construct a MerkleTreeInputStream instance.
+     *
+     * @param inputStream stream to be hashed.
+     * @param merkleTreeHasher hasher building the upper levels of the tree.
+     * @param blockSize size of the hashed blocks.
+     */
+    MerkleTreeInputStream(InputStream inputStream, MerkleTreeHasher merkleTreeHasher, int blockSize) {
+        super(inputStream);
+        this.merkleTreeHasher = merkleTreeHasher;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        final int value = super.read();
+
+        if (value >= 0) {
+            hash(new byte[] {(byte) value}, 0, 1);
+        }
+
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        final int read = super.read(bytes, offset, length);
+
+        if (read > 0) {
+            hash(bytes, offset, read);
+        }
+
+        return read;
+    }
+
+    /**
+     * Builds the {@link MerkleTree} of the bytes read so far.
+     *
+     * @return {@link MerkleTree} of the bytes read.
+     */
+    public MerkleTree getTree() {
+        if (blockFilled > 0) {
+            completeBlock();
+        }
+
+        return merkleTreeHasher.fromLeaves(leaves.toByteArray());
+    }
+
+    private void hash(byte[] bytes, int offset, int length) {
+        int hashed = 0;
+
+        while (hashed < length) {
+            final int count = Math.min(length - hashed, blockSize - blockFilled);
+
+            messageDigest.update(bytes, offset + hashed, count);
+            blockFilled += count;
+            hashed += count;
+
+            if (blockFilled == blockSize) {
+                completeBlock();
+            }
+        }
+    }
+
+    private void completeBlock() {
+        leaves.write(messageDigest.digest(), 0, MerkleTreeHasher.HASH_LENGTH);
+        blockFilled = 0;
+    }
+}
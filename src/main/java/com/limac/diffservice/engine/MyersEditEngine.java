@@ -0,0 +1,246 @@
+package com.limac.diffservice.engine;
+
+import com.limac.diffservice.rest.dto.EditDto;
+import com.limac.diffservice.type.EditType;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the shortest script of insertions and deletions turning the left input into the right input, with the O(ND) algorithm by Myers
+ * refined to linear space: the middle snake of the shortest path is found by searching from both ends at the same time,
+ * then both halves are compared recursively, so only two vectors of furthest reaching paths are held at any time.
+ * The search of each range is bounded by the maximum edit distance and the whole comparison by the timeout,
+ * beyond which the range is reported as a deletion followed by an insertion and the script is flagged as coarse.
+ */
+@RequiredArgsConstructor
+public class MyersEditEngine {
+
+    private final int maxEditDistance;
+    private final long timeoutMillis;
+
+    /**
+     * Compares the remaining bytes of the inputs.
+     *
+     * @param left left input.
+     * @param right right input.
+     * @return {@link EditScript} turning the left input into the right input.
+     */
+    public EditScript compare(ByteBuffer left, ByteBuffer right) {
+        final EditSearch editSearch = new EditSearch(left.slice(), right.slice(), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+
+        editSearch.diff(0, left.remaining(), 0, right.remaining());
+
+        return new EditScript(editSearch.edits, editSearch.coarse);
+    }
+
+    /**
+     * State of a single comparison, appending the edits in the order of the offsets.
+     */
+    private final class EditSearch {
+
+        private final ByteBuffer left;
+        private final ByteBuffer right;
+        private final long deadline;
+        private final List<EditDto> edits = new ArrayList<>();
+
+        private boolean coarse;
+
+        private EditSearch(ByteBuffer left, ByteBuffer right, long deadline) {
+            this.left = left;
+            this.right = right;
+            this.deadline = deadline;
+        }
+
+        private void diff(int leftFrom, int leftTo, int rightFrom, int rightTo) {
+            int prefix = 0;
+
+            while (leftFrom + prefix < leftTo && rightFrom + prefix < rightTo && left.get(leftFrom + prefix) == right.get(rightFrom + prefix)) {
+                prefix++;
+            }
+
+            int suffix = 0;
+
+            while (leftTo - suffix > leftFrom + prefix && rightTo - suffix > rightFrom + prefix
+                && left.get(leftTo - suffix - 1) == right.get(rightTo - suffix - 1)) {
+                suffix++;
+            }
+
+            add(EditType.EQUAL, leftFrom, rightFrom, prefix);
+            diffMiddle(leftFrom + prefix, leftTo - suffix, rightFrom + prefix, rightTo - suffix);
+            add(EditType.EQUAL, leftTo - suffix, rightTo - suffix, suffix);
+        }
+
+        private void diffMiddle(int leftFrom, int leftTo, int rightFrom, int rightTo) {
+            if (leftFrom == leftTo || rightFrom == rightTo || !bisect(leftFrom, leftTo, rightFrom, rightTo)) {
+                add(EditType.DELETE, leftFrom, rightFrom, leftTo - leftFrom);
+                add(EditType.INSERT, leftTo, rightFrom, rightTo - rightFrom);
+            }
+        }
+
+        private boolean bisect(int leftFrom, int leftTo, int rightFrom, int rightTo) {
+            final Bisection bisection = new Bisection(left, right, leftFrom, leftTo, rightFrom, rightTo, maxEditDistance);
+
+            int distance = 0;
+
+            while (distance < bisection.maxDistance && System.nanoTime() - deadline < 0) {
+                if (bisection.searchForward(distance) || bisection.searchReverse(distance)) {
+                    diff(leftFrom, leftFrom + bisection.splitLeft, rightFrom, rightFrom + bisection.splitRight);
+                    diff(leftFrom + bisection.splitLeft, leftTo, rightFrom + bisection.splitRight, rightTo);
+
+                    return true;
+                }
+
+                distance++;
+            }
+
+            coarse |= distance < bisection.maxDistance || bisection.bounded;
+
+            return false;
+        }
+
+        private void add(EditType type, int leftOffset, int rightOffset, int length) {
+            if (length == 0) {
+                return;
+            }
+
+            final EditDto last = edits.isEmpty() ? null : edits.get(edits.size() - 1);
+
+            if (last != null && last.getType() == type) {
+                last.setLength(last.getLength() + length);
+            } else {
+                edits.add(EditDto.builder().type(type).leftOffset(leftOffset).rightOffset(rightOffset).length(length).build());
+            }
+        }
+    }
+
+    /**
+     * Search of the middle snake of a range, keeping the furthest reaching paths on each diagonal from both ends.
+     * The paths from the end are indexed by the distance from the end of the range.
+     * Without a bound, the paths meet before the maximum distance unless the range has no byte in common,
+     * so the deletion followed by the insertion is then the shortest script.
+     */
+    private static final class Bisection {
+
+        private final ByteBuffer left;
+        private final ByteBuffer right;
+        private final int leftFrom;
+        private final int rightFrom;
+        private final int leftLength;
+        private final int rightLength;
+        private final int delta;
+        private final boolean oddDelta;
+        private final int maxDistance;
+        private final boolean bounded;
+        private final int[] forwardPaths;
+        private final int[] reversePaths;
+
+        private int forwardStart;
+        private int forwardEnd;
+        private int reverseStart;
+        private int reverseEnd;
+        private int splitLeft;
+        private int splitRight;
+
+        private Bisection(ByteBuffer left, ByteBuffer right, int leftFrom, int leftTo, int rightFrom, int rightTo, int maxEditDistance) {
+            this.left = left;
+            this.right = right;
+            this.leftFrom = leftFrom;
+            this.rightFrom = rightFrom;
+            this.leftLength = leftTo - leftFrom;
+            this.rightLength = rightTo - rightFrom;
+            this.delta = leftLength - rightLength;
+            this.oddDelta = (delta & 1) != 0;
+            this.maxDistance = Math.min((leftLength + rightLength + 1) / 2, maxEditDistance / 2 + 1);
+            this.bounded = maxDistance < (leftLength + rightLength + 1) / 2;
+            this.forwardPaths = paths(maxDistance);
+            this.reversePaths = paths(maxDistance);
+        }
+
+        private static int[] paths(int maxDistance) {
+            final int[] paths = new int[2 * maxDistance + 2];
+            Arrays.fill(paths, -1);
+            paths[maxDistance + 1] = 0;
+
+            return paths;
+        }
+
+        private boolean searchForward(int distance) {
+            for (int diagonal = forwardStart - distance; diagonal <= distance - forwardEnd; diagonal += 2) {
+                int leftIndex = furthest(forwardPaths, diagonal, distance);
+                int rightIndex = leftIndex - diagonal;
+
+                while (leftIndex < leftLength && rightIndex < rightLength && left.get(leftFrom + leftIndex) == right.get(rightFrom + rightIndex)) {
+                    leftIndex++;
+                    rightIndex++;
+                }
+
+                forwardPaths[maxDistance + diagonal] = leftIndex;
+
+                if (leftIndex > leftLength) {
+                    forwardEnd += 2;
+                } else if (rightIndex > rightLength) {
+                    forwardStart += 2;
+                } else if (oddDelta && reached(reversePaths, delta - diagonal, leftLength - leftIndex)) {
+                    return split(leftIndex, rightIndex);
+                }
+            }
+
+            return false;
+        }
+
+        private boolean searchReverse(int distance) {
+            for (int diagonal = reverseStart - distance; diagonal <= distance - reverseEnd; diagonal += 2) {
+                int leftIndex = furthest(reversePaths, diagonal, distance);
+                int rightIndex = leftIndex - diagonal;
+
+                while (leftIndex < leftLength && rightIndex < rightLength
+                    && left.get(leftFrom + leftLength - leftIndex - 1) == right.get(rightFrom + rightLength - rightIndex - 1)) {
+                    leftIndex++;
+                    rightIndex++;
+                }
+
+                reversePaths[maxDistance + diagonal] = leftIndex;
+
+                if (leftIndex > leftLength) {
+                    reverseEnd += 2;
+                } else if (rightIndex > rightLength) {
+                    reverseStart += 2;
+                } else if (!oddDelta && reached(forwardPaths, delta - diagonal, leftLength - leftIndex)) {
+                    final int forwardIndex = forwardPaths[maxDistance + delta - diagonal];
+
+                    return split(forwardIndex, forwardIndex - delta + diagonal);
+                }
+            }
+
+            return false;
+        }
+
+        private int furthest(int[] paths, int diagonal, int distance) {
+            final int index = maxDistance + diagonal;
+
+            if (diagonal == -distance || diagonal != distance && paths[index - 1] < paths[index + 1]) {
+                return paths[index + 1];
+            }
+
+            return paths[index - 1] + 1;
+        }
+
+        private boolean reached(int[] paths, int diagonal, int leftIndex) {
+            final int index = maxDistance + diagonal;
+
+            return index >= 0 && index < paths.length && paths[index] != -1 && paths[index] >= leftIndex;
+        }
+
+        private boolean split(int leftIndex, int rightIndex) {
+            splitLeft = leftIndex;
+            splitRight = rightIndex;
+
+            return true;
+        }
+    }
+}
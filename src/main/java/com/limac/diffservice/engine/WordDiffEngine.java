@@ -0,0 +1,86 @@
+package com.limac.diffservice.engine;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * {@link DiffEngine} implementation that compares the inputs 8 bytes at a time.
+ * Each pair of words is XORed, so equal regions are skipped a whole word per iteration and the exact byte
+ * where a run starts or ends is found from the trailing zeros of the XOR, as the words are read in little endian.
+ */
+@Component
+public class WordDiffEngine implements DiffEngine {
+
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final int BITS_TO_BYTES_SHIFT = 3;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void compare(ByteBuffer left, ByteBuffer right, DiffResultListener listener) {
+        if (left.remaining() != right.remaining()) {
+            throw new IllegalArgumentException("left and right inputs must have the same size");
+        }
+
+        final ByteBuffer leftWords = left.slice().order(ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer rightWords = right.slice().order(ByteOrder.LITTLE_ENDIAN);
+        final int size = leftWords.remaining();
+
+        int offset = nextMismatch(leftWords, rightWords, 0, size);
+
+        while (offset < size) {
+            final int end = nextMatch(leftWords, rightWords, offset, size);
+
+            if (!listener.onDiffResult(offset, end - offset)) {
+                return;
+            }
+
+            offset = nextMismatch(leftWords, rightWords, end, size);
+        }
+    }
+
+    private static int nextMismatch(ByteBuffer left, ByteBuffer right, int from, int size) {
+        int index = from;
+
+        while (index <= size - Long.BYTES) {
+            final long xor = left.getLong(index) ^ right.getLong(index);
+
+            if (xor != 0) {
+                return index + (Long.numberOfTrailingZeros(xor) >>> BITS_TO_BYTES_SHIFT);
+            }
+
+            index += Long.BYTES;
+        }
+
+        while (index < size && left.get(index) == right.get(index)) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static int nextMatch(ByteBuffer left, ByteBuffer right, int from, int size) {
+        int index = from;
+
+        while (index <= size - Long.BYTES) {
+            final long xor = left.getLong(index) ^ right.getLong(index);
+            final long equalBytes = (xor - LOW_BITS) & ~xor & HIGH_BITS;
+
+            if (equalBytes != 0) {
+                return index + (Long.numberOfTrailingZeros(equalBytes) >>> BITS_TO_BYTES_SHIFT);
+            }
+
+            index += Long.BYTES;
+        }
+
+        while (index < size && left.get(index) != right.get(index)) {
+            index++;
+        }
+
+        return index;
+    }
+}
@@ -0,0 +1,11 @@
+package com.limac.diffservice.exception;
+
+/**
+ * Exception to be thrown when an input received is not valid.
+ */
+public class InvalidInputException extends RuntimeException {
+
+    public InvalidInputException(String message) {
+        super(message);
+    }
+}
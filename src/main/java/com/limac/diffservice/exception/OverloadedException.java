@@ -0,0 +1,17 @@
+package com.limac.diffservice.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception to be thrown when the work is rejected because the service is overloaded, to be retried after the given delay.
+ */
+@Getter
+public class OverloadedException extends RuntimeException {
+
+    private final long retryAfter;
+
+    public OverloadedException(String message, long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
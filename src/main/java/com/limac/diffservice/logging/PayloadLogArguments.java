@@ -0,0 +1,98 @@
+package com.limac.diffservice.logging;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.limac.diffservice.rest.dto.DiffResultDto;
+import net.logstash.logback.argument.StructuredArgument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Structured arguments to log the inputs and the diff results without serializing them whole on the request thread.
+ * By default an input is truncated and followed by its length and the fingerprint of its stored digest, and the diff results
+ * are summarized by their count and total length. The full values are only logged for the sampled diffIds.
+ * The summaries are only computed if the log event is enabled, and never copy nor hash the whole input, as the asynchronous appenders
+ * still format the log events on the calling thread.
+ */
+@Component
+public class PayloadLogArguments {
+
+    private static final int SAMPLE_SCALE = 10000;
+    private static final int FINGERPRINT_LENGTH = 16;
+    private static final String DIFF_RESULTS = "diffResults";
+
+    private final int maxLength;
+    private final double sampleRate;
+
+    /**
+     * Creates the arguments with the given truncation and sampling.
+     *
+     * @param maxLength number of characters of an input logged before it's truncated.
+     * @param sampleRate fraction of the diffIds, from 0 to 1, whose inputs and diff results are logged in full.
+     */
+    public PayloadLogArguments(@Value("${diff.logging.payload.max-length:64}") int maxLength,
+                               @Value("${diff.logging.payload.sample-rate:0}") double sampleRate) {
+        this.maxLength = maxLength;
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Logs an input, in full only if the diffId is sampled.
+     *
+     * @param diffId diff identifier.
+     * @param key key of the input.
+     * @param value input to be logged.
+     * @param digest stored digest of the decoded input, whose prefix is logged as its fingerprint, or null if it's unknown.
+     * @return {@link StructuredArgument} of the input.
+     */
+    public StructuredArgument payload(String diffId, String key, String value, String digest) {
+        if (value == null || value.length() <= maxLength || isSampled(diffId)) {
+            return kv(key, value);
+        }
+
+        return kv(key, new LazyValue(() -> value.substring(0, maxLength) + "...[" + value.length() + " chars"
+            + (digest == null ? "" : ", sha256:" + digest.substring(0, FINGERPRINT_LENGTH)) + "]"));
+    }
+
+    /**
+     * Logs the diff results, in full only if the diffId is sampled.
+     *
+     * @param diffId diff identifier.
+     * @param diffResults diff results to be logged.
+     * @return {@link StructuredArgument} of the diff results.
+     */
+    public StructuredArgument diffResults(String diffId, List<DiffResultDto> diffResults) {
+        if (diffResults == null || isSampled(diffId)) {
+            return kv(DIFF_RESULTS, diffResults);
+        }
+
+        return kv(DIFF_RESULTS, new LazyValue(() ->
+            diffResults.size() + " runs of " + diffResults.stream().mapToLong(DiffResultDto::getLength).sum() + " bytes"));
+    }
+
+    private boolean isSampled(String diffId) {
+        return diffId != null && Math.floorMod(diffId.hashCode(), SAMPLE_SCALE) < sampleRate * SAMPLE_SCALE;
+    }
+
+    /**
+     * Value computed when the log event is formatted.
+     */
+    private static final class LazyValue {
+
+        private final Supplier<String> supplier;
+
+        private LazyValue(Supplier<String> supplier) {
+            this.supplier = supplier;
+        }
+
+        @JsonValue
+        @Override
+        public String toString() {
+            return supplier.get();
+        }
+    }
+}
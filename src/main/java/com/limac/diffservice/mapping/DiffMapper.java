@@ -1,8 +1,11 @@
 package com.limac.diffservice.mapping;
 
 import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.domain.DiffResult;
 import com.limac.diffservice.rest.dto.Base64Dto;
+import com.limac.diffservice.rest.dto.BulkInputDto;
 import com.limac.diffservice.rest.dto.DiffDto;
+import com.limac.diffservice.rest.dto.DiffResultDto;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
@@ -18,5 +21,13 @@ public interface DiffMapper {
     @Mapping(source = "base64Value", target = "right")
     Diff base64DtoToRightDiff(Base64Dto base64Dto);
 
+    @Mapping(source = "base64Value", target = "left")
+    Diff bulkInputDtoToLeftDiff(BulkInputDto bulkInputDto);
+
+    @Mapping(source = "base64Value", target = "right")
+    Diff bulkInputDtoToRightDiff(BulkInputDto bulkInputDto);
+
     DiffDto diffToDiffDto(Diff diff);
+
+    DiffResultDto diffResultToDiffResultDto(DiffResult diffResult);
 }
@@ -0,0 +1,59 @@
+package com.limac.diffservice.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link FilterInputStream} counting the bytes read from the underlying stream.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    /**
+     * Construct a CountingInputStream instance.
+     *
+     * @param inputStream stream to be counted.
+     */
+    public CountingInputStream(InputStream inputStream) {
+        super(inputStream);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        final int value = super.read();
+
+        if (value >= 0) {
+            count++;
+        }
+
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        final int read = super.read(bytes, offset, length);
+
+        if (read > 0) {
+            count += read;
+        }
+
+        return read;
+    }
+
+    /**
+     * Bytes read so far.
+     *
+     * @return number of bytes read.
+     */
+    public long getCount() {
+        return count;
+    }
+}
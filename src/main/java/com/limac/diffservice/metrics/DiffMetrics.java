@@ -0,0 +1,142 @@
+package com.limac.diffservice.metrics;
+
+import com.limac.diffservice.type.InputType;
+import com.limac.diffservice.type.ResultType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Meters of the work done by the {@link com.limac.diffservice.service.DiffService}, published with percentiles and histograms.
+ */
+@Component
+@RequiredArgsConstructor
+public class DiffMetrics {
+
+    static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private static final String INPUT_TYPE = "inputType";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Timer of the inputs saved.
+     *
+     * @param inputType type of the input saved.
+     * @return {@link Timer} named {@code diff.service.save}.
+     */
+    public Timer saveTimer(InputType inputType) {
+        return timer("diff.service.save", INPUT_TYPE, inputType.name());
+    }
+
+    /**
+     * Timer of the Diffs found by identifier.
+     *
+     * @return {@link Timer} named {@code diff.service.find}.
+     */
+    public Timer findByIdTimer() {
+        return timer("diff.service.find");
+    }
+
+    /**
+     * Timer of the comparisons.
+     *
+     * @param mode whether the whole result, a page or a stream is returned.
+     * @return {@link Timer} named {@code diff.service.diff}.
+     */
+    public Timer diffTimer(String mode) {
+        return timer("diff.service.diff", "mode", mode);
+    }
+
+    /**
+     * Timer of the bulk operations, each one saving or comparing many Diffs.
+     *
+     * @param operation whether the inputs are saved or compared.
+     * @return {@link Timer} named {@code diff.service.bulk}.
+     */
+    public Timer bulkTimer(String operation) {
+        return timer("diff.service.bulk", "operation", operation);
+    }
+
+    /**
+     * Records the decoded size of an input saved.
+     *
+     * @param inputType type of the input saved.
+     * @param size size of the input in bytes.
+     */
+    public void recordPayloadSize(InputType inputType, long size) {
+        DistributionSummary.builder("diff.payload.size")
+            .tag(INPUT_TYPE, inputType.name())
+            .baseUnit("bytes")
+            .publishPercentiles(PERCENTILES)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(size);
+    }
+
+    /**
+     * Counts a comparison by its result type and records its number of diff results.
+     *
+     * @param resultType result type of the comparison.
+     * @param runs number of diff results of the comparison.
+     */
+    public void recordResult(ResultType resultType, int runs) {
+        meterRegistry.counter("diff.results", "resultType", resultType.name()).increment();
+
+        DistributionSummary.builder("diff.result.runs")
+            .publishPercentiles(PERCENTILES)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(runs);
+    }
+
+    /**
+     * Registers the gauges of the admission control: the payload bytes in flight, and the comparisons running and queued.
+     *
+     * @param inFlightBytes payload bytes in flight.
+     * @param comparisonExecutor executor of the admitted comparisons.
+     */
+    public void registerAdmission(AtomicLong inFlightBytes, ThreadPoolExecutor comparisonExecutor) {
+        Gauge.builder("diff.admission.bytes", inFlightBytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("diff.admission.active", comparisonExecutor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("diff.admission.queue", comparisonExecutor, executor -> executor.getQueue().size()).register(meterRegistry);
+    }
+
+    /**
+     * Counts the work rejected by the admission control.
+     *
+     * @param budget budget exceeded, the payload bytes in flight or the queued comparisons.
+     */
+    public void recordRejection(String budget) {
+        meterRegistry.counter("diff.admission.rejections", "budget", budget).increment();
+    }
+
+    /**
+     * Timer of the base64 validations, registered in the global registry as the validators are not created by Spring.
+     *
+     * @param mode whether a whole value or a stream is validated.
+     * @return {@link Timer} named {@code diff.base64.validation}.
+     */
+    public static Timer validationTimer(String mode) {
+        return Timer.builder("diff.base64.validation")
+            .tag("mode", mode)
+            .publishPercentiles(PERCENTILES)
+            .publishPercentileHistogram()
+            .register(Metrics.globalRegistry);
+    }
+
+    private Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+            .tags(tags)
+            .publishPercentiles(PERCENTILES)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,88 @@
+package com.limac.diffservice.metrics;
+
+import com.limac.diffservice.domain.Chunk;
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.rest.dto.CollectionStatsDto;
+import com.limac.diffservice.rest.dto.DiffStorageDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Actuator endpoint reporting the size of the collections of the diffs and the chunks, and an estimate of their working set:
+ * the uncompressed documents and the indexes that must fit in the cache of the server for the reads not to hit the disk.
+ * The cache of the server is only reported if its WiredTiger statistics can be read.
+ */
+@Slf4j
+@Endpoint(id = "diffs")
+@RequiredArgsConstructor
+public class DiffStorageEndpoint {
+
+    private final MongoOperations mongoOperations;
+    private final long ttl;
+
+    /**
+     * Reads the statistics of the storage of the diffs.
+     *
+     * @return {@link DiffStorageDto} with the statistics of each collection and the estimate of the working set.
+     */
+    @ReadOperation
+    public DiffStorageDto storage() {
+        final List<CollectionStatsDto> collections = Stream.of(Diff.class, Chunk.class)
+            .map(type -> collectionStats(mongoOperations.getCollectionName(type)))
+            .collect(Collectors.toList());
+
+        final Optional<Document> cache = cacheStats();
+
+        return DiffStorageDto.builder()
+            .ttl(ttl)
+            .collections(collections)
+            .workingSetBytes(collections.stream().mapToLong(collection -> collection.getSize() + collection.getIndexSize()).sum())
+            .cacheBytes(cache.map(stats -> longValue(stats, "maximum bytes configured")).orElse(null))
+            .cachedBytes(cache.map(stats -> longValue(stats, "bytes currently in the cache")).orElse(null))
+            .build();
+    }
+
+    private CollectionStatsDto collectionStats(String collection) {
+        final Document stats = mongoOperations.executeCommand(new Document("collStats", collection));
+
+        return CollectionStatsDto.builder()
+            .name(collection)
+            .documents(longValue(stats, "count"))
+            .size(longValue(stats, "size"))
+            .averageDocumentSize(longValue(stats, "avgObjSize"))
+            .storageSize(longValue(stats, "storageSize"))
+            .indexSize(longValue(stats, "totalIndexSize"))
+            .build();
+    }
+
+    private Optional<Document> cacheStats() {
+        try {
+            final Document serverStatus = mongoOperations.executeCommand(new Document("serverStatus", 1));
+
+            return Optional.ofNullable(serverStatus.get("wiredTiger", Document.class)).map(wiredTiger -> wiredTiger.get("cache", Document.class));
+        } catch (DataAccessException exception) {
+            log.warn("Could not read the cache statistics of the server: {}", exception.getMessage());
+
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads a statistic, which Mongo returns as an int or a long depending on its value, and omits for an empty collection.
+     */
+    private static long longValue(Document stats, String key) {
+        final Number value = stats.get(key, Number.class);
+
+        return value == null ? 0 : value.longValue();
+    }
+}
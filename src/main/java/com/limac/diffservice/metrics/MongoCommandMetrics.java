@@ -0,0 +1,55 @@
+package com.limac.diffservice.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CommandListener} recording the latency of each Mongo command, including the GridFS ones, as the
+ * {@code diff.mongo.command} timer tagged by the command name and whether it succeeded.
+ */
+@RequiredArgsConstructor
+public class MongoCommandMetrics implements CommandListener {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        // the latency is given by the event of the command completion
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getCommandName(), "success", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getCommandName(), "failure", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void record(String command, String status, long elapsedNanos) {
+        Timer.builder("diff.mongo.command")
+            .tag("command", command)
+            .tag("status", status)
+            .publishPercentiles(DiffMetrics.PERCENTILES)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,326 @@
+package com.limac.diffservice.repository;
+
+import com.limac.diffservice.cache.ContentDigest;
+import com.limac.diffservice.domain.Chunk;
+import com.limac.diffservice.domain.ChunkReference;
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.type.InputType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Repository for the inputs stored as {@link Chunk}s split by the {@link ContentDefinedChunker}.
+ * The chunks are written and read in batches, and each distinct chunk is upserted once per batch: its data is only
+ * inserted if it's not stored yet, otherwise only its number of references is incremented.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class ChunkRepository {
+
+    private static final int BATCH_SIZE = 256;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final String DIGEST = "digest";
+    private static final String DATA = "data";
+    private static final String LENGTH = "length";
+    private static final String REF_COUNT = "refCount";
+    private static final String UPDATED_AT = "updatedAt";
+    private static final String CREATED_AT = "createdAt";
+    private static final String CHUNKS_SUFFIX = "Chunks";
+
+    private final MongoOperations mongoOperations;
+    private final ContentDefinedChunker contentDefinedChunker;
+    private final PayloadCodec payloadCodec;
+    private final PayloadSpill payloadSpill;
+
+    /**
+     * Splits the input read from the given stream in chunks and stores them, without holding the whole input in memory.
+     * If the input could not be read until the end or a write failed, the references to the chunks already stored are released,
+     * including the ones applied by the failed write.
+     *
+     * @param diffId diff identifier.
+     * @param inputStream stream with the input.
+     * @return references to the chunks of the input, in the order of the input.
+     */
+    public List<ChunkReference> store(String diffId, InputStream inputStream) {
+        final List<ChunkReference> chunks = new ArrayList<>();
+        final ChunkBatch batch = new ChunkBatch();
+
+        try {
+            contentDefinedChunker.split(inputStream, data -> {
+                final ChunkReference chunk = new ChunkReference(ContentDigest.digest(data), data.length);
+
+                chunks.add(chunk);
+                batch.add(chunk, data);
+
+                if (batch.data.size() == BATCH_SIZE) {
+                    write(batch);
+                }
+            });
+
+            write(batch);
+        } catch (IOException exception) {
+            release(chunks.subList(0, batch.written));
+            throw new UncheckedIOException("could not store the input for diffId: " + diffId, exception);
+        } catch (RuntimeException exception) {
+            release(chunks.subList(0, batch.written));
+            throw exception;
+        }
+
+        log.info("Stored {} for {}", kv("chunks", chunks.size()), kv("diffId", diffId));
+
+        return chunks;
+    }
+
+    /**
+     * Loads the whole input from its chunks, memory-mapped from a temporary file if it's large enough to be spilled.
+     *
+     * @param chunks references to the chunks of the input.
+     * @return {@link ByteBuffer} with the input.
+     * @throws IllegalStateException if any chunk is no longer stored.
+     */
+    public ByteBuffer load(List<ChunkReference> chunks) {
+        final long length = chunks.stream().mapToLong(ChunkReference::getLength).sum();
+
+        try (DataInputStream inputStream = new DataInputStream(new SequenceInputStream(new ChunkStreams(chunks)))) {
+            if (payloadSpill.isSpilled(length)) {
+                return payloadSpill.map(inputStream, length);
+            }
+
+            final byte[] content = new byte[Math.toIntExact(length)];
+
+            inputStream.readFully(content);
+
+            return ByteBuffer.wrap(content);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("could not read the stored chunks", exception);
+        }
+    }
+
+    /**
+     * Releases the references of an input to its chunks, so the chunks no longer referenced can be collected.
+     *
+     * @param chunks references to the chunks of the input.
+     */
+    public void release(List<ChunkReference> chunks) {
+        decrement(chunks.stream().collect(Collectors.groupingBy(ChunkReference::getDigest, Collectors.counting())));
+    }
+
+    /**
+     * Removes the chunks no longer referenced since before the given date.
+     *
+     * @param releasedBefore date before which the chunks must have been released.
+     * @return number of chunks removed.
+     */
+    public long collect(Date releasedBefore) {
+        final Query query = Query.query(Criteria.where(REF_COUNT).lte(0).and(UPDATED_AT).lt(releasedBefore));
+
+        return mongoOperations.remove(query, Chunk.class).getDeletedCount();
+    }
+
+    /**
+     * Removes the chunks still referenced but not updated since before the given date, as the {@link Diff}s
+     * referencing them have expired without releasing their references.
+     * The chunks referenced by the {@link Diff}s saved before they had a creation date are kept, as these Diffs never expire.
+     *
+     * @param updatedBefore date before which the chunks must have been last referenced.
+     * @return number of chunks removed.
+     */
+    public long expire(Date updatedBefore) {
+        final Set<String> kept = new HashSet<>();
+
+        for (final InputType inputType : InputType.values()) {
+            final String chunksField = inputType.name().toLowerCase(Locale.ROOT) + CHUNKS_SUFFIX;
+
+            kept.addAll(mongoOperations.findDistinct(Query.query(Criteria.where(CREATED_AT).exists(false).and(chunksField).exists(true)),
+                chunksField + "." + DIGEST, Diff.class, String.class));
+        }
+
+        final Query query = Query.query(Criteria.where(REF_COUNT).gt(0).and(UPDATED_AT).lt(updatedBefore).and(DIGEST).nin(kept));
+
+        return mongoOperations.remove(query, Chunk.class).getDeletedCount();
+    }
+
+    /**
+     * Writes the chunks of the batch with a single unordered bulk write, then clears the batch.
+     * Every chunk is upserted with its data, which is only inserted if the chunk is not stored yet, so a chunk collected meanwhile
+     * is inserted again instead of losing its data.
+     */
+    private void write(ChunkBatch batch) {
+        if (batch.data.isEmpty()) {
+            return;
+        }
+
+        final List<String> digests = new ArrayList<>(batch.data.keySet());
+        final BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk.class);
+
+        batch.data.forEach((digest, data) -> bulkOperations.upsert(Query.query(Criteria.where(DIGEST).is(digest)),
+            increment(batch, digest).setOnInsert(DATA, payloadCodec.encode(data)).setOnInsert(LENGTH, data.length)));
+
+        try {
+            bulkOperations.execute();
+        } catch (BulkOperationException exception) {
+            final List<String> failed = failedDigests(exception, digests);
+
+            if (exception.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                releaseWritten(batch, failed);
+                throw exception;
+            }
+
+            // the concurrent upserts of the same new chunk fail on its digest, so they're retried as increments of the inserted chunk
+            final BulkOperations retryOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk.class);
+
+            failed.forEach(digest -> retryOperations.updateOne(Query.query(Criteria.where(DIGEST).is(digest)), increment(batch, digest)));
+
+            try {
+                retryOperations.execute();
+            } catch (BulkOperationException retryException) {
+                releaseWritten(batch, failedDigests(retryException, failed));
+                throw retryException;
+            }
+        }
+
+        log.debug("Written {}", kv("chunks", batch.data.size()));
+
+        batch.clear();
+    }
+
+    /**
+     * Releases the references of the batch written by a failed bulk write, except the ones of the chunks whose write failed,
+     * as the other writes of an unordered bulk write are applied anyway.
+     */
+    private void releaseWritten(ChunkBatch batch, List<String> failed) {
+        final Map<String, Long> written = new HashMap<>(batch.references);
+        failed.forEach(written::remove);
+
+        decrement(written);
+    }
+
+    private void decrement(Map<String, Long> references) {
+        if (references.isEmpty()) {
+            return;
+        }
+
+        final BulkOperations bulkOperations = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk.class);
+
+        references.forEach((digest, count) -> bulkOperations.updateOne(Query.query(Criteria.where(DIGEST).is(digest)),
+            new Update().inc(REF_COUNT, -count).currentDate(UPDATED_AT)));
+
+        bulkOperations.execute();
+    }
+
+    private static List<String> failedDigests(BulkOperationException exception, List<String> digests) {
+        return exception.getErrors().stream().map(error -> digests.get(error.getIndex())).collect(Collectors.toList());
+    }
+
+    private static Update increment(ChunkBatch batch, String digest) {
+        return new Update().inc(REF_COUNT, batch.references.get(digest)).currentDate(UPDATED_AT);
+    }
+
+    /**
+     * Distinct chunks read since the last write, with their number of references.
+     */
+    private static final class ChunkBatch {
+
+        private final Map<String, byte[]> data = new LinkedHashMap<>();
+        private final Map<String, Long> references = new HashMap<>();
+        private int pending;
+        private int written;
+
+        private void add(ChunkReference chunk, byte[] chunkData) {
+            data.putIfAbsent(chunk.getDigest(), chunkData);
+            references.merge(chunk.getDigest(), 1L, Long::sum);
+            pending++;
+        }
+
+        private void clear() {
+            data.clear();
+            references.clear();
+            written += pending;
+            pending = 0;
+        }
+    }
+
+    /**
+     * Streams of the chunks of an input, read in batches of distinct chunks as the input is consumed.
+     */
+    private final class ChunkStreams implements Enumeration<InputStream> {
+
+        private final List<ChunkReference> chunks;
+
+        private Map<String, byte[]> batch = Collections.emptyMap();
+        private int next;
+
+        private ChunkStreams(List<ChunkReference> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return next < chunks.size();
+        }
+
+        @Override
+        public InputStream nextElement() {
+            final String digest = chunks.get(next).getDigest();
+
+            if (!batch.containsKey(digest)) {
+                batch = find(chunks.subList(next, Math.min(next + BATCH_SIZE, chunks.size())));
+            }
+
+            next++;
+
+            final byte[] data = batch.get(digest);
+
+            if (data == null) {
+                throw new IllegalStateException("could not find the stored chunk: " + digest);
+            }
+
+            final ByteBuffer decoded = payloadCodec.decode(data);
+
+            return new ByteArrayInputStream(decoded.array(), decoded.arrayOffset() + decoded.position(), decoded.remaining());
+        }
+
+        private Map<String, byte[]> find(List<ChunkReference> references) {
+            final Set<String> digests = references.stream().map(ChunkReference::getDigest).collect(Collectors.toSet());
+
+            final Query query = Query.query(Criteria.where(DIGEST).in(digests));
+            query.fields().include(DIGEST).include(DATA);
+
+            final Map<String, byte[]> found = new HashMap<>();
+            mongoOperations.find(query, Chunk.class).forEach(chunk -> found.put(chunk.getDigest(), chunk.getData()));
+
+            return found;
+        }
+    }
+}
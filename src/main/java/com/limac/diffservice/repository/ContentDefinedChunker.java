@@ -0,0 +1,97 @@
+package com.limac.diffservice.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Splits the inputs in chunks at content-defined boundaries, found with a gear rolling hash of the last 64 bytes,
+ * so an insertion or a deletion only changes the chunks around it and the versions of the same input share most of their chunks.
+ * A boundary is found when the top bits of the hash are zero, which happens once every average size bytes,
+ * and the chunks are bounded by the minimum and maximum sizes.
+ */
+public class ContentDefinedChunker {
+
+    private static final long GEAR_SEED = 0x5DEECE66DL;
+    private static final int BYTE_VALUES = 256;
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final long[] GEAR = gear();
+
+    private final int minSize;
+    private final int maxSize;
+    private final long mask;
+
+    /**
+     * Construct a ContentDefinedChunker instance.
+     *
+     * @param minSize minimum size of the chunks, except the last one.
+     * @param averageSize expected average size of the chunks, rounded down to a power of two.
+     * @param maxSize maximum size of the chunks.
+     */
+    public ContentDefinedChunker(int minSize, int averageSize, int maxSize) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.mask = -1L << (Long.SIZE - Integer.numberOfTrailingZeros(Integer.highestOneBit(averageSize)));
+    }
+
+    /**
+     * Reads the input until the end, passing each chunk to the consumer as soon as its boundary is found,
+     * so at most two chunks of the maximum size are held in memory.
+     *
+     * @param inputStream stream with the input.
+     * @param consumer consumer of the chunks, in the order of the input.
+     * @throws IOException if the input could not be read.
+     */
+    public void split(InputStream inputStream, Consumer<byte[]> consumer) throws IOException {
+        final byte[] buffer = new byte[2 * maxSize];
+
+        int start = 0;
+        int position = 0;
+        int filled = 0;
+        long hash = 0;
+
+        for (int count = inputStream.read(buffer); count >= 0; count = inputStream.read(buffer, filled, buffer.length - filled)) {
+            filled += count;
+
+            while (position < filled) {
+                hash = (hash << 1) + GEAR[buffer[position++] & BYTE_MASK];
+
+                final int length = position - start;
+
+                if (length == maxSize || length >= minSize && (hash & mask) == 0) {
+                    consumer.accept(Arrays.copyOfRange(buffer, start, position));
+                    start = position;
+                    hash = 0;
+                }
+            }
+
+            if (filled == buffer.length) {
+                System.arraycopy(buffer, start, buffer, 0, filled - start);
+                position -= start;
+                filled -= start;
+                start = 0;
+            }
+        }
+
+        if (filled > start) {
+            consumer.accept(Arrays.copyOfRange(buffer, start, filled));
+        }
+    }
+
+    /**
+     * Random values of the gear hash for each byte, from a fixed seed so the boundaries never change between restarts.
+     */
+    private static long[] gear() {
+        final Random random = new Random(GEAR_SEED);
+        final long[] gear = new long[BYTE_VALUES];
+
+        for (int index = 0; index < gear.length; index++) {
+            gear[index] = random.nextLong();
+        }
+
+        return gear;
+    }
+}
@@ -0,0 +1,83 @@
+package com.limac.diffservice.repository;
+
+import com.limac.diffservice.domain.Diff;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Manages the TTL index expiring the {@link Diff}s once the time to live after their creation has passed, when the application is ready.
+ * The index is created, its time to live changed in place or the index dropped, so the configured time to live always applies.
+ * The Diffs expire after their creation rather than after their last update, so they never outlive the chunks they reference.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class DiffExpiryIndex implements ApplicationListener<ApplicationReadyEvent> {
+
+    static final String INDEX_NAME = "expiry";
+
+    private static final String CREATED_AT = "createdAt";
+    private static final String EXPIRE_AFTER_SECONDS = "expireAfterSeconds";
+    private static final String TTL = "ttl";
+
+    private final MongoOperations mongoOperations;
+    private final long ttl;
+
+    /**
+     * Manages the index once the application is ready.
+     *
+     * @param event application ready event.
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        manage();
+    }
+
+    /**
+     * Creates, changes or drops the index according to the time to live.
+     */
+    public void manage() {
+        final IndexOperations indexOperations = mongoOperations.indexOps(Diff.class);
+        final Optional<Document> index = findIndex();
+
+        if (ttl <= 0) {
+            index.ifPresent(existing -> {
+                indexOperations.dropIndex(INDEX_NAME);
+                log.info("Dropped the expiry index of the diffs");
+            });
+        } else if (!index.isPresent()) {
+            indexOperations.ensureIndex(new Index().on(CREATED_AT, Sort.Direction.ASC).named(INDEX_NAME).expire(ttl));
+            log.info("Created the expiry index of the diffs with {}", kv(TTL, ttl));
+        } else if (!isExpiringAfter(index.get(), ttl)) {
+            mongoOperations.executeCommand(new Document("collMod", mongoOperations.getCollectionName(Diff.class))
+                .append("index", new Document("name", INDEX_NAME).append(EXPIRE_AFTER_SECONDS, ttl)));
+            log.info("Changed the expiry index of the diffs to {}", kv(TTL, ttl));
+        }
+    }
+
+    private Optional<Document> findIndex() {
+        final List<Document> indexes = mongoOperations.getCollection(mongoOperations.getCollectionName(Diff.class))
+            .listIndexes()
+            .into(new ArrayList<>());
+
+        return indexes.stream().filter(index -> INDEX_NAME.equals(index.getString("name"))).findFirst();
+    }
+
+    private static boolean isExpiringAfter(Document index, long ttl) {
+        final Number expireAfterSeconds = index.get(EXPIRE_AFTER_SECONDS, Number.class);
+
+        return expireAfterSeconds != null && expireAfterSeconds.longValue() == ttl;
+    }
+}
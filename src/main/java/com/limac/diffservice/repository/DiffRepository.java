@@ -6,5 +6,5 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 /**
  * Repository for {@link Diff} domain.
  */
-public interface DiffRepository extends MongoRepository<Diff, String> {
+public interface DiffRepository extends MongoRepository<Diff, String>, DiffRepositoryCustom {
 }
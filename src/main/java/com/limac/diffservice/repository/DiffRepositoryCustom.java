@@ -0,0 +1,84 @@
+package com.limac.diffservice.repository;
+
+import com.limac.diffservice.domain.ChunkReference;
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.domain.DiffResult;
+import com.limac.diffservice.domain.MerkleTree;
+import com.limac.diffservice.type.InputType;
+import com.limac.diffservice.type.ResultType;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Custom operations of the {@link DiffRepository}.
+ */
+public interface DiffRepositoryCustom {
+
+    /**
+     * Atomically sets one input of the {@link Diff}, creating the {@link Diff} if it doesn't exist.
+     * The creation date is only set when the {@link Diff} is created, while the update date is set on every write of an input.
+     * Only the fields of the input type are written, so the other input is neither read nor overwritten,
+     * and the stored result of the comparison is removed, as well as the base64 value of the input saved before the payloads
+     * and the identifier of its file saved before the chunks.
+     *
+     * @param diffId diff identifier.
+     * @param inputType input type to be set.
+     * @param payload payload of the input encoded by the {@link PayloadCodec}, or null if the input is not stored inline.
+     * @param chunks references to the stored chunks of the input, or null if the input is not stored as chunks.
+     * @param tree {@link MerkleTree} of the input, or null if it's not built.
+     * @param digest digest of the decoded input.
+     *
+     * @return {@link Diff} before the update, with only the file identifier and the chunks of the input type and the digest of the other input,
+     *     or empty if it was created.
+     */
+    Optional<Diff> upsertInput(String diffId, InputType inputType, byte[] payload, List<ChunkReference> chunks, MerkleTree tree, String digest);
+
+    /**
+     * Finds the {@link Diff} to be compared with the read preference of the comparisons, which may read it from a secondary.
+     * Without the payloads, the inline payloads and the base64 values of the inputs are left out, while the other fields are read.
+     *
+     * @param diffId diff identifier.
+     * @param includePayloads whether the inline payloads and the base64 values of the inputs are read.
+     *
+     * @return {@link Diff} found, or empty if it doesn't exist.
+     */
+    Optional<Diff> findForComparison(String diffId, boolean includePayloads);
+
+    /**
+     * Stores the result of the comparison of the {@link Diff}, unless any of its inputs was replaced since the comparison
+     * or it has more diff results than can be stored with the {@link Diff}, so the document stays within the size limit of Mongo.
+     *
+     * @param diffId diff identifier.
+     * @param leftDigest digest of the compared left input.
+     * @param rightDigest digest of the compared right input.
+     * @param resultType result type of the comparison.
+     * @param diffResults diff results of the comparison.
+     *
+     * @return true if the result was stored.
+     */
+    boolean saveResult(String diffId, String leftDigest, String rightDigest, ResultType resultType, List<DiffResult> diffResults);
+
+    /**
+     * Finds the next {@link Diff}s with any input still stored as a base64 value, in the order of the diff identifiers.
+     *
+     * @param fromDiffId diff identifier after which the {@link Diff}s are found, or null to find them from the first one.
+     * @param limit maximum number of {@link Diff}s found.
+     *
+     * @return {@link Diff}s found, with only the base64 values.
+     */
+    List<Diff> findBase64Inputs(String fromDiffId, int limit);
+
+    /**
+     * Replaces the base64 value of one input of the {@link Diff} with its payload, unless the input was replaced since it was read.
+     * The digest and the stored result of the comparison are kept, as the decoded input is the same.
+     *
+     * @param diffId diff identifier.
+     * @param inputType input type to be migrated.
+     * @param base64Value base64 value read.
+     * @param payload payload of the decoded base64 value encoded by the {@link PayloadCodec}.
+     *
+     * @return true if the input was migrated.
+     */
+    boolean migrateInput(String diffId, InputType inputType, String base64Value, byte[] payload);
+}
@@ -0,0 +1,188 @@
+package com.limac.diffservice.repository;
+
+import com.limac.diffservice.domain.ChunkReference;
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.domain.DiffResult;
+import com.limac.diffservice.domain.MerkleTree;
+import com.limac.diffservice.type.InputType;
+import com.limac.diffservice.type.ResultType;
+import com.mongodb.ReadPreference;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * {@link DiffRepositoryCustom} implementation.
+ */
+@Slf4j
+public class DiffRepositoryCustomImpl implements DiffRepositoryCustom {
+
+    private static final String FILE_ID_SUFFIX = "FileId";
+    private static final String DIGEST_SUFFIX = "Digest";
+    private static final String PAYLOAD_SUFFIX = "Payload";
+    private static final String CHUNKS_SUFFIX = "Chunks";
+    private static final String TREE_SUFFIX = "Tree";
+    private static final String DIFF_ID = "diffId";
+    private static final String RESULT_TYPE = "resultType";
+    private static final String DIFF_RESULTS = "diffResults";
+    private static final String CREATED_AT = "createdAt";
+    private static final String UPDATED_AT = "updatedAt";
+    private static final String ID = "_id";
+
+    private final MongoOperations mongoOperations;
+    private final ReadPreference comparisonReadPreference;
+    private final int maxStoredResults;
+
+    /**
+     * Construct a DiffRepositoryCustomImpl instance.
+     *
+     * @param mongoOperations operations of the database.
+     * @param comparisonReadPreference read preference of the Diffs found for a comparison.
+     * @param maxStoredResults maximum number of diff results stored with a Diff.
+     */
+    public DiffRepositoryCustomImpl(MongoOperations mongoOperations, ReadPreference comparisonReadPreference,
+                                    @Value("${diff.storage.max-stored-results:10000}") int maxStoredResults) {
+        this.mongoOperations = mongoOperations;
+        this.comparisonReadPreference = comparisonReadPreference;
+        this.maxStoredResults = maxStoredResults;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Diff> upsertInput(String diffId, InputType inputType, byte[] payload, List<ChunkReference> chunks, MerkleTree tree,
+                                      String digest) {
+        final String otherDigestField = field(inputType == InputType.LEFT ? InputType.RIGHT : InputType.LEFT) + DIGEST_SUFFIX;
+
+        final Query query = Query.query(Criteria.where(DIFF_ID).is(diffId));
+        query.fields().include(field(inputType) + FILE_ID_SUFFIX).include(field(inputType) + CHUNKS_SUFFIX).include(otherDigestField);
+
+        final Update update = inputUpdate(inputType, payload, chunks, tree, digest);
+
+        try {
+            return upsert(query, update);
+        } catch (DuplicateKeyException exception) {
+            // a concurrent upsert inserted the same diffId first, so the retry updates its document
+            return upsert(query, update);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<Diff> findForComparison(String diffId, boolean includePayloads) {
+        final Document projection = new Document();
+
+        if (!includePayloads) {
+            for (final InputType inputType : InputType.values()) {
+                projection.append(field(inputType), 0).append(field(inputType) + PAYLOAD_SUFFIX, 0);
+            }
+        }
+
+        final Document document = mongoOperations.execute(Diff.class, collection -> collection.withReadPreference(comparisonReadPreference)
+            .find(new Document(ID, diffId))
+            .projection(projection)
+            .first());
+
+        return Optional.ofNullable(document).map(found -> mongoOperations.getConverter().read(Diff.class, found));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean saveResult(String diffId, String leftDigest, String rightDigest, ResultType resultType, List<DiffResult> diffResults) {
+        if (diffResults != null && diffResults.size() > maxStoredResults) {
+            log.info("Result not stored for {}, {}", kv(DIFF_ID, diffId), kv(DIFF_RESULTS, diffResults.size()));
+
+            return false;
+        }
+
+        final Query query = Query.query(Criteria.where(DIFF_ID).is(diffId)
+            .and(field(InputType.LEFT) + DIGEST_SUFFIX).is(leftDigest)
+            .and(field(InputType.RIGHT) + DIGEST_SUFFIX).is(rightDigest));
+
+        final Update update = new Update();
+        update.set(RESULT_TYPE, resultType);
+        setOrUnset(update, DIFF_RESULTS, diffResults);
+
+        return mongoOperations.updateFirst(query, update, Diff.class).getModifiedCount() > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Diff> findBase64Inputs(String fromDiffId, int limit) {
+        final Criteria criteria = fromDiffId == null ? new Criteria() : Criteria.where(DIFF_ID).gt(fromDiffId);
+        criteria.orOperator(Arrays.stream(InputType.values())
+            .map(inputType -> Criteria.where(field(inputType)).exists(true))
+            .toArray(Criteria[]::new));
+
+        final Query query = Query.query(criteria).with(Sort.by(DIFF_ID)).limit(limit);
+
+        for (final InputType inputType : InputType.values()) {
+            query.fields().include(field(inputType));
+        }
+
+        return mongoOperations.find(query, Diff.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean migrateInput(String diffId, InputType inputType, String base64Value, byte[] payload) {
+        final Query query = Query.query(Criteria.where(DIFF_ID).is(diffId).and(field(inputType)).is(base64Value));
+        final Update update = new Update().set(field(inputType) + PAYLOAD_SUFFIX, payload).unset(field(inputType));
+
+        return mongoOperations.updateFirst(query, update, Diff.class).getModifiedCount() > 0;
+    }
+
+    private Optional<Diff> upsert(Query query, Update update) {
+        return Optional.ofNullable(mongoOperations.findAndModify(query, update, FindAndModifyOptions.options().upsert(true), Diff.class));
+    }
+
+    private static Update inputUpdate(InputType inputType, byte[] payload, List<ChunkReference> chunks, MerkleTree tree, String digest) {
+        final String valueField = field(inputType);
+
+        final Update update = new Update();
+        setOrUnset(update, valueField + PAYLOAD_SUFFIX, payload);
+        setOrUnset(update, valueField + CHUNKS_SUFFIX, chunks);
+        setOrUnset(update, valueField + TREE_SUFFIX, tree);
+        setOrUnset(update, valueField + DIGEST_SUFFIX, digest);
+        update.unset(valueField + FILE_ID_SUFFIX).unset(valueField).unset(RESULT_TYPE).unset(DIFF_RESULTS);
+        update.setOnInsert(CREATED_AT, new Date()).currentDate(UPDATED_AT);
+
+        return update;
+    }
+
+    private static String field(InputType inputType) {
+        return inputType.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static void setOrUnset(Update update, String field, Object value) {
+        if (value == null) {
+            update.unset(field);
+        } else {
+            update.set(field, value);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.limac.diffservice.repository;
+
+import com.limac.diffservice.domain.Diff;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Encodes the decoded inputs stored inline in the {@link Diff} documents, which are written as BSON binary instead of base64.
+ * Each payload starts with its format: the raw bytes, or the size of the decoded input followed by the bytes deflated at the fastest level.
+ * The inputs are only deflated from the compression threshold, and kept raw if deflating them doesn't save any space.
+ * Inputs larger than the inline maximum size are stored as chunks instead, away from the 16 MB limit of the documents.
+ */
+public class PayloadCodec {
+
+    /**
+     * Maximum size of an input stored inline, so both inputs of a {@link Diff} fit in its document
+     * with room left for their trees and stored diff results.
+     */
+    public static final int MAX_INLINE_SIZE = 6 * 1024 * 1024;
+
+    private static final byte RAW = 0;
+    private static final byte DEFLATED = 1;
+
+    private static final int HEADER_SIZE = 1;
+    private static final int DEFLATED_HEADER_SIZE = HEADER_SIZE + Integer.BYTES;
+
+    private final boolean compression;
+    private final int compressionThreshold;
+    private final int inlineMaxSize;
+
+    /**
+     * Construct a PayloadCodec instance.
+     *
+     * @param compression whether the inputs are deflated.
+     * @param compressionThreshold size of the inputs from which they're deflated.
+     * @param inlineMaxSize maximum size of an input stored inline, at most {@link #MAX_INLINE_SIZE}.
+     * @throws IllegalArgumentException if the inline maximum size is greater than {@link #MAX_INLINE_SIZE}.
+     */
+    public PayloadCodec(boolean compression, int compressionThreshold, int inlineMaxSize) {
+        if (inlineMaxSize > MAX_INLINE_SIZE) {
+            throw new IllegalArgumentException("the inline maximum size must be at most " + MAX_INLINE_SIZE + ": " + inlineMaxSize);
+        }
+
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
+        this.inlineMaxSize = inlineMaxSize;
+    }
+
+    /**
+     * Whether a decoded input of the given size is stored inline in the {@link Diff} document.
+     *
+     * @param size size of the decoded input.
+     * @return true if the input is small enough to be stored inline, false if it's stored as chunks.
+     */
+    public boolean isInline(int size) {
+        return size <= inlineMaxSize;
+    }
+
+    /**
+     * Encodes the decoded input to be stored as BSON binary.
+     *
+     * @param decoded decoded input.
+     * @return payload with its format.
+     */
+    public byte[] encode(byte[] decoded) {
+        return compression && decoded.length >= compressionThreshold && decoded.length > DEFLATED_HEADER_SIZE ? deflate(decoded) : raw(decoded);
+    }
+
+    /**
+     * Decodes the stored payload.
+     *
+     * @param payload payload with its format.
+     * @return decoded input.
+     * @throws UncheckedIOException if the payload could not be inflated.
+     */
+    public ByteBuffer decode(byte[] payload) {
+        if (payload[0] == RAW) {
+            return ByteBuffer.wrap(payload, HEADER_SIZE, payload.length - HEADER_SIZE).slice();
+        }
+
+        final byte[] decoded = new byte[ByteBuffer.wrap(payload, HEADER_SIZE, Integer.BYTES).getInt()];
+        final Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(payload, DEFLATED_HEADER_SIZE, payload.length - DEFLATED_HEADER_SIZE);
+
+            if (inflater.inflate(decoded) != decoded.length || !inflater.finished()) {
+                throw new DataFormatException("unexpected size of the inflated input");
+            }
+
+            return ByteBuffer.wrap(decoded);
+        } catch (DataFormatException exception) {
+            throw new UncheckedIOException(new ZipException("could not inflate the stored input: " + exception.getMessage()));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Reads the size of the decoded input from the stored payload, without decoding it.
+     *
+     * @param payload payload with its format.
+     * @return size of the decoded input.
+     */
+    public int decodedSize(byte[] payload) {
+        return payload[0] == RAW ? payload.length - HEADER_SIZE : ByteBuffer.wrap(payload, HEADER_SIZE, Integer.BYTES).getInt();
+    }
+
+    private static byte[] raw(byte[] decoded) {
+        final byte[] payload = new byte[HEADER_SIZE + decoded.length];
+        payload[0] = RAW;
+        System.arraycopy(decoded, 0, payload, HEADER_SIZE, decoded.length);
+
+        return payload;
+    }
+
+    /**
+     * Deflates the input into a buffer smaller than the raw payload, so the input is deflated only once.
+     *
+     * @return deflated payload, or the raw payload if the deflated one doesn't fit in the buffer.
+     */
+    private static byte[] deflate(byte[] decoded) {
+        final byte[] payload = new byte[decoded.length];
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        try {
+            payload[0] = DEFLATED;
+            ByteBuffer.wrap(payload, HEADER_SIZE, Integer.BYTES).putInt(decoded.length);
+
+            deflater.setInput(decoded);
+            deflater.finish();
+
+            final int size = DEFLATED_HEADER_SIZE + deflater.deflate(payload, DEFLATED_HEADER_SIZE, payload.length - DEFLATED_HEADER_SIZE);
+
+            return deflater.finished() ? Arrays.copyOf(payload, size) : raw(decoded);
+        } finally {
+            deflater.end();
+        }
+    }
+}
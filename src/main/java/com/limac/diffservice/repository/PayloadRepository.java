@@ -0,0 +1,90 @@
+package com.limac.diffservice.repository;
+
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Repository;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Repository for the inputs stored in GridFS before they were stored as chunks by the {@link ChunkRepository}.
+ * The files are only loaded, and deleted once their inputs are replaced.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class PayloadRepository {
+
+    private final GridFSBucket gridFsBucket;
+    private final PayloadSpill payloadSpill;
+
+    /**
+     * Loads the whole content of a stored file, memory-mapped from a temporary file if it's large enough to be spilled.
+     *
+     * @param fileId identifier of the stored file.
+     * @return {@link ByteBuffer} with the content of the file.
+     */
+    public ByteBuffer load(String fileId) {
+        return load(fileId, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Loads the content of a stored file between the given offsets, memory-mapped from a temporary file if it's large enough to be spilled.
+     * The chunks of the file before the start offset are skipped without being read, and the offsets are bounded by the size of the file.
+     *
+     * @param fileId identifier of the stored file.
+     * @param from offset of the first byte loaded.
+     * @param to offset after the last byte loaded.
+     * @return {@link ByteBuffer} with the content of the file between the offsets.
+     */
+    public ByteBuffer load(String fileId, long from, long to) {
+        try (GridFSDownloadStream downloadStream = gridFsBucket.openDownloadStream(new ObjectId(fileId));
+             DataInputStream dataInputStream = new DataInputStream(downloadStream)) {
+
+            final long length = downloadStream.getGridFSFile().getLength();
+            final long start = Math.min(from, length);
+            final long size = Math.min(to, length) - start;
+
+            if (downloadStream.skip(start) != start) {
+                throw new EOFException("could not skip to offset " + start);
+            }
+
+            if (payloadSpill.isSpilled(size)) {
+                log.info("Spilling {} of {}", kv("fileId", fileId), kv("size", size));
+
+                return payloadSpill.map(dataInputStream, size);
+            }
+
+            final byte[] content = new byte[Math.toIntExact(size)];
+
+            dataInputStream.readFully(content);
+
+            return ByteBuffer.wrap(content);
+        } catch (IOException exception) {
+            throw new UncheckedIOException("could not read the stored input: " + fileId, exception);
+        }
+    }
+
+    /**
+     * Deletes a stored file, a file that no longer exists is ignored.
+     *
+     * @param fileId identifier of the stored file.
+     */
+    public void delete(String fileId) {
+        try {
+            gridFsBucket.delete(new ObjectId(fileId));
+        } catch (MongoGridFSException exception) {
+            log.warn("Could not delete {}: {}", kv("fileId", fileId), kv("errorMessage", exception.getMessage()));
+        }
+    }
+}
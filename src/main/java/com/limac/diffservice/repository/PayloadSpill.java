@@ -0,0 +1,93 @@
+package com.limac.diffservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Spills the stored inputs larger than the threshold to temporary files, to compare them through memory-mapped {@link ByteBuffer}s
+ * instead of holding them on the heap.
+ * The temporary file is deleted as soon as it's mapped, or if it could not be written, and its pages are released
+ * once the {@link ByteBuffer} is no longer referenced, so the heap footprint of a comparison doesn't grow with the size of the inputs.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PayloadSpill {
+
+    private static final String PREFIX = "diff-";
+    private static final String SUFFIX = ".spill";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long threshold;
+    private final Path directory;
+
+    /**
+     * Whether an input of the given size is spilled to a temporary file.
+     *
+     * @param size size of the input.
+     * @return true if the input is not smaller than the threshold.
+     */
+    public boolean isSpilled(long size) {
+        return size >= threshold;
+    }
+
+    /**
+     * Copies the expected size of the input to a temporary file and maps it read only.
+     * Only the expected size is read from the stream, so the rest of a longer input is neither read nor written.
+     *
+     * @param inputStream stream with the input.
+     * @param size expected size of the input.
+     * @return memory-mapped {@link ByteBuffer} with the input.
+     * @throws IOException if the input could not be copied or is shorter than the expected size.
+     */
+    public ByteBuffer map(InputStream inputStream, long size) throws IOException {
+        final Path file = Files.createTempFile(directory, PREFIX, SUFFIX);
+
+        try {
+            copy(inputStream, file, size);
+
+            try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        } finally {
+            delete(file);
+        }
+    }
+
+    private static void copy(InputStream inputStream, Path file, long size) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long copied = 0;
+
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            while (copied < size) {
+                final int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, size - copied));
+
+                if (read < 0) {
+                    throw new EOFException("expected " + size + " bytes but found " + copied);
+                }
+
+                outputStream.write(buffer, 0, read);
+                copied += read;
+            }
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.delete(file);
+        } catch (IOException exception) {
+            log.warn("Could not delete the spill {}: {}", kv("file", file), kv("errorMessage", exception.getMessage()));
+        }
+    }
+}
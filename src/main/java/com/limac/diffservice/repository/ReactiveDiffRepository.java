@@ -0,0 +1,22 @@
+package com.limac.diffservice.repository;
+
+import com.limac.diffservice.domain.Diff;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking repository for {@link Diff} domain, used by the reactive stack.
+ */
+public interface ReactiveDiffRepository extends ReactiveMongoRepository<Diff, String> {
+
+    /**
+     * Finds the {@link Diff} without the inline payloads and the base64 values of the inputs.
+     *
+     * @param diffId diff identifier.
+     *
+     * @return {@link Diff} found, or empty if it doesn't exist.
+     */
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'left': 0, 'leftPayload': 0, 'right': 0, 'rightPayload': 0 }")
+    Mono<Diff> findWithoutPayloadsById(String diffId);
+}
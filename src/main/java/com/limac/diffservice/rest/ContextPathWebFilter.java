@@ -0,0 +1,48 @@
+package com.limac.diffservice.rest;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link WebFilter} serving the reactive stack under the same context path of the servlet stack,
+ * as WebFlux has no context path of its own. Requests outside the context path are answered with status 404.
+ */
+@RequiredArgsConstructor
+public class ContextPathWebFilter implements WebFilter, Ordered {
+
+    private static final char PATH_SEPARATOR = '/';
+
+    private final String contextPath;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final ServerHttpRequest request = exchange.getRequest();
+        final String path = request.getPath().value();
+
+        if (!path.startsWith(contextPath) || path.length() > contextPath.length() && path.charAt(contextPath.length()) != PATH_SEPARATOR) {
+            exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+            return exchange.getResponse().setComplete();
+        }
+
+        return chain.filter(exchange.mutate().request(request.mutate().contextPath(contextPath).build()).build());
+    }
+
+    /**
+     * Runs before any other filter, so the security and the handlers match the path within the context path.
+     *
+     * @return highest precedence.
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,98 @@
+package com.limac.diffservice.rest;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * {@link InputStream} reading the buffers of a reactive request body as they are received, so a streamed save only holds
+ * the prefetched buffers in memory instead of the whole body. Each buffer is released once it's read.
+ * Reading blocks while the next buffer is not received yet, so the stream must only be read off the event loop.
+ * Closing the stream cancels the body if it's not read to the end.
+ */
+public class DataBufferInputStream extends InputStream {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private final Stream<DataBuffer> buffers;
+    private final Iterator<DataBuffer> iterator;
+
+    private DataBuffer current;
+
+    /**
+     * Construct a DataBufferInputStream instance.
+     *
+     * @param body buffers of the request body.
+     * @param prefetch maximum number of buffers received before they're read.
+     */
+    public DataBufferInputStream(Flux<DataBuffer> body, int prefetch) {
+        super();
+        this.buffers = body.toStream(prefetch);
+        this.iterator = buffers.iterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() {
+        if (!fill()) {
+            return -1;
+        }
+
+        return current.read() & BYTE_MASK;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+
+        if (!fill()) {
+            return -1;
+        }
+
+        final int count = Math.min(length, current.readableByteCount());
+        current.read(bytes, offset, count);
+
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        release();
+        buffers.close();
+    }
+
+    private boolean fill() {
+        while (current == null || current.readableByteCount() == 0) {
+            release();
+
+            if (!iterator.hasNext()) {
+                return false;
+            }
+
+            current = iterator.next();
+        }
+
+        return true;
+    }
+
+    private void release() {
+        if (current != null) {
+            DataBufferUtils.release(current);
+            current = null;
+        }
+    }
+}
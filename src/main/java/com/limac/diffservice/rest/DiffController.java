@@ -1,12 +1,20 @@
 package com.limac.diffservice.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.logging.PayloadLogArguments;
 import com.limac.diffservice.mapping.DiffMapper;
+import com.limac.diffservice.rest.dto.BulkDiffDto;
+import com.limac.diffservice.rest.dto.BulkDiffRequestDto;
+import com.limac.diffservice.rest.dto.BulkInputDto;
+import com.limac.diffservice.rest.dto.BulkSaveDto;
 import com.limac.diffservice.rest.dto.DiffDto;
+import com.limac.diffservice.rest.dto.DiffResultDto;
 import com.limac.diffservice.rest.dto.ErrorResponseDto;
 import com.limac.diffservice.rest.dto.Base64Dto;
 import com.limac.diffservice.service.DiffService;
 import com.limac.diffservice.type.InputType;
+import com.limac.diffservice.validation.validator.Base64DecodingInputStream;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -14,19 +22,32 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.InputStream;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import static com.limac.diffservice.rest.DiffMediaType.APPLICATION_CBOR_VALUE;
+import static com.limac.diffservice.rest.DiffMediaType.APPLICATION_NDJSON_VALUE;
+import static com.limac.diffservice.rest.DiffMediaType.APPLICATION_SMILE_VALUE;
 import static net.logstash.logback.argument.StructuredArguments.kv;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_OCTET_STREAM_VALUE;
+import static org.springframework.http.MediaType.TEXT_PLAIN_VALUE;
 
 /**
  * Controller for Diff.
@@ -35,13 +56,17 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 @Slf4j
 @RestController
 @RequestMapping(path = "/v1")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 public class DiffController {
 
     private static final String DIFF_ID = "diffId";
+    private static final String INPUT_TYPE = "inputType";
 
     private final DiffService diffService;
     private final DiffMapper diffMapper;
+    private final ObjectMapper objectMapper;
+    private final PayloadLogArguments payloadLogArguments;
 
     /**
      * Encodes the request body and set it as left attribute from {@link Diff}.
@@ -49,7 +74,9 @@ public class DiffController {
      * @param diffId diff identifier.
      * @return {@link DiffDto}.
      */
-    @PostMapping(path = "diff/{diffId}/left", produces = APPLICATION_JSON_VALUE, consumes = APPLICATION_JSON_VALUE)
+    @PostMapping(path = "diff/{diffId}/left",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
     @ResponseStatus(HttpStatus.OK)
     @ApiOperation(value = "Saves the request body encoded in base64 as left attribute.")
     @ApiResponses({
@@ -57,7 +84,8 @@ public class DiffController {
         @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponseDto.class),
         @ApiResponse(code = 401, message = "Unauthorized"),
         @ApiResponse(code = 415, message = "Unsupported Media Type", response = ErrorResponseDto.class),
-        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class)
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
     })
     public DiffDto saveLeft(
         @ApiParam(name = DIFF_ID, required = true)
@@ -65,12 +93,74 @@ public class DiffController {
         @ApiParam(name = "left", required = true)
         @Valid @RequestBody Base64Dto base64Dto) {
 
-        log.info("Received {} for {}", kv("left", base64Dto.getBase64Value()), kv(DIFF_ID, diffId));
-
         final Diff diff = diffMapper.base64DtoToLeftDiff(base64Dto);
         diff.setDiffId(diffId);
 
-        return diffMapper.diffToDiffDto(diffService.save(diff, InputType.LEFT));
+        final Diff diffSaved = diffService.save(diff, InputType.LEFT);
+
+        log.info("Saved {} for {}", payloadLogArguments.payload(diffId, "left", base64Dto.getBase64Value(), diffSaved.getLeftDigest()),
+            kv(DIFF_ID, diffId));
+
+        return diffMapper.diffToDiffDto(diffSaved);
+    }
+
+    /**
+     * Streams the binary request body to the storage and set it as left attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param inputStream binary request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/left",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = APPLICATION_OCTET_STREAM_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Saves the binary request body as left attribute.")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "OK", response = DiffDto.class),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 415, message = "Unsupported Media Type", response = ErrorResponseDto.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
+    })
+    public DiffDto saveLeftBinary(
+        @ApiParam(name = DIFF_ID, required = true)
+        @PathVariable String diffId,
+        InputStream inputStream) {
+
+        log.info("Receiving binary {} for {}", kv(INPUT_TYPE, InputType.LEFT), kv(DIFF_ID, diffId));
+
+        return diffMapper.diffToDiffDto(diffService.save(diffId, InputType.LEFT, inputStream));
+    }
+
+    /**
+     * Streams the base64 request body, decoded, to the storage and set it as left attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param inputStream base64 request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/left",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = TEXT_PLAIN_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Saves the base64 request body, decoded, as left attribute.")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "OK", response = DiffDto.class),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponseDto.class),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 415, message = "Unsupported Media Type", response = ErrorResponseDto.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
+    })
+    public DiffDto saveLeftBase64Stream(
+        @ApiParam(name = DIFF_ID, required = true)
+        @PathVariable String diffId,
+        InputStream inputStream) {
+
+        log.info("Receiving base64 stream {} for {}", kv(INPUT_TYPE, InputType.LEFT), kv(DIFF_ID, diffId));
+
+        return diffMapper.diffToDiffDto(diffService.save(diffId, InputType.LEFT, new Base64DecodingInputStream(inputStream)));
     }
 
     /**
@@ -79,14 +169,17 @@ public class DiffController {
      * @param diffId diff identifier.
      * @return {@link DiffDto}.
      */
-    @PostMapping(path = "diff/{diffId}/right", produces = APPLICATION_JSON_VALUE, consumes = APPLICATION_JSON_VALUE)
+    @PostMapping(path = "diff/{diffId}/right",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
     @ResponseStatus(HttpStatus.OK)
     @ApiOperation(value = "Saves the request body encoded in base64 as right attribute.")
     @ApiResponses({
         @ApiResponse(code = 200, message = "OK", response = DiffDto.class),
         @ApiResponse(code = 401, message = "Unauthorized"),
         @ApiResponse(code = 415, message = "Unsupported Media Type", response = ErrorResponseDto.class),
-        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class)
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
     })
     public DiffDto saveRight(
         @ApiParam(name = DIFF_ID, required = true)
@@ -94,35 +187,264 @@ public class DiffController {
         @ApiParam(name = "right", required = true)
         @Valid @RequestBody Base64Dto base64Dto) {
 
-        log.info("Received {} for {}", kv("right", base64Dto.getBase64Value()), kv(DIFF_ID, diffId));
-
         final Diff diff = diffMapper.base64DtoToRightDiff(base64Dto);
         diff.setDiffId(diffId);
 
-        return diffMapper.diffToDiffDto(diffService.save(diff, InputType.RIGHT));
+        final Diff diffSaved = diffService.save(diff, InputType.RIGHT);
+
+        log.info("Saved {} for {}", payloadLogArguments.payload(diffId, "right", base64Dto.getBase64Value(), diffSaved.getRightDigest()),
+            kv(DIFF_ID, diffId));
+
+        return diffMapper.diffToDiffDto(diffSaved);
+    }
+
+    /**
+     * Streams the binary request body to the storage and set it as right attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param inputStream binary request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/right",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = APPLICATION_OCTET_STREAM_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Saves the binary request body as right attribute.")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "OK", response = DiffDto.class),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 415, message = "Unsupported Media Type", response = ErrorResponseDto.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
+    })
+    public DiffDto saveRightBinary(
+        @ApiParam(name = DIFF_ID, required = true)
+        @PathVariable String diffId,
+        InputStream inputStream) {
+
+        log.info("Receiving binary {} for {}", kv(INPUT_TYPE, InputType.RIGHT), kv(DIFF_ID, diffId));
+
+        return diffMapper.diffToDiffDto(diffService.save(diffId, InputType.RIGHT, inputStream));
+    }
+
+    /**
+     * Streams the base64 request body, decoded, to the storage and set it as right attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param inputStream base64 request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/right",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = TEXT_PLAIN_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Saves the base64 request body, decoded, as right attribute.")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "OK", response = DiffDto.class),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponseDto.class),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 415, message = "Unsupported Media Type", response = ErrorResponseDto.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
+    })
+    public DiffDto saveRightBase64Stream(
+        @ApiParam(name = DIFF_ID, required = true)
+        @PathVariable String diffId,
+        InputStream inputStream) {
+
+        log.info("Receiving base64 stream {} for {}", kv(INPUT_TYPE, InputType.RIGHT), kv(DIFF_ID, diffId));
+
+        return diffMapper.diffToDiffDto(diffService.save(diffId, InputType.RIGHT, new Base64DecodingInputStream(inputStream)));
+    }
+
+    /**
+     * Saves many base64 inputs, each one as the left or right attribute from the {@link Diff} of its diffId, with a single request.
+     *
+     * @param bulkSaveDto request body.
+     * @return {@link DiffDto} of each input, in the given order, with only the diffId.
+     */
+    @PostMapping(path = "diff/bulk",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Saves many base64 inputs as left or right attributes with a single request.")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "OK", response = DiffDto.class, responseContainer = "List"),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponseDto.class),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 415, message = "Unsupported Media Type", response = ErrorResponseDto.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
+    })
+    public List<DiffDto> saveBulk(
+        @ApiParam(name = "inputs", required = true)
+        @Valid @RequestBody BulkSaveDto bulkSaveDto) {
+
+        log.info("Received in bulk {}", kv("inputs", bulkSaveDto.getInputs().size()));
+
+        final List<Diff> diffs = bulkSaveDto.getInputs().stream().map(this::bulkInputDiff).collect(Collectors.toList());
+
+        return diffService.saveAll(diffs).stream()
+            .map(diff -> DiffDto.builder().diffId(diff.getDiffId()).build())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Compares the left and right inputs of many diffIds concurrently.
+     *
+     * @param bulkDiffRequestDto request body.
+     * @return {@link BulkDiffDto} of each distinct diffId, in the given order, with the results or the error.
+     */
+    @PostMapping(path = "diff/bulk/compare",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Compares the left and right inputs of many diffIds, returning the results or the error of each one.")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "OK", response = BulkDiffDto.class, responseContainer = "List"),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponseDto.class),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 415, message = "Unsupported Media Type", response = ErrorResponseDto.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
+    })
+    public List<BulkDiffDto> diffBulk(
+        @ApiParam(name = "diffIds", required = true)
+        @Valid @RequestBody BulkDiffRequestDto bulkDiffRequestDto) {
+
+        log.info("Comparing in bulk {}", kv("diffIds", bulkDiffRequestDto.getDiffIds().size()));
+
+        return diffService.diffAll(bulkDiffRequestDto.getDiffIds());
     }
 
     /**
      * Compares the left and right inputs of the given diffId.
+     * If a limit is given, only a page of the diff results is returned, starting from the cursor.
+     * If a merge gap or a maximum number of runs is given, the merged diff results are returned with their summary instead.
+     * If from or to is given, only the window of the inputs between them is loaded and compared.
      *
      * @param diffId diff identifier.
+     * @param includeInputs whether the left and right inputs are returned.
+     * @param cursor offset to start the page from, 0 for the first page or the next cursor of the previous page.
+     * @param limit maximum number of diff results of the page.
+     * @param mergeGap maximum number of equal bytes between two diff results to merge them.
+     * @param maxRuns maximum number of merged diff results returned.
+     * @param from offset of the first byte of the window, 0 by default.
+     * @param to offset after the last byte of the window, the end of the inputs by default.
      * @return {@link DiffDto}.
      */
-    @GetMapping(path = "diff/{diffId}", produces = APPLICATION_JSON_VALUE)
+    @GetMapping(path = "diff/{diffId}", produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
     @ResponseStatus(HttpStatus.OK)
     @ApiOperation(value = "Compares the left and right inputs of the given diffId.")
     @ApiResponses({
         @ApiResponse(code = 200, message = "OK", response = DiffDto.class),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponseDto.class),
         @ApiResponse(code = 401, message = "Unauthorized"),
         @ApiResponse(code = 404, message = "Not Found", response = ErrorResponseDto.class),
-        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class)
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
     })
     public DiffDto diff(
         @ApiParam(name = DIFF_ID, required = true)
-        @PathVariable String diffId) {
+        @PathVariable String diffId,
+        @ApiParam(name = "includeInputs")
+        @RequestParam(defaultValue = "true") boolean includeInputs,
+        @ApiParam(name = "cursor")
+        @RequestParam(defaultValue = "0") int cursor,
+        @ApiParam(name = "limit")
+        @RequestParam(required = false) Integer limit,
+        @ApiParam(name = "mergeGap")
+        @RequestParam(required = false) Integer mergeGap,
+        @ApiParam(name = "maxRuns")
+        @RequestParam(required = false) Integer maxRuns,
+        @ApiParam(name = "from")
+        @RequestParam(required = false) Integer from,
+        @ApiParam(name = "to")
+        @RequestParam(required = false) Integer to) {
 
         log.info("Comparing {}", kv(DIFF_ID, diffId));
 
-        return diffService.diff(diffService.findById(diffId));
+        DiffOptions.checkPage(cursor, limit);
+        DiffOptions.checkSummary(limit, mergeGap, maxRuns);
+        DiffOptions.checkWindow(from, to, limit, mergeGap, maxRuns);
+
+        final Diff diff = diffService.findById(diffId, includeInputs);
+
+        if (DiffOptions.isWindow(from, to)) {
+            return diffService.window(diff, DiffOptions.from(from), DiffOptions.to(to), includeInputs);
+        }
+
+        if (DiffOptions.isSummary(mergeGap, maxRuns)) {
+            return diffService.summary(diff, DiffOptions.mergeGap(mergeGap), DiffOptions.maxRuns(maxRuns), includeInputs);
+        }
+
+        return limit == null ? diffService.diff(diff, includeInputs) : diffService.diff(diff, cursor, limit, includeInputs);
+    }
+
+    /**
+     * Compares the left and right inputs of the given diffId and, if they have different sizes,
+     * returns the ranges of equal, deleted and inserted bytes turning the left input into the right input.
+     * The edit script is requested with the edits parameter, so it's never computed by the other comparisons.
+     *
+     * @param diffId diff identifier.
+     * @param includeInputs whether the left and right inputs are returned.
+     * @return {@link DiffDto}.
+     */
+    @GetMapping(path = "diff/{diffId}", params = "edits=true", produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Compares the left and right inputs of the given diffId with the edit script if they have different sizes.")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "OK", response = DiffDto.class),
+        @ApiResponse(code = 400, message = "Bad Request", response = ErrorResponseDto.class),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 404, message = "Not Found", response = ErrorResponseDto.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
+    })
+    public DiffDto diffEdits(
+        @ApiParam(name = DIFF_ID, required = true)
+        @PathVariable String diffId,
+        @ApiParam(name = "includeInputs")
+        @RequestParam(defaultValue = "true") boolean includeInputs) {
+
+        log.info("Comparing with the edit script {}", kv(DIFF_ID, diffId));
+
+        return diffService.edits(diffService.findById(diffId, includeInputs), includeInputs);
+    }
+
+    /**
+     * Compares the left and right inputs of the given diffId, streaming each diff result as a line of newline delimited JSON
+     * as soon as it's found, followed by a last line with the result type.
+     * The stream is requested with the stream parameter, as the JSON response is also produced for any media type.
+     *
+     * @param diffId diff identifier.
+     * @return {@link NdjsonDiffResponseBody}.
+     */
+    @GetMapping(path = "diff/{diffId}", params = "stream=true", produces = APPLICATION_NDJSON_VALUE)
+    @ApiOperation(value = "Streams the diff results of the left and right inputs of the given diffId as newline delimited JSON.")
+    @ApiResponses({
+        @ApiResponse(code = 200, message = "OK", response = DiffResultDto.class),
+        @ApiResponse(code = 401, message = "Unauthorized"),
+        @ApiResponse(code = 404, message = "Not Found", response = ErrorResponseDto.class),
+        @ApiResponse(code = 500, message = "Internal Server Error", response = ErrorResponseDto.class),
+        @ApiResponse(code = 503, message = "Service Unavailable", response = ErrorResponseDto.class)
+    })
+    public ResponseEntity<StreamingResponseBody> diffStream(
+        @ApiParam(name = DIFF_ID, required = true)
+        @PathVariable String diffId) {
+
+        log.info("Streaming the comparison of {}", kv(DIFF_ID, diffId));
+
+        final Diff diff = diffService.findById(diffId, false);
+        diffService.checkInputs(diff);
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+            .body(new NdjsonDiffResponseBody(objectMapper, diffService, diff));
+    }
+
+    private Diff bulkInputDiff(BulkInputDto bulkInputDto) {
+        return bulkInputDto.getInputType() == InputType.LEFT
+            ? diffMapper.bulkInputDtoToLeftDiff(bulkInputDto) : diffMapper.bulkInputDtoToRightDiff(bulkInputDto);
     }
 }
@@ -0,0 +1,25 @@
+package com.limac.diffservice.rest;
+
+/**
+ * Media types produced and consumed by the {@link DiffController} besides the ones defined by {@link org.springframework.http.MediaType}.
+ */
+public final class DiffMediaType {
+
+    /**
+     * Newline delimited JSON, one diff result per line.
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * Concise Binary Object Representation, as defined by RFC 7049.
+     */
+    public static final String APPLICATION_CBOR_VALUE = "application/cbor";
+
+    /**
+     * Binary JSON encoding defined by Jackson.
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private DiffMediaType() {
+    }
+}
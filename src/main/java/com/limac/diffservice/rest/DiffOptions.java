@@ -0,0 +1,137 @@
+package com.limac.diffservice.rest;
+
+import com.limac.diffservice.exception.InvalidInputException;
+
+/**
+ * Checks and defaults of the optional parameters of the comparisons, shared by the servlet and reactive controllers.
+ */
+final class DiffOptions {
+
+    private DiffOptions() {
+    }
+
+    /**
+     * Checks the page parameters.
+     *
+     * @param cursor offset to start the page from.
+     * @param limit maximum number of diff results of the page, or null if the whole results are requested.
+     * @throws InvalidInputException if the cursor is negative or the limit is not positive.
+     */
+    static void checkPage(int cursor, Integer limit) {
+        if (cursor < 0) {
+            throw new InvalidInputException("cursor must be greater than or equal to 0");
+        }
+
+        if (limit != null && limit < 1) {
+            throw new InvalidInputException("limit must be greater than or equal to 1");
+        }
+    }
+
+    /**
+     * Checks the summary parameters, which can't be combined with a page.
+     *
+     * @param limit maximum number of diff results of the page, or null if no page is requested.
+     * @param mergeGap maximum number of equal bytes between two diff results to merge them, or null.
+     * @param maxRuns maximum number of merged diff results returned, or null.
+     * @throws InvalidInputException if any parameter is negative or a summary is requested with a page.
+     */
+    static void checkSummary(Integer limit, Integer mergeGap, Integer maxRuns) {
+        if (mergeGap != null && mergeGap < 0) {
+            throw new InvalidInputException("mergeGap must be greater than or equal to 0");
+        }
+
+        if (maxRuns != null && maxRuns < 0) {
+            throw new InvalidInputException("maxRuns must be greater than or equal to 0");
+        }
+
+        if (limit != null && isSummary(mergeGap, maxRuns)) {
+            throw new InvalidInputException("limit must not be combined with mergeGap or maxRuns");
+        }
+    }
+
+    /**
+     * Checks the window parameters, which can't be combined with a page or a summary.
+     *
+     * @param from offset of the first byte of the window, or null.
+     * @param to offset after the last byte of the window, or null.
+     * @param limit maximum number of diff results of the page, or null if no page is requested.
+     * @param mergeGap maximum number of equal bytes between two diff results to merge them, or null.
+     * @param maxRuns maximum number of merged diff results returned, or null.
+     * @throws InvalidInputException if from is negative, to is not after from or a window is requested with a page or a summary.
+     */
+    static void checkWindow(Integer from, Integer to, Integer limit, Integer mergeGap, Integer maxRuns) {
+        if (from != null && from < 0) {
+            throw new InvalidInputException("from must be greater than or equal to 0");
+        }
+
+        if (to != null && to <= from(from)) {
+            throw new InvalidInputException("to must be greater than from");
+        }
+
+        if (isWindow(from, to) && (limit != null || isSummary(mergeGap, maxRuns))) {
+            throw new InvalidInputException("from and to must not be combined with limit, mergeGap or maxRuns");
+        }
+    }
+
+    /**
+     * Whether only a window of the inputs is compared.
+     *
+     * @param from offset of the first byte of the window parameter.
+     * @param to offset after the last byte of the window parameter.
+     * @return true if any of them is given.
+     */
+    static boolean isWindow(Integer from, Integer to) {
+        return from != null || to != null;
+    }
+
+    /**
+     * Defaults the start of the window to the start of the inputs.
+     *
+     * @param from offset of the first byte of the window parameter.
+     * @return offset of the first byte of the window.
+     */
+    static int from(Integer from) {
+        return from == null ? 0 : from;
+    }
+
+    /**
+     * Defaults the end of the window to the end of the inputs.
+     *
+     * @param to offset after the last byte of the window parameter.
+     * @return offset after the last byte of the window.
+     */
+    static int to(Integer to) {
+        return to == null ? Integer.MAX_VALUE : to;
+    }
+
+    /**
+     * Whether the merged diff results and their summary are requested.
+     *
+     * @param mergeGap merge gap parameter.
+     * @param maxRuns maximum number of runs parameter.
+     * @return true if any of them is given.
+     */
+    static boolean isSummary(Integer mergeGap, Integer maxRuns) {
+        return mergeGap != null || maxRuns != null;
+    }
+
+    /**
+     * Defaults the merge gap to 0, merging no diff results.
+     *
+     * @param mergeGap merge gap parameter.
+     * @return merge gap.
+     */
+    static int mergeGap(Integer mergeGap) {
+        return mergeGap == null ? 0 : mergeGap;
+    }
+
+    /**
+     * Defaults the maximum number of runs to no maximum.
+     *
+     * @param maxRuns maximum number of runs parameter.
+     * @return maximum number of runs.
+     */
+    static int maxRuns(Integer maxRuns) {
+        return maxRuns == null ? Integer.MAX_VALUE : maxRuns;
+    }
+}
@@ -0,0 +1,53 @@
+package com.limac.diffservice.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.service.DiffService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * {@link StreamingResponseBody} writing the diff results of a {@link Diff} as newline delimited JSON while they're found,
+ * followed by a last line with the result type.
+ */
+@RequiredArgsConstructor
+public class NdjsonDiffResponseBody implements StreamingResponseBody {
+
+    private static final char LINE_SEPARATOR = '\n';
+
+    private final ObjectMapper objectMapper;
+    private final DiffService diffService;
+    private final Diff diff;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(outputStream)) {
+            jsonGenerator.setRootValueSeparator(null);
+
+            jsonGenerator.writeObject(diffService.diff(diff, (offset, length) -> writeDiffResult(jsonGenerator, offset, length)));
+            jsonGenerator.writeRaw(LINE_SEPARATOR);
+        }
+    }
+
+    private static boolean writeDiffResult(JsonGenerator jsonGenerator, int offset, int length) {
+        try {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeNumberField("offset", offset);
+            jsonGenerator.writeNumberField("length", length);
+            jsonGenerator.writeEndObject();
+            jsonGenerator.writeRaw(LINE_SEPARATOR);
+
+            return true;
+        } catch (IOException exception) {
+            throw new UncheckedIOException("could not write the diff result", exception);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.limac.diffservice.rest;
+
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.logging.PayloadLogArguments;
+import com.limac.diffservice.mapping.DiffMapper;
+import com.limac.diffservice.rest.dto.Base64Dto;
+import com.limac.diffservice.rest.dto.BulkDiffDto;
+import com.limac.diffservice.rest.dto.BulkDiffRequestDto;
+import com.limac.diffservice.rest.dto.BulkInputDto;
+import com.limac.diffservice.rest.dto.BulkSaveDto;
+import com.limac.diffservice.rest.dto.DiffDto;
+import com.limac.diffservice.service.ReactiveDiffService;
+import com.limac.diffservice.type.InputType;
+import com.limac.diffservice.validation.validator.Base64DecodingInputStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.limac.diffservice.rest.DiffMediaType.APPLICATION_CBOR_VALUE;
+import static com.limac.diffservice.rest.DiffMediaType.APPLICATION_NDJSON_VALUE;
+import static com.limac.diffservice.rest.DiffMediaType.APPLICATION_SMILE_VALUE;
+import static net.logstash.logback.argument.StructuredArguments.kv;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_OCTET_STREAM_VALUE;
+import static org.springframework.http.MediaType.TEXT_PLAIN_VALUE;
+
+/**
+ * Non-blocking controller for Diff, keeping the contract of the {@link DiffController} on the reactive stack.
+ */
+@Slf4j
+@RestController
+@RequestMapping(path = "/v1")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveDiffController {
+
+    private static final String DIFF_ID = "diffId";
+    private static final String INPUT_TYPE = "inputType";
+    private static final int STREAM_PREFETCH = 16;
+
+    private final ReactiveDiffService reactiveDiffService;
+    private final DiffMapper diffMapper;
+    private final PayloadLogArguments payloadLogArguments;
+
+    /**
+     * Saves the base64 value of the request body as left attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param base64Dto request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/left",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<DiffDto> saveLeft(@PathVariable String diffId, @Valid @RequestBody Base64Dto base64Dto) {
+        final Diff diff = diffMapper.base64DtoToLeftDiff(base64Dto);
+        diff.setDiffId(diffId);
+
+        return reactiveDiffService.save(diff, InputType.LEFT)
+            .doOnNext(diffSaved -> log.info("Saved {} for {}",
+                payloadLogArguments.payload(diffId, "left", base64Dto.getBase64Value(), diffSaved.getLeftDigest()), kv(DIFF_ID, diffId)))
+            .map(diffMapper::diffToDiffDto);
+    }
+
+    /**
+     * Saves the binary request body as left attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param body binary request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/left",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = APPLICATION_OCTET_STREAM_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<DiffDto> saveLeftBinary(@PathVariable String diffId, @RequestBody Flux<DataBuffer> body) {
+        log.info("Receiving binary {} for {}", kv(INPUT_TYPE, InputType.LEFT), kv(DIFF_ID, diffId));
+
+        return saveStream(diffId, InputType.LEFT, body, false);
+    }
+
+    /**
+     * Saves the base64 request body, decoded, as left attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param body base64 request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/left",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = TEXT_PLAIN_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<DiffDto> saveLeftBase64Stream(@PathVariable String diffId, @RequestBody Flux<DataBuffer> body) {
+        log.info("Receiving base64 stream {} for {}", kv(INPUT_TYPE, InputType.LEFT), kv(DIFF_ID, diffId));
+
+        return saveStream(diffId, InputType.LEFT, body, true);
+    }
+
+    /**
+     * Saves the base64 value of the request body as right attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param base64Dto request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/right",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<DiffDto> saveRight(@PathVariable String diffId, @Valid @RequestBody Base64Dto base64Dto) {
+        final Diff diff = diffMapper.base64DtoToRightDiff(base64Dto);
+        diff.setDiffId(diffId);
+
+        return reactiveDiffService.save(diff, InputType.RIGHT)
+            .doOnNext(diffSaved -> log.info("Saved {} for {}",
+                payloadLogArguments.payload(diffId, "right", base64Dto.getBase64Value(), diffSaved.getRightDigest()), kv(DIFF_ID, diffId)))
+            .map(diffMapper::diffToDiffDto);
+    }
+
+    /**
+     * Saves the binary request body as right attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param body binary request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/right",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = APPLICATION_OCTET_STREAM_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<DiffDto> saveRightBinary(@PathVariable String diffId, @RequestBody Flux<DataBuffer> body) {
+        log.info("Receiving binary {} for {}", kv(INPUT_TYPE, InputType.RIGHT), kv(DIFF_ID, diffId));
+
+        return saveStream(diffId, InputType.RIGHT, body, false);
+    }
+
+    /**
+     * Saves the base64 request body, decoded, as right attribute from {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param body base64 request body.
+     * @return {@link DiffDto}.
+     */
+    @PostMapping(path = "diff/{diffId}/right",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = TEXT_PLAIN_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<DiffDto> saveRightBase64Stream(@PathVariable String diffId, @RequestBody Flux<DataBuffer> body) {
+        log.info("Receiving base64 stream {} for {}", kv(INPUT_TYPE, InputType.RIGHT), kv(DIFF_ID, diffId));
+
+        return saveStream(diffId, InputType.RIGHT, body, true);
+    }
+
+    /**
+     * Saves many base64 inputs, each one as the left or right attribute from the {@link Diff} of its diffId, with a single request.
+     *
+     * @param bulkSaveDto request body.
+     * @return {@link DiffDto} of each input, in the given order, with only the diffId.
+     */
+    @PostMapping(path = "diff/bulk",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<List<DiffDto>> saveBulk(@Valid @RequestBody BulkSaveDto bulkSaveDto) {
+        log.info("Received in bulk {}", kv("inputs", bulkSaveDto.getInputs().size()));
+
+        final List<Diff> diffs = bulkSaveDto.getInputs().stream().map(this::bulkInputDiff).collect(Collectors.toList());
+
+        return reactiveDiffService.saveAll(diffs)
+            .map(diffsSaved -> diffsSaved.stream().map(diff -> DiffDto.builder().diffId(diff.getDiffId()).build()).collect(Collectors.toList()));
+    }
+
+    /**
+     * Compares the left and right inputs of many diffIds concurrently.
+     *
+     * @param bulkDiffRequestDto request body.
+     * @return {@link BulkDiffDto} of each distinct diffId, in the given order, with the results or the error.
+     */
+    @PostMapping(path = "diff/bulk/compare",
+        produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE },
+        consumes = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<List<BulkDiffDto>> diffBulk(@Valid @RequestBody BulkDiffRequestDto bulkDiffRequestDto) {
+        log.info("Comparing in bulk {}", kv("diffIds", bulkDiffRequestDto.getDiffIds().size()));
+
+        return reactiveDiffService.diffAll(bulkDiffRequestDto.getDiffIds());
+    }
+
+    /**
+     * Compares the left and right inputs of the given diffId.
+     * If a limit is given, only a page of the diff results is returned, starting from the cursor.
+     * If a merge gap or a maximum number of runs is given, the merged diff results are returned with their summary instead.
+     * If from or to is given, only the window of the inputs between them is loaded and compared.
+     *
+     * @param diffId diff identifier.
+     * @param includeInputs whether the left and right inputs are returned.
+     * @param cursor offset to start the page from, 0 for the first page or the next cursor of the previous page.
+     * @param limit maximum number of diff results of the page.
+     * @param mergeGap maximum number of equal bytes between two diff results to merge them.
+     * @param maxRuns maximum number of merged diff results returned.
+     * @param from offset of the first byte of the window, 0 by default.
+     * @param to offset after the last byte of the window, the end of the inputs by default.
+     * @return {@link DiffDto}.
+     */
+    @GetMapping(path = "diff/{diffId}", produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<DiffDto> diff(
+        @PathVariable String diffId,
+        @RequestParam(defaultValue = "true") boolean includeInputs,
+        @RequestParam(defaultValue = "0") int cursor,
+        @RequestParam(required = false) Integer limit,
+        @RequestParam(required = false) Integer mergeGap,
+        @RequestParam(required = false) Integer maxRuns,
+        @RequestParam(required = false) Integer from,
+        @RequestParam(required = false) Integer to) {
+
+        log.info("Comparing {}", kv(DIFF_ID, diffId));
+
+        DiffOptions.checkPage(cursor, limit);
+        DiffOptions.checkSummary(limit, mergeGap, maxRuns);
+        DiffOptions.checkWindow(from, to, limit, mergeGap, maxRuns);
+
+        return reactiveDiffService.findById(diffId, includeInputs)
+            .flatMap(diff -> compare(diff, includeInputs, cursor, limit, mergeGap, maxRuns, from, to));
+    }
+
+    /**
+     * Compares the left and right inputs of the given diffId and, if they have different sizes,
+     * returns the ranges of equal, deleted and inserted bytes turning the left input into the right input.
+     *
+     * @param diffId diff identifier.
+     * @param includeInputs whether the left and right inputs are returned.
+     * @return {@link DiffDto}.
+     */
+    @GetMapping(path = "diff/{diffId}", params = "edits=true", produces = { APPLICATION_JSON_VALUE, APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE })
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<DiffDto> diffEdits(@PathVariable String diffId, @RequestParam(defaultValue = "true") boolean includeInputs) {
+        log.info("Comparing with the edit script {}", kv(DIFF_ID, diffId));
+
+        return reactiveDiffService.findById(diffId, includeInputs).flatMap(diff -> reactiveDiffService.edits(diff, includeInputs));
+    }
+
+    /**
+     * Compares the left and right inputs of the given diffId, streaming each diff result as a line of newline delimited JSON
+     * as soon as it's found, followed by a last line with the result type.
+     *
+     * @param diffId diff identifier.
+     * @return diff results followed by the {@link DiffDto}.
+     */
+    @GetMapping(path = "diff/{diffId}", params = "stream=true", produces = APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<Flux<Object>>> diffStream(@PathVariable String diffId) {
+        log.info("Streaming the comparison of {}", kv(DIFF_ID, diffId));
+
+        return reactiveDiffService.findById(diffId, false)
+            .doOnNext(reactiveDiffService::checkInputs)
+            .map(diff -> ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(reactiveDiffService.diffStream(diff)));
+    }
+
+    private Mono<DiffDto> compare(Diff diff, boolean includeInputs, int cursor, Integer limit, Integer mergeGap, Integer maxRuns, Integer from,
+                                  Integer to) {
+        if (DiffOptions.isWindow(from, to)) {
+            return reactiveDiffService.window(diff, DiffOptions.from(from), DiffOptions.to(to), includeInputs);
+        }
+
+        if (DiffOptions.isSummary(mergeGap, maxRuns)) {
+            return reactiveDiffService.summary(diff, DiffOptions.mergeGap(mergeGap), DiffOptions.maxRuns(maxRuns), includeInputs);
+        }
+
+        return limit == null ? reactiveDiffService.diff(diff, includeInputs) : reactiveDiffService.diff(diff, cursor, limit, includeInputs);
+    }
+
+    /**
+     * Saves the request body on the bounded scheduler of the {@link ReactiveDiffService}, which reads its buffers as they are received,
+     * as the chunks are only stored from blocking streams.
+     */
+    private Mono<DiffDto> saveStream(String diffId, InputType inputType, Flux<DataBuffer> body, boolean base64) {
+        return Mono.using(() -> new DataBufferInputStream(body, STREAM_PREFETCH),
+            inputStream -> reactiveDiffService.save(diffId, inputType, base64 ? new Base64DecodingInputStream(inputStream) : inputStream),
+            DataBufferInputStream::close)
+            .map(diffMapper::diffToDiffDto);
+    }
+
+    private Diff bulkInputDiff(BulkInputDto bulkInputDto) {
+        return bulkInputDto.getInputType() == InputType.LEFT
+            ? diffMapper.bulkInputDtoToLeftDiff(bulkInputDto) : diffMapper.bulkInputDtoToRightDiff(bulkInputDto);
+    }
+}
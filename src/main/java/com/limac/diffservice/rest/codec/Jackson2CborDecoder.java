@@ -0,0 +1,77 @@
+package com.limac.diffservice.rest.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.AbstractDecoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static com.limac.diffservice.rest.DiffMediaType.APPLICATION_CBOR_VALUE;
+
+/**
+ * Decoder of the CBOR encoding on the reactive stack, which has no CBOR codecs in this version of Spring.
+ * Jackson has no non-blocking CBOR parser, so the body is joined before being decoded as a single value.
+ */
+public class Jackson2CborDecoder extends AbstractDecoder<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Construct a Jackson2CborDecoder instance.
+     *
+     * @param objectMapper mapper created with a {@link CBORFactory}.
+     */
+    public Jackson2CborDecoder(ObjectMapper objectMapper) {
+        super(MimeType.valueOf(APPLICATION_CBOR_VALUE));
+        Assert.isAssignable(CBORFactory.class, objectMapper.getFactory().getClass());
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return mimeType != null && super.canDecode(elementType, mimeType) && objectMapper.canDeserialize(javaType(elementType));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        return Flux.from(decodeToMono(input, elementType, mimeType, hints));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<Object> decodeToMono(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+        final JavaType javaType = javaType(elementType);
+
+        return DataBufferUtils.join(input).map(dataBuffer -> {
+            try (InputStream inputStream = dataBuffer.asInputStream(true)) {
+                return objectMapper.readValue(inputStream, javaType);
+            } catch (IOException exception) {
+                throw new DecodingException("could not decode the CBOR body", exception);
+            }
+        });
+    }
+
+    private JavaType javaType(ResolvableType elementType) {
+        return objectMapper.getTypeFactory().constructType(elementType.getType());
+    }
+}
@@ -0,0 +1,25 @@
+package com.limac.diffservice.rest.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.util.Assert;
+import org.springframework.util.MimeType;
+
+import static com.limac.diffservice.rest.DiffMediaType.APPLICATION_CBOR_VALUE;
+
+/**
+ * Encoder of the CBOR encoding on the reactive stack, which has no CBOR codecs in this version of Spring.
+ */
+public class Jackson2CborEncoder extends AbstractJackson2Encoder {
+
+    /**
+     * Construct a Jackson2CborEncoder instance.
+     *
+     * @param objectMapper mapper created with a {@link CBORFactory}.
+     */
+    public Jackson2CborEncoder(ObjectMapper objectMapper) {
+        super(objectMapper, MimeType.valueOf(APPLICATION_CBOR_VALUE));
+        Assert.isAssignable(CBORFactory.class, objectMapper.getFactory().getClass());
+    }
+}
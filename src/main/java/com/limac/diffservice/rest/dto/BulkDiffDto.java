@@ -0,0 +1,29 @@
+package com.limac.diffservice.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.limac.diffservice.type.ResultType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * Data transfer object to hold the result of one comparison of a bulk diff, or the error that prevented it.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@JsonInclude(NON_NULL)
+public class BulkDiffDto {
+
+    private String diffId;
+
+    private ResultType resultType;
+
+    private List<DiffResultDto> diffResults;
+
+    private String errorMessage;
+}
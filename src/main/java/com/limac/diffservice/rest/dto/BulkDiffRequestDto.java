@@ -0,0 +1,23 @@
+package com.limac.diffservice.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * Data transfer object to hold the diff identifiers compared by a bulk diff.
+ */
+@Data
+@JsonInclude(NON_NULL)
+public class BulkDiffRequestDto {
+
+    @NotEmpty
+    @Size(max = 1000)
+    private List<@NotBlank String> diffIds;
+}
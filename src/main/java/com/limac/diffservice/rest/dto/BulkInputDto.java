@@ -0,0 +1,28 @@
+package com.limac.diffservice.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.limac.diffservice.type.InputType;
+import com.limac.diffservice.validation.annotation.Base64;
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * Data transfer object to hold one base64 input of a bulk save.
+ */
+@Data
+@JsonInclude(NON_NULL)
+public class BulkInputDto {
+
+    @NotBlank
+    private String diffId;
+
+    @NotNull
+    private InputType inputType;
+
+    @Base64
+    private String base64Value;
+}
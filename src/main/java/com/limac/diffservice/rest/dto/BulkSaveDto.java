@@ -0,0 +1,24 @@
+package com.limac.diffservice.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * Data transfer object to hold the inputs saved by a bulk save, each input of a diffId at most once.
+ */
+@Data
+@JsonInclude(NON_NULL)
+public class BulkSaveDto {
+
+    @Valid
+    @NotEmpty
+    @Size(max = 1000)
+    private List<BulkInputDto> inputs;
+}
@@ -0,0 +1,30 @@
+package com.limac.diffservice.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * Data transfer object to hold the statistics of a Mongo collection, with the uncompressed sizes of its documents and the size of its indexes.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@JsonInclude(NON_NULL)
+public class CollectionStatsDto {
+
+    private String name;
+
+    private Long documents;
+
+    private Long size;
+
+    private Long averageDocumentSize;
+
+    private Long storageSize;
+
+    private Long indexSize;
+}
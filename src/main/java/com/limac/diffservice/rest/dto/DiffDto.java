@@ -2,6 +2,7 @@ package com.limac.diffservice.rest.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.limac.diffservice.type.ResultType;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
@@ -15,6 +16,7 @@ import static com.fasterxml.jackson.annotation.JsonInclude.Include.*;
  */
 @Data
 @Builder
+@AllArgsConstructor
 @JsonInclude(NON_NULL)
 public class DiffDto {
 
@@ -27,4 +29,12 @@ public class DiffDto {
     private ResultType resultType;
 
     private List<DiffResultDto> diffResults;
+
+    private Integer nextCursor;
+
+    private DiffSummaryDto summary;
+
+    private List<EditDto> edits;
+
+    private Boolean coarse;
 }
@@ -0,0 +1,30 @@
+package com.limac.diffservice.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * Data transfer object to hold the statistics of the storage of the diffs, with an estimate of their working set.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@JsonInclude(NON_NULL)
+public class DiffStorageDto {
+
+    private Long ttl;
+
+    private List<CollectionStatsDto> collections;
+
+    private Long workingSetBytes;
+
+    private Long cacheBytes;
+
+    private Long cachedBytes;
+}
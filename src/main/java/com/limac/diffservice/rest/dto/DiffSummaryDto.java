@@ -0,0 +1,28 @@
+package com.limac.diffservice.rest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import static com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL;
+
+/**
+ * Data transfer object to hold the summary of all the diff results of a comparison, including the ones not returned.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@JsonInclude(NON_NULL)
+public class DiffSummaryDto {
+
+    private Long differingBytes;
+
+    private Integer runs;
+
+    private Integer firstOffset;
+
+    private Integer lastOffset;
+
+    private Boolean truncated;
+}
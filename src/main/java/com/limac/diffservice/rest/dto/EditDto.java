@@ -0,0 +1,25 @@
+package com.limac.diffservice.rest.dto;
+
+import com.limac.diffservice.type.EditType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Data transfer object to hold a range of the edit script turning the left input into the right input.
+ * Both offsets are the positions of the range in each input, so a deleted range starts at the left offset
+ * and an inserted range starts at the right offset.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class EditDto {
+
+    private EditType type;
+
+    private Integer leftOffset;
+
+    private Integer rightOffset;
+
+    private Integer length;
+}
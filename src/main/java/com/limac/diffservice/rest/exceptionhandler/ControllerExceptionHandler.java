@@ -1,16 +1,21 @@
 package com.limac.diffservice.rest.exceptionhandler;
 
+import com.limac.diffservice.exception.InvalidInputException;
 import com.limac.diffservice.exception.MissingInputException;
 import com.limac.diffservice.exception.NotFoundException;
+import com.limac.diffservice.exception.OverloadedException;
 import com.limac.diffservice.rest.dto.ErrorResponseDto;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 import java.util.StringJoiner;
 
@@ -32,20 +37,33 @@ public class ControllerExceptionHandler {
     @ResponseStatus(BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponseDto> handleBadRequest(MethodArgumentNotValidException exception) {
-        final StringJoiner stringJoiner = new StringJoiner(", ");
-
-        exception.getBindingResult().getFieldErrors().forEach(fieldError ->
-            stringJoiner.add(fieldError.getField() + " " + fieldError.getDefaultMessage()));
-
-        final String errorMessage = stringJoiner.toString();
-
-        log.error("{} was caught with {}", kv("exception", exception.getClass().getSimpleName()), kv("errorMessage", errorMessage));
+        return buildBadRequest(exception, exception.getBindingResult());
+    }
 
-        return ResponseEntity
-            .status(BAD_REQUEST)
-            .body(ErrorResponseDto.builder().errorMessage(errorMessage).build());
+    /**
+     * Handles {@link WebExchangeBindException}, raised by the validation of the reactive stack,
+     * to send it as an {@link ErrorResponseDto} with status 400.
+     *
+     * @param exception exception to be handled.
+     * @return Response entity containing error response.
+     */
+    @ResponseStatus(BAD_REQUEST)
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponseDto> handleReactiveBadRequest(WebExchangeBindException exception) {
+        return buildBadRequest(exception, exception.getBindingResult());
     }
 
+    /**
+     * Handles {@link InvalidInputException} to send it as an {@link ErrorResponseDto} with status 400.
+     *
+     * @param exception exception to be handled.
+     * @return Response entity containing error response.
+     */
+    @ResponseStatus(BAD_REQUEST)
+    @ExceptionHandler(InvalidInputException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidInput(Exception exception) {
+        return buildResponseEntity(exception, BAD_REQUEST);
+    }
 
     /**
      * Handles {@link NotFoundException} to send it as an {@link ErrorResponseDto} with status 404.
@@ -71,6 +89,22 @@ public class ControllerExceptionHandler {
         return buildResponseEntity(exception, UNSUPPORTED_MEDIA_TYPE);
     }
 
+    /**
+     * Handles {@link OverloadedException} to send it as an {@link ErrorResponseDto} with status 503,
+     * and the delay in seconds after which the request should be retried in the Retry-After header.
+     *
+     * @param exception exception to be handled.
+     * @return Response entity containing error response.
+     */
+    @ResponseStatus(SERVICE_UNAVAILABLE)
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<ErrorResponseDto> handleOverloaded(OverloadedException exception) {
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.set(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfter()));
+
+        return buildResponseEntity(exception, SERVICE_UNAVAILABLE, httpHeaders);
+    }
+
     /**
      * Handles {@link MissingInputException} to send it as an {@link ErrorResponseDto} with status 500.
      * This handler is also used as fallback for any unexpected {@link Exception}.
@@ -84,13 +118,33 @@ public class ControllerExceptionHandler {
         return buildResponseEntity(exception, INTERNAL_SERVER_ERROR);
     }
 
+    private ResponseEntity<ErrorResponseDto> buildBadRequest(Exception exception, BindingResult bindingResult) {
+        final StringJoiner stringJoiner = new StringJoiner(", ");
+
+        bindingResult.getFieldErrors().forEach(fieldError ->
+            stringJoiner.add(fieldError.getField() + " " + fieldError.getDefaultMessage()));
+
+        final String errorMessage = stringJoiner.toString();
+
+        log.error("{} was caught with {}", kv("exception", exception.getClass().getSimpleName()), kv("errorMessage", errorMessage));
+
+        return ResponseEntity
+            .status(BAD_REQUEST)
+            .body(ErrorResponseDto.builder().errorMessage(errorMessage).build());
+    }
+
     private ResponseEntity<ErrorResponseDto> buildResponseEntity(Exception exception, HttpStatus httpStatus) {
+        return buildResponseEntity(exception, httpStatus, new HttpHeaders());
+    }
+
+    private ResponseEntity<ErrorResponseDto> buildResponseEntity(Exception exception, HttpStatus httpStatus, HttpHeaders httpHeaders) {
         final String errorMessage = exception.getMessage();
 
         log.error("{} was caught with {}", kv("exception", exception.getClass().getSimpleName()), kv("errorMessage", errorMessage));
 
         return ResponseEntity
             .status(httpStatus)
+            .headers(httpHeaders)
             .body(ErrorResponseDto.builder().errorMessage(errorMessage).build());
     }
 }
@@ -0,0 +1,68 @@
+package com.limac.diffservice.rest.exceptionhandler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.limac.diffservice.rest.dto.ErrorResponseDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebExceptionHandler;
+import reactor.core.publisher.Mono;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * {@link WebExceptionHandler} of the reactive stack mapping the {@link ResponseStatusException} raised before a handler is found,
+ * like an unsupported media type, to an {@link ErrorResponseDto} with the status of the exception.
+ * The exceptions raised by the handlers are mapped by the {@link ControllerExceptionHandler}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ResponseStatusExceptionHandler implements WebExceptionHandler, Ordered {
+
+    private static final int ORDER = -2;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable throwable) {
+        final ServerHttpResponse response = exchange.getResponse();
+
+        if (!(throwable instanceof ResponseStatusException) || response.isCommitted()) {
+            return Mono.error(throwable);
+        }
+
+        final ResponseStatusException exception = (ResponseStatusException) throwable;
+        final String errorMessage = exception.getReason();
+
+        log.error("{} was caught with {}", kv("exception", exception.getClass().getSimpleName()), kv("errorMessage", errorMessage));
+
+        try {
+            final byte[] body = objectMapper.writeValueAsBytes(ErrorResponseDto.builder().errorMessage(errorMessage).build());
+
+            response.setStatusCode(exception.getStatus());
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        } catch (JsonProcessingException jsonProcessingException) {
+            return Mono.error(jsonProcessingException);
+        }
+    }
+
+    /**
+     * Runs before the error handler of Spring Boot.
+     *
+     * @return order of the handler.
+     */
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,115 @@
+package com.limac.diffservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AuthenticationProvider} caching the credentials verified by a delegate provider, so the same Basic credentials
+ * are verified by the password encoder once per cache entry instead of once per request.
+ * The credentials are cached by their HMAC with a key that is never exposed, so the cache doesn't hold them in clear.
+ * Rejected credentials are not cached, so they are always verified by the delegate provider.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    /**
+     * Algorithm of the HMAC of the credentials.
+     */
+    public static final String ALGORITHM = "HmacSHA256";
+
+    private static final String CREDENTIALS_SEPARATOR = ":";
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> verifiedCredentials;
+    private final Key credentialsKey;
+    private final Timer verificationTimer;
+
+    /**
+     * Creates the provider and registers the time of the verifications by the delegate provider as the
+     * {@code diff.auth.verification} timer and the estimated time saved per request by the cache as the
+     * {@code diff.auth.saved} gauge.
+     *
+     * @param delegate provider verifying the credentials that are not cached.
+     * @param verifiedCredentials cache of the verified credentials, recording its statistics.
+     * @param credentialsKey key of the HMAC of the credentials.
+     * @param meterRegistry registry of the metrics.
+     */
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, Cache<String, Authentication> verifiedCredentials,
+                                         Key credentialsKey, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.verifiedCredentials = verifiedCredentials;
+        this.credentialsKey = credentialsKey;
+
+        verificationTimer = Timer.builder("diff.auth.verification")
+            .description("Time of the credentials verified by the password encoder")
+            .register(meterRegistry);
+
+        Gauge.builder("diff.auth.saved", this, CachingAuthenticationProvider::savedPerRequest)
+            .description("Estimated verification time saved per request by the verified credentials cache")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        final String key = hash(authentication.getName() + CREDENTIALS_SEPARATOR + authentication.getCredentials());
+        final Authentication verified = verifiedCredentials.getIfPresent(key);
+
+        if (verified != null) {
+            final UsernamePasswordAuthenticationToken token =
+                new UsernamePasswordAuthenticationToken(verified.getPrincipal(), null, verified.getAuthorities());
+            token.setDetails(authentication.getDetails());
+
+            return token;
+        }
+
+        final Authentication result = verificationTimer.record(() -> delegate.authenticate(authentication));
+
+        if (result != null) {
+            verifiedCredentials.put(key, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    static Mac newMac(String algorithm, Key key) {
+        try {
+            final Mac mac = Mac.getInstance(algorithm);
+            mac.init(key);
+
+            return mac;
+        } catch (GeneralSecurityException exception) {
+            throw new IllegalArgumentException("unsupported MAC algorithm: " + algorithm, exception);
+        }
+    }
+
+    private String hash(String credentials) {
+        return Base64.getEncoder().encodeToString(newMac(ALGORITHM, credentialsKey).doFinal(credentials.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private double savedPerRequest() {
+        return verifiedCredentials.stats().hitRate() * verificationTimer.mean(TimeUnit.SECONDS);
+    }
+}
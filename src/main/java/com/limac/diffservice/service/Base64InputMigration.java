@@ -0,0 +1,81 @@
+package com.limac.diffservice.service;
+
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.repository.DiffRepository;
+import com.limac.diffservice.repository.PayloadCodec;
+import com.limac.diffservice.type.InputType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.util.Base64;
+import java.util.List;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Migrates the inputs of the {@link Diff}s saved as base64 values to payloads encoded by the {@link PayloadCodec}, once the application is ready.
+ * The {@link Diff}s are read in batches in the order of their identifiers, and each input is only replaced if it wasn't saved again meanwhile,
+ * so the migration can run while the inputs are saved and be restarted at any time.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class Base64InputMigration implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final String DIFF_ID = "diffId";
+
+    private final DiffRepository diffRepository;
+    private final PayloadCodec payloadCodec;
+    private final int batchSize;
+
+    /**
+     * Migrates the inputs once the application is ready.
+     *
+     * @param event application ready event.
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        migrate();
+    }
+
+    /**
+     * Migrates all the inputs saved as base64 values.
+     *
+     * @return number of inputs migrated.
+     */
+    public long migrate() {
+        log.info("Migrating the base64 inputs in batches of {}", kv("batchSize", batchSize));
+
+        long migrated = 0;
+        List<Diff> diffs = diffRepository.findBase64Inputs(null, batchSize);
+
+        while (!diffs.isEmpty()) {
+            for (final Diff diff : diffs) {
+                migrated += migrate(diff.getDiffId(), InputType.LEFT, diff.getLeft()) + migrate(diff.getDiffId(), InputType.RIGHT, diff.getRight());
+            }
+
+            diffs = diffRepository.findBase64Inputs(diffs.get(diffs.size() - 1).getDiffId(), batchSize);
+        }
+
+        log.info("Migrated the base64 inputs: {}", kv("migrated", migrated));
+
+        return migrated;
+    }
+
+    private int migrate(String diffId, InputType inputType, String base64Value) {
+        if (base64Value == null) {
+            return 0;
+        }
+
+        try {
+            final byte[] payload = payloadCodec.encode(Base64.getDecoder().decode(base64Value));
+
+            return diffRepository.migrateInput(diffId, inputType, base64Value, payload) ? 1 : 0;
+        } catch (IllegalArgumentException exception) {
+            log.warn("Could not migrate the invalid base64 {} of {}", kv("inputType", inputType), kv(DIFF_ID, diffId), exception);
+
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.limac.diffservice.service;
+
+import com.limac.diffservice.domain.Chunk;
+import com.limac.diffservice.repository.ChunkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Date;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+/**
+ * Periodically removes the {@link Chunk}s no longer referenced by any input.
+ * A chunk is only removed once it's been released for longer than the grace period, so an input being stored meanwhile
+ * can still reference it, as the stored chunks are written again with their data when they're no longer referenced.
+ * If the Diffs expire, the chunks not referenced since the time to live and the grace period are removed as well, as the Diffs
+ * removed by the expiry index don't release their references. A Diff expires after its creation while its chunks are referenced
+ * again whenever an input is stored, so a chunk is never removed before the Diffs referencing it.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ChunkCollector {
+
+    private final ChunkRepository chunkRepository;
+    private final long gracePeriod;
+    private final long expiryPeriod;
+
+    /**
+     * Removes the chunks released before the grace period, and the chunks of the expired Diffs if the Diffs expire.
+     *
+     * @return number of chunks removed.
+     */
+    @Scheduled(fixedDelayString = "${diff.storage.chunks.collect-interval:60000}")
+    public long collect() {
+        final long now = System.currentTimeMillis();
+        long collected = chunkRepository.collect(new Date(now - gracePeriod));
+
+        if (expiryPeriod > 0) {
+            collected += chunkRepository.expire(new Date(now - expiryPeriod - gracePeriod));
+        }
+
+        if (collected > 0) {
+            log.info("Collected the unreferenced chunks: {}", kv("collected", collected));
+        }
+
+        return collected;
+    }
+}
@@ -1,39 +1,168 @@
 package com.limac.diffservice.service;
 
 import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.engine.DiffResultListener;
+import com.limac.diffservice.rest.dto.BulkDiffDto;
 import com.limac.diffservice.rest.dto.DiffDto;
 import com.limac.diffservice.type.InputType;
 
+import java.io.InputStream;
+import java.util.List;
+
 /**
  * Service to execute {@link Diff} operations.
  */
 public interface DiffService {
 
     /**
-     * Saves the {@link Diff}.
+     * Saves the input type of the {@link Diff}, keeping the other input as it is.
+     * If the other input is already saved, the inputs are compared in background.
      *
      * @param diff diff to be saved.
      * @param inputType input type to be saved.
      *
-     * @return {@link Diff} saved.
+     * @return {@link Diff} saved, with only the input type saved.
+     * @throws com.limac.diffservice.exception.InvalidInputException if the input has no base64 value.
      */
     Diff save(Diff diff, InputType inputType);
 
+    /**
+     * Saves the binary input read from the given stream as the input type of the {@link Diff}.
+     * The input is streamed to the storage without being held in memory.
+     * If the other input is already saved, the inputs are compared in background.
+     *
+     * @param diffId diff identifier.
+     * @param inputType input type to be saved.
+     * @param inputStream stream with the binary input.
+     *
+     * @return {@link Diff} saved.
+     */
+    Diff save(String diffId, InputType inputType, InputStream inputStream);
+
+    /**
+     * Saves many base64 inputs concurrently, keeping the other inputs as they are.
+     * Each input is written atomically as by a single save, and the {@link Diff}s with both inputs saved are compared in background.
+     * The inputs larger than the inline maximum size are stored as chunks, like the ones saved one by one.
+     *
+     * @param diffs diffs to be saved, each one with either the left or the right input.
+     *
+     * @return {@link Diff}s saved, in the given order, with only the input saved.
+     * @throws com.limac.diffservice.exception.InvalidInputException if any input has no base64 value or is given more than once.
+     */
+    List<Diff> saveAll(List<Diff> diffs);
+
     /**
      * Finds a {@link Diff} by an identifier.
+     * Unless the inputs are included, the inline payloads are only read if the result of the comparison is not known without them,
+     * and the comparisons read them again if they need them.
      *
      * @param diffId diff identifier.
+     * @param includeInputs whether the left and right inputs are returned by the comparisons of the {@link Diff}.
      *
      * @return {@link Diff} found.
      */
-    Diff findById(String diffId);
+    Diff findById(String diffId, boolean includeInputs);
+
+    /**
+     * Checks whether the result of the comparison of the given {@link Diff} is known without its payloads,
+     * as it's stored or the inputs have the same digest, and both inputs are saved.
+     *
+     * @param diff diff to be checked.
+     *
+     * @return true if the {@link Diff} can be compared without its payloads.
+     */
+    boolean isCompared(Diff diff);
+
+    /**
+     * Checks that both inputs of the given {@link Diff} are saved.
+     *
+     * @param diff diff to be checked.
+     *
+     * @throws com.limac.diffservice.exception.MissingInputException if any input is missing.
+     */
+    void checkInputs(Diff diff);
 
     /**
      * Compares the left and right inputs of the given {@link Diff}.
+     * The result stored by the comparison in background is returned if there's one, or awaited if it's in progress.
      *
      * @param diff diff to have the left and right inputs compared.
+     * @param includeInputs whether the left and right inputs are returned.
      *
      * @return {@link DiffDto} with the results.
      */
-    DiffDto diff(Diff diff);
+    DiffDto diff(Diff diff, boolean includeInputs);
+
+    /**
+     * Compares the left and right inputs of the given {@link Diff}, returning a page of the diff results.
+     * The inputs are compared from the cursor until the page is full, so the other results are neither found nor held in memory.
+     *
+     * @param diff diff to have the left and right inputs compared.
+     * @param cursor offset to start the page from, 0 for the first page or the next cursor of the previous page.
+     * @param limit maximum number of diff results of the page.
+     * @param includeInputs whether the left and right inputs are returned.
+     *
+     * @return {@link DiffDto} with the page of the results and the cursor of the next page, if there's one.
+     */
+    DiffDto diff(Diff diff, int cursor, int limit, boolean includeInputs);
+
+    /**
+     * Compares the left and right inputs of the given {@link Diff}, merging the diff results separated by at most the merge gap
+     * and returning at most the maximum number of merged diff results, with a summary of all of them.
+     * The inputs are compared in a single pass, so the diff results not returned are neither found twice nor held in memory.
+     *
+     * @param diff diff to have the left and right inputs compared.
+     * @param mergeGap maximum number of equal bytes between two diff results to merge them, 0 to merge none.
+     * @param maxRuns maximum number of merged diff results returned.
+     * @param includeInputs whether the left and right inputs are returned.
+     *
+     * @return {@link DiffDto} with the merged diff results and their summary, unless the inputs have different sizes.
+     */
+    DiffDto summary(Diff diff, int mergeGap, int maxRuns, boolean includeInputs);
+
+    /**
+     * Compares only the window of the left and right inputs of the given {@link Diff} between the given offsets,
+     * loading only the part of the stored inputs holding the window. The offsets of the diff results stay absolute.
+     * The window is bounded by the size of each input, and DIFFERENT_SIZE is returned if the bounded windows have different sizes.
+     *
+     * @param diff diff to have the left and right inputs compared.
+     * @param from offset of the first byte of the window.
+     * @param to offset after the last byte of the window.
+     * @param includeInputs whether the left and right inputs are returned.
+     *
+     * @return {@link DiffDto} with the results within the window.
+     */
+    DiffDto window(Diff diff, int from, int to, boolean includeInputs);
+
+    /**
+     * Compares the left and right inputs of the given {@link Diff} and, if they have different sizes,
+     * finds the ranges of equal, deleted and inserted bytes turning the left input into the right input.
+     * The edit script is coarse if its edit distance or time budget was exhausted.
+     *
+     * @param diff diff to have the left and right inputs compared.
+     * @param includeInputs whether the left and right inputs are returned.
+     *
+     * @return {@link DiffDto} with the results, and the edit script if the inputs have different sizes.
+     */
+    DiffDto edits(Diff diff, boolean includeInputs);
+
+    /**
+     * Compares the left and right inputs of many {@link Diff}s, found with a single query, concurrently.
+     * A {@link Diff} that is not found or can't be compared doesn't fail the others, its error is returned instead.
+     *
+     * @param diffIds diff identifiers.
+     *
+     * @return {@link BulkDiffDto} of each distinct diff identifier, in the given order, with the results of the comparison or the error.
+     */
+    List<BulkDiffDto> diffAll(List<String> diffIds);
+
+    /**
+     * Compares the left and right inputs of the given {@link Diff}, passing each diff result to the listener as soon as it's found.
+     *
+     * @param diff diff to have the left and right inputs compared.
+     * @param listener listener of the diff results.
+     *
+     * @return {@link DiffDto} with the result type, without the diff results.
+     */
+    DiffDto diff(Diff diff, DiffResultListener listener);
 }
@@ -1,25 +1,72 @@
 package com.limac.diffservice.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.limac.diffservice.admission.AdmissionController;
+import com.limac.diffservice.cache.ContentDigest;
+import com.limac.diffservice.domain.ChunkReference;
 import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.domain.DiffResult;
+import com.limac.diffservice.domain.MerkleTree;
+import com.limac.diffservice.engine.CoalescingDiffResultListener;
+import com.limac.diffservice.engine.DiffEngine;
+import com.limac.diffservice.engine.DiffResultListener;
+import com.limac.diffservice.engine.EditScript;
+import com.limac.diffservice.engine.MerkleTreeHasher;
+import com.limac.diffservice.engine.MerkleTreeInputStream;
+import com.limac.diffservice.engine.MyersEditEngine;
+import com.limac.diffservice.exception.InvalidInputException;
 import com.limac.diffservice.exception.MissingInputException;
 import com.limac.diffservice.exception.NotFoundException;
+import com.limac.diffservice.logging.PayloadLogArguments;
+import com.limac.diffservice.metrics.CountingInputStream;
+import com.limac.diffservice.metrics.DiffMetrics;
+import com.limac.diffservice.repository.ChunkRepository;
 import com.limac.diffservice.repository.DiffRepository;
+import com.limac.diffservice.repository.PayloadCodec;
+import com.limac.diffservice.repository.PayloadRepository;
+import com.limac.diffservice.rest.dto.BulkDiffDto;
 import com.limac.diffservice.rest.dto.DiffDto;
 import com.limac.diffservice.rest.dto.DiffResultDto;
 import com.limac.diffservice.type.InputType;
+import com.limac.diffservice.type.ResultType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.limac.diffservice.type.ResultType.*;
 import static net.logstash.logback.argument.StructuredArguments.kv;
 
 /**
  * {@link DiffService} implementation.
+ * The saves and the comparisons are admitted by the {@link AdmissionController} with the size of their payloads,
+ * and the comparisons run on its executor, except the ones whose result is already known as they load nothing.
  */
 @Slf4j
 @Service
@@ -27,112 +74,1050 @@ import static net.logstash.logback.argument.StructuredArguments.kv;
 public class DiffServiceImpl implements DiffService {
 
     private static final String DIFF_ID = "diffId";
+    private static final String KEY_SEPARATOR = ":";
+    private static final int BASE64_CHARS = 4;
+    private static final int BASE64_BYTES = 3;
 
     private final DiffRepository diffRepository;
+    private final PayloadRepository payloadRepository;
+    private final ChunkRepository chunkRepository;
+    private final PayloadCodec payloadCodec;
+    private final MerkleTreeHasher merkleTreeHasher;
+    private final DiffEngine diffEngine;
+    private final MyersEditEngine editEngine;
+    private final Cache<String, DiffDto> diffResultCache;
+    private final TaskExecutor diffComparisonExecutor;
+    private final TaskExecutor diffBulkExecutor;
+    private final PayloadLogArguments payloadLogArguments;
+    private final DiffMetrics diffMetrics;
+    private final AdmissionController admissionController;
+
+    private final ConcurrentMap<String, CompletableFuture<DiffDto>> inFlightComparisons = new ConcurrentHashMap<>();
 
     /**
      * {@inheritDoc}
      */
     @Override
     public Diff save(Diff diff, InputType inputType) {
-        return diffRepository.findById(diff.getDiffId())
-            .map(diffFound -> {
-                if (inputType == InputType.LEFT) {
-                    diffFound.setLeft(diff.getLeft());
-                } else {
-                    diffFound.setRight(diff.getRight());
-                }
+        requireBase64Value(diff);
 
-                log.info("Updating Diff {}", kv(DIFF_ID, diffFound.getDiffId()));
+        final long size = base64Size(inputType == InputType.LEFT ? diff.getLeft() : diff.getRight());
 
-                return diffRepository.save(diffFound);
-            })
-            .orElseGet(() -> {
+        return admissionController.admit(size, () -> diffMetrics.saveTimer(inputType).record(() -> saveBase64(diff, inputType)));
+    }
 
-                log.info("Adding Diff {}", kv(DIFF_ID, diff.getDiffId()));
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Diff save(String diffId, InputType inputType, InputStream inputStream) {
+        return admissionController.admitStream(() -> diffMetrics.saveTimer(inputType).record(() -> saveStream(diffId, inputType, inputStream)));
+    }
 
-                return diffRepository.save(diff);
-            });
+    /**
+     * {@inheritDoc}
+     * The inputs are written concurrently on the bulk executor, each one as by a single save, so the replaced files and chunks are
+     * the ones returned by the write of each input.
+     */
+    @Override
+    public List<Diff> saveAll(List<Diff> diffs) {
+        diffs.forEach(DiffServiceImpl::requireBase64Value);
+        requireDistinctInputs(diffs);
+
+        final long size = diffs.stream().mapToLong(diff -> base64Size(diff.getLeft()) + base64Size(diff.getRight())).sum();
+
+        return admissionController.admit(size, () -> diffMetrics.bulkTimer("save").record(() -> bulkSave(diffs)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The {@link Diff} is found with the read preference of the comparisons.
+     */
+    @Override
+    public Diff findById(String diffId, boolean includeInputs) {
+        return found(diffId, diffMetrics.findByIdTimer().record(() -> findForComparison(diffId, includeInputs)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCompared(Diff diff) {
+        final String leftDigest = diff.getLeftDigest();
+
+        return (diff.getResultType() != null || leftDigest != null && leftDigest.equals(diff.getRightDigest()))
+            && !isMissing(leftDigest, diff.getLeft(), diff.getLeftPayload(), diff.getLeftFileId(), diff.getLeftChunks())
+            && !isMissing(diff.getRightDigest(), diff.getRight(), diff.getRightPayload(), diff.getRightFileId(), diff.getRightChunks());
+    }
+
+    /**
+     * {@inheritDoc}
+     * An input read without its payload is saved if it has a digest.
+     */
+    @Override
+    public void checkInputs(Diff diff) {
+        if (isMissing(diff.getLeftDigest(), diff.getLeft(), diff.getLeftPayload(), diff.getLeftFileId(), diff.getLeftChunks())
+            || isMissing(diff.getRightDigest(), diff.getRight(), diff.getRightPayload(), diff.getRightFileId(), diff.getRightChunks())) {
+            throw new MissingInputException("left and/or right input is missing for diffId: " + diff.getDiffId());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DiffDto diff(Diff diff, boolean includeInputs) {
+        return admitted(diff, () -> diffMetrics.diffTimer("full").record(() -> fullDiff(diff, includeInputs)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DiffDto diff(Diff diff, int cursor, int limit, boolean includeInputs) {
+        return admitted(diff, () -> diffMetrics.diffTimer("page").record(() -> pagedDiff(diff, cursor, limit, includeInputs)));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DiffDto summary(Diff diff, int mergeGap, int maxRuns, boolean includeInputs) {
+        return admitted(diff, () -> diffMetrics.diffTimer("summary").record(() -> summarizedDiff(diff, mergeGap, maxRuns, includeInputs)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * A known result is bounded to the window without loading the inputs, otherwise the comparison is admitted with the size of the windows,
+     * once the payloads left out when the {@link Diff} was found are read.
+     */
+    @Override
+    public DiffDto window(Diff diff, int from, int to, boolean includeInputs) {
+        if (isBounded(knownResult(diff))) {
+            return diffMetrics.diffTimer("window").record(() -> windowDiff(diff, from, to, includeInputs));
+        }
+
+        final Diff compared = withPayloads(diff);
+
+        return admissionController.compare(Math.min(inputsSize(compared), 2L * (to - from)),
+            () -> diffMetrics.diffTimer("window").record(() -> windowDiff(compared, from, to, includeInputs)));
     }
 
     /**
      * {@inheritDoc}
+     * The inputs are loaded again for the edit script, as the result of the comparison may be known without loading them,
+     * and the payloads left out when the {@link Diff} was found are read.
      */
     @Override
-    public Diff findById(String diffId) {
-        return diffRepository.findById(diffId).orElseThrow(() -> new NotFoundException("could not find diffId: " + diffId));
+    public DiffDto edits(Diff diff, boolean includeInputs) {
+        return admitted(diff, () -> diffMetrics.diffTimer("edits").record(() -> editedDiff(diff, includeInputs)));
     }
 
     /**
      * {@inheritDoc}
+     * The comparisons run on the bulk executor, or on the calling thread once its queue is full,
+     * and each one is admitted on its own, so a rejected comparison is returned with its error.
      */
     @Override
-    public DiffDto diff(Diff diff) {
+    public List<BulkDiffDto> diffAll(List<String> diffIds) {
+        return diffMetrics.bulkTimer("diff").record(() -> bulkDiff(diffIds));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The streamed comparison waits for the client between the diff results, so it's only admitted with the size of both inputs
+     * and runs on the calling thread of the stream, instead of holding a thread of the executor of the {@link AdmissionController}.
+     */
+    @Override
+    public DiffDto diff(Diff diff, DiffResultListener listener) {
+        final Supplier<DiffDto> comparison = () -> diffMetrics.diffTimer("stream").record(() -> streamedDiff(diff, listener));
+
+        return knownResult(diff) == null ? admissionController.admit(inputsSize(diff), comparison) : comparison.get();
+    }
+
+    /**
+     * Runs the comparison on the executor of the {@link AdmissionController}, admitted with the size of both inputs,
+     * unless its result is already known.
+     */
+    private <T> T admitted(Diff diff, Supplier<T> comparison) {
+        return knownResult(diff) == null ? admissionController.compare(inputsSize(diff), comparison) : comparison.get();
+    }
+
+    /**
+     * Rejects an input without base64 value before decoding it, in case it wasn't validated by the controller.
+     */
+    private static void requireBase64Value(Diff diff) {
+        if (diff.getLeft() == null && diff.getRight() == null) {
+            throw new InvalidInputException("missing base64Value for diffId: " + diff.getDiffId());
+        }
+    }
+
+    /**
+     * Rejects the bulk saves with the same input of a diffId more than once, as the inputs are written concurrently.
+     */
+    private static void requireDistinctInputs(List<Diff> diffs) {
+        final Set<String> inputs = new HashSet<>();
+
+        diffs.forEach(diff -> {
+            final InputType inputType = inputType(diff);
+
+            if (!inputs.add(diff.getDiffId() + KEY_SEPARATOR + inputType)) {
+                throw new InvalidInputException("duplicate " + inputType + " input for diffId: " + diff.getDiffId());
+            }
+        });
+    }
+
+    private static InputType inputType(Diff diff) {
+        return diff.getLeft() != null ? InputType.LEFT : InputType.RIGHT;
+    }
+
+    private Diff saveBase64(Diff diff, InputType inputType) {
+        final String base64Value = inputType == InputType.LEFT ? diff.getLeft() : diff.getRight();
+        final byte[] decoded = Base64.getDecoder().decode(base64Value);
+
+        diffMetrics.recordPayloadSize(inputType, decoded.length);
+
+        final MerkleTree tree = tree(decoded);
+
+        if (payloadCodec.isInline(decoded.length)) {
+            return saveInput(diff.getDiffId(), inputType, base64Value, payloadCodec.encode(decoded), null, tree, ContentDigest.digest(decoded));
+        }
+
+        final List<ChunkReference> chunks = chunkRepository.store(diff.getDiffId(), new ByteArrayInputStream(decoded));
+
+        log.info("Stored large base64 {} for {} as chunks, {}", kv("inputType", inputType), kv(DIFF_ID, diff.getDiffId()),
+            kv("size", decoded.length));
+
+        return saveInput(diff.getDiffId(), inputType, base64Value, null, chunks, tree, ContentDigest.digest(decoded));
+    }
+
+    private List<Diff> bulkSave(List<Diff> diffs) {
+        final List<CompletableFuture<Diff>> saves = diffs.stream().map(this::bulkInput).collect(Collectors.toList());
+
+        try {
+            // every input is written or failed before returning, so the written ones have released the inputs they replaced
+            CompletableFuture.allOf(saves.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException exception) {
+            log.warn("Saved in bulk with failures, {}", kv("failed", saves.stream().filter(CompletableFuture::isCompletedExceptionally).count()));
+
+            if (exception.getCause() instanceof Error) {
+                throw (Error) exception.getCause();
+            }
+
+            throw (RuntimeException) exception.getCause();
+        }
+
+        final List<Diff> inputs = saves.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        log.info("Saved in bulk {}", kv("inputs", inputs.size()));
+
+        return inputs;
+    }
+
+    /**
+     * Saves an input of a bulk save on the bulk executor, or on the calling thread once its queue is full.
+     * Each input is written atomically, so only the input it replaced is released, even if the same input is saved concurrently.
+     */
+    private CompletableFuture<Diff> bulkInput(Diff diff) {
+        final InputType inputType = inputType(diff);
+
+        try {
+            return CompletableFuture.supplyAsync(() -> saveBase64(diff, inputType), diffBulkExecutor);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.completedFuture(saveBase64(diff, inputType));
+        }
+    }
+
+    private MerkleTree tree(byte[] decoded) {
+        return merkleTreeHasher.isIndexed(decoded.length) ? merkleTreeHasher.tree(decoded) : null;
+    }
+
+    private List<BulkDiffDto> bulkDiff(List<String> diffIds) {
+        final Map<String, Diff> diffs = new HashMap<>();
+        diffRepository.findAllById(diffIds).forEach(diff -> diffs.put(diff.getDiffId(), diff));
+
+        log.info("Executing diff in bulk for {}, {}", kv("diffIds", diffIds.size()), kv("found", diffs.size()));
+
+        final List<CompletableFuture<BulkDiffDto>> comparisons = diffIds.stream()
+            .distinct()
+            .map(diffId -> bulkComparison(diffId, diffs.get(diffId)))
+            .collect(Collectors.toList());
+
+        return comparisons.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private CompletableFuture<BulkDiffDto> bulkComparison(String diffId, Diff diff) {
+        if (diff == null) {
+            return CompletableFuture.completedFuture(BulkDiffDto.builder().diffId(diffId).errorMessage("could not find diffId: " + diffId).build());
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> bulkResult(diff), diffBulkExecutor);
+        } catch (RejectedExecutionException exception) {
+            return CompletableFuture.completedFuture(bulkResult(diff));
+        }
+    }
+
+    private BulkDiffDto bulkResult(Diff diff) {
+        try {
+            final DiffDto diffDto = diff(diff, false);
+
+            return BulkDiffDto.builder().diffId(diff.getDiffId()).resultType(diffDto.getResultType()).diffResults(diffDto.getDiffResults()).build();
+        } catch (RuntimeException exception) {
+            log.warn("Diff in bulk failed for {}", kv(DIFF_ID, diff.getDiffId()), exception);
+
+            return BulkDiffDto.builder().diffId(diff.getDiffId()).errorMessage(exception.getMessage()).build();
+        }
+    }
+
+    private Diff saveStream(String diffId, InputType inputType, InputStream inputStream) {
+        final MessageDigest messageDigest = ContentDigest.newMessageDigest();
+        final CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+        final MerkleTreeInputStream treeInputStream = merkleTreeHasher.inputStream(countingInputStream);
+        final List<ChunkReference> chunks = chunkRepository.store(diffId, new DigestInputStream(treeInputStream, messageDigest));
+
+        log.info("Stored binary {} for {}", kv("inputType", inputType), kv(DIFF_ID, diffId));
+
+        diffMetrics.recordPayloadSize(inputType, countingInputStream.getCount());
+
+        final MerkleTree tree = merkleTreeHasher.isIndexed(countingInputStream.getCount()) ? treeInputStream.getTree() : null;
+
+        return saveInput(diffId, inputType, null, null, chunks, tree, ContentDigest.encode(messageDigest.digest()));
+    }
+
+    private DiffDto fullDiff(Diff diff, boolean includeInputs) {
         log.info("Executing diff for {}", kv(DIFF_ID, diff.getDiffId()));
 
-        final String diffId = diff.getDiffId();
-        final String left = diff.getLeft();
-        final String right = diff.getRight();
+        checkInputs(diff);
+
+        final DiffDto result = result(diff);
+
+        diffMetrics.recordResult(result.getResultType(), result.getDiffResults() == null ? 0 : result.getDiffResults().size());
+
+        return diffDto(diff, includeInputs, result.getResultType(), result.getDiffResults(), null);
+    }
+
+    private DiffDto pagedDiff(Diff diff, int cursor, int limit, boolean includeInputs) {
+        log.info("Executing diff for {} from {}", kv(DIFF_ID, diff.getDiffId()), kv("cursor", cursor));
+
+        checkInputs(diff);
+
+        final List<DiffResultDto> diffResults = new ArrayList<>();
+        final AtomicBoolean hasNextPage = new AtomicBoolean();
+
+        final ResultType resultType = compare(diff, cursor, (offset, length) -> {
+            if (diffResults.size() == limit) {
+                hasNextPage.set(true);
+                return false;
+            }
 
-        if (StringUtils.isBlank(left) || StringUtils.isBlank(right)) {
-            throw new MissingInputException("left and/or right input is missing for diffId: " + diffId);
+            return diffResults.add(DiffResultDto.builder().offset(offset).length(length).build());
+        });
+
+        if (diffResults.isEmpty()) {
+            return diffDto(diff, includeInputs, resultType, null, null);
         }
 
-        final DiffDto.DiffDtoBuilder diffDtoBuilder = DiffDto.builder();
+        final DiffResultDto last = diffResults.get(diffResults.size() - 1);
+
+        return diffDto(diff, includeInputs, resultType, diffResults, hasNextPage.get() ? last.getOffset() + last.getLength() : null);
+    }
+
+    private DiffDto summarizedDiff(Diff diff, int mergeGap, int maxRuns, boolean includeInputs) {
+        log.info("Executing diff for {} with {} and {}", kv(DIFF_ID, diff.getDiffId()), kv("mergeGap", mergeGap), kv("maxRuns", maxRuns));
+
+        checkInputs(diff);
+
+        final CoalescingDiffResultListener listener = new CoalescingDiffResultListener(mergeGap, maxRuns);
+        final ResultType resultType = compare(diff, 0, listener);
+        final List<DiffResultDto> diffResults = listener.getDiffResults();
+
+        diffMetrics.recordResult(resultType, listener.getSummary().getRuns());
+
+        final DiffDto diffDto = diffDto(diff, includeInputs, resultType, diffResults.isEmpty() ? null : diffResults, null);
+
+        if (resultType != DIFFERENT_SIZE) {
+            diffDto.setSummary(listener.getSummary());
+        }
+
+        return diffDto;
+    }
+
+    private DiffDto windowDiff(Diff diff, int from, int to, boolean includeInputs) {
+        log.info("Executing diff for {} from {} to {}", kv(DIFF_ID, diff.getDiffId()), kv("from", from), kv("to", to));
+
+        checkInputs(diff);
+
+        final List<DiffResultDto> diffResults = new ArrayList<>();
+        final DiffResultListener windowListener = (offset, length) -> {
+            final int start = Math.max(offset, from);
+            final int end = (int) Math.min((long) offset + length, to);
 
-        diffDtoBuilder.diffId(diffId);
-        diffDtoBuilder.left(left);
-        diffDtoBuilder.right(right);
+            return start >= end || diffResults.add(DiffResultDto.builder().offset(start).length(end - start).build());
+        };
 
-        if (left.equals(right)) {
-            diffDtoBuilder.resultType(EQUAL);
+        final DiffDto knownResult = knownResult(diff);
+        final boolean sameSize;
+
+        if (isBounded(knownResult)) {
+            final List<DiffResultDto> knownResults = knownResult.getDiffResults() == null ? Collections.emptyList() : knownResult.getDiffResults();
+
+            knownResults.forEach(diffResult -> windowListener.onDiffResult(diffResult.getOffset(), diffResult.getLength()));
+            sameSize = true;
+        } else {
+            sameSize = compareWindow(diff, from, to, windowListener);
+        }
 
-        } else if (left.length() != right.length()) {
-            diffDtoBuilder.resultType(DIFFERENT_SIZE);
+        final ResultType resultType;
 
+        if (sameSize) {
+            resultType = diffResults.isEmpty() ? EQUAL : SAME_SIZE_BUT_DIFFERENT;
         } else {
-            diffDtoBuilder.resultType(SAME_SIZE_BUT_DIFFERENT);
-            diffDtoBuilder.diffResults(compare(left, right));
+            resultType = DIFFERENT_SIZE;
+        }
+
+        diffMetrics.recordResult(resultType, diffResults.size());
+
+        return diffDto(diff, includeInputs, resultType, diffResults.isEmpty() ? null : diffResults, null);
+    }
+
+    /**
+     * Whether the known result can be bounded to a window without loading the inputs, unlike the result of inputs with different sizes.
+     */
+    private static boolean isBounded(DiffDto knownResult) {
+        return knownResult != null && knownResult.getResultType() != DIFFERENT_SIZE;
+    }
+
+    /**
+     * Compares the windows of the inputs loaded from the storage, passing the diff results to the listener with their absolute offsets.
+     *
+     * @return true if the windows were compared, false if they have different sizes.
+     */
+    private boolean compareWindow(Diff diff, int from, int to, DiffResultListener listener) {
+        final ByteBuffer leftBytes = loadWindow(diff, InputType.LEFT, from, to);
+        final ByteBuffer rightBytes = loadWindow(diff, InputType.RIGHT, from, to);
+
+        if (leftBytes.remaining() != rightBytes.remaining()) {
+            return false;
+        }
+
+        log.debug("Comparing the window of {}, {}", kv(DIFF_ID, diff.getDiffId()), kv("size", leftBytes.remaining()));
+
+        diffEngine.compare(leftBytes, rightBytes, (offset, length) -> listener.onDiffResult(from + offset, length));
+
+        return true;
+    }
+
+    private DiffDto editedDiff(Diff diff, boolean includeInputs) {
+        final DiffDto diffDto = fullDiff(diff, includeInputs);
+
+        if (diffDto.getResultType() != DIFFERENT_SIZE) {
+            return diffDto;
         }
 
-        final DiffDto diffDto = diffDtoBuilder.build();
+        final Diff edited = withPayloads(diff);
+        final EditScript editScript = editEngine.compare(load(edited, InputType.LEFT), load(edited, InputType.RIGHT));
+
+        log.info("Edit script found for {}, {}, {}", kv(DIFF_ID, diff.getDiffId()), kv("edits", editScript.getEdits().size()),
+            kv("coarse", editScript.isCoarse()));
+
+        diffDto.setEdits(editScript.getEdits());
+        diffDto.setCoarse(editScript.isCoarse());
+
+        return diffDto;
+    }
+
+    private DiffDto streamedDiff(Diff diff, DiffResultListener listener) {
+        log.info("Streaming diff for {}", kv(DIFF_ID, diff.getDiffId()));
+
+        checkInputs(diff);
+
+        final AtomicInteger runs = new AtomicInteger();
+        final ResultType resultType = compare(diff, 0, (offset, length) -> {
+            runs.incrementAndGet();
+            return listener.onDiffResult(offset, length);
+        });
+
+        diffMetrics.recordResult(resultType, runs.get());
+
+        log.info("Diff streamed: {}, {}", kv(DIFF_ID, diff.getDiffId()), kv("resultType", resultType));
+
+        return DiffDto.builder().diffId(diff.getDiffId()).resultType(resultType).build();
+    }
+
+    /**
+     * Builds the {@link DiffDto} of the results, with the base64 values of the inputs only if they're included,
+     * as the inputs stored as binary are encoded again for each response.
+     */
+    private DiffDto diffDto(Diff diff, boolean includeInputs, ResultType resultType, List<DiffResultDto> diffResults, Integer nextCursor) {
+        final DiffDto diffDto = DiffDto.builder()
+            .diffId(diff.getDiffId())
+            .left(includeInputs ? base64Value(diff.getLeft(), diff.getLeftPayload()) : null)
+            .right(includeInputs ? base64Value(diff.getRight(), diff.getRightPayload()) : null)
+            .resultType(resultType)
+            .diffResults(diffResults)
+            .nextCursor(nextCursor)
+            .build();
 
         log.info("Diff executed: {}, {}, {}, {}, {}",
-            kv(DIFF_ID, diffDto.getDiffId()), kv("left", diffDto.getLeft()), kv("right", diffDto.getRight()),
-            kv("resultType", diffDto.getResultType()), kv("diffResults", diffDto.getDiffResults()));
+            kv(DIFF_ID, diffDto.getDiffId()), payloadLogArguments.payload(diffDto.getDiffId(), "left", diffDto.getLeft(), diff.getLeftDigest()),
+            payloadLogArguments.payload(diffDto.getDiffId(), "right", diffDto.getRight(), diff.getRightDigest()),
+            kv("resultType", diffDto.getResultType()),
+            payloadLogArguments.diffResults(diffDto.getDiffId(), diffDto.getDiffResults()));
 
         return diffDto;
     }
 
-    private List<DiffResultDto> compare(String left, String right) {
-        final List<DiffResultDto> diffResults = new ArrayList<>();
-        final DiffResultDto.DiffResultDtoBuilder diffResultDtoBuilder = DiffResultDto.builder();
+    private Diff saveInput(String diffId, InputType inputType, String base64Value, byte[] payload, List<ChunkReference> chunks, MerkleTree tree,
+                           String digest) {
+        log.info("Saving {} for {}", kv("inputType", inputType), kv(DIFF_ID, diffId));
 
-        int length = 0;
-        int offset = -1;
+        final Diff diff = inputDiff(diffId, inputType, base64Value, payload, chunks, tree, digest);
 
-        for (int i = 0; i <= left.length(); i++) {
+        final Optional<Diff> diffReplaced;
+
+        try {
+            diffReplaced = diffRepository.upsertInput(diffId, inputType, payload, chunks, tree, digest);
+        } catch (RuntimeException exception) {
+            // the chunks are only released if the input was not written, as a written input references them
+            Optional.ofNullable(chunks).ifPresent(chunkRepository::release);
+            throw exception;
+        }
 
-            if (i < left.length() && left.charAt(i) != right.charAt(i)) {
+        diffReplaced
+            .map(replaced -> inputType == InputType.LEFT ? replaced.getLeftFileId() : replaced.getRightFileId())
+            .ifPresent(payloadRepository::delete);
 
-                length++;
+        diffReplaced
+            .map(replaced -> inputType == InputType.LEFT ? replaced.getLeftChunks() : replaced.getRightChunks())
+            .ifPresent(chunkRepository::release);
 
-                if (offset < 0) {
-                    offset = i;
+        diffReplaced
+            .map(replaced -> inputType == InputType.LEFT ? replaced.getRightDigest() : replaced.getLeftDigest())
+            .ifPresent(otherDigest -> {
+                if (inputType == InputType.LEFT) {
+                    scheduleComparison(diffId, digest, otherDigest);
+                } else {
+                    scheduleComparison(diffId, otherDigest, digest);
                 }
+            });
 
-            } else if (offset != -1) {
+        return diff;
+    }
+
+    private static Diff inputDiff(String diffId, InputType inputType, String base64Value, byte[] payload, List<ChunkReference> chunks,
+                                  MerkleTree tree, String digest) {
+        final Diff diff = new Diff();
+        diff.setDiffId(diffId);
+
+        if (inputType == InputType.LEFT) {
+            diff.setLeft(base64Value);
+            diff.setLeftPayload(payload);
+            diff.setLeftChunks(chunks);
+            diff.setLeftTree(tree);
+            diff.setLeftDigest(digest);
+        } else {
+            diff.setRight(base64Value);
+            diff.setRightPayload(payload);
+            diff.setRightChunks(chunks);
+            diff.setRightTree(tree);
+            diff.setRightDigest(digest);
+        }
 
-                diffResultDtoBuilder.offset(offset);
-                diffResultDtoBuilder.length(length);
+        return diff;
+    }
 
-                diffResults.add(diffResultDtoBuilder.build());
+    private void scheduleComparison(String diffId, String leftDigest, String rightDigest) {
+        final String key = diffId + KEY_SEPARATOR + leftDigest + KEY_SEPARATOR + rightDigest;
 
-                length = 0;
-                offset = -1;
+        try {
+            final CompletableFuture<DiffDto> comparison = inFlightComparisons.computeIfAbsent(key,
+                comparisonKey -> CompletableFuture.supplyAsync(() -> compareAndSave(diffId, leftDigest, rightDigest), diffComparisonExecutor));
+
+            comparison.whenComplete((result, exception) -> inFlightComparisons.remove(key, comparison));
+        } catch (RejectedExecutionException exception) {
+            log.warn("Comparison queue is full, {} will be compared when it's read", kv(DIFF_ID, diffId));
+        }
+    }
+
+    /**
+     * Compares the inputs with the given digests and stores the result. If any of them was replaced since the comparison was scheduled,
+     * the comparison fails rather than computing the new inputs under the key of the replaced ones, so their readers compare them again.
+     */
+    private DiffDto compareAndSave(String diffId, String leftDigest, String rightDigest) {
+        // the inputs were just saved, so the Diff is found in the primary rather than with the read preference of the comparisons
+        final Diff diff = found(diffId, diffRepository.findById(diffId));
+
+        if (!leftDigest.equals(diff.getLeftDigest()) || !rightDigest.equals(diff.getRightDigest())) {
+            log.info("Comparison in background skipped, an input of {} was replaced", kv(DIFF_ID, diffId));
+
+            throw new IllegalStateException("the inputs to be compared were replaced for diffId: " + diffId);
+        }
+
+        final DiffDto result = admissionController.admit(inputsSize(diff), () -> compareCached(diff));
+
+        final boolean saved = diffRepository.saveResult(diffId, diff.getLeftDigest(), diff.getRightDigest(), result.getResultType(),
+            storedResults(result.getDiffResults()));
+
+        log.info("Compared in background {}, {}, {}", kv(DIFF_ID, diffId), kv("resultType", result.getResultType()), kv("saved", saved));
+
+        return result;
+    }
+
+    private static List<DiffResult> storedResults(List<DiffResultDto> diffResults) {
+        return diffResults == null ? null : diffResults.stream()
+            .map(diffResult -> new DiffResult(diffResult.getOffset(), diffResult.getLength()))
+            .collect(Collectors.toList());
+    }
+
+    private static List<DiffResultDto> diffResultDtos(List<DiffResult> diffResults) {
+        return diffResults == null ? null : diffResults.stream()
+            .map(diffResult -> DiffResultDto.builder().offset(diffResult.getOffset()).length(diffResult.getLength()).build())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Finds the {@link Diff} without its payloads, unless the inputs are included or its result is not known without them,
+     * in which case it's found again with them.
+     */
+    private Optional<Diff> findForComparison(String diffId, boolean includeInputs) {
+        if (includeInputs) {
+            return diffRepository.findForComparison(diffId, true);
+        }
+
+        final Optional<Diff> diff = diffRepository.findForComparison(diffId, false);
+
+        return !diff.isPresent() || isCompared(diff.get()) ? diff : diffRepository.findForComparison(diffId, true);
+    }
+
+    /**
+     * Finds the {@link Diff} again with its payloads if any of them was left out when it was found.
+     */
+    private Diff withPayloads(Diff diff) {
+        if (isUnread(diff.getLeftDigest(), diff.getLeft(), diff.getLeftPayload(), diff.getLeftFileId(), diff.getLeftChunks())
+            || isUnread(diff.getRightDigest(), diff.getRight(), diff.getRightPayload(), diff.getRightFileId(), diff.getRightChunks())) {
+            return found(diff.getDiffId(), diffRepository.findForComparison(diff.getDiffId(), true));
+        }
+
+        return diff;
+    }
+
+    private static Diff found(String diffId, Optional<Diff> diff) {
+        return diff.orElseThrow(() -> new NotFoundException("could not find diffId: " + diffId));
+    }
+
+    private DiffDto result(Diff diff) {
+        if (diff.getResultType() != null) {
+            return DiffDto.builder().resultType(diff.getResultType()).diffResults(diffResultDtos(diff.getDiffResults())).build();
+        }
+
+        final CompletableFuture<DiffDto> comparison = inFlightComparisons.get(
+            diff.getDiffId() + KEY_SEPARATOR + diff.getLeftDigest() + KEY_SEPARATOR + diff.getRightDigest());
+
+        if (comparison != null) {
+            try {
+                return comparison.join();
+            } catch (CompletionException exception) {
+                log.warn("Comparison in background failed, comparing {} again", kv(DIFF_ID, diff.getDiffId()), exception);
+            }
+        }
+
+        return compareCached(diff);
+    }
+
+    private DiffDto compareCached(Diff diff) {
+        if (isEqual(diff)) {
+            return DiffDto.builder().resultType(EQUAL).build();
+        }
+
+        if (diff.getLeftDigest() == null || diff.getRightDigest() == null) {
+            return compareInputs(diff);
+        }
+
+        return diffResultCache.get(cacheKey(diff), key -> compareInputs(diff));
+    }
+
+    private ResultType compare(Diff diff, int cursor, DiffResultListener listener) {
+        final DiffDto knownResult = knownResult(diff);
+
+        if (knownResult != null) {
+            final List<DiffResultDto> diffResults = knownResult.getDiffResults() == null ? Collections.emptyList() : knownResult.getDiffResults();
+
+            for (final DiffResultDto diffResult : diffResults) {
+                if (diffResult.getOffset() >= cursor && !listener.onDiffResult(diffResult.getOffset(), diffResult.getLength())) {
+                    break;
+                }
+            }
+
+            return knownResult.getResultType();
+        }
+
+        final ComparedInputs inputs = comparedInputs(diff);
+
+        if (inputs == null) {
+            return DIFFERENT_SIZE;
+        }
+
+        final int from = Math.min(cursor, inputs.size);
+        final AtomicBoolean found = new AtomicBoolean();
+
+        compareBetween(diff, inputs, from, inputs.size, (offset, length) -> {
+            found.set(true);
+            return listener.onDiffResult(offset, length);
+        });
+
+        if (!found.get() && from > 0) {
+            // nothing differs from the cursor, so the result type depends on the first mismatch before the cursor, if any
+            compareBetween(diff, inputs, 0, from, (offset, length) -> {
+                found.set(true);
+                return false;
+            });
+        }
+
+        return found.get() ? SAME_SIZE_BUT_DIFFERENT : EQUAL;
+    }
+
+    /**
+     * Compares the inputs between the given offsets, only in the ranges that may differ if they're known,
+     * passing the diff results to the listener with their absolute offsets.
+     */
+    private void compareBetween(Diff diff, ComparedInputs inputs, int from, int to, DiffResultListener listener) {
+        if (inputs.ranges != null) {
+            compareRanges(diff, inputs, from, to, listener);
+        } else {
+            diffEngine.compare(inputs.left.load(from, to), inputs.right.load(from, to),
+                (offset, length) -> listener.onDiffResult(from + offset, length));
+        }
+    }
+
+    /**
+     * Compares only the given ranges of the inputs between the given offsets, as the rest of the inputs is known to be equal.
+     * A mismatch run never crosses an equal region, so the runs found in each range are passed to the listener as they are.
+     */
+    private void compareRanges(Diff diff, ComparedInputs inputs, int from, int to, DiffResultListener listener) {
+        final AtomicBoolean stopped = new AtomicBoolean();
+
+        for (int index = 0; index < inputs.ranges.size() && !stopped.get(); index++) {
+            final int start = Math.max(inputs.ranges.get(index)[0], from);
+            final int end = Math.min(inputs.ranges.get(index)[1], to);
+
+            if (start < end) {
+                diffEngine.compare(inputs.left.load(start, end), inputs.right.load(start, end), (offset, length) -> {
+                    stopped.set(!listener.onDiffResult(start + offset, length));
+                    return !stopped.get();
+                });
+            }
+        }
+
+        log.debug("Compared the ranges outside the equal blocks for {}, {}", kv(DIFF_ID, diff.getDiffId()), kv("ranges", inputs.ranges.size()));
+    }
+
+    /**
+     * Finds the inputs to be compared and the ranges that may differ. The sizes of the inputs stored as chunks or payloads
+     * are known without loading them, so only the ranges that may differ are loaded from their chunks.
+     * The inputs stored as base64 or in GridFS are loaded in full to know their sizes.
+     *
+     * @return inputs to be compared, or null if they have different sizes.
+     */
+    private ComparedInputs comparedInputs(Diff diff) {
+        final long leftSize = storedSize(diff.getLeftPayload(), diff.getLeftChunks());
+        final long rightSize = storedSize(diff.getRightPayload(), diff.getRightChunks());
+
+        if (leftSize < 0 || rightSize < 0) {
+            final ByteBuffer leftBytes = load(diff, InputType.LEFT);
+            final ByteBuffer rightBytes = load(diff, InputType.RIGHT);
+
+            if (leftBytes.remaining() != rightBytes.remaining()) {
+                return null;
             }
+
+            return new ComparedInputs(leftBytes.remaining(), differingRanges(diff, leftBytes.remaining()),
+                (start, end) -> range(leftBytes, start, end), (start, end) -> range(rightBytes, start, end));
+        }
+
+        if (leftSize != rightSize) {
+            return null;
+        }
+
+        final int size = Math.toIntExact(leftSize);
+
+        return new ComparedInputs(size, differingRanges(diff, size), rangeLoader(diff, InputType.LEFT), rangeLoader(diff, InputType.RIGHT));
+    }
+
+    /**
+     * Size of an input stored as chunks or as a payload, read without loading it.
+     *
+     * @return size of the input, or -1 if it's only known once loaded.
+     */
+    private long storedSize(byte[] payload, List<ChunkReference> chunks) {
+        if (chunks != null) {
+            return chunks.stream().mapToLong(ChunkReference::getLength).sum();
+        }
+
+        return payload == null ? -1 : payloadCodec.decodedSize(payload);
+    }
+
+    /**
+     * Loads the ranges of an input stored as chunks from the chunks holding them, or else from the input decoded once.
+     */
+    private RangeLoader rangeLoader(Diff diff, InputType inputType) {
+        final List<ChunkReference> chunks = inputType == InputType.LEFT ? diff.getLeftChunks() : diff.getRightChunks();
+
+        if (chunks != null) {
+            return (start, end) -> loadChunksWindow(chunks, start, end);
+        }
+
+        final ByteBuffer bytes = load(diff, inputType);
+
+        return (start, end) -> range(bytes, start, end);
+    }
+
+    /**
+     * Finds the ranges of the inputs of the same size that may differ, from their {@link MerkleTree}s,
+     * or else from the chunks they share at the same offset.
+     *
+     * @return start and end offsets of each range, or null if the whole inputs must be compared.
+     */
+    private List<int[]> differingRanges(Diff diff, int size) {
+        if (merkleTreeHasher.isComparable(diff.getLeftTree(), diff.getRightTree())) {
+            return merkleTreeHasher.differingRanges(diff.getLeftTree(), diff.getRightTree(), size);
         }
 
-        return diffResults;
+        return diff.getLeftChunks() != null && diff.getRightChunks() != null ? chunkRanges(diff.getLeftChunks(), diff.getRightChunks(), size) : null;
+    }
+
+    /**
+     * Finds the ranges of the inputs outside the chunks with the same digest at the same offset of both inputs.
+     *
+     * @return start and end offsets of each range, in the order of the inputs.
+     */
+    private static List<int[]> chunkRanges(List<ChunkReference> leftChunks, List<ChunkReference> rightChunks, int size) {
+        final List<int[]> ranges = new ArrayList<>();
+
+        int leftIndex = 0;
+        int rightIndex = 0;
+        int leftOffset = 0;
+        int rightOffset = 0;
+        int rangeStart = 0;
+
+        while (leftIndex < leftChunks.size() && rightIndex < rightChunks.size()) {
+            final ChunkReference leftChunk = leftChunks.get(leftIndex);
+            final ChunkReference rightChunk = rightChunks.get(rightIndex);
+            final int leftEnd = leftOffset + leftChunk.getLength();
+            final int rightEnd = rightOffset + rightChunk.getLength();
+
+            if (leftOffset == rightOffset && leftChunk.getDigest().equals(rightChunk.getDigest())) {
+                if (leftOffset > rangeStart) {
+                    ranges.add(new int[] {rangeStart, leftOffset});
+                }
+
+                rangeStart = leftEnd;
+            }
+
+            if (leftEnd <= rightEnd) {
+                leftOffset = leftEnd;
+                leftIndex++;
+            }
+
+            if (rightEnd <= leftEnd) {
+                rightOffset = rightEnd;
+                rightIndex++;
+            }
+        }
+
+        if (size > rangeStart) {
+            ranges.add(new int[] {rangeStart, size});
+        }
+
+        return ranges;
+    }
+
+    private static ByteBuffer range(ByteBuffer bytes, int start, int end) {
+        final ByteBuffer range = bytes.duplicate();
+        range.limit(bytes.position() + end).position(bytes.position() + start);
+
+        return range;
+    }
+
+    private DiffDto knownResult(Diff diff) {
+        if (diff.getResultType() != null) {
+            return DiffDto.builder().resultType(diff.getResultType()).diffResults(diffResultDtos(diff.getDiffResults())).build();
+        }
+
+        if (isEqual(diff)) {
+            return DiffDto.builder().resultType(EQUAL).build();
+        }
+
+        return diff.getLeftDigest() == null || diff.getRightDigest() == null ? null : diffResultCache.getIfPresent(cacheKey(diff));
+    }
+
+    private static boolean isEqual(Diff diff) {
+        final String leftDigest = diff.getLeftDigest();
+
+        return leftDigest != null && leftDigest.equals(diff.getRightDigest()) || diff.getLeft() != null && diff.getLeft().equals(diff.getRight());
+    }
+
+    private static String cacheKey(Diff diff) {
+        return diff.getLeftDigest() + KEY_SEPARATOR + diff.getRightDigest();
+    }
+
+    private DiffDto compareInputs(Diff diff) {
+        final ComparedInputs inputs = comparedInputs(diff);
+
+        if (inputs == null) {
+            return DiffDto.builder().resultType(DIFFERENT_SIZE).build();
+        }
+
+        final List<DiffResultDto> diffResults;
+
+        if (inputs.ranges != null) {
+            diffResults = new ArrayList<>();
+            compareRanges(diff, inputs, 0, inputs.size,
+                (offset, length) -> diffResults.add(DiffResultDto.builder().offset(offset).length(length).build()));
+        } else {
+            diffResults = diffEngine.compare(inputs.left.load(0, inputs.size), inputs.right.load(0, inputs.size));
+        }
+
+        if (diffResults.isEmpty()) {
+            return DiffDto.builder().resultType(EQUAL).build();
+        }
+
+        return DiffDto.builder().resultType(SAME_SIZE_BUT_DIFFERENT).diffResults(Collections.unmodifiableList(diffResults)).build();
+    }
+
+    /**
+     * Size of both inputs once loaded, read from their chunks or payloads without loading them.
+     * The size of the files in GridFS, only left from before the chunks, is not known without reading them.
+     */
+    private long inputsSize(Diff diff) {
+        return inputSize(diff.getLeft(), diff.getLeftPayload(), diff.getLeftChunks())
+            + inputSize(diff.getRight(), diff.getRightPayload(), diff.getRightChunks());
+    }
+
+    private long inputSize(String base64Value, byte[] payload, List<ChunkReference> chunks) {
+        final long storedSize = storedSize(payload, chunks);
+
+        return storedSize < 0 ? base64Size(base64Value) : storedSize;
+    }
+
+    private static long base64Size(String base64Value) {
+        return (long) StringUtils.length(base64Value) / BASE64_CHARS * BASE64_BYTES;
+    }
+
+    private static boolean isMissing(String digest, String base64Value, byte[] payload, String fileId, List<ChunkReference> chunks) {
+        return digest == null && isAbsent(base64Value, payload, fileId, chunks);
+    }
+
+    /**
+     * Whether the input is saved but its payload was left out when the {@link Diff} was found.
+     */
+    private static boolean isUnread(String digest, String base64Value, byte[] payload, String fileId, List<ChunkReference> chunks) {
+        return digest != null && isAbsent(base64Value, payload, fileId, chunks);
+    }
+
+    private static boolean isAbsent(String base64Value, byte[] payload, String fileId, List<ChunkReference> chunks) {
+        return StringUtils.isBlank(base64Value) && payload == null && fileId == null && chunks == null;
+    }
+
+    private ByteBuffer load(Diff diff, InputType inputType) {
+        if (inputType == InputType.LEFT) {
+            return load(diff.getLeft(), diff.getLeftPayload(), diff.getLeftFileId(), diff.getLeftChunks());
+        }
+
+        return load(diff.getRight(), diff.getRightPayload(), diff.getRightFileId(), diff.getRightChunks());
+    }
+
+    private ByteBuffer load(String base64Value, byte[] payload, String fileId, List<ChunkReference> chunks) {
+        if (chunks != null) {
+            return chunkRepository.load(chunks);
+        }
+
+        if (fileId != null) {
+            return payloadRepository.load(fileId);
+        }
+
+        return payload == null ? ByteBuffer.wrap(Base64.getDecoder().decode(base64Value)) : payloadCodec.decode(payload);
+    }
+
+    /**
+     * Loads only the window of an input between the given offsets, bounded by its size: the chunks holding the window,
+     * the part of the file in GridFS from the start of the window, or the window of an inline input.
+     */
+    private ByteBuffer loadWindow(Diff diff, InputType inputType, int from, int to) {
+        final List<ChunkReference> chunks = inputType == InputType.LEFT ? diff.getLeftChunks() : diff.getRightChunks();
+        final String fileId = inputType == InputType.LEFT ? diff.getLeftFileId() : diff.getRightFileId();
+
+        if (chunks != null) {
+            return loadChunksWindow(chunks, from, to);
+        }
+
+        return fileId == null ? window(load(diff, inputType), from, to) : payloadRepository.load(fileId, from, to);
+    }
+
+    private ByteBuffer loadChunksWindow(List<ChunkReference> chunks, int from, int to) {
+        int first = 0;
+        int last = 0;
+        long offset = 0;
+        long firstOffset = 0;
+
+        for (int index = 0; index < chunks.size(); index++) {
+            final long end = offset + chunks.get(index).getLength();
+
+            if (end <= from) {
+                first = index + 1;
+                firstOffset = end;
+            }
+
+            if (offset < to) {
+                last = index + 1;
+            }
+
+            offset = end;
+        }
+
+        if (first >= last) {
+            return ByteBuffer.allocate(0);
+        }
+
+        return window(chunkRepository.load(chunks.subList(first, last)), (int) (from - firstOffset), (int) (to - firstOffset));
+    }
+
+    private static ByteBuffer window(ByteBuffer bytes, int from, int to) {
+        return range(bytes, Math.min(from, bytes.remaining()), Math.min(to, bytes.remaining()));
+    }
+
+    private String base64Value(String base64Value, byte[] payload) {
+        if (base64Value != null || payload == null) {
+            return base64Value;
+        }
+
+        return StandardCharsets.US_ASCII.decode(Base64.getEncoder().encode(payloadCodec.decode(payload))).toString();
+    }
+
+    /**
+     * Inputs of the same size to be compared, with the ranges that may differ if they're known.
+     */
+    private static final class ComparedInputs {
+
+        private final int size;
+        private final List<int[]> ranges;
+        private final RangeLoader left;
+        private final RangeLoader right;
+
+        private ComparedInputs(int size, List<int[]> ranges, RangeLoader left, RangeLoader right) {
+            this.size = size;
+            this.ranges = ranges;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    /**
+     * Loads the range of an input between the given offsets.
+     */
+    @FunctionalInterface
+    private interface RangeLoader {
+
+        ByteBuffer load(int start, int end);
     }
 }
@@ -0,0 +1,140 @@
+package com.limac.diffservice.service;
+
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.rest.dto.BulkDiffDto;
+import com.limac.diffservice.rest.dto.DiffDto;
+import com.limac.diffservice.type.InputType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Non-blocking service to execute {@link Diff} operations, used by the reactive stack.
+ */
+public interface ReactiveDiffService {
+
+    /**
+     * Saves the input type of the {@link Diff}, keeping the other input as it is.
+     *
+     * @param diff diff to be saved.
+     * @param inputType input type to be saved.
+     *
+     * @return {@link Diff} saved, with only the input type saved.
+     */
+    Mono<Diff> save(Diff diff, InputType inputType);
+
+    /**
+     * Saves the binary input read from the given stream as the input type of the {@link Diff}.
+     *
+     * @param diffId diff identifier.
+     * @param inputType input type to be saved.
+     * @param inputStream binary input.
+     *
+     * @return {@link Diff} saved, without the binary input.
+     */
+    Mono<Diff> save(String diffId, InputType inputType, InputStream inputStream);
+
+    /**
+     * Saves many base64 inputs concurrently.
+     *
+     * @param diffs diffs to be saved, each one with either the left or the right input.
+     *
+     * @return {@link Diff}s saved, in the given order, with only the input saved.
+     */
+    Mono<List<Diff>> saveAll(List<Diff> diffs);
+
+    /**
+     * Finds the {@link Diff} of the given identifier.
+     * Unless the inputs are included, the inline payloads are only read if the result of the comparison is not known without them.
+     *
+     * @param diffId diff identifier.
+     * @param includeInputs whether the left and right inputs are returned by the comparisons of the {@link Diff}.
+     *
+     * @return {@link Diff} found, or an error with {@link com.limac.diffservice.exception.NotFoundException} if there's none.
+     */
+    Mono<Diff> findById(String diffId, boolean includeInputs);
+
+    /**
+     * Checks that both inputs of the {@link Diff} are saved.
+     *
+     * @param diff diff to be checked.
+     */
+    void checkInputs(Diff diff);
+
+    /**
+     * Compares the left and right inputs of many {@link Diff}s concurrently.
+     *
+     * @param diffIds diff identifiers.
+     *
+     * @return {@link BulkDiffDto} of each distinct diff identifier, in the given order, with the results of the comparison or the error.
+     */
+    Mono<List<BulkDiffDto>> diffAll(List<String> diffIds);
+
+    /**
+     * Compares the left and right inputs of the {@link Diff}.
+     *
+     * @param diff diff to be compared.
+     * @param includeInputs whether the left and right inputs are returned.
+     *
+     * @return {@link DiffDto} with the result type and the diff results.
+     */
+    Mono<DiffDto> diff(Diff diff, boolean includeInputs);
+
+    /**
+     * Compares the left and right inputs of the {@link Diff}, returning a page of the diff results.
+     *
+     * @param diff diff to be compared.
+     * @param cursor offset to start the page from.
+     * @param limit maximum number of diff results of the page.
+     * @param includeInputs whether the left and right inputs are returned.
+     *
+     * @return {@link DiffDto} with the page of the diff results and the cursor of the next page.
+     */
+    Mono<DiffDto> diff(Diff diff, int cursor, int limit, boolean includeInputs);
+
+    /**
+     * Compares the left and right inputs of the {@link Diff}, merging the diff results separated by at most the merge gap
+     * and returning at most the maximum number of merged diff results, with a summary of all of them.
+     *
+     * @param diff diff to be compared.
+     * @param mergeGap maximum number of equal bytes between two diff results to merge them, 0 to merge none.
+     * @param maxRuns maximum number of merged diff results returned.
+     * @param includeInputs whether the left and right inputs are returned.
+     *
+     * @return {@link DiffDto} with the merged diff results and their summary.
+     */
+    Mono<DiffDto> summary(Diff diff, int mergeGap, int maxRuns, boolean includeInputs);
+
+    /**
+     * Compares only the window of the left and right inputs of the {@link Diff} between the given offsets.
+     *
+     * @param diff diff to be compared.
+     * @param from offset of the first byte of the window.
+     * @param to offset after the last byte of the window.
+     * @param includeInputs whether the left and right inputs are returned.
+     * @return {@link DiffDto} with the results within the window.
+     */
+    Mono<DiffDto> window(Diff diff, int from, int to, boolean includeInputs);
+
+    /**
+     * Compares the left and right inputs of the {@link Diff}, with the edit script if they have different sizes.
+     *
+     * @param diff diff to be compared.
+     * @param includeInputs whether the left and right inputs are returned.
+     *
+     * @return {@link DiffDto} with the results and the edit script.
+     */
+    Mono<DiffDto> edits(Diff diff, boolean includeInputs);
+
+    /**
+     * Compares the left and right inputs of the {@link Diff}, emitting each diff result as soon as it's found,
+     * followed by a {@link DiffDto} with the result type.
+     *
+     * @param diff diff to be compared.
+     *
+     * @return diff results followed by the {@link DiffDto}.
+     */
+    Flux<Object> diffStream(Diff diff);
+}
@@ -0,0 +1,185 @@
+package com.limac.diffservice.service;
+
+import com.limac.diffservice.domain.Diff;
+import com.limac.diffservice.exception.NotFoundException;
+import com.limac.diffservice.metrics.DiffMetrics;
+import com.limac.diffservice.repository.ReactiveDiffRepository;
+import com.limac.diffservice.rest.dto.BulkDiffDto;
+import com.limac.diffservice.rest.dto.DiffDto;
+import com.limac.diffservice.rest.dto.DiffResultDto;
+import com.limac.diffservice.type.InputType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ReactiveDiffService} implementation.
+ * The Diffs are read with the {@link ReactiveDiffRepository}, while the saves, which store the binary inputs as chunks,
+ * and the comparisons are delegated to the {@link DiffService} on a bounded {@link Scheduler}, so they never block the event loop.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveDiffServiceImpl implements ReactiveDiffService {
+
+    private final ReactiveDiffRepository reactiveDiffRepository;
+    private final DiffService diffService;
+    private final Scheduler diffScheduler;
+    private final DiffMetrics diffMetrics;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<Diff> save(Diff diff, InputType inputType) {
+        return Mono.fromCallable(() -> diffService.save(diff, inputType)).subscribeOn(diffScheduler);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<Diff> save(String diffId, InputType inputType, InputStream inputStream) {
+        return Mono.fromCallable(() -> diffService.save(diffId, inputType, inputStream)).subscribeOn(diffScheduler);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<List<Diff>> saveAll(List<Diff> diffs) {
+        return Mono.fromCallable(() -> diffService.saveAll(diffs)).subscribeOn(diffScheduler);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The {@link Diff} is found again with its payloads if its result is not known without them.
+     */
+    @Override
+    public Mono<Diff> findById(String diffId, boolean includeInputs) {
+        return Mono.defer(() -> {
+            final long start = System.nanoTime();
+            final Mono<Diff> found = includeInputs ? reactiveDiffRepository.findById(diffId)
+                : reactiveDiffRepository.findWithoutPayloadsById(diffId)
+                    .flatMap(diff -> diffService.isCompared(diff) ? Mono.just(diff) : reactiveDiffRepository.findById(diffId));
+
+            return found
+                .doFinally(signalType -> diffMetrics.findByIdTimer().record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        }).switchIfEmpty(Mono.defer(() -> Mono.error(new NotFoundException("could not find diffId: " + diffId))));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void checkInputs(Diff diff) {
+        diffService.checkInputs(diff);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<List<BulkDiffDto>> diffAll(List<String> diffIds) {
+        return Mono.fromCallable(() -> diffService.diffAll(diffIds)).subscribeOn(diffScheduler);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<DiffDto> diff(Diff diff, boolean includeInputs) {
+        return Mono.fromCallable(() -> diffService.diff(diff, includeInputs)).subscribeOn(diffScheduler);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<DiffDto> diff(Diff diff, int cursor, int limit, boolean includeInputs) {
+        return Mono.fromCallable(() -> diffService.diff(diff, cursor, limit, includeInputs)).subscribeOn(diffScheduler);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<DiffDto> summary(Diff diff, int mergeGap, int maxRuns, boolean includeInputs) {
+        return Mono.fromCallable(() -> diffService.summary(diff, mergeGap, maxRuns, includeInputs)).subscribeOn(diffScheduler);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<DiffDto> window(Diff diff, int from, int to, boolean includeInputs) {
+        return Mono.fromCallable(() -> diffService.window(diff, from, to, includeInputs)).subscribeOn(diffScheduler);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Mono<DiffDto> edits(Diff diff, boolean includeInputs) {
+        return Mono.fromCallable(() -> diffService.edits(diff, includeInputs)).subscribeOn(diffScheduler);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The comparison waits for the demand of the subscriber before emitting each diff result, signaled when it's requested,
+     * so a slow client holds a thread of the {@link Scheduler} instead of buffering the diff results in memory.
+     */
+    @Override
+    public Flux<Object> diffStream(Diff diff) {
+        return Flux.create((FluxSink<Object> sink) -> {
+            final Lock lock = new ReentrantLock();
+            final Condition demand = lock.newCondition();
+
+            sink.onRequest(requested -> signal(lock, demand));
+            sink.onCancel(() -> signal(lock, demand));
+
+            final DiffDto diffDto = diffService.diff(diff, (offset, length) -> {
+                awaitDemand(sink, lock, demand);
+                sink.next(DiffResultDto.builder().offset(offset).length(length).build());
+
+                return !sink.isCancelled();
+            });
+
+            sink.next(diffDto);
+            sink.complete();
+        }).subscribeOn(diffScheduler);
+    }
+
+    private static void awaitDemand(FluxSink<Object> sink, Lock lock, Condition demand) {
+        lock.lock();
+
+        try {
+            while (sink.requestedFromDownstream() == 0 && !sink.isCancelled()) {
+                demand.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void signal(Lock lock, Condition demand) {
+        lock.lock();
+
+        try {
+            demand.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.limac.diffservice.type;
+
+/**
+ * Enumeration for the edit types of an edit script.
+ */
+public enum EditType {
+
+    /**
+     * EQUAL edit type, bytes found in both inputs.
+     */
+    EQUAL,
+
+    /**
+     * DELETE edit type, bytes found only in the left input.
+     */
+    DELETE,
+
+    /**
+     * INSERT edit type, bytes found only in the right input.
+     */
+    INSERT
+}
@@ -1,9 +1,10 @@
 package com.limac.diffservice.validation.annotation;
 
+import com.limac.diffservice.validation.validator.Base64Validator;
+
 import javax.validation.Constraint;
 import javax.validation.Payload;
 import javax.validation.constraints.NotBlank;
-import javax.validation.constraints.Pattern;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
@@ -12,12 +13,12 @@ import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 /**
  * The field annotated must be base64 encoded.
+ * The value is checked by the {@link Base64Validator}.
  */
 @Target(FIELD)
 @Retention(RUNTIME)
-@Pattern(regexp = "^([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{4}|[A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{2}==)$", message = "must be base64 encoded")
 @NotBlank
-@Constraint(validatedBy = { })
+@Constraint(validatedBy = Base64Validator.class)
 public @interface Base64 {
 
     /**
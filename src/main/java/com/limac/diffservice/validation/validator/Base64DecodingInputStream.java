@@ -0,0 +1,150 @@
+package com.limac.diffservice.validation.validator;
+
+import com.limac.diffservice.exception.InvalidInputException;
+import com.limac.diffservice.metrics.DiffMetrics;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static com.limac.diffservice.validation.validator.Base64Validator.PADDING;
+import static com.limac.diffservice.validation.validator.Base64Validator.QUANTUM_LENGTH;
+
+/**
+ * {@link InputStream} that decodes the base64 value read from the underlying stream.
+ * Each chunk is validated by a {@link StreamingBase64Validator} before being decoded, so an {@link InvalidInputException}
+ * is thrown as soon as the value is known to be invalid, or when the end of the stream is reached with an invalid length or padding.
+ * Only a fixed size buffer is held in memory, regardless of the size of the value.
+ * The time spent validating a whole value is recorded by the {@code diff.base64.validation} timer.
+ */
+public class Base64DecodingInputStream extends InputStream {
+
+    private static final String ERROR_MESSAGE = "must be base64 encoded";
+    private static final int BUFFER_SIZE = 8192;
+    private static final int DECODED_QUANTUM_LENGTH = 3;
+    private static final int SEXTET_BITS = 6;
+    private static final int BYTE_BITS = 8;
+    private static final int BYTE_MASK = 0xFF;
+    private static final Timer VALIDATION_TIMER = DiffMetrics.validationTimer("stream");
+
+    private final InputStream inputStream;
+    private final StreamingBase64Validator streamingBase64Validator = new StreamingBase64Validator();
+    private final byte[] encoded = new byte[BUFFER_SIZE];
+    private final byte[] decoded = new byte[BUFFER_SIZE / QUANTUM_LENGTH * DECODED_QUANTUM_LENGTH];
+
+    private int encodedLength;
+    private int decodedPosition;
+    private int decodedLength;
+    private boolean finished;
+    private long validationNanos;
+
+    /**
+     * Construct a Base64DecodingInputStream instance.
+     *
+     * @param inputStream stream with the base64 value.
+     */
+    public Base64DecodingInputStream(InputStream inputStream) {
+        super();
+        this.inputStream = inputStream;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+
+        return decoded[decodedPosition++] & BYTE_MASK;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+
+        if (!fill()) {
+            return -1;
+        }
+
+        final int count = Math.min(length, decodedLength - decodedPosition);
+
+        System.arraycopy(decoded, decodedPosition, bytes, offset, count);
+        decodedPosition += count;
+
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    private boolean fill() throws IOException {
+        while (decodedPosition == decodedLength) {
+            if (finished) {
+                return false;
+            }
+
+            readEncoded();
+            decodeQuanta();
+        }
+
+        return true;
+    }
+
+    private void readEncoded() throws IOException {
+        final int count = inputStream.read(encoded, encodedLength, encoded.length - encodedLength);
+        final long start = System.nanoTime();
+
+        if (count < 0) {
+            finished = true;
+
+            final boolean valid = streamingBase64Validator.finish();
+            VALIDATION_TIMER.record(validationNanos + System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            if (!valid) {
+                throw new InvalidInputException(ERROR_MESSAGE);
+            }
+        } else if (streamingBase64Validator.update(encoded, encodedLength, count)) {
+            validationNanos += System.nanoTime() - start;
+            encodedLength += count;
+        } else {
+            throw new InvalidInputException(ERROR_MESSAGE);
+        }
+    }
+
+    private void decodeQuanta() {
+        final int quantaLength = encodedLength - encodedLength % QUANTUM_LENGTH;
+
+        int count = 0;
+
+        for (int index = 0; index < quantaLength; index += QUANTUM_LENGTH) {
+            int bits = 0;
+
+            for (int symbol = index; symbol < index + QUANTUM_LENGTH; symbol++) {
+                bits = bits << SEXTET_BITS | (encoded[symbol] == PADDING ? 0 : Base64Validator.sextet(encoded[symbol]));
+            }
+
+            for (int shift = DECODED_QUANTUM_LENGTH - 1; shift >= 0 && encoded[index + DECODED_QUANTUM_LENGTH - shift] != PADDING; shift--) {
+                decoded[count++] = (byte) (bits >> shift * BYTE_BITS);
+            }
+        }
+
+        System.arraycopy(encoded, quantaLength, encoded, 0, encodedLength - quantaLength);
+
+        encodedLength -= quantaLength;
+        decodedPosition = 0;
+        decodedLength = count;
+    }
+}
@@ -0,0 +1,91 @@
+package com.limac.diffservice.validation.validator;
+
+import com.limac.diffservice.metrics.DiffMetrics;
+import com.limac.diffservice.validation.annotation.Base64;
+import io.micrometer.core.instrument.Timer;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validator for the {@link Base64} constraint.
+ * The alphabet, the length and the padding are checked in a single pass over the characters, without any allocation.
+ * A null value is considered valid, as it's handled by the {@link javax.validation.constraints.NotBlank} constraint.
+ * The time of each validation is recorded by the {@code diff.base64.validation} timer.
+ */
+public class Base64Validator implements ConstraintValidator<Base64, CharSequence> {
+
+    static final int QUANTUM_LENGTH = 4;
+    static final int MAX_PADDING = 2;
+    static final char PADDING = '=';
+
+    private static final int ASCII_SIZE = 128;
+    private static final int[] SEXTETS = new int[ASCII_SIZE];
+    private static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    private static final Timer VALIDATION_TIMER = DiffMetrics.validationTimer("value");
+
+    static {
+        Arrays.fill(SEXTETS, -1);
+
+        for (int index = 0; index < ALPHABET.length(); index++) {
+            SEXTETS[ALPHABET.charAt(index)] = index;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+
+        final long start = System.nanoTime();
+        final boolean valid = isBase64(value);
+
+        VALIDATION_TIMER.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return valid;
+    }
+
+    /**
+     * Checks whether the value is base64 encoded, with the padding required.
+     *
+     * @param value value to be checked.
+     * @return true if the value is base64 encoded.
+     */
+    public static boolean isBase64(CharSequence value) {
+        final int length = value.length();
+
+        if (length == 0 || length % QUANTUM_LENGTH != 0) {
+            return false;
+        }
+
+        int dataLength = length;
+
+        while (dataLength > length - MAX_PADDING && value.charAt(dataLength - 1) == PADDING) {
+            dataLength--;
+        }
+
+        for (int index = 0; index < dataLength; index++) {
+            if (sextet(value.charAt(index)) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the 6 bits represented by a symbol of the base64 alphabet.
+     *
+     * @param symbol symbol to be checked.
+     * @return the 6 bits of the symbol, or -1 if the symbol is not part of the base64 alphabet.
+     */
+    static int sextet(int symbol) {
+        return symbol >= 0 && symbol < ASCII_SIZE ? SEXTETS[symbol] : -1;
+    }
+}
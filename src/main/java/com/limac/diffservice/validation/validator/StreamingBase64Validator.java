@@ -0,0 +1,54 @@
+package com.limac.diffservice.validation.validator;
+
+import static com.limac.diffservice.validation.validator.Base64Validator.MAX_PADDING;
+import static com.limac.diffservice.validation.validator.Base64Validator.PADDING;
+import static com.limac.diffservice.validation.validator.Base64Validator.QUANTUM_LENGTH;
+
+/**
+ * Incremental version of the {@link Base64Validator}, to validate a base64 value received in chunks.
+ * The chunks are checked as they are received and the length and the padding are checked when the value is finished,
+ * following the same rules as {@link Base64Validator#isBase64(CharSequence)}.
+ */
+public class StreamingBase64Validator {
+
+    private long length;
+    private int padding;
+    private boolean valid = true;
+
+    /**
+     * Checks the next chunk of the value.
+     *
+     * @param bytes bytes holding the chunk.
+     * @param offset offset of the chunk in the bytes.
+     * @param count number of bytes of the chunk.
+     * @return false if the value is already known to be invalid.
+     */
+    public boolean update(byte[] bytes, int offset, int count) {
+        for (int index = offset; valid && index < offset + count; index++) {
+            valid = accept(bytes[index]);
+        }
+
+        length += count;
+
+        return valid;
+    }
+
+    /**
+     * Checks the length and the padding of the whole value.
+     *
+     * @return true if the whole value is base64 encoded.
+     */
+    public boolean finish() {
+        return valid && length > 0 && length % QUANTUM_LENGTH == 0;
+    }
+
+    private boolean accept(byte symbol) {
+        if (symbol == PADDING) {
+            padding++;
+
+            return padding <= MAX_PADDING;
+        }
+
+        return padding == 0 && Base64Validator.sextet(symbol) >= 0;
+    }
+}
@@ -43,4 +43,55 @@ class DiffActuatorIntegrationSpec extends Specification {
         and: 'status is up'
         response.path('status') == 'UP'
     }
+
+    def 'call GET to actuator prometheus'() {
+        given: 'a diff saved and found'
+        RestAssured.given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/v1/diff/metricsDiffId/left')
+            .body('{"base64Value":"YWJjZA=="}').contentType(ContentType.JSON).post()
+
+        and: 'the prometheus endpoint'
+        RequestSpecification prometheusRequest = RestAssured.given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/actuator/prometheus')
+
+        when: 'GET is called'
+        Response response = prometheusRequest.get()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should publish the service, payload, validation and Mongo metrics with percentiles'
+        String metrics = response.body.asString()
+        metrics.contains('diff_service_save_seconds{inputType="LEFT",quantile="0.99",}')
+        metrics.contains('diff_payload_size_bytes_count{inputType="LEFT",}')
+        metrics.contains('diff_base64_validation_seconds_count{mode="value",}')
+        metrics.contains('diff_mongo_command_seconds_count{command="findAndModify",status="success",}')
+    }
+
+    def 'call GET to actuator diffs'() {
+        given: 'a diff saved'
+        RestAssured.given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/v1/diff/storageDiffId/left')
+            .body('{"base64Value":"YWJjZA=="}').contentType(ContentType.JSON).post()
+
+        and: 'the diffs endpoint'
+        RequestSpecification diffsRequest = RestAssured.given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/actuator/diffs')
+
+        when: 'GET is called'
+        Response response = diffsRequest.get()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should report the size of the diffs and chunks collections and the working set'
+        response.path('collections.name') == ['diffs', 'chunks']
+        response.path('collections[0].documents') >= 1
+        response.path('workingSetBytes') > 0
+    }
 }
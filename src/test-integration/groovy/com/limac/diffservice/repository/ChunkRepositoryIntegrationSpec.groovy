@@ -0,0 +1,51 @@
+package com.limac.diffservice.repository
+
+import com.limac.diffservice.domain.Chunk
+import com.limac.diffservice.domain.ChunkReference
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.data.mongodb.core.MongoOperations
+import org.springframework.data.mongodb.core.query.Criteria
+import org.springframework.data.mongodb.core.query.Query
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+@SpringBootTest
+class ChunkRepositoryIntegrationSpec extends Specification {
+
+    @Autowired
+    ChunkRepository chunkRepository
+
+    @Autowired
+    MongoOperations mongoOperations
+
+    def 'the same input stored twice should share its chunks until both are released and collected'() {
+        given: 'a random input'
+        byte[] input = new byte[262144]
+        new Random().nextBytes(input)
+
+        when: 'the input is stored twice'
+        List<ChunkReference> first = chunkRepository.store('first', new ByteArrayInputStream(input))
+        List<ChunkReference> second = chunkRepository.store('second', new ByteArrayInputStream(input))
+
+        then: 'both inputs should reference the same chunks, stored once'
+        first == second
+        chunks(first)*.refCount.every { it == 2 }
+
+        and: 'the input should be loaded from its chunks'
+        chunkRepository.load(second) == ByteBuffer.wrap(input)
+
+        when: 'both inputs are released and the chunks collected'
+        chunkRepository.release(first)
+        chunkRepository.release(second)
+        chunkRepository.collect(new Date(System.currentTimeMillis() + 1000))
+
+        then: 'the chunks should be removed'
+        chunks(first).empty
+    }
+
+    private List<Chunk> chunks(List<ChunkReference> references) {
+        mongoOperations.find(Query.query(Criteria.where('digest').in(references*.digest)), Chunk)
+    }
+}
@@ -0,0 +1,112 @@
+package com.limac.diffservice.repository
+
+import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.domain.DiffResult
+import com.limac.diffservice.type.InputType
+import com.limac.diffservice.type.ResultType
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+@SpringBootTest
+class DiffRepositoryIntegrationSpec extends Specification {
+
+    @Autowired
+    DiffRepository diffRepository
+
+    def 'concurrent upserts of the left and right inputs should not lose any input'() {
+        given: 'many diffIds and a pool to upsert both inputs at the same time'
+        List<String> diffIds = (1..200).collect { UUID.randomUUID().toString() }
+        ExecutorService executorService = Executors.newFixedThreadPool(16)
+
+        List<Callable<Optional<Diff>>> upserts = diffIds.collectMany { String diffId ->
+            [
+                { diffRepository.upsertInput(diffId, InputType.LEFT, "left-${diffId}".bytes, null, null, "left-digest") } as Callable<Optional<Diff>>,
+                { diffRepository.upsertInput(diffId, InputType.RIGHT, "right-${diffId}".bytes, null, null, "right-digest") } as Callable<Optional<Diff>>,
+            ]
+        }
+
+        when: 'both inputs are upserted concurrently'
+        executorService.invokeAll(upserts)*.get()
+        executorService.shutdown()
+
+        then: 'each Diff should have both inputs'
+        diffIds.every { String diffId ->
+            Diff diff = diffRepository.findById(diffId).get()
+            diff.leftPayload == "left-${diffId}".bytes && diff.rightPayload == "right-${diffId}".bytes
+        }
+    }
+
+    def 'replacing an input should remove the stored result and reject the result of the replaced inputs'() {
+        given: 'a Diff with a stored result'
+        String diffId = UUID.randomUUID()
+        diffRepository.upsertInput(diffId, InputType.LEFT, 'abcd'.bytes, null, null, 'left-digest')
+        diffRepository.upsertInput(diffId, InputType.RIGHT, 'abed'.bytes, null, null, 'right-digest')
+
+        List<DiffResult> diffResults = [new DiffResult(2, 1)]
+        boolean resultSaved = diffRepository.saveResult(diffId, 'left-digest', 'right-digest', ResultType.SAME_SIZE_BUT_DIFFERENT, diffResults)
+
+        when: 'the right input is replaced'
+        diffRepository.upsertInput(diffId, InputType.RIGHT, 'abcd'.bytes, null, null, 'left-digest')
+
+        then: 'the result should have been stored and then removed'
+        resultSaved
+        diffRepository.findById(diffId).get().resultType == null
+
+        and: 'the result of the replaced inputs should not be stored'
+        !diffRepository.saveResult(diffId, 'left-digest', 'right-digest', ResultType.SAME_SIZE_BUT_DIFFERENT, diffResults)
+        diffRepository.findById(diffId).get().resultType == null
+    }
+
+    def 'migrating a base64 input should replace it with its payload unless it was saved again'() {
+        given: 'a Diff saved with base64 inputs'
+        String diffId = UUID.randomUUID()
+        diffRepository.save(new Diff(diffId: diffId, left: 'YWJjZA==', right: 'YWJlZA=='))
+
+        when: 'the left input is migrated and the right input is saved again before being migrated'
+        boolean leftMigrated = diffRepository.migrateInput(diffId, InputType.LEFT, 'YWJjZA==', 'abcd'.bytes)
+        diffRepository.upsertInput(diffId, InputType.RIGHT, 'abcd'.bytes, null, null, 'left-digest')
+        boolean rightMigrated = diffRepository.migrateInput(diffId, InputType.RIGHT, 'YWJlZA==', 'abed'.bytes)
+
+        then: 'only the left input should be migrated'
+        leftMigrated
+        !rightMigrated
+
+        and: 'the Diff should only have the payloads'
+        Diff diff = diffRepository.findById(diffId).get()
+        diff.left == null && diff.right == null
+        diff.leftPayload == 'abcd'.bytes && diff.rightPayload == 'abcd'.bytes
+
+        and: 'the Diff should no longer have base64 inputs to migrate'
+        !diffRepository.findBase64Inputs(null, Integer.MAX_VALUE)*.diffId.contains(diffId)
+    }
+
+    def 'upserting the inputs should keep the creation date and set the update date, found for comparison'() {
+        given: 'a Diff created with its left input'
+        String diffId = UUID.randomUUID()
+        diffRepository.upsertInput(diffId, InputType.LEFT, 'abcd'.bytes, null, null, 'left-digest')
+        Diff created = diffRepository.findById(diffId).get()
+
+        when: 'the right input is upserted later'
+        sleep(10)
+        diffRepository.upsertInput(diffId, InputType.RIGHT, 'abed'.bytes, null, null, 'right-digest')
+
+        then: 'the creation date should be kept and the update date set again'
+        Diff diff = diffRepository.findForComparison(diffId, true).get()
+        diff.createdAt == created.createdAt
+        diff.updatedAt.after(created.updatedAt)
+        diff.leftPayload == 'abcd'.bytes && diff.rightPayload == 'abed'.bytes
+
+        and: 'the payloads should be left out unless they are included'
+        Diff diffWithoutPayloads = diffRepository.findForComparison(diffId, false).get()
+        diffWithoutPayloads.leftPayload == null && diffWithoutPayloads.rightPayload == null
+        diffWithoutPayloads.leftDigest == 'left-digest' && diffWithoutPayloads.rightDigest == 'right-digest'
+
+        and: 'a missing Diff should not be found for comparison'
+        !diffRepository.findForComparison(UUID.randomUUID().toString(), false).present
+    }
+}
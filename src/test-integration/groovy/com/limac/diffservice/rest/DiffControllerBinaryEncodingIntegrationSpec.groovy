@@ -0,0 +1,157 @@
+package com.limac.diffservice.rest
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory
+import com.fasterxml.jackson.dataformat.smile.SmileFactory
+import com.limac.diffservice.type.ResultType
+import io.restassured.response.Response
+import io.restassured.specification.RequestSpecification
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.web.server.LocalServerPort
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+
+import java.nio.charset.StandardCharsets
+
+import static io.restassured.RestAssured.given
+
+@Stepwise
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DiffControllerBinaryEncodingIntegrationSpec extends Specification {
+
+    static final String APPLICATION_CBOR = 'application/cbor'
+    static final String APPLICATION_SMILE = 'application/x-jackson-smile'
+
+    @LocalServerPort
+    int port
+
+    @Shared
+    String diffId = UUID.randomUUID()
+
+    @Shared
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory())
+
+    @Shared
+    ObjectMapper smileMapper = new ObjectMapper(new SmileFactory())
+
+    def 'call POST to save the left input encoded as CBOR'() {
+        given: 'a diffId and the CBOR payload'
+        RequestSpecification diffLeftRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}/left")
+
+        String base64Value = new String(Base64.encoder.encode('{"sameSize":"value"}'.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)
+        byte[] payload = cborMapper.writeValueAsBytes([base64Value: base64Value])
+
+        when: 'POST is called'
+        Response response = diffLeftRequest.body(payload).contentType(APPLICATION_CBOR).accept(APPLICATION_CBOR).post()
+        response.then().log().status().log().headers()
+
+        then: 'should return status OK encoded as CBOR'
+        response.statusCode == 200
+        response.contentType == APPLICATION_CBOR
+
+        and: 'should return the left input'
+        Map diffDto = cborMapper.readValue(response.asByteArray(), Map)
+        diffDto.diffId == diffId
+        diffDto.left == base64Value
+    }
+
+    def 'call POST to save the right input encoded as Smile'() {
+        given: 'a diffId and the Smile payload'
+        RequestSpecification diffRightRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}/right")
+
+        String base64Value = new String(Base64.encoder.encode('{"property":"false"}'.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)
+        byte[] payload = smileMapper.writeValueAsBytes([base64Value: base64Value])
+
+        when: 'POST is called'
+        Response response = diffRightRequest.body(payload).contentType(APPLICATION_SMILE).accept(APPLICATION_SMILE).post()
+        response.then().log().status().log().headers()
+
+        then: 'should return status OK encoded as Smile'
+        response.statusCode == 200
+        response.contentType == APPLICATION_SMILE
+
+        and: 'should return the right input'
+        Map diffDto = smileMapper.readValue(response.asByteArray(), Map)
+        diffDto.diffId == diffId
+        diffDto.right == base64Value
+    }
+
+    def 'call POST to save an invalid left input encoded as CBOR'() {
+        given: 'a diffId and the invalid CBOR payload'
+        RequestSpecification diffLeftRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}/left")
+
+        byte[] payload = cborMapper.writeValueAsBytes([base64Value: 'QQ='])
+
+        when: 'POST is called'
+        Response response = diffLeftRequest.body(payload).contentType(APPLICATION_CBOR).accept(APPLICATION_CBOR).post()
+        response.then().log().status().log().headers()
+
+        then: 'should return status BAD_REQUEST encoded as CBOR'
+        response.statusCode == 400
+        response.contentType == APPLICATION_CBOR
+
+        and: 'should return the error message'
+        cborMapper.readValue(response.asByteArray(), Map).errorMessage == 'base64Value must be base64 encoded'
+    }
+
+    def 'call GET to diff the left and right inputs encoded as CBOR'() {
+        given: 'a diffId'
+        RequestSpecification diffRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}")
+
+        when: 'GET is called'
+        Response response = diffRequest.accept(APPLICATION_CBOR).get()
+        response.then().log().status().log().headers()
+
+        then: 'should return status OK encoded as CBOR'
+        response.statusCode == 200
+        response.contentType == APPLICATION_CBOR
+
+        and: 'should return the diffResults'
+        Map diffDto = cborMapper.readValue(response.asByteArray(), Map)
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT.toString()
+        diffDto.diffResults == [['offset': 2, 'length': 8], ['offset': 13, 'length': 1], ['offset': 16, 'length': 1]]
+    }
+
+    def 'call GET to diff a non existing diffId encoded as Smile'() {
+        given: 'a non existing diffId'
+        RequestSpecification diffRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/v1/diff/nonExistingDiffId')
+
+        when: 'GET is called'
+        Response response = diffRequest.accept(APPLICATION_SMILE).get()
+        response.then().log().status().log().headers()
+
+        then: 'should return status NOT_FOUND encoded as Smile'
+        response.statusCode == 404
+        response.contentType == APPLICATION_SMILE
+
+        and: 'should return the error message'
+        smileMapper.readValue(response.asByteArray(), Map).errorMessage == 'could not find diffId: nonExistingDiffId'
+    }
+
+    def 'call GET to diff the left and right inputs without accept'() {
+        given: 'a diffId'
+        RequestSpecification diffRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}")
+
+        when: 'GET is called accepting any media type'
+        Response response = diffRequest.accept('*/*').get()
+        response.then().log().all()
+
+        then: 'should return status OK encoded as JSON'
+        response.statusCode == 200
+        response.contentType.startsWith('application/json')
+        response.path('resultType') == ResultType.SAME_SIZE_BUT_DIFFERENT.toString()
+    }
+}
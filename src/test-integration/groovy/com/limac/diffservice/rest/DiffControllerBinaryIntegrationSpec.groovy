@@ -0,0 +1,170 @@
+package com.limac.diffservice.rest
+
+import com.limac.diffservice.type.ResultType
+import io.restassured.http.ContentType
+import io.restassured.response.Response
+import io.restassured.specification.RequestSpecification
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.web.server.LocalServerPort
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+
+import java.nio.charset.StandardCharsets
+
+import static io.restassured.RestAssured.given
+
+@Stepwise
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = 'diff.storage.spill.threshold=0')
+class DiffControllerBinaryIntegrationSpec extends Specification {
+
+    @LocalServerPort
+    int port
+
+    @Shared
+    String diffId = UUID.randomUUID()
+
+    def 'call POST to save the binary left input without basic authorization'() {
+        given: 'a diffId and the binary payload'
+        RequestSpecification diffLeftRequest = given()
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}/left")
+
+        when: 'POST is called'
+        Response response = diffLeftRequest.body('{"property":"value"}'.getBytes(StandardCharsets.UTF_8)).contentType(ContentType.BINARY).post()
+        response.then().log().all()
+
+        then: 'should return status UNAUTHORIZED'
+        response.statusCode == 401
+    }
+
+    def 'call POST to save the binary left input'() {
+        given: 'a diffId and the binary payload'
+        RequestSpecification diffLeftRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}/left")
+
+        when: 'POST is called'
+        Response response = diffLeftRequest.body('{"property":"value"}'.getBytes(StandardCharsets.UTF_8)).contentType(ContentType.BINARY).post()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return the diffId without echoing the binary input'
+        response.path('diffId') == diffId
+        response.path('left') == null
+    }
+
+    def 'call POST to save the base64 right input'() {
+        given: 'a diffId and the payload'
+        RequestSpecification diffRightRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}/right")
+
+        String base64Value = new String(Base64.encoder.encode('{"sameSize":"false"}'.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)
+        String payload = "{\"base64Value\":\"${base64Value}\"}"
+
+        when: 'POST is called'
+        Response response = diffRightRequest.body(payload).contentType(ContentType.JSON).post()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return the right input'
+        response.path('diffId') == diffId
+        response.path('right') == base64Value
+    }
+
+    def 'call GET to diff the binary left input with the base64 right input'() {
+        given: 'a diffId'
+        RequestSpecification diffRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}")
+
+        when: 'GET is called'
+        Response response = diffRequest.get()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return the result type SAME_SIZE_BUT_DIFFERENT'
+        response.path('resultType') == ResultType.SAME_SIZE_BUT_DIFFERENT.toString()
+
+        and: 'should return the diffResults'
+        response.path('diffResults') == [['offset': 2, 'length': 8], ['offset': 13, 'length': 1], ['offset': 16, 'length': 1]]
+    }
+
+    def 'call POST to replace the base64 right input with a binary right input'() {
+        given: 'a diffId and the binary payload'
+        RequestSpecification diffRightRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}/right")
+
+        when: 'POST is called'
+        Response response = diffRightRequest.body('{"property":"value"}'.getBytes(StandardCharsets.UTF_8)).contentType(ContentType.BINARY).post()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should not return the replaced right input'
+        response.path('diffId') == diffId
+        response.path('right') == null
+    }
+
+    def 'call POST to save an invalid base64 stream as left input'() {
+        given: 'a diffId and the invalid base64 payload'
+        RequestSpecification diffLeftRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}/left")
+
+        when: 'POST is called'
+        Response response = diffLeftRequest.body('QQ=').contentType(ContentType.TEXT).post()
+        response.then().log().all()
+
+        then: 'should return status BAD_REQUEST'
+        response.statusCode == 400
+
+        and: 'should return the error message'
+        response.path('errorMessage') == 'must be base64 encoded'
+    }
+
+    def 'call POST to save a base64 stream as left input'() {
+        given: 'a diffId and the base64 payload'
+        RequestSpecification diffLeftRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}/left")
+
+        String base64Value = new String(Base64.encoder.encode('{"property":"value"}'.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)
+
+        when: 'POST is called'
+        Response response = diffLeftRequest.body(base64Value).contentType(ContentType.TEXT).post()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return the diffId without echoing the input'
+        response.path('diffId') == diffId
+        response.path('left') == null
+    }
+
+    def 'call GET to diff the binary inputs that are equal'() {
+        given: 'a diffId'
+        RequestSpecification diffRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}")
+
+        when: 'GET is called'
+        Response response = diffRequest.get()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return the result type EQUAL'
+        response.path('resultType') == ResultType.EQUAL.toString()
+    }
+}
@@ -0,0 +1,130 @@
+package com.limac.diffservice.rest
+
+import com.limac.diffservice.type.ResultType
+import io.restassured.http.ContentType
+import io.restassured.response.Response
+import io.restassured.specification.RequestSpecification
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.web.server.LocalServerPort
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Stepwise
+
+import static io.restassured.RestAssured.given
+
+@Stepwise
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DiffControllerBulkIntegrationSpec extends Specification {
+
+    @LocalServerPort
+    int port
+
+    @Shared
+    String equalDiffId = UUID.randomUUID()
+
+    @Shared
+    String differentDiffId = UUID.randomUUID()
+
+    @Shared
+    String missingDiffId = UUID.randomUUID()
+
+    def 'call POST to save the inputs in bulk'() {
+        given: 'the left and right inputs of two diffIds'
+        RequestSpecification bulkRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/v1/diff/bulk')
+
+        String payload = """{"inputs":[
+            {"diffId":"${equalDiffId}","inputType":"LEFT","base64Value":"YWJjZA=="},
+            {"diffId":"${equalDiffId}","inputType":"RIGHT","base64Value":"YWJjZA=="},
+            {"diffId":"${differentDiffId}","inputType":"LEFT","base64Value":"YWJjZA=="},
+            {"diffId":"${differentDiffId}","inputType":"RIGHT","base64Value":"YWJlZA=="}
+        ]}"""
+
+        when: 'POST is called'
+        Response response = bulkRequest.body(payload).contentType(ContentType.JSON).post()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return the diffId of each input without echoing the inputs'
+        response.path('diffId') == [equalDiffId, equalDiffId, differentDiffId, differentDiffId]
+        response.path('left') == [null, null, null, null]
+    }
+
+    def 'call POST to save an invalid input in bulk'() {
+        given: 'an invalid input'
+        RequestSpecification bulkRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/v1/diff/bulk')
+
+        String payload = """{"inputs":[{"diffId":"${equalDiffId}","inputType":"LEFT","base64Value":"QQ="}]}"""
+
+        when: 'POST is called'
+        Response response = bulkRequest.body(payload).contentType(ContentType.JSON).post()
+        response.then().log().all()
+
+        then: 'should return status BAD_REQUEST'
+        response.statusCode == 400
+
+        and: 'should return the error message'
+        response.path('errorMessage') == 'inputs[0].base64Value must be base64 encoded'
+    }
+
+    def 'call POST to save the same input twice in bulk'() {
+        given: 'the left input of a diffId twice'
+        RequestSpecification bulkRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/v1/diff/bulk')
+
+        String payload = """{"inputs":[{"diffId":"${equalDiffId}","inputType":"LEFT","base64Value":"YWJjZA=="}""" +
+            """,{"diffId":"${equalDiffId}","inputType":"LEFT","base64Value":"YWJlZA=="}]}"""
+
+        when: 'POST is called'
+        Response response = bulkRequest.body(payload).contentType(ContentType.JSON).post()
+        response.then().log().all()
+
+        then: 'should return status BAD_REQUEST'
+        response.statusCode == 400
+
+        and: 'should return the error message'
+        response.path('errorMessage') == "duplicate LEFT input for diffId: ${equalDiffId}".toString()
+    }
+
+    def 'call POST to compare in bulk'() {
+        given: 'the diffIds'
+        RequestSpecification bulkRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/v1/diff/bulk/compare')
+
+        String payload = """{"diffIds":["${equalDiffId}","${differentDiffId}","${missingDiffId}"]}"""
+
+        when: 'POST is called'
+        Response response = bulkRequest.body(payload).contentType(ContentType.JSON).post()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return the result or the error of each diffId'
+        response.path('diffId') == [equalDiffId, differentDiffId, missingDiffId]
+        response.path('resultType') == [ResultType.EQUAL.toString(), ResultType.SAME_SIZE_BUT_DIFFERENT.toString(), null]
+        response.path('[1].diffResults') == [['offset': 2, 'length': 1]]
+        response.path('[2].errorMessage') == "could not find diffId: ${missingDiffId}".toString()
+    }
+
+    def 'call POST to compare in bulk without diffIds'() {
+        given: 'no diffIds'
+        RequestSpecification bulkRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath('/api/diff-service/v1/diff/bulk/compare')
+
+        when: 'POST is called'
+        Response response = bulkRequest.body('{"diffIds":[]}').contentType(ContentType.JSON).post()
+        response.then().log().all()
+
+        then: 'should return status BAD_REQUEST'
+        response.statusCode == 400
+    }
+}
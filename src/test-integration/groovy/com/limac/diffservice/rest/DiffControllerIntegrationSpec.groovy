@@ -321,7 +321,50 @@ class DiffControllerIntegrationSpec extends Specification {
         response.path('resultType') == ResultType.SAME_SIZE_BUT_DIFFERENT.toString()
 
         and: 'should return the diffResults'
-        response.path('diffResults') == [['offset': 3, 'length': 10], ['offset': 17, 'length': 1], ['offset': 22, 'length': 1]]
+        response.path('diffResults') == [['offset': 2, 'length': 8], ['offset': 13, 'length': 1], ['offset': 16, 'length': 1]]
+    }
+
+    def 'call GET to diff a page of the left and right inputs with same size but different'() {
+        given: 'a diffId'
+        RequestSpecification diffRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}")
+
+        when: 'GET is called with a cursor and a limit'
+        Response response = diffRequest.queryParam('cursor', 10).queryParam('limit', 1).queryParam('includeInputs', false).get()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return the page of the diffResults without the inputs'
+        response.path('left') == null
+        response.path('right') == null
+        response.path('resultType') == ResultType.SAME_SIZE_BUT_DIFFERENT.toString()
+        response.path('diffResults') == [['offset': 13, 'length': 1]]
+        response.path('nextCursor') == 14
+    }
+
+    def 'call GET to stream the diff of the left and right inputs with same size but different'() {
+        given: 'a diffId'
+        RequestSpecification diffRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}")
+
+        when: 'GET is called with stream'
+        Response response = diffRequest.queryParam('stream', true).accept('application/x-ndjson').get()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return a line for each diff result and a line with the result type'
+        response.body.asString().readLines() == [
+            '{"offset":2,"length":8}',
+            '{"offset":13,"length":1}',
+            '{"offset":16,"length":1}',
+            "{\"diffId\":\"${diffId}\",\"resultType\":\"SAME_SIZE_BUT_DIFFERENT\"}".toString(),
+        ]
     }
 
     def 'call POST to update the left input'() {
@@ -389,6 +432,30 @@ class DiffControllerIntegrationSpec extends Specification {
         response.path('diffResults') == null
     }
 
+    def 'call GET to diff the left and right inputs with different size with the edit script'() {
+        given: 'a diffId'
+        RequestSpecification diffRequest = given()
+            .auth().basic('user', 'pass')
+            .baseUri('http://localhost').port(port).basePath("/api/diff-service/v1/diff/${diffId}")
+
+        when: 'GET is called with the edits parameter'
+        Response response = diffRequest.queryParam('edits', true).get()
+        response.then().log().all()
+
+        then: 'should return status OK'
+        response.statusCode == 200
+
+        and: 'should return the result type DIFFERENT_SIZE'
+        response.path('resultType') == ResultType.DIFFERENT_SIZE.toString()
+
+        and: 'should return the edit script from the common prefix to the common suffix'
+        response.path('edits[0]') == ['type': 'EQUAL', 'leftOffset': 0, 'rightOffset': 0, 'length': 2]
+        response.path('edits[-1]') == ['type': 'EQUAL', 'leftOffset': 23, 'rightOffset': 15, 'length': 4]
+        response.path('edits.findAll { it.type == "DELETE" }.sum { it.length }') == 15
+        response.path('edits.findAll { it.type == "INSERT" }.sum { it.length }') == 7
+        response.path('coarse') == false
+    }
+
     def 'call POST to update the right input with a value equal to the left input'() {
         given: 'a diffId and the payload'
         RequestSpecification diffRightRequest = given()
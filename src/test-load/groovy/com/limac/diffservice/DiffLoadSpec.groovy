@@ -0,0 +1,195 @@
+package com.limac.diffservice
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.SerializationFeature
+import groovy.util.logging.Slf4j
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.boot.test.web.client.TestRestTemplate
+import org.springframework.http.HttpEntity
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpMethod
+import org.springframework.http.HttpStatus
+import org.springframework.http.MediaType
+import org.springframework.http.ResponseEntity
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.lang.management.ManagementFactory
+import java.nio.ByteBuffer
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+
+/**
+ * Drives concurrent uploads and comparisons through the controller, the security filter chain and the repository
+ * backed by the embedded MongoDB, failing when the latency, throughput or allocation thresholds are not met.
+ * The settings and thresholds are read from the {@code loadTest.*} system properties.
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DiffLoadSpec extends Specification {
+
+    static final String DIFF_PATH = '/v1/diff'
+    static final String SERVER_THREAD_PREFIX = 'http-nio-'
+    static final int REQUESTS_PER_ITERATION = 3
+    static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1)
+    static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1)
+
+    @Shared
+    int threads = Integer.getInteger('loadTest.threads', 8)
+
+    @Shared
+    int warmupIterations = Integer.getInteger('loadTest.warmupIterations', 100)
+
+    @Shared
+    int iterations = Integer.getInteger('loadTest.iterations', 500)
+
+    @Shared
+    int payloadSize = Integer.getInteger('loadTest.payloadSize', 65536)
+
+    @Shared
+    int maxP50Millis = Integer.getInteger('loadTest.maxP50Millis', 50)
+
+    @Shared
+    int maxP99Millis = Integer.getInteger('loadTest.maxP99Millis', 250)
+
+    @Shared
+    int minRequestsPerSecond = Integer.getInteger('loadTest.minRequestsPerSecond', 100)
+
+    @Shared
+    int maxAllocatedBytesPerRequest = Integer.getInteger('loadTest.maxAllocatedBytesPerRequest', 16777216)
+
+    @Shared
+    File results = new File(System.getProperty('loadTest.results', 'build/loadTest/results.json'))
+
+    @Autowired
+    TestRestTemplate restTemplate
+
+    def 'the diff endpoints should meet the thresholds under concurrent load'() {
+        given: 'clients uploading inputs of the payload size and comparing them, after a warm up'
+        TestRestTemplate client = restTemplate.withBasicAuth('user', 'pass')
+        ExecutorService executor = Executors.newFixedThreadPool(threads)
+
+        run(executor, client, warmupIterations)
+
+        when: 'the iterations are run concurrently'
+        long allocatedBytesBefore = serverAllocatedBytes()
+        long start = System.nanoTime()
+
+        long[] latencies = run(executor, client, iterations)
+
+        double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND
+        long allocatedBytes = serverAllocatedBytes() - allocatedBytesBefore
+        executor.shutdown()
+
+        Map<String, Number> report = report(latencies, seconds, allocatedBytes)
+        log.info('load test results: {}', report)
+
+        results.parentFile.mkdirs()
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(results, report)
+
+        then: 'the latency percentiles should be under the thresholds'
+        report.p50Millis <= maxP50Millis
+        report.p99Millis <= maxP99Millis
+
+        and: 'the throughput should be over the threshold'
+        report.requestsPerSecond >= minRequestsPerSecond
+
+        and: 'the allocation of the server threads per request should be under the threshold'
+        report.allocatedBytesPerRequest <= maxAllocatedBytesPerRequest
+    }
+
+    private long[] run(ExecutorService executor, TestRestTemplate client, int iterationCount) {
+        long[] latencies = new long[iterationCount * REQUESTS_PER_ITERATION]
+
+        List<Future<Void>> futures = (0..<iterationCount).collect { int iteration ->
+            executor.submit({
+                iterate(client, iteration, latencies)
+            } as Callable<Void>)
+        }
+
+        futures*.get()
+        latencies
+    }
+
+    private Void iterate(TestRestTemplate client, int iteration, long[] latencies) {
+        String diffId = UUID.randomUUID()
+        int index = iteration * REQUESTS_PER_ITERATION
+
+        latencies[index] = timed {
+            client.exchange("${DIFF_PATH}/${diffId}/left", HttpMethod.POST, request(payload(iteration, false)), Map)
+        }
+        latencies[index + 1] = timed {
+            client.exchange("${DIFF_PATH}/${diffId}/right", HttpMethod.POST, request(payload(iteration, true)), Map)
+        }
+        latencies[index + 2] = timed {
+            client.exchange("${DIFF_PATH}/${diffId}", HttpMethod.GET, request(null), Map)
+        }
+
+        null
+    }
+
+    /**
+     * Builds an input starting with the iteration, so each comparison misses the diff result cache,
+     * the right input differing from the left one every 64 bytes.
+     */
+    private Map<String, String> payload(int iteration, boolean right) {
+        byte[] payload = new byte[payloadSize]
+        ByteBuffer.wrap(payload).putInt(iteration)
+
+        if (right) {
+            (Integer.BYTES..<payloadSize).step(64) { int offset -> payload[offset] = 1 }
+        }
+
+        [base64Value: Base64.encoder.encodeToString(payload)]
+    }
+
+    private static HttpEntity<Map<String, String>> request(Map<String, String> body) {
+        HttpHeaders headers = new HttpHeaders()
+        headers.contentType = MediaType.APPLICATION_JSON
+        headers.accept = [MediaType.APPLICATION_JSON]
+
+        new HttpEntity<>(body, headers)
+    }
+
+    private static long timed(Closure<ResponseEntity<Map>> request) {
+        long start = System.nanoTime()
+        ResponseEntity<Map> response = request()
+        long latency = System.nanoTime() - start
+
+        assert response.statusCode == HttpStatus.OK
+        latency
+    }
+
+    /**
+     * Sums the bytes allocated by the request threads of the embedded server, leaving out the clients of the load test.
+     */
+    private static long serverAllocatedBytes() {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.threadMXBean
+
+        Thread.allStackTraces.keySet()
+            .findAll { Thread thread -> thread.name.startsWith(SERVER_THREAD_PREFIX) }
+            .sum(0L) { Thread thread -> threadMXBean.getThreadAllocatedBytes(thread.id) } as long
+    }
+
+    private static Map<String, Number> report(long[] latencies, double seconds, long allocatedBytes) {
+        long[] sorted = latencies.clone()
+        Arrays.sort(sorted)
+
+        [
+            requests                : sorted.length,
+            p50Millis               : percentile(sorted, 0.5d) / NANOS_PER_MILLI,
+            p99Millis               : percentile(sorted, 0.99d) / NANOS_PER_MILLI,
+            requestsPerSecond       : sorted.length / seconds,
+            allocatedBytesPerSecond : allocatedBytes / seconds,
+            allocatedBytesPerRequest: allocatedBytes.intdiv(sorted.length),
+        ]
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)]
+    }
+}
@@ -0,0 +1,132 @@
+package com.limac.diffservice.admission
+
+import com.limac.diffservice.exception.OverloadedException
+import com.limac.diffservice.metrics.DiffMetrics
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CountDownLatch
+
+class AdmissionControllerSpec extends Specification {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    AdmissionController admissionController = new AdmissionController(10, 3, 1, 1, 5, new DiffMetrics(meterRegistry))
+
+    def cleanup() {
+        admissionController.shutdown()
+    }
+
+    def 'admit should hold the payload bytes while the work runs'() {
+        when: 'admit is executed'
+        double inFlightBytes = admissionController.admit(4) { meterRegistry.get('diff.admission.bytes').gauge().value() }
+
+        then: 'the payload bytes should be in flight while the work runs'
+        inFlightBytes == 4
+
+        and: 'the payload bytes should be released once the work is done'
+        meterRegistry.get('diff.admission.bytes').gauge().value() == 0
+    }
+
+    def 'admit should release the payload bytes if the work fails'() {
+        when: 'admit is executed with a failing work'
+        admissionController.admit(4) { throw new IllegalStateException('failure') }
+
+        then: 'the exception should be thrown'
+        thrown(IllegalStateException)
+
+        and: 'the payload bytes should be released'
+        meterRegistry.get('diff.admission.bytes').gauge().value() == 0
+    }
+
+    def 'admit should throw OverloadedException if the payload bytes in flight would exceed the budget'() {
+        when: 'admit is executed while other payload bytes are in flight'
+        admissionController.admit(6) { admissionController.admit(6) { 'admitted' } }
+
+        then: 'OverloadedException is thrown with the delay to retry'
+        OverloadedException overloadedException = thrown(OverloadedException)
+        overloadedException.message == 'too many payload bytes in flight, retry later'
+        overloadedException.retryAfter == 5
+
+        and: 'the rejection should be counted and the payload bytes released'
+        meterRegistry.get('diff.admission.rejections').tag('budget', 'bytes').counter().count() == 1
+        meterRegistry.get('diff.admission.bytes').gauge().value() == 0
+    }
+
+    def 'admit should admit a payload larger than the budget if nothing else is in flight'() {
+        expect: 'the work to run'
+        admissionController.admit(20) { 'admitted' } == 'admitted'
+    }
+
+    def 'admitStream should hold the payload bytes of a streamed save'() {
+        when: 'admitStream is executed'
+        double inFlightBytes = admissionController.admitStream { meterRegistry.get('diff.admission.bytes').gauge().value() }
+
+        then: 'the payload bytes of a streamed save should be in flight while the save runs'
+        inFlightBytes == 3
+    }
+
+    def 'compare should run the comparison on the executor of the admission control'() {
+        when: 'compare is executed'
+        String threadName = admissionController.compare(4) { Thread.currentThread().name }
+
+        then: 'the comparison should run on the executor'
+        threadName.startsWith('diff-admission-')
+
+        and: 'the payload bytes should be released'
+        meterRegistry.get('diff.admission.bytes').gauge().value() == 0
+    }
+
+    def 'compare should throw the exception of the comparison as it is'() {
+        when: 'compare is executed with a failing comparison'
+        admissionController.compare(4) { throw exception }
+
+        then: 'the exception should be thrown'
+        Throwable thrownException = thrown()
+        thrownException.is(exception)
+
+        where:
+        exception << [new IllegalStateException('failure'), new AssertionError('failure')]
+    }
+
+    def 'compare should throw OverloadedException if the queue of the executor is full'() {
+        given: 'a comparison running and another one queued'
+        CountDownLatch release = new CountDownLatch(1)
+        Thread running = Thread.start { admissionController.compare(0) { release.await() } }
+        Thread queued = Thread.start { admissionController.compare(0) { 'compared' } }
+
+        new PollingConditions(timeout: 5).eventually {
+            assert meterRegistry.get('diff.admission.active').gauge().value() == 1
+            assert meterRegistry.get('diff.admission.queue').gauge().value() == 1
+        }
+
+        when: 'compare is executed'
+        admissionController.compare(4) { 'compared' }
+
+        then: 'OverloadedException is thrown'
+        OverloadedException overloadedException = thrown(OverloadedException)
+        overloadedException.message == 'too many comparisons in progress, retry later'
+
+        and: 'the rejection should be counted and the payload bytes released'
+        meterRegistry.get('diff.admission.rejections').tag('budget', 'comparisons').counter().count() == 1
+        meterRegistry.get('diff.admission.bytes').gauge().value() == 0
+
+        cleanup: 'the comparisons are completed'
+        release.countDown()
+        running.join()
+        queued.join()
+    }
+
+    def 'compare should throw OverloadedException once the executor is shut down'() {
+        given: 'the executor shut down'
+        admissionController.shutdown()
+
+        when: 'compare is executed'
+        admissionController.compare(4) { 'compared' }
+
+        then: 'OverloadedException is thrown'
+        thrown(OverloadedException)
+    }
+}
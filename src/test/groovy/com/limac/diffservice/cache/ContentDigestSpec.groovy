@@ -0,0 +1,36 @@
+package com.limac.diffservice.cache
+
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+
+class ContentDigestSpec extends Specification {
+
+    def 'digest should encode the SHA-256 digest of the input in base64'() {
+        when: 'digest is executed'
+        String digest = ContentDigest.digest('abc'.getBytes(StandardCharsets.UTF_8))
+
+        then: 'the SHA-256 digest should be returned in base64'
+        digest == 'ungWv48Bz+pBQUDeXa4iI7ADYaOWF3qctBD/YfIAFa0='
+    }
+
+    def 'digest should be the same for an input read in chunks'() {
+        given: 'an input digested in chunks'
+        MessageDigest messageDigest = ContentDigest.newMessageDigest()
+        messageDigest.update('a'.getBytes(StandardCharsets.UTF_8))
+        messageDigest.update('bc'.getBytes(StandardCharsets.UTF_8))
+
+        expect: 'the same digest of the whole input'
+        ContentDigest.encode(messageDigest.digest()) == ContentDigest.digest('abc'.getBytes(StandardCharsets.UTF_8))
+    }
+
+    def 'newMessageDigest should throw IllegalArgumentException if the algorithm is not supported'() {
+        when: 'newMessageDigest is executed with an unknown algorithm'
+        ContentDigest.newMessageDigest('unknown')
+
+        then: 'IllegalArgumentException is thrown'
+        IllegalArgumentException illegalArgumentException = thrown(IllegalArgumentException)
+        illegalArgumentException.message == 'unsupported digest algorithm: unknown'
+    }
+}
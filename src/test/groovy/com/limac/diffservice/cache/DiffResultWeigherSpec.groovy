@@ -0,0 +1,48 @@
+package com.limac.diffservice.cache
+
+import com.limac.diffservice.rest.dto.DiffDto
+import com.limac.diffservice.rest.dto.DiffResultDto
+import com.limac.diffservice.type.ResultType
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DiffResultWeigherSpec extends Specification {
+
+    DiffResultWeigher diffResultWeigher = new DiffResultWeigher()
+
+    @Unroll('weigh should weigh #weight bytes for #diffResults diff results')
+    def 'weigh should weigh the key and the diff results'() {
+        given: 'a result with diff results'
+        DiffDto diffDto = DiffDto.builder()
+            .resultType(ResultType.SAME_SIZE_BUT_DIFFERENT)
+            .diffResults(diffResults == null ? null : (1..diffResults).collect { DiffResultDto.builder().offset(it).length(1).build() })
+            .build()
+
+        expect: 'the weight of the entry'
+        diffResultWeigher.weigh('key', diffDto) == weight
+
+        where:
+        diffResults | weight
+        null        | DiffResultWeigher.ENTRY_WEIGHT + 6
+        1           | DiffResultWeigher.ENTRY_WEIGHT + 6 + DiffResultWeigher.DIFF_RESULT_WEIGHT
+        10          | DiffResultWeigher.ENTRY_WEIGHT + 6 + 10 * DiffResultWeigher.DIFF_RESULT_WEIGHT
+    }
+
+    @Unroll('weigh should weigh #weight bytes for #diffResults diff results without overflowing')
+    def 'weigh should clamp the weight of too many diff results'() {
+        given: 'a result with too many diff results to be weighed as an int'
+        DiffDto diffDto = DiffDto.builder()
+            .resultType(ResultType.SAME_SIZE_BUT_DIFFERENT)
+            .diffResults(Stub(List) { size() >> diffResults })
+            .build()
+
+        expect: 'the weight should never be negative'
+        diffResultWeigher.weigh('key', diffDto) == weight
+
+        where:
+        diffResults | weight
+        44_739_239  | DiffResultWeigher.ENTRY_WEIGHT + 6 + 44_739_239 * DiffResultWeigher.DIFF_RESULT_WEIGHT
+        44_739_240  | Integer.MAX_VALUE
+        50_000_000  | Integer.MAX_VALUE
+    }
+}
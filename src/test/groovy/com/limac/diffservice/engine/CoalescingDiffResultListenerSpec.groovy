@@ -0,0 +1,73 @@
+package com.limac.diffservice.engine
+
+import com.limac.diffservice.rest.dto.DiffResultDto
+import com.limac.diffservice.rest.dto.DiffSummaryDto
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+
+class CoalescingDiffResultListenerSpec extends Specification {
+
+    @Unroll('the runs separated by at most #mergeGap equal bytes should be merged')
+    def 'the runs separated by at most the merge gap should be merged'() {
+        given: 'a listener with a merge gap'
+        CoalescingDiffResultListener listener = new CoalescingDiffResultListener(mergeGap, Integer.MAX_VALUE)
+
+        when: 'the runs are received'
+        [[2, 1], [4, 2], [9, 1], [20, 3]].each { List<Integer> run -> assert listener.onDiffResult(run[0], run[1]) }
+
+        then: 'the runs should be merged'
+        listener.diffResults.collect { DiffResultDto diffResult -> [diffResult.offset, diffResult.length] } == expectedRuns
+
+        and: 'the summary should count the differing bytes and the merged runs'
+        listener.summary == DiffSummaryDto.builder()
+            .differingBytes(7).runs(expectedRuns.size()).firstOffset(2).lastOffset(22).truncated(false).build()
+
+        where:
+        mergeGap | expectedRuns
+        0        | [[2, 1], [4, 2], [9, 1], [20, 3]]
+        1        | [[2, 4], [9, 1], [20, 3]]
+        3        | [[2, 8], [20, 3]]
+        10       | [[2, 21]]
+    }
+
+    def 'only the maximum number of merged runs should be kept while all of them are summarized'() {
+        given: 'a listener keeping two runs'
+        CoalescingDiffResultListener listener = new CoalescingDiffResultListener(0, 2)
+
+        when: 'more runs are received'
+        (0..9).each { int index -> listener.onDiffResult(index * 10, 2) }
+
+        then: 'only the first runs should be kept'
+        listener.diffResults == [DiffResultDto.builder().offset(0).length(2).build(), DiffResultDto.builder().offset(10).length(2).build()]
+
+        and: 'the summary should cover all of them and be truncated'
+        listener.summary == DiffSummaryDto.builder().differingBytes(20).runs(10).firstOffset(0).lastOffset(91).truncated(true).build()
+    }
+
+    def 'the summary of no runs should have no offsets'() {
+        given: 'a listener without runs'
+        CoalescingDiffResultListener listener = new CoalescingDiffResultListener(4, 0)
+
+        expect: 'an empty summary'
+        listener.diffResults.empty
+        listener.summary == DiffSummaryDto.builder().differingBytes(0).runs(0).truncated(false).build()
+    }
+
+    def 'the listener should summarize the comparison of an engine in a single pass'() {
+        given: 'inputs differing in nearly every byte'
+        byte[] left = new byte[1000]
+        byte[] right = new byte[1000]
+        (0..<1000).step(2) { int index -> right[index] = 1 }
+
+        CoalescingDiffResultListener listener = new CoalescingDiffResultListener(1, 10)
+
+        when: 'the inputs are compared'
+        new WordDiffEngine().compare(ByteBuffer.wrap(left), ByteBuffer.wrap(right), listener)
+
+        then: 'the runs should be merged in a single run'
+        listener.diffResults == [DiffResultDto.builder().offset(0).length(999).build()]
+        listener.summary == DiffSummaryDto.builder().differingBytes(500).runs(1).firstOffset(0).lastOffset(998).truncated(false).build()
+    }
+}
@@ -0,0 +1,140 @@
+package com.limac.diffservice.engine
+
+import com.limac.diffservice.rest.dto.DiffResultDto
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+import java.util.concurrent.ForkJoinPool
+
+class ForkJoinDiffEngineSpec extends Specification {
+
+    @Shared
+    ForkJoinPool forkJoinPool = new ForkJoinPool(4)
+
+    DiffEngine wordDiffEngine = new WordDiffEngine()
+
+    def cleanupSpec() {
+        forkJoinPool.shutdown()
+    }
+
+    def 'compare should delegate inputs smaller than the threshold'() {
+        given: 'a delegate engine and inputs smaller than the threshold'
+        DiffEngine delegate = Mock(DiffEngine)
+        DiffEngine diffEngine = new ForkJoinDiffEngine(delegate, forkJoinPool, 16, 4)
+
+        ByteBuffer left = ByteBuffer.wrap('abcd'.bytes)
+        ByteBuffer right = ByteBuffer.wrap('abce'.bytes)
+        DiffResultListener listener = Mock(DiffResultListener)
+
+        when: 'compare is executed'
+        diffEngine.compare(left, right, listener)
+
+        then: 'the inputs should be compared by the delegate engine'
+        1 * delegate.compare(left, right, listener)
+    }
+
+    def 'compare should stitch the mismatch runs crossing segment boundaries'() {
+        given: 'inputs with runs crossing the segment boundaries'
+        DiffEngine diffEngine = new ForkJoinDiffEngine(wordDiffEngine, forkJoinPool, 0, 4)
+
+        ByteBuffer left = ByteBuffer.wrap('aaaaaaaaaaaaaaaaaaaa'.bytes)
+        ByteBuffer right = ByteBuffer.wrap('aaabbbbbbbbbbaaabbba'.bytes)
+
+        when: 'compare is executed'
+        List<DiffResultDto> diffResults = diffEngine.compare(left, right)
+
+        then: 'each run should be reported once'
+        diffResults == [
+            DiffResultDto.builder().offset(3).length(10).build(),
+            DiffResultDto.builder().offset(16).length(3).build(),
+        ]
+    }
+
+    def 'compare should throw IllegalArgumentException if the inputs have different sizes'() {
+        given: 'a ForkJoinDiffEngine'
+        DiffEngine diffEngine = new ForkJoinDiffEngine(wordDiffEngine, forkJoinPool, 0, 4)
+
+        when: 'compare is executed with inputs of different sizes'
+        diffEngine.compare(ByteBuffer.wrap(new byte[8]), ByteBuffer.wrap(new byte[9]))
+
+        then: 'IllegalArgumentException is thrown'
+        IllegalArgumentException illegalArgumentException = thrown(IllegalArgumentException)
+        illegalArgumentException.message == 'left and right inputs must have the same size'
+    }
+
+    @Unroll('compare should match the sequential engine for random inputs of size #size split in segments of #segmentSize')
+    def 'compare should match the sequential engine for random inputs'() {
+        given: 'random inputs and a ForkJoinDiffEngine splitting them in segments'
+        DiffEngine diffEngine = new ForkJoinDiffEngine(wordDiffEngine, forkJoinPool, 0, segmentSize)
+
+        Random random = new Random(size * 31 + segmentSize)
+        byte[] left = new byte[size]
+        random.nextBytes(left)
+        byte[] right = left.clone()
+
+        size.times { int index ->
+            if (random.nextDouble() < 0.3d) {
+                right[index] = (byte) (left[index] + 1 + random.nextInt(255))
+            }
+        }
+
+        when: 'compare is executed'
+        List<DiffResultDto> diffResults = diffEngine.compare(ByteBuffer.wrap(left), ByteBuffer.wrap(right))
+
+        then: 'the mismatch runs should be the same as the ones found by the sequential engine'
+        diffResults == wordDiffEngine.compare(ByteBuffer.wrap(left), ByteBuffer.wrap(right))
+
+        where:
+        [size, segmentSize] << [[0, 1, 9, 64, 1000, 4099], [1, 3, 8, 13, 64, 5000]].combinations()
+    }
+
+    def 'compare should pass the runs to the listener window by window and stop when the listener returns false'() {
+        given: 'inputs with a run crossing the windows and a listener accepting two runs'
+        DiffEngine diffEngine = new ForkJoinDiffEngine(wordDiffEngine, forkJoinPool, 0, 2)
+
+        ByteBuffer left = ByteBuffer.wrap('aaaaaaaaaaaaaaaaaaaaaaaa'.bytes)
+        ByteBuffer right = ByteBuffer.wrap('abaaaaabbbbbbbbbaabaaaab'.bytes)
+
+        List<List<Integer>> diffResults = []
+
+        when: 'compare is executed'
+        diffEngine.compare(left, right) { int offset, int length ->
+            diffResults << [offset, length]
+            diffResults.size() < 2
+        }
+
+        then: 'only the runs until the listener stops should be passed, stitched across the windows'
+        diffResults == [[1, 1], [7, 9]]
+    }
+
+    def 'compare should pass the last run to the listener'() {
+        given: 'inputs ending with a run'
+        DiffEngine diffEngine = new ForkJoinDiffEngine(wordDiffEngine, forkJoinPool, 0, 4)
+
+        List<List<Integer>> diffResults = []
+
+        when: 'compare is executed'
+        diffEngine.compare(ByteBuffer.wrap('aaaaaaaaa'.bytes), ByteBuffer.wrap('aaaaaaabb'.bytes)) { int offset, int length ->
+            diffResults << [offset, length]
+            true
+        }
+
+        then: 'the last run should be passed'
+        diffResults == [[7, 2]]
+    }
+
+    @Unroll
+    def 'constructor should throw IllegalArgumentException if the segment size is #segmentSize'() {
+        when: 'the engine is constructed'
+        new ForkJoinDiffEngine(wordDiffEngine, forkJoinPool, 0, segmentSize)
+
+        then: 'IllegalArgumentException is thrown'
+        IllegalArgumentException illegalArgumentException = thrown(IllegalArgumentException)
+        illegalArgumentException.message == "the segment size must be greater than zero: ${segmentSize}"
+
+        where:
+        segmentSize << [0, -1]
+    }
+}
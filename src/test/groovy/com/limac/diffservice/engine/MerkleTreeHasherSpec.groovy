@@ -0,0 +1,73 @@
+package com.limac.diffservice.engine
+
+import com.limac.diffservice.domain.MerkleTree
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class MerkleTreeHasherSpec extends Specification {
+
+    MerkleTreeHasher merkleTreeHasher = new MerkleTreeHasher(4)
+
+    @Shared
+    byte[] input = 'abcdefghijklmnopqrstuvwxyz'.bytes
+
+    @Unroll('isIndexed should return #indexed for an input of size #size')
+    def 'isIndexed should compare the size with the block size'() {
+        expect: 'only the inputs larger than a block to be indexed'
+        merkleTreeHasher.isIndexed(size) == indexed
+
+        where:
+        size | indexed
+        4    | false
+        5    | true
+    }
+
+    def 'tree should hash each block and each pair of hashes up to the root hash'() {
+        when: 'the tree of an input of 7 blocks is built'
+        MerkleTree tree = merkleTreeHasher.tree(input)
+
+        then: 'each level should have half of the hashes of the level below, rounded up'
+        tree.blockSize == 4
+        tree.levels*.length == [7, 4, 2, 1].collect { it * MerkleTreeHasher.HASH_LENGTH }
+
+        and: 'the tree of the same input should be the same'
+        merkleTreeHasher.tree(input.clone()).levels*.toList() == tree.levels*.toList()
+    }
+
+    @Unroll('differingRanges should return #ranges for the changed offsets #changes')
+    def 'differingRanges should return the adjacent differing blocks as single ranges'() {
+        given: 'the input with some changed bytes'
+        byte[] changed = input.clone()
+        changes.each { changed[it] = 0 as byte }
+
+        expect: 'the ranges of the blocks with different hashes, the last one ending at the size of the inputs'
+        merkleTreeHasher.differingRanges(merkleTreeHasher.tree(input), merkleTreeHasher.tree(changed), input.length)*.toList() == ranges
+
+        where:
+        changes     | ranges
+        []          | []
+        [0]         | [[0, 4]]
+        [5, 9, 25]  | [[4, 12], [24, 26]]
+        [3, 4, 25]  | [[0, 8], [24, 26]]
+    }
+
+    @Unroll('isComparable should return #comparable for trees of inputs of size #leftSize and #rightSize with blocks of #rightBlockSize')
+    def 'isComparable should only compare trees with the same blocks'() {
+        given: 'the trees of the inputs'
+        MerkleTree left = leftSize == null ? null : merkleTreeHasher.tree(new byte[leftSize])
+        MerkleTree right = rightSize == null ? null : new MerkleTreeHasher(rightBlockSize).tree(new byte[rightSize])
+
+        expect: 'only trees with the same block size and the same number of blocks to be comparable'
+        merkleTreeHasher.isComparable(left, right) == comparable
+
+        where:
+        leftSize | rightSize | rightBlockSize | comparable
+        8        | 8         | 4              | true
+        8        | 7         | 4              | true
+        8        | 12        | 4              | false
+        8        | 8         | 2              | false
+        null     | 8         | 4              | false
+        8        | null      | 4              | false
+    }
+}
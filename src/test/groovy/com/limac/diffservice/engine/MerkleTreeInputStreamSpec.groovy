@@ -0,0 +1,40 @@
+package com.limac.diffservice.engine
+
+import com.limac.diffservice.domain.MerkleTree
+import spock.lang.Specification
+
+class MerkleTreeInputStreamSpec extends Specification {
+
+    MerkleTreeHasher merkleTreeHasher = new MerkleTreeHasher(4)
+
+    def 'the tree of the bytes read should be the tree of the whole input'() {
+        given: 'a stream of 10 bytes'
+        byte[] input = 'abcdefghij'.bytes
+        MerkleTreeInputStream merkleTreeInputStream = merkleTreeHasher.inputStream(new ByteArrayInputStream(input))
+
+        when: 'the stream is read by a byte and by chunks across the blocks until its end'
+        merkleTreeInputStream.read()
+        merkleTreeInputStream.read(new byte[6], 0, 6)
+        byte[] remaining = merkleTreeInputStream.bytes
+
+        then: 'the stream should be read as it is'
+        remaining == 'hij'.bytes
+        merkleTreeInputStream.read() == -1
+
+        and: 'the tree should include the last partial block'
+        MerkleTree tree = merkleTreeInputStream.tree
+        tree.levels*.toList() == merkleTreeHasher.tree(input).levels*.toList()
+        tree.levels[0].length == 3 * MerkleTreeHasher.HASH_LENGTH
+    }
+
+    def 'the tree of an input ending at a block boundary should not have an empty block'() {
+        given: 'a stream of 2 blocks'
+        MerkleTreeInputStream merkleTreeInputStream = merkleTreeHasher.inputStream(new ByteArrayInputStream('abcdefgh'.bytes))
+
+        when: 'the stream is read until its end'
+        merkleTreeInputStream.bytes
+
+        then: 'the tree should have the hashes of the 2 blocks'
+        merkleTreeInputStream.tree.levels*.toList() == merkleTreeHasher.tree('abcdefgh'.bytes).levels*.toList()
+    }
+}
@@ -0,0 +1,136 @@
+package com.limac.diffservice.engine
+
+import com.limac.diffservice.rest.dto.EditDto
+import com.limac.diffservice.type.EditType
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+
+class MyersEditEngineSpec extends Specification {
+
+    MyersEditEngine editEngine = new MyersEditEngine(10000, 1000L)
+
+    @Unroll('compare should find the edit script of #left and #right')
+    def 'compare should find the shortest edit script'() {
+        when: 'compare is executed'
+        EditScript editScript = editEngine.compare(ByteBuffer.wrap(left.bytes), ByteBuffer.wrap(right.bytes))
+
+        then: 'the shortest edit script should be returned'
+        editScript.edits.collect { EditDto edit -> [edit.type, edit.leftOffset, edit.rightOffset, edit.length] } == edits
+        !editScript.coarse
+
+        where:
+        left     | right    | edits
+        ''       | ''       | []
+        'abc'    | 'abc'    | [[EditType.EQUAL, 0, 0, 3]]
+        'abc'    | ''       | [[EditType.DELETE, 0, 0, 3]]
+        ''       | 'abc'    | [[EditType.INSERT, 0, 0, 3]]
+        'abc'    | 'xabcy'  | [[EditType.INSERT, 0, 0, 1], [EditType.EQUAL, 0, 1, 3], [EditType.INSERT, 3, 4, 1]]
+        'a'      | 'b'      | [[EditType.DELETE, 0, 0, 1], [EditType.INSERT, 1, 0, 1]]
+        'abcdef' | 'abXdf'  | [[EditType.EQUAL, 0, 0, 2], [EditType.DELETE, 2, 2, 1], [EditType.INSERT, 3, 2, 1], [EditType.EQUAL, 3, 3, 1],
+                                [EditType.DELETE, 4, 4, 1], [EditType.EQUAL, 5, 4, 1]]
+    }
+
+    def 'compare should only compare the remaining bytes of the inputs'() {
+        given: 'inputs positioned after their first bytes'
+        ByteBuffer left = ByteBuffer.wrap('xxabcd'.bytes, 2, 4)
+        ByteBuffer right = ByteBuffer.wrap('yabcde'.bytes, 1, 5)
+
+        when: 'compare is executed'
+        EditScript editScript = editEngine.compare(left, right)
+
+        then: 'the offsets should be relative to the positions of the inputs'
+        editScript.edits == [
+            EditDto.builder().type(EditType.EQUAL).leftOffset(0).rightOffset(0).length(4).build(),
+            EditDto.builder().type(EditType.INSERT).leftOffset(4).rightOffset(4).length(1).build(),
+        ]
+    }
+
+    def 'compare should replace the remaining range as a whole once the timeout is exceeded'() {
+        given: 'an engine without time budget'
+        MyersEditEngine editEngineWithoutTime = new MyersEditEngine(10000, 0L)
+
+        when: 'compare is executed'
+        EditScript editScript = editEngineWithoutTime.compare(ByteBuffer.wrap('abcd'.bytes), ByteBuffer.wrap('axcyd'.bytes))
+
+        then: 'the common prefix and suffix should be kept and the range between them replaced'
+        editScript.edits == [
+            EditDto.builder().type(EditType.EQUAL).leftOffset(0).rightOffset(0).length(1).build(),
+            EditDto.builder().type(EditType.DELETE).leftOffset(1).rightOffset(1).length(2).build(),
+            EditDto.builder().type(EditType.INSERT).leftOffset(3).rightOffset(1).length(3).build(),
+            EditDto.builder().type(EditType.EQUAL).leftOffset(3).rightOffset(4).length(1).build(),
+        ]
+        editScript.coarse
+    }
+
+    def 'compare should not flag the edit script as coarse if the inputs have no byte in common'() {
+        given: 'an engine with a small edit distance budget'
+        MyersEditEngine editEngineWithSmallBudget = new MyersEditEngine(4, 1000L)
+
+        when: 'compare is executed with short inputs having no byte in common'
+        EditScript editScript = editEngineWithSmallBudget.compare(ByteBuffer.wrap('ab'.bytes), ByteBuffer.wrap('xyz'.bytes))
+
+        then: 'the replacement should be the shortest edit script'
+        editScript.edits.size() == 2
+        !editScript.coarse
+    }
+
+    @Unroll('compare should find an edit script as short as the longest common subsequence for random inputs of sizes #leftSize and #rightSize')
+    def 'compare should find an edit script as short as the longest common subsequence for random inputs'() {
+        given: 'random inputs of a small alphabet'
+        Random random = new Random(leftSize * 31 + rightSize)
+        byte[] left = (0..<leftSize).collect { random.nextInt(3) } as byte[]
+        byte[] right = (0..<rightSize).collect { random.nextInt(3) } as byte[]
+
+        when: 'compare is executed with and without enough edit distance budget'
+        EditScript editScript = editEngine.compare(ByteBuffer.wrap(left), ByteBuffer.wrap(right))
+        EditScript boundedEditScript = new MyersEditEngine(2, 1000L).compare(ByteBuffer.wrap(left), ByteBuffer.wrap(right))
+
+        then: 'both edit scripts should turn the left input into the right input'
+        apply(left, right, editScript) == leftSize + rightSize - 2 * longestCommonSubsequence(left, right)
+        apply(left, right, boundedEditScript) >= leftSize + rightSize - 2 * longestCommonSubsequence(left, right)
+
+        and: 'only the bounded edit script may be coarse'
+        !editScript.coarse
+
+        where:
+        [leftSize, rightSize] << [[1, 7, 30, 64], [2, 9, 31, 50]].combinations()
+    }
+
+    private static int apply(byte[] left, byte[] right, EditScript editScript) {
+        int leftOffset = 0
+        int rightOffset = 0
+        int distance = 0
+
+        editScript.edits.each { EditDto edit ->
+            assert edit.leftOffset == leftOffset && edit.rightOffset == rightOffset
+
+            if (edit.type == EditType.EQUAL) {
+                assert left[leftOffset..<(leftOffset + edit.length)] == right[rightOffset..<(rightOffset + edit.length)]
+            }
+
+            leftOffset += edit.type == EditType.INSERT ? 0 : edit.length
+            rightOffset += edit.type == EditType.DELETE ? 0 : edit.length
+            distance += edit.type == EditType.EQUAL ? 0 : edit.length
+        }
+
+        assert leftOffset == left.length && rightOffset == right.length
+
+        distance
+    }
+
+    private static int longestCommonSubsequence(byte[] left, byte[] right) {
+        int[][] lengths = new int[left.length + 1][right.length + 1]
+
+        (1..left.length).each { int leftIndex ->
+            (1..right.length).each { int rightIndex ->
+                lengths[leftIndex][rightIndex] = left[leftIndex - 1] == right[rightIndex - 1]
+                    ? lengths[leftIndex - 1][rightIndex - 1] + 1
+                    : Math.max(lengths[leftIndex - 1][rightIndex], lengths[leftIndex][rightIndex - 1])
+            }
+        }
+
+        lengths[left.length][right.length]
+    }
+}
@@ -0,0 +1,120 @@
+package com.limac.diffservice.engine
+
+import com.limac.diffservice.rest.dto.DiffResultDto
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+
+class WordDiffEngineSpec extends Specification {
+
+    DiffEngine diffEngine = new WordDiffEngine()
+
+    def 'compare should return the mismatch runs of the inputs'() {
+        given: 'two inputs with the same size'
+        ByteBuffer left = ByteBuffer.wrap('{"sameSize":"value"}'.bytes)
+        ByteBuffer right = ByteBuffer.wrap('{"property":"false"}'.bytes)
+
+        when: 'compare is executed'
+        List<DiffResultDto> diffResults = diffEngine.compare(left, right)
+
+        then: 'the mismatch runs should be returned with byte offsets'
+        diffResults == [
+            DiffResultDto.builder().offset(2).length(8).build(),
+            DiffResultDto.builder().offset(13).length(1).build(),
+            DiffResultDto.builder().offset(16).length(1).build(),
+        ]
+
+        and: 'the buffer positions should not be changed'
+        left.position() == 0
+        right.position() == 0
+    }
+
+    def 'compare should return the offsets relative to the buffer positions'() {
+        given: 'two inputs with the same remaining size'
+        ByteBuffer left = ByteBuffer.wrap('xxabcdefghijklmnop'.bytes)
+        ByteBuffer right = ByteBuffer.wrap('yyabcdefghijklmnoq'.bytes)
+        left.position(2)
+        right.position(2)
+
+        when: 'compare is executed'
+        List<DiffResultDto> diffResults = diffEngine.compare(left, right)
+
+        then: 'the offsets should start at the buffer positions'
+        diffResults == [DiffResultDto.builder().offset(15).length(1).build()]
+    }
+
+    def 'compare should stop when the listener returns false'() {
+        given: 'two inputs with three mismatch runs and a listener accepting one run'
+        ByteBuffer left = ByteBuffer.wrap('{"sameSize":"value"}'.bytes)
+        ByteBuffer right = ByteBuffer.wrap('{"property":"false"}'.bytes)
+
+        List<List<Integer>> diffResults = []
+
+        when: 'compare is executed'
+        diffEngine.compare(left, right) { int offset, int length ->
+            diffResults << [offset, length]
+            false
+        }
+
+        then: 'only the first run should be passed to the listener'
+        diffResults == [[2, 8]]
+    }
+
+    def 'compare should throw IllegalArgumentException if the inputs have different sizes'() {
+        when: 'compare is executed with inputs of different sizes'
+        diffEngine.compare(ByteBuffer.wrap(new byte[8]), ByteBuffer.wrap(new byte[9]))
+
+        then: 'IllegalArgumentException is thrown'
+        IllegalArgumentException illegalArgumentException = thrown(IllegalArgumentException)
+        illegalArgumentException.message == 'left and right inputs must have the same size'
+    }
+
+    @Unroll('compare should match the byte loop for random inputs of size #size and difference density #density')
+    def 'compare should match the byte loop for random inputs'() {
+        given: 'random inputs with the given size and difference density'
+        Random random = new Random(size * 31 + (int) (density * 100))
+        byte[] left = new byte[size]
+        random.nextBytes(left)
+        byte[] right = left.clone()
+
+        size.times { int index ->
+            if (random.nextDouble() < density) {
+                right[index] = (byte) (left[index] + 1 + random.nextInt(255))
+            }
+        }
+
+        when: 'compare is executed'
+        List<DiffResultDto> diffResults = diffEngine.compare(ByteBuffer.wrap(left), ByteBuffer.wrap(right))
+
+        then: 'the mismatch runs should be the same as the ones found by the byte loop'
+        diffResults == byteLoopCompare(left, right)
+
+        where:
+        [size, density] << [[0, 1, 7, 8, 9, 15, 16, 17, 63, 64, 65, 1000, 4099], [0.0d, 0.001d, 0.05d, 0.5d, 0.95d, 1.0d]].combinations()
+    }
+
+    private static List<DiffResultDto> byteLoopCompare(byte[] left, byte[] right) {
+        List<DiffResultDto> diffResults = []
+
+        int length = 0
+        int offset = -1
+
+        for (int i = 0; i <= left.length; i++) {
+            if (i < left.length && left[i] != right[i]) {
+                length++
+
+                if (offset < 0) {
+                    offset = i
+                }
+            } else if (offset != -1) {
+                diffResults << DiffResultDto.builder().offset(offset).length(length).build()
+
+                length = 0
+                offset = -1
+            }
+        }
+
+        diffResults
+    }
+}
@@ -0,0 +1,72 @@
+package com.limac.diffservice.logging
+
+import ch.qos.logback.classic.AsyncAppender
+import ch.qos.logback.classic.Logger
+import ch.qos.logback.classic.LoggerContext
+import ch.qos.logback.classic.joran.JoranConfigurator
+import ch.qos.logback.core.ConsoleAppender
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+import static net.logstash.logback.argument.StructuredArguments.kv
+
+class LogbackConfigurationSpec extends Specification {
+
+    static final int BURST = 20000
+
+    LoggerContext loggerContext = new LoggerContext()
+
+    BlockedOutputStream blockedOutputStream = new BlockedOutputStream()
+
+    def setup() {
+        loggerContext.putProperty('LOG_PATH', File.createTempDir().absolutePath)
+
+        JoranConfigurator joranConfigurator = new JoranConfigurator()
+        joranConfigurator.context = loggerContext
+        joranConfigurator.doConfigure(getClass().getResource('/logback-spring.xml'))
+    }
+
+    def cleanup() {
+        blockedOutputStream.released.countDown()
+        loggerContext.stop()
+    }
+
+    @Timeout(10)
+    def 'logging a burst should not block the request thread while the log output is blocked'() {
+        given: 'the console output of the service logger blocked and the file output disabled'
+        Logger serviceLogger = loggerContext.getLogger('com.limac')
+        serviceLogger.detachAppender('AsyncRollingFile')
+
+        AsyncAppender asyncConsole = (AsyncAppender) serviceLogger.getAppender('AsyncConsole')
+        ((ConsoleAppender) asyncConsole.getAppender('Console')).outputStream = blockedOutputStream
+
+        when: 'a burst larger than the queue is logged'
+        Logger logger = loggerContext.getLogger('com.limac.diffservice.rest.DiffController')
+        BURST.times { int index ->
+            logger.info('Received {} for {}', kv('left', 'YWJjZA=='), kv('diffId', index))
+        }
+
+        then: 'the burst should be logged without waiting for the output'
+        blockedOutputStream.written.get() == 0
+
+        and: 'the INFO events should be dropped once the queue reached the discarding threshold'
+        asyncConsole.neverBlock
+        asyncConsole.remainingCapacity < asyncConsole.discardingThreshold
+    }
+
+    static class BlockedOutputStream extends OutputStream {
+
+        CountDownLatch released = new CountDownLatch(1)
+
+        AtomicInteger written = new AtomicInteger()
+
+        @Override
+        void write(int value) {
+            released.await()
+            written.incrementAndGet()
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.limac.diffservice.logging
+
+import com.limac.diffservice.cache.ContentDigest
+import com.limac.diffservice.rest.dto.DiffResultDto
+import spock.lang.Specification
+
+class PayloadLogArgumentsSpec extends Specification {
+
+    PayloadLogArguments payloadLogArguments = new PayloadLogArguments(8, 0.0d)
+
+    List<DiffResultDto> diffResults = [
+        DiffResultDto.builder().offset(2).length(8).build(),
+        DiffResultDto.builder().offset(13).length(1).build(),
+    ]
+
+    def 'payload should truncate the input and log its length and the fingerprint of its digest'() {
+        given: 'an input longer than the maximum length and its digest'
+        String value = 'YWJjZGVmZ2hpamtsbW5vcA=='
+        String digest = ContentDigest.digest(value.decodeBase64())
+
+        expect: 'the truncated input with its length and the prefix of its digest'
+        payloadLogArguments.payload('diffId', 'left', value, digest).toString() == "left=YWJjZGVm...[24 chars, sha256:${digest.substring(0, 16)}]"
+    }
+
+    def 'payload should truncate the input and log its length if its digest is unknown'() {
+        expect: 'the truncated input with its length'
+        payloadLogArguments.payload('diffId', 'left', 'YWJjZGVmZ2hpamtsbW5vcA==', null).toString() == 'left=YWJjZGVm...[24 chars]'
+    }
+
+    def 'payload should log the input in full if it is not longer than the maximum length'() {
+        expect: 'the input in full'
+        payloadLogArguments.payload('diffId', 'left', value, 'digest').toString() == "left=${value}"
+
+        where:
+        value << ['YWJjZA==', null]
+    }
+
+    def 'diffResults should summarize the diff results by their count and total length'() {
+        expect: 'the count and total length of the diff results'
+        payloadLogArguments.diffResults('diffId', diffResults).toString() == 'diffResults=2 runs of 9 bytes'
+    }
+
+    def 'diffResults should log the absence of diff results'() {
+        expect: 'no diff results'
+        payloadLogArguments.diffResults('diffId', null).toString() == 'diffResults=null'
+    }
+
+    def 'the inputs and the diff results of the sampled diffIds should be logged in full'() {
+        given: 'all the diffIds sampled'
+        PayloadLogArguments sampledPayloadLogArguments = new PayloadLogArguments(8, 1.0d)
+
+        expect: 'the inputs and the diff results in full'
+        sampledPayloadLogArguments.payload('diffId', 'left', 'YWJjZGVmZ2hpamtsbW5vcA==', null).toString() == 'left=YWJjZGVmZ2hpamtsbW5vcA=='
+        sampledPayloadLogArguments.diffResults('diffId', diffResults).toString() == "diffResults=${diffResults}"
+    }
+
+    def 'the inputs of a missing diffId should not be sampled'() {
+        given: 'all the diffIds sampled'
+        PayloadLogArguments sampledPayloadLogArguments = new PayloadLogArguments(8, 1.0d)
+
+        expect: 'the truncated input'
+        sampledPayloadLogArguments.payload(null, 'left', 'YWJjZGVmZ2hpamtsbW5vcA==', null).toString().startsWith('left=YWJjZGVm...[24 chars')
+    }
+}
@@ -1,8 +1,13 @@
 package com.limac.diffservice.mapping
 
 import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.domain.DiffResult
 import com.limac.diffservice.rest.dto.DiffDto
 import com.limac.diffservice.rest.dto.Base64Dto
+import com.limac.diffservice.rest.dto.BulkInputDto
+import com.limac.diffservice.rest.dto.DiffResultDto
+import com.limac.diffservice.type.InputType
+import com.limac.diffservice.type.ResultType
 import spock.lang.Specification
 
 class DiffMapperImplSpec extends Specification {
@@ -49,6 +54,48 @@ class DiffMapperImplSpec extends Specification {
         diff == null
     }
 
+    def 'BulkInputDto mapping to left input of Diff'() {
+        given: 'a BulkInputDto'
+        BulkInputDto bulkInputDto = new BulkInputDto(diffId: 'diffId', inputType: InputType.LEFT, base64Value: 'base64Value')
+
+        when: 'BulkInputDto is mapped to Diff'
+        Diff diff = diffMapper.bulkInputDtoToLeftDiff(bulkInputDto)
+
+        then: 'Diff should be mapped correctly'
+        diff.diffId == bulkInputDto.diffId
+        diff.left == bulkInputDto.base64Value
+        diff.right == null
+    }
+
+    def 'null mapping of BulkInputDto to left input of Diff'() {
+        when: 'null is mapped to Diff'
+        Diff diff = diffMapper.bulkInputDtoToLeftDiff(null)
+
+        then: 'mapping result should be null'
+        diff == null
+    }
+
+    def 'BulkInputDto mapping to right input of Diff'() {
+        given: 'a BulkInputDto'
+        BulkInputDto bulkInputDto = new BulkInputDto(diffId: 'diffId', inputType: InputType.RIGHT, base64Value: 'base64Value')
+
+        when: 'BulkInputDto is mapped to Diff'
+        Diff diff = diffMapper.bulkInputDtoToRightDiff(bulkInputDto)
+
+        then: 'Diff should be mapped correctly'
+        diff.diffId == bulkInputDto.diffId
+        diff.right == bulkInputDto.base64Value
+        diff.left == null
+    }
+
+    def 'null mapping of BulkInputDto to right input of Diff'() {
+        when: 'null is mapped to Diff'
+        Diff diff = diffMapper.bulkInputDtoToRightDiff(null)
+
+        then: 'mapping result should be null'
+        diff == null
+    }
+
     def 'Diff mapping to DiffDto'() {
         given: 'a Diff'
         Diff diff = new Diff()
@@ -65,6 +112,18 @@ class DiffMapperImplSpec extends Specification {
         diffDto.right == diff.right
     }
 
+    def 'Diff mapping to DiffDto with the stored diff results'() {
+        given: 'a Diff with stored diff results'
+        Diff diff = new Diff(diffId: 'diffId', resultType: ResultType.SAME_SIZE_BUT_DIFFERENT, diffResults: [new DiffResult(2, 1), null])
+
+        when: 'Diff is mapped to DiffDto'
+        DiffDto diffDto = diffMapper.diffToDiffDto(diff)
+
+        then: 'the diff results should be mapped'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults == [DiffResultDto.builder().offset(2).length(1).build(), null]
+    }
+
     def 'null mapping to DiffDto'() {
         when: 'null is mapped to DiffDto'
         DiffDto diffDto = diffMapper.diffToDiffDto(null)
@@ -0,0 +1,21 @@
+package com.limac.diffservice.metrics
+
+import spock.lang.Specification
+
+class CountingInputStreamSpec extends Specification {
+
+    def 'the bytes read should be counted'() {
+        given: 'a stream of 10 bytes'
+        CountingInputStream countingInputStream = new CountingInputStream(new ByteArrayInputStream(new byte[10]))
+
+        when: 'the stream is read by a byte and by chunks until its end'
+        countingInputStream.read()
+        countingInputStream.read(new byte[4], 0, 4)
+        byte[] remaining = countingInputStream.bytes
+
+        then: 'all the bytes read should be counted'
+        remaining.length == 5
+        countingInputStream.read() == -1
+        countingInputStream.count == 10
+    }
+}
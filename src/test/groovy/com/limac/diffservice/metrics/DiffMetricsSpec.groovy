@@ -0,0 +1,108 @@
+package com.limac.diffservice.metrics
+
+import com.limac.diffservice.type.InputType
+import com.limac.diffservice.type.ResultType
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Metrics
+import io.micrometer.core.instrument.Timer
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+class DiffMetricsSpec extends Specification {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    DiffMetrics diffMetrics = new DiffMetrics(meterRegistry)
+
+    def 'the timers should be registered once with percentiles'() {
+        when: 'the timers are requested twice'
+        Timer saveTimer = diffMetrics.saveTimer(InputType.LEFT)
+
+        then: 'the same timer should be returned'
+        saveTimer.is(diffMetrics.saveTimer(InputType.LEFT))
+        diffMetrics.findByIdTimer().is(diffMetrics.findByIdTimer())
+        diffMetrics.diffTimer('full').is(diffMetrics.diffTimer('full'))
+        diffMetrics.bulkTimer('save').is(diffMetrics.bulkTimer('save'))
+
+        and: 'the percentiles should be published'
+        saveTimer.takeSnapshot().percentileValues()*.percentile() == [0.5d, 0.95d, 0.99d]
+    }
+
+    def 'bulkTimer should be tagged by operation'() {
+        when: 'a bulk operation is timed'
+        diffMetrics.bulkTimer('diff').record(5, TimeUnit.MILLISECONDS)
+
+        then: 'the timer should be tagged by operation'
+        meterRegistry.get('diff.service.bulk').tag('operation', 'diff').timer().count() == 1
+    }
+
+    def 'recordPayloadSize should record the size by input type'() {
+        when: 'the sizes are recorded'
+        diffMetrics.recordPayloadSize(InputType.LEFT, 10)
+        diffMetrics.recordPayloadSize(InputType.LEFT, 20)
+        diffMetrics.recordPayloadSize(InputType.RIGHT, 5)
+
+        then: 'the sizes should be summarized by input type'
+        meterRegistry.get('diff.payload.size').tag('inputType', 'LEFT').summary().totalAmount() == 30
+        meterRegistry.get('diff.payload.size').tag('inputType', 'RIGHT').summary().count() == 1
+    }
+
+    def 'recordResult should count the result types and record the number of diff results'() {
+        when: 'the results are recorded'
+        diffMetrics.recordResult(ResultType.EQUAL, 0)
+        diffMetrics.recordResult(ResultType.SAME_SIZE_BUT_DIFFERENT, 3)
+
+        then: 'the results should be counted by result type'
+        meterRegistry.get('diff.results').tag('resultType', 'EQUAL').counter().count() == 1
+        meterRegistry.get('diff.results').tag('resultType', 'SAME_SIZE_BUT_DIFFERENT').counter().count() == 1
+
+        and: 'the number of diff results should be summarized'
+        meterRegistry.get('diff.result.runs').summary().max() == 3
+    }
+
+    def 'registerAdmission should publish the payload bytes in flight and the comparisons running and queued'() {
+        given: 'the payload bytes in flight and an executor with a queued comparison'
+        AtomicLong inFlightBytes = new AtomicLong(42)
+        ThreadPoolExecutor comparisonExecutor = new ThreadPoolExecutor(0, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>())
+        comparisonExecutor.queue.add({ } as Runnable)
+
+        when: 'the gauges are registered'
+        diffMetrics.registerAdmission(inFlightBytes, comparisonExecutor)
+
+        then: 'the gauges should publish the current values'
+        meterRegistry.get('diff.admission.bytes').gauge().value() == 42
+        meterRegistry.get('diff.admission.active').gauge().value() == 0
+        meterRegistry.get('diff.admission.queue').gauge().value() == 1
+    }
+
+    def 'recordRejection should count the rejections by budget'() {
+        when: 'the rejections are recorded'
+        diffMetrics.recordRejection('bytes')
+        diffMetrics.recordRejection('bytes')
+        diffMetrics.recordRejection('comparisons')
+
+        then: 'the rejections should be counted by budget'
+        meterRegistry.get('diff.admission.rejections').tag('budget', 'bytes').counter().count() == 2
+        meterRegistry.get('diff.admission.rejections').tag('budget', 'comparisons').counter().count() == 1
+    }
+
+    def 'validationTimer should be registered in the global registry'() {
+        given: 'a registry added to the global registry'
+        MeterRegistry globalMeterRegistry = new SimpleMeterRegistry()
+        Metrics.addRegistry(globalMeterRegistry)
+
+        when: 'a validation is recorded'
+        DiffMetrics.validationTimer('value').record(1, TimeUnit.MILLISECONDS)
+
+        then: 'the validation should be published by the registry'
+        globalMeterRegistry.get('diff.base64.validation').tag('mode', 'value').timer().count() == 1
+
+        cleanup:
+        Metrics.removeRegistry(globalMeterRegistry)
+    }
+}
@@ -0,0 +1,72 @@
+package com.limac.diffservice.metrics
+
+import com.limac.diffservice.domain.Chunk
+import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.rest.dto.CollectionStatsDto
+import com.limac.diffservice.rest.dto.DiffStorageDto
+import org.bson.Document
+import org.springframework.data.mongodb.UncategorizedMongoDbException
+import org.springframework.data.mongodb.core.MongoOperations
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DiffStorageEndpointSpec extends Specification {
+
+    MongoOperations mongoOperations = Mock(MongoOperations)
+
+    DiffStorageEndpoint diffStorageEndpoint = new DiffStorageEndpoint(mongoOperations, 3600)
+
+    def setup() {
+        mongoOperations.getCollectionName(Diff) >> 'diffs'
+        mongoOperations.getCollectionName(Chunk) >> 'chunks'
+        mongoOperations.executeCommand(new Document('collStats', 'diffs')) >>
+            new Document(count: 10, size: 1000, avgObjSize: 100, storageSize: 400L, totalIndexSize: 200)
+        mongoOperations.executeCommand(new Document('collStats', 'chunks')) >> new Document(count: 0, size: 0, storageSize: 4096, totalIndexSize: 8192)
+    }
+
+    def 'storage should report the size of the collections and the working set against the cache of the server'() {
+        given: 'the cache statistics of the server'
+        mongoOperations.executeCommand(new Document('serverStatus', 1)) >>
+            new Document('wiredTiger', new Document('cache', new Document('maximum bytes configured', 1 << 30).append('bytes currently in the cache', 5000L)))
+
+        when: 'storage is executed'
+        DiffStorageDto diffStorageDto = diffStorageEndpoint.storage()
+
+        then: 'the statistics of each collection should be reported, without the average size of an empty collection'
+        diffStorageDto.ttl == 3600
+        diffStorageDto.collections == [
+            CollectionStatsDto.builder().name('diffs').documents(10L).size(1000L).averageDocumentSize(100L).storageSize(400L).indexSize(200L).build(),
+            CollectionStatsDto.builder().name('chunks').documents(0L).size(0L).averageDocumentSize(0L).storageSize(4096L).indexSize(8192L).build()
+        ]
+
+        and: 'the working set should be estimated by the uncompressed documents and the indexes'
+        diffStorageDto.workingSetBytes == 9392
+        diffStorageDto.cacheBytes == 1 << 30
+        diffStorageDto.cachedBytes == 5000
+    }
+
+    @Unroll('storage should not report the cache of the server if its statistics are not available: #reason')
+    def 'storage should not report the cache of the server if its statistics are not available'() {
+        given: 'a server without cache statistics'
+        mongoOperations.executeCommand(new Document('serverStatus', 1)) >> {
+            if (authorized) {
+                return new Document('ok', 1)
+            }
+
+            throw new UncategorizedMongoDbException('not authorized on admin to execute command', null)
+        }
+
+        when: 'storage is executed'
+        DiffStorageDto diffStorageDto = diffStorageEndpoint.storage()
+
+        then: 'only the statistics of the collections should be reported'
+        diffStorageDto.workingSetBytes == 9392
+        diffStorageDto.cacheBytes == null
+        diffStorageDto.cachedBytes == null
+
+        where:
+        reason                      | authorized
+        'another storage engine'    | true
+        'not authorized'            | false
+    }
+}
@@ -0,0 +1,45 @@
+package com.limac.diffservice.metrics
+
+import com.mongodb.ServerAddress
+import com.mongodb.connection.ClusterId
+import com.mongodb.connection.ConnectionDescription
+import com.mongodb.connection.ServerId
+import com.mongodb.event.CommandFailedEvent
+import com.mongodb.event.CommandStartedEvent
+import com.mongodb.event.CommandSucceededEvent
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.bson.BsonDocument
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class MongoCommandMetricsSpec extends Specification {
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    MongoCommandMetrics mongoCommandMetrics = new MongoCommandMetrics(meterRegistry)
+
+    ConnectionDescription connectionDescription = new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()))
+
+    def 'the latency of the succeeded commands should be recorded by command'() {
+        when: 'a command is started and succeeds'
+        mongoCommandMetrics.commandStarted(new CommandStartedEvent(1, connectionDescription, 'diff', 'findAndModify', new BsonDocument()))
+        mongoCommandMetrics.commandSucceeded(new CommandSucceededEvent(1, connectionDescription, 'findAndModify', new BsonDocument(),
+            TimeUnit.MILLISECONDS.toNanos(5)))
+
+        then: 'the latency should be recorded as a success'
+        meterRegistry.get('diff.mongo.command').tags('command', 'findAndModify', 'status', 'success').timer()
+            .totalTime(TimeUnit.MILLISECONDS) == 5
+    }
+
+    def 'the latency of the failed commands should be recorded by command'() {
+        when: 'a command fails'
+        mongoCommandMetrics.commandFailed(new CommandFailedEvent(1, connectionDescription, 'insert', TimeUnit.MILLISECONDS.toNanos(7),
+            new IllegalStateException('failure')))
+
+        then: 'the latency should be recorded as a failure'
+        meterRegistry.get('diff.mongo.command').tags('command', 'insert', 'status', 'failure').timer()
+            .totalTime(TimeUnit.MILLISECONDS) == 7
+    }
+}
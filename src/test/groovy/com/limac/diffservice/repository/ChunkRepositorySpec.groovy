@@ -0,0 +1,327 @@
+package com.limac.diffservice.repository
+
+import com.limac.diffservice.cache.ContentDigest
+import com.limac.diffservice.domain.Chunk
+import com.limac.diffservice.domain.ChunkReference
+import com.limac.diffservice.domain.Diff
+import com.mongodb.MongoBulkWriteException
+import com.mongodb.ServerAddress
+import com.mongodb.bulk.BulkWriteError
+import com.mongodb.bulk.BulkWriteResult
+import com.mongodb.client.result.DeleteResult
+import org.bson.BsonDocument
+import org.bson.Document
+import org.springframework.data.mongodb.BulkOperationException
+import org.springframework.data.mongodb.core.BulkOperations
+import org.springframework.data.mongodb.core.MongoOperations
+import org.springframework.data.mongodb.core.query.Query
+import org.springframework.data.mongodb.core.query.Update
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.util.function.Consumer
+
+class ChunkRepositorySpec extends Specification {
+
+    static final String FIRST = ContentDigest.digest('abcd'.bytes)
+    static final String SECOND = ContentDigest.digest('efgh'.bytes)
+
+    MongoOperations mongoOperations = Mock(MongoOperations)
+    BulkOperations bulkOperations = Mock(BulkOperations)
+    ContentDefinedChunker contentDefinedChunker = Mock(ContentDefinedChunker)
+    PayloadCodec payloadCodec = new PayloadCodec(true, 256, 16)
+    PayloadSpill payloadSpill = Mock(PayloadSpill)
+
+    ChunkRepository chunkRepository = new ChunkRepository(mongoOperations, contentDefinedChunker, payloadCodec, payloadSpill)
+
+    InputStream inputStream = new ByteArrayInputStream(new byte[0])
+
+    def 'store should upsert each distinct chunk with its data and its number of references'() {
+        given: 'an input split in a chunk, another chunk and the first chunk again'
+        1 * contentDefinedChunker.split(inputStream, _ as Consumer) >> { InputStream stream, Consumer<byte[]> consumer ->
+            ['abcd', 'efgh', 'abcd'].each { consumer.accept(it.bytes) }
+        }
+
+        when: 'store is executed'
+        List<ChunkReference> chunks = chunkRepository.store('diffId', inputStream)
+
+        then: 'the stored chunks should not be looked up'
+        0 * mongoOperations.find(*_)
+
+        and: 'both chunks should be upserted with their data and counted with a single bulk write'
+        1 * mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk) >> bulkOperations
+        1 * bulkOperations.upsert({ Query query -> query.queryObject == new Document('digest', FIRST) }, { Update update ->
+            update.updateObject.get('$inc') == new Document('refCount', 2L) && update.updateObject.containsKey('$currentDate') &&
+                payloadCodec.decode(update.updateObject.get('$setOnInsert').get('data') as byte[]) == ByteBuffer.wrap('abcd'.bytes) &&
+                update.updateObject.get('$setOnInsert').get('length') == 4
+        })
+        1 * bulkOperations.upsert({ Query query -> query.queryObject == new Document('digest', SECOND) }, { Update update ->
+            update.updateObject.get('$inc') == new Document('refCount', 1L) &&
+                payloadCodec.decode(update.updateObject.get('$setOnInsert').get('data') as byte[]) == ByteBuffer.wrap('efgh'.bytes) &&
+                update.updateObject.get('$setOnInsert').get('length') == 4
+        })
+        0 * bulkOperations.updateOne(*_)
+        1 * bulkOperations.execute()
+
+        and: 'the references to the chunks should be returned in the order of the input'
+        chunks == [new ChunkReference(FIRST, 4), new ChunkReference(SECOND, 4), new ChunkReference(FIRST, 4)]
+    }
+
+    def 'store should write the chunks in batches'() {
+        given: 'an input split in more distinct chunks than a batch'
+        1 * contentDefinedChunker.split(inputStream, _ as Consumer) >> { InputStream stream, Consumer<byte[]> consumer ->
+            (0..256).each { consumer.accept([it >> 8, it & 0xFF] as byte[]) }
+        }
+
+        when: 'store is executed'
+        List<ChunkReference> chunks = chunkRepository.store('diffId', inputStream)
+
+        then: 'the chunks should be written in two batches'
+        2 * mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk) >> bulkOperations
+        257 * bulkOperations.upsert(_ as Query, _ as Update)
+        2 * bulkOperations.execute()
+        chunks.size() == 257
+    }
+
+    def 'store should increment the references of the chunks inserted concurrently'() {
+        given: 'an input with two new chunks, one of them inserted concurrently'
+        1 * contentDefinedChunker.split(inputStream, _ as Consumer) >> { InputStream stream, Consumer<byte[]> consumer ->
+            ['abcd', 'efgh'].each { consumer.accept(it.bytes) }
+        }
+
+        BulkOperations retryOperations = Mock(BulkOperations)
+
+        when: 'store is executed'
+        chunkRepository.store('diffId', inputStream)
+
+        then: 'the upsert of the chunk inserted concurrently should fail on its digest'
+        2 * mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk) >>> [bulkOperations, retryOperations]
+        2 * bulkOperations.upsert(_ as Query, _ as Update)
+        1 * bulkOperations.execute() >> { throw bulkOperationException(11000, 1) }
+
+        and: 'its references should be incremented instead'
+        1 * retryOperations.updateOne({ Query query -> query.queryObject == new Document('digest', SECOND) }, { Update update ->
+            update.updateObject.get('$inc') == new Document('refCount', 1L)
+        })
+        1 * retryOperations.execute()
+    }
+
+    def 'store should rethrow any other bulk write error'() {
+        given: 'an input with a new chunk'
+        1 * contentDefinedChunker.split(inputStream, _ as Consumer) >> { InputStream stream, Consumer<byte[]> consumer -> consumer.accept('abcd'.bytes) }
+        mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk) >> bulkOperations
+
+        when: 'store is executed and the bulk write fails'
+        chunkRepository.store('diffId', inputStream)
+
+        then: 'the error should be rethrown without retrying the write'
+        1 * bulkOperations.execute() >> { throw bulkOperationException(121, 0) }
+        0 * bulkOperations.updateOne(*_)
+        thrown(BulkOperationException)
+    }
+
+    def 'store should release the references written by a failed bulk write except the failed ones'() {
+        given: 'an input split in a chunk, another chunk and the first chunk again'
+        1 * contentDefinedChunker.split(inputStream, _ as Consumer) >> { InputStream stream, Consumer<byte[]> consumer ->
+            ['abcd', 'efgh', 'abcd'].each { consumer.accept(it.bytes) }
+        }
+
+        BulkOperations releaseOperations = Mock(BulkOperations)
+
+        when: 'store is executed and the upsert of the second chunk fails'
+        chunkRepository.store('diffId', inputStream)
+
+        then: 'the bulk write should fail on the second chunk'
+        2 * mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk) >>> [bulkOperations, releaseOperations]
+        1 * bulkOperations.execute() >> { throw bulkOperationException(121, 1) }
+
+        and: 'only the references of the first chunk applied anyway should be released'
+        1 * releaseOperations.updateOne({ Query query -> query.queryObject == new Document('digest', FIRST) }, { Update update ->
+            update.updateObject.get('$inc') == new Document('refCount', -2L)
+        })
+        0 * releaseOperations.updateOne(*_)
+        1 * releaseOperations.execute()
+
+        and: 'the error should be rethrown'
+        thrown(BulkOperationException)
+    }
+
+    def 'store should release the references written if the retry of the chunks inserted concurrently fails'() {
+        given: 'an input with two new chunks, one of them inserted concurrently'
+        1 * contentDefinedChunker.split(inputStream, _ as Consumer) >> { InputStream stream, Consumer<byte[]> consumer ->
+            ['abcd', 'efgh'].each { consumer.accept(it.bytes) }
+        }
+
+        BulkOperations retryOperations = Mock(BulkOperations)
+        BulkOperations releaseOperations = Mock(BulkOperations)
+
+        when: 'store is executed and the retry fails'
+        chunkRepository.store('diffId', inputStream)
+
+        then: 'the upsert of the chunk inserted concurrently and its retry should fail'
+        3 * mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk) >>> [bulkOperations, retryOperations, releaseOperations]
+        1 * bulkOperations.execute() >> { throw bulkOperationException(11000, 1) }
+        1 * retryOperations.execute() >> { throw bulkOperationException(121, 0) }
+
+        and: 'only the references of the first chunk should be released'
+        1 * releaseOperations.updateOne({ Query query -> query.queryObject == new Document('digest', FIRST) }, { Update update ->
+            update.updateObject.get('$inc') == new Document('refCount', -1L)
+        })
+        0 * releaseOperations.updateOne(*_)
+        1 * releaseOperations.execute()
+
+        and: 'the error should be rethrown'
+        thrown(BulkOperationException)
+    }
+
+    def 'store should release the chunks already written if the input could not be read'() {
+        given: 'an input failing after more distinct chunks than a batch'
+        1 * contentDefinedChunker.split(inputStream, _ as Consumer) >> { InputStream stream, Consumer<byte[]> consumer ->
+            (0..256).each { consumer.accept([it >> 8, it & 0xFF] as byte[]) }
+            throw new IOException('failure')
+        }
+        mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk) >> bulkOperations
+
+        when: 'store is executed'
+        chunkRepository.store('diffId', inputStream)
+
+        then: 'only the chunks of the written batch should be released'
+        256 * bulkOperations.updateOne(_ as Query, { Update update -> update.updateObject.get('$inc') == new Document('refCount', -1L) })
+        2 * bulkOperations.execute()
+
+        and: 'UncheckedIOException is thrown'
+        UncheckedIOException uncheckedIOException = thrown(UncheckedIOException)
+        uncheckedIOException.message == 'could not store the input for diffId: diffId'
+    }
+
+    def 'load should read the input from its chunks'() {
+        given: 'the references to stored chunks'
+        List<ChunkReference> chunks = [new ChunkReference(FIRST, 4), new ChunkReference(SECOND, 4), new ChunkReference(FIRST, 4)]
+
+        1 * payloadSpill.isSpilled(12) >> false
+
+        when: 'load is executed'
+        ByteBuffer byteBuffer = chunkRepository.load(chunks)
+
+        then: 'the distinct chunks should be found with a single query'
+        1 * mongoOperations.find({ Query query ->
+            query.queryObject.get('digest').get('$in') as Set == [FIRST, SECOND] as Set && query.fieldsObject == new Document('digest', 1).append('data', 1)
+        }, Chunk) >> [new Chunk(digest: FIRST, data: payloadCodec.encode('abcd'.bytes)), new Chunk(digest: SECOND, data: payloadCodec.encode('efgh'.bytes))]
+
+        and: 'the input should be returned'
+        byteBuffer == ByteBuffer.wrap('abcdefghabcd'.bytes)
+    }
+
+    def 'load should spill a large input to a temporary file'() {
+        given: 'the references to a stored chunk'
+        mongoOperations.find(_ as Query, Chunk) >> [new Chunk(digest: FIRST, data: payloadCodec.encode('abcd'.bytes))]
+
+        1 * payloadSpill.isSpilled(4) >> true
+
+        when: 'load is executed'
+        ByteBuffer byteBuffer = chunkRepository.load([new ChunkReference(FIRST, 4)])
+
+        then: 'the input should be mapped from the spill'
+        1 * payloadSpill.map(_ as InputStream, 4) >> { InputStream stream, long size -> ByteBuffer.wrap(stream.bytes) }
+        byteBuffer == ByteBuffer.wrap('abcd'.bytes)
+    }
+
+    def 'load should throw UncheckedIOException if the input could not be spilled'() {
+        given: 'the references to a stored chunk and a failing spill'
+        mongoOperations.find(_ as Query, Chunk) >> [new Chunk(digest: FIRST, data: payloadCodec.encode('abcd'.bytes))]
+
+        payloadSpill.isSpilled(4) >> true
+        payloadSpill.map(_ as InputStream, 4) >> { throw new IOException('failure') }
+
+        when: 'load is executed'
+        chunkRepository.load([new ChunkReference(FIRST, 4)])
+
+        then: 'UncheckedIOException is thrown'
+        UncheckedIOException uncheckedIOException = thrown(UncheckedIOException)
+        uncheckedIOException.message == 'could not read the stored chunks'
+    }
+
+    def 'load should throw IllegalStateException if a chunk is no longer stored'() {
+        given: 'the references to a chunk not found'
+        mongoOperations.find(_ as Query, Chunk) >> []
+
+        when: 'load is executed'
+        chunkRepository.load([new ChunkReference(FIRST, 4)])
+
+        then: 'IllegalStateException is thrown'
+        IllegalStateException illegalStateException = thrown(IllegalStateException)
+        illegalStateException.message == "could not find the stored chunk: ${FIRST}"
+    }
+
+    def 'release should decrement the references of each distinct chunk with a single bulk write'() {
+        when: 'release is executed'
+        chunkRepository.release([new ChunkReference(FIRST, 4), new ChunkReference(SECOND, 4), new ChunkReference(FIRST, 4)])
+
+        then: 'the references of each chunk should be decremented'
+        1 * mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Chunk) >> bulkOperations
+        1 * bulkOperations.updateOne({ Query query -> query.queryObject == new Document('digest', FIRST) }, { Update update ->
+            update.updateObject.get('$inc') == new Document('refCount', -2L) && update.updateObject.containsKey('$currentDate')
+        })
+        1 * bulkOperations.updateOne({ Query query -> query.queryObject == new Document('digest', SECOND) }, { Update update ->
+            update.updateObject.get('$inc') == new Document('refCount', -1L)
+        })
+        1 * bulkOperations.execute()
+    }
+
+    def 'release should not write anything without chunks'() {
+        when: 'release is executed without chunks'
+        chunkRepository.release([])
+
+        then: 'nothing should be written'
+        0 * mongoOperations._
+    }
+
+    def 'collect should remove the chunks released before the given date'() {
+        given: 'a date'
+        Date releasedBefore = new Date()
+
+        when: 'collect is executed'
+        long collected = chunkRepository.collect(releasedBefore)
+
+        then: 'the chunks no longer referenced since before the date should be removed'
+        1 * mongoOperations.remove({ Query query ->
+            query.queryObject == new Document('refCount', new Document('$lte', 0)).append('updatedAt', new Document('$lt', releasedBefore))
+        }, Chunk) >> DeleteResult.acknowledged(3)
+
+        and: 'the number of chunks removed should be returned'
+        collected == 3
+    }
+
+    def 'expire should remove the chunks still referenced but not updated since before the given date'() {
+        given: 'a date'
+        Date updatedBefore = new Date()
+
+        when: 'expire is executed'
+        long expired = chunkRepository.expire(updatedBefore)
+
+        then: 'the chunks of the Diffs without creation date should be found'
+        1 * mongoOperations.findDistinct({ Query query ->
+            query.queryObject == new Document('createdAt', new Document('$exists', false)).append('leftChunks', new Document('$exists', true))
+        }, 'leftChunks.digest', Diff, String) >> ['left', 'shared']
+        1 * mongoOperations.findDistinct({ Query query ->
+            query.queryObject == new Document('createdAt', new Document('$exists', false)).append('rightChunks', new Document('$exists', true))
+        }, 'rightChunks.digest', Diff, String) >> ['shared', 'right']
+
+        and: 'the other chunks still referenced but not updated since before the date should be removed'
+        1 * mongoOperations.remove({ Query query ->
+            query.queryObject.get('refCount') == new Document('$gt', 0) &&
+                query.queryObject.get('updatedAt') == new Document('$lt', updatedBefore) &&
+                query.queryObject.get('digest').get('$nin') as Set == ['left', 'shared', 'right'] as Set
+        }, Chunk) >> DeleteResult.acknowledged(2)
+
+        and: 'the number of chunks removed should be returned'
+        expired == 2
+    }
+
+    private static BulkOperationException bulkOperationException(int code, int index) {
+        MongoBulkWriteException source = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+            [new BulkWriteError(code, 'failure', new BsonDocument(), index)], null, new ServerAddress())
+
+        new BulkOperationException('failure', source)
+    }
+}
@@ -0,0 +1,59 @@
+package com.limac.diffservice.repository
+
+import spock.lang.Specification
+
+class ContentDefinedChunkerSpec extends Specification {
+
+    ContentDefinedChunker contentDefinedChunker = new ContentDefinedChunker(64, 256, 1024)
+
+    def 'split should pass the whole input as chunks between the minimum and maximum sizes'() {
+        given: 'a random input'
+        byte[] input = randomInput(65536)
+
+        when: 'split is executed'
+        List<byte[]> chunks = split(input)
+
+        then: 'the chunks should be the input in order'
+        chunks.sum { it as List } == input as List
+
+        and: 'all the chunks but the last one should be between the minimum and the maximum sizes'
+        chunks.size() > 64
+        chunks.init().every { it.length >= 64 && it.length <= 1024 }
+    }
+
+    def 'split should only change the chunks around an insertion'() {
+        given: 'a random input and the same input with bytes inserted in the middle'
+        byte[] input = randomInput(65536)
+        byte[] edited = (input[0..<30000] + [1] * 10 + input[30000..<input.length]) as byte[]
+
+        when: 'split is executed on both inputs'
+        List<byte[]> chunks = split(input)
+        List<byte[]> editedChunks = split(edited)
+
+        then: 'only the chunks around the insertion should be different'
+        Set<List<Byte>> stored = chunks.collect { it as List } as Set
+        editedChunks.count { !stored.contains(it as List) } <= 2
+    }
+
+    def 'split should cut the input at the maximum size if no boundary is found'() {
+        expect: 'an input without boundaries to be split in chunks of the maximum size'
+        split(new byte[3000])*.length == [1024, 1024, 952]
+    }
+
+    def 'split should not pass any chunk for an empty input'() {
+        expect: 'no chunks'
+        split(new byte[0]).empty
+    }
+
+    private List<byte[]> split(byte[] input) {
+        List<byte[]> chunks = []
+        contentDefinedChunker.split(new ByteArrayInputStream(input)) { byte[] chunk -> chunks << chunk }
+        chunks
+    }
+
+    private static byte[] randomInput(int size) {
+        byte[] input = new byte[size]
+        new Random(42).nextBytes(input)
+        input
+    }
+}
@@ -0,0 +1,101 @@
+package com.limac.diffservice.repository
+
+import com.limac.diffservice.domain.Diff
+import com.mongodb.client.ListIndexesIterable
+import com.mongodb.client.MongoCollection
+import org.bson.Document
+import org.springframework.boot.context.event.ApplicationReadyEvent
+import org.springframework.data.mongodb.core.MongoOperations
+import org.springframework.data.mongodb.core.index.Index
+import org.springframework.data.mongodb.core.index.IndexOperations
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DiffExpiryIndexSpec extends Specification {
+
+    static final Document ID_INDEX = new Document(name: '_id_', key: new Document('_id', 1))
+
+    MongoOperations mongoOperations = Mock(MongoOperations)
+    IndexOperations indexOperations = Mock(IndexOperations)
+    MongoCollection<Document> collection = Mock(MongoCollection)
+    ListIndexesIterable<Document> listIndexesIterable = Mock(ListIndexesIterable)
+
+    def setup() {
+        mongoOperations.indexOps(Diff) >> indexOperations
+        mongoOperations.getCollectionName(Diff) >> 'diffs'
+        mongoOperations.getCollection('diffs') >> collection
+        collection.listIndexes() >> listIndexesIterable
+    }
+
+    def 'manage should create the index expiring the Diffs after their creation once the application is ready'() {
+        given: 'no expiry index'
+        listIndexesIterable.into(_) >> { List<Document> indexes -> indexes << ID_INDEX }
+
+        when: 'the application is ready'
+        new DiffExpiryIndex(mongoOperations, 3600).onApplicationEvent(Mock(ApplicationReadyEvent))
+
+        then: 'the expiry index should be created on the creation date'
+        1 * indexOperations.ensureIndex({ Index index ->
+            index.indexKeys == new Document('createdAt', 1) &&
+                index.indexOptions.get('name') == 'expiry' &&
+                index.indexOptions.get('expireAfterSeconds') == 3600
+        })
+        0 * mongoOperations.executeCommand(_ as Document)
+    }
+
+    def 'manage should change the time to live of the existing index in place'() {
+        given: 'an expiry index with another time to live'
+        listIndexesIterable.into(_) >> { List<Document> indexes -> indexes << ID_INDEX << new Document(name: 'expiry', expireAfterSeconds: 60) }
+
+        when: 'manage is executed'
+        new DiffExpiryIndex(mongoOperations, 3600).manage()
+
+        then: 'the time to live of the index should be changed'
+        1 * mongoOperations.executeCommand(new Document('collMod', 'diffs').append('index', new Document(name: 'expiry', expireAfterSeconds: 3600L)))
+        0 * indexOperations._
+    }
+
+    @Unroll('manage should not change the existing index with the time to live #expireAfterSeconds')
+    def 'manage should not change the existing index with the same time to live'() {
+        given: 'an expiry index with the same time to live'
+        listIndexesIterable.into(_) >> { List<Document> indexes -> indexes << new Document(name: 'expiry', expireAfterSeconds: expireAfterSeconds) }
+
+        when: 'manage is executed'
+        new DiffExpiryIndex(mongoOperations, 3600).manage()
+
+        then: 'the index should not be changed'
+        0 * indexOperations._
+        0 * mongoOperations.executeCommand(_ as Document)
+
+        where:
+        expireAfterSeconds << [3600, 3600L]
+    }
+
+    def 'manage should change an existing index without time to live'() {
+        given: 'an expiry index without time to live'
+        listIndexesIterable.into(_) >> { List<Document> indexes -> indexes << new Document(name: 'expiry') }
+
+        when: 'manage is executed'
+        new DiffExpiryIndex(mongoOperations, 3600).manage()
+
+        then: 'the time to live of the index should be set'
+        1 * mongoOperations.executeCommand(new Document('collMod', 'diffs').append('index', new Document(name: 'expiry', expireAfterSeconds: 3600L)))
+    }
+
+    @Unroll('manage should drop the existing index if the Diffs no longer expire: #indexed')
+    def 'manage should drop the existing index if the Diffs no longer expire'() {
+        given: 'the expiry index, if any'
+        listIndexesIterable.into(_) >> { List<Document> indexes -> indexes << ID_INDEX; indexed ? indexes << new Document(name: 'expiry') : indexes }
+
+        when: 'manage is executed without time to live'
+        new DiffExpiryIndex(mongoOperations, 0).manage()
+
+        then: 'the index should be dropped if it exists'
+        (indexed ? 1 : 0) * indexOperations.dropIndex('expiry')
+        0 * indexOperations.ensureIndex(_)
+        0 * mongoOperations.executeCommand(_ as Document)
+
+        where:
+        indexed << [true, false]
+    }
+}
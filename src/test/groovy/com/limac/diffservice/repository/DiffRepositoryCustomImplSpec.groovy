@@ -0,0 +1,212 @@
+package com.limac.diffservice.repository
+
+import com.limac.diffservice.domain.ChunkReference
+import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.domain.DiffResult
+import com.limac.diffservice.domain.MerkleTree
+import com.limac.diffservice.type.InputType
+import com.limac.diffservice.type.ResultType
+import com.mongodb.ReadPreference
+import com.mongodb.client.FindIterable
+import com.mongodb.client.MongoCollection
+import com.mongodb.client.result.UpdateResult
+import org.bson.Document
+import org.springframework.dao.DuplicateKeyException
+import org.springframework.data.mongodb.core.FindAndModifyOptions
+import org.springframework.data.mongodb.core.CollectionCallback
+import org.springframework.data.mongodb.core.MongoOperations
+import org.springframework.data.mongodb.core.convert.MongoConverter
+import org.springframework.data.mongodb.core.query.Query
+import org.springframework.data.mongodb.core.query.Update
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class DiffRepositoryCustomImplSpec extends Specification {
+
+    static final byte[] PAYLOAD = [0, 1, 2] as byte[]
+    static final List<ChunkReference> CHUNKS = [new ChunkReference('chunkDigest', 3)]
+    static final MerkleTree TREE = new MerkleTree(4, [PAYLOAD])
+
+    MongoOperations mongoOperations = Mock(MongoOperations)
+
+    DiffRepositoryCustom diffRepositoryCustom = new DiffRepositoryCustomImpl(mongoOperations, ReadPreference.secondaryPreferred(), 2)
+
+    @Unroll('upsertInput should set only the fields of the input type #inputType and remove the stored result')
+    def 'upsertInput should set only the fields of the input type'() {
+        given: 'the Diff before the update'
+        Diff diffReplaced = new Diff()
+
+        when: 'upsertInput is executed'
+        Optional<Diff> optionalDiffReplaced = diffRepositoryCustom.upsertInput('diffId', inputType, payload, chunks, tree, 'digest')
+
+        then: 'the fields and the digest of the input type should be upserted with the timestamps, removing the base64 value, returning the previous file identifier'
+        1 * mongoOperations.findAndModify({ Query query ->
+            query.queryObject == new Document('diffId', 'diffId') &&
+                query.fieldsObject == new Document("${side}FileId".toString(), 1).append("${side}Chunks".toString(), 1).append(otherDigestField, 1)
+        }, { Update update ->
+            update.updateObject == timestamped(update, new Document('$set', new Document(expectedSet))
+                .append('$unset', new Document(expectedUnset).append(side, 1).append('resultType', 1).append('diffResults', 1)))
+        }, { FindAndModifyOptions options ->
+            options.upsert && !options.returnNew
+        }, Diff) >> diffReplaced
+
+        and: 'the Diff before the update should be returned'
+        optionalDiffReplaced.get().is(diffReplaced)
+
+        where:
+        inputType       | payload | chunks | tree | otherDigestField | expectedSet                                                   | expectedUnset
+        InputType.LEFT  | PAYLOAD | null   | null | 'rightDigest'    | [leftPayload: PAYLOAD, leftDigest: 'digest']                  | [leftChunks: 1, leftTree: 1, leftFileId: 1]
+        InputType.RIGHT | null    | CHUNKS | TREE | 'leftDigest'     | [rightChunks: CHUNKS, rightTree: TREE, rightDigest: 'digest'] | [rightPayload: 1, rightFileId: 1]
+        InputType.LEFT  | PAYLOAD | null   | TREE | 'rightDigest'    | [leftPayload: PAYLOAD, leftTree: TREE, leftDigest: 'digest']  | [leftChunks: 1, leftFileId: 1]
+        side = inputType.name().toLowerCase()
+    }
+
+    def 'upsertInput should return empty if the Diff was created'() {
+        given: 'a non existing Diff'
+        mongoOperations.findAndModify(_ as Query, _ as Update, _ as FindAndModifyOptions, Diff) >> null
+
+        when: 'upsertInput is executed'
+        Optional<Diff> optionalDiffReplaced = diffRepositoryCustom.upsertInput('diffId', InputType.LEFT, PAYLOAD, null, null, 'digest')
+
+        then: 'empty should be returned'
+        !optionalDiffReplaced.present
+    }
+
+    def 'upsertInput should retry if a concurrent upsert created the Diff first'() {
+        given: 'the Diff created by a concurrent upsert'
+        Diff diffReplaced = new Diff()
+
+        when: 'upsertInput is executed'
+        Optional<Diff> optionalDiffReplaced = diffRepositoryCustom.upsertInput('diffId', InputType.LEFT, PAYLOAD, null, null, 'digest')
+
+        then: 'the upsert should be retried'
+        2 * mongoOperations.findAndModify(_ as Query, _ as Update, _ as FindAndModifyOptions, Diff) >>
+            { throw new DuplicateKeyException('E11000 duplicate key error') } >> diffReplaced
+
+        and: 'the Diff created by the concurrent upsert should be returned'
+        optionalDiffReplaced.get().is(diffReplaced)
+    }
+
+    @Unroll('findForComparison should find the Diff with the read preference of the comparisons: #found, with the payloads: #includePayloads')
+    def 'findForComparison should find the Diff with the read preference of the comparisons'() {
+        given: 'a collection with the read preference of the comparisons'
+        MongoCollection<Document> collection = Mock(MongoCollection)
+        MongoCollection<Document> readCollection = Mock(MongoCollection)
+        FindIterable<Document> findIterable = Mock(FindIterable)
+        MongoConverter mongoConverter = Mock(MongoConverter)
+
+        Document document = new Document('_id', 'diffId')
+        Diff diff = new Diff(diffId: 'diffId')
+
+        mongoOperations.execute(Diff, _ as CollectionCallback) >> { Class type, CollectionCallback callback -> callback.doInCollection(collection) }
+        collection.withReadPreference(ReadPreference.secondaryPreferred()) >> readCollection
+        readCollection.find(new Document('_id', 'diffId')) >> findIterable
+        findIterable.first() >> (found ? document : null)
+        mongoOperations.converter >> mongoConverter
+        mongoConverter.read(Diff, document) >> diff
+
+        when: 'findForComparison is executed'
+        Optional<Diff> optionalDiff = diffRepositoryCustom.findForComparison('diffId', includePayloads)
+
+        then: 'the payloads and the base64 values should only be left out if they are not included'
+        1 * findIterable.projection(projection) >> findIterable
+
+        and: 'the Diff read should be returned if it was found'
+        optionalDiff.orElse(null) == (found ? diff : null)
+
+        where:
+        found | includePayloads | projection
+        true  | true            | new Document()
+        false | true            | new Document()
+        true  | false           | new Document(left: 0, leftPayload: 0, right: 0, rightPayload: 0)
+    }
+
+    @Unroll('findBase64Inputs should find the next Diffs with base64 inputs after #fromDiffId')
+    def 'findBase64Inputs should find the next Diffs with base64 inputs in the order of the diff identifiers'() {
+        given: 'a Diff with a base64 input'
+        Diff diff = new Diff(diffId: 'diffId', left: 'YWJjZA==')
+
+        when: 'findBase64Inputs is executed'
+        List<Diff> diffs = diffRepositoryCustom.findBase64Inputs(fromDiffId, 10)
+
+        then: 'only the base64 values of the next Diffs should be found'
+        1 * mongoOperations.find({ Query query ->
+            query.queryObject == new Document(expectedQuery)
+                .append('$or', [new Document('left', new Document('$exists', true)), new Document('right', new Document('$exists', true))]) &&
+                query.fieldsObject == new Document(left: 1, right: 1) &&
+                query.sortObject == new Document('diffId', 1) &&
+                query.limit == 10
+        }, Diff) >> [diff]
+
+        and: 'the Diffs found should be returned'
+        diffs == [diff]
+
+        where:
+        fromDiffId  | expectedQuery
+        null        | [:]
+        'previous'  | [diffId: new Document('$gt', 'previous')]
+    }
+
+    @Unroll('migrateInput should replace the base64 value with the payload only if it was not saved again: #migrated')
+    def 'migrateInput should replace the base64 value with the payload only if it was not saved again'() {
+        when: 'migrateInput is executed'
+        boolean inputMigrated = diffRepositoryCustom.migrateInput('diffId', InputType.RIGHT, 'YWJjZA==', PAYLOAD)
+
+        then: 'the payload should be set and the base64 value removed if it is still the one read'
+        1 * mongoOperations.updateFirst({ Query query ->
+            query.queryObject == new Document('diffId', 'diffId').append('right', 'YWJjZA==')
+        }, { Update update ->
+            update.updateObject == new Document('$set', new Document('rightPayload', PAYLOAD)).append('$unset', new Document('right', 1))
+        }, Diff) >> UpdateResult.acknowledged(1, modifiedCount, null)
+
+        and: 'whether the input was migrated should be returned'
+        inputMigrated == migrated
+
+        where:
+        modifiedCount   | migrated
+        1L              | true
+        0L              | false
+    }
+
+    @Unroll('saveResult should save the result only if the inputs were not replaced: #saved')
+    def 'saveResult should save the result only if the inputs were not replaced'() {
+        given: 'a result'
+        List<DiffResult> diffResults = [new DiffResult(2, 1)]
+
+        when: 'saveResult is executed'
+        boolean resultSaved = diffRepositoryCustom.saveResult('diffId', 'leftDigest', 'rightDigest', ResultType.SAME_SIZE_BUT_DIFFERENT, diffResults)
+
+        then: 'the result should be set if the digests of the inputs are still the compared ones'
+        1 * mongoOperations.updateFirst({ Query query ->
+            query.queryObject == new Document('diffId', 'diffId').append('leftDigest', 'leftDigest').append('rightDigest', 'rightDigest')
+        }, { Update update ->
+            update.updateObject == new Document('$set', new Document('resultType', ResultType.SAME_SIZE_BUT_DIFFERENT).append('diffResults', diffResults))
+        }, Diff) >> UpdateResult.acknowledged(1, modifiedCount, null)
+
+        and: 'whether the result was saved should be returned'
+        resultSaved == saved
+
+        where:
+        modifiedCount   | saved
+        1L              | true
+        0L              | false
+    }
+
+    def 'saveResult should not save a result with more diff results than can be stored'() {
+        when: 'saveResult is executed with more diff results than the maximum'
+        boolean resultSaved = diffRepositoryCustom.saveResult('diffId', 'leftDigest', 'rightDigest', ResultType.SAME_SIZE_BUT_DIFFERENT,
+            [new DiffResult(0, 1), new DiffResult(2, 1), new DiffResult(4, 1)])
+
+        then: 'the result should not be saved'
+        !resultSaved
+        0 * mongoOperations.updateFirst(*_)
+    }
+
+    private static Document timestamped(Update update, Document expectedUpdate) {
+        Object createdAt = update.updateObject.get('$setOnInsert', Document)?.get('createdAt')
+
+        createdAt instanceof Date ?
+            expectedUpdate.append('$setOnInsert', new Document('createdAt', createdAt)).append('$currentDate', new Document('updatedAt', true)) :
+            expectedUpdate
+    }
+}
@@ -0,0 +1,124 @@
+package com.limac.diffservice.repository
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+import java.util.zip.ZipException
+
+class PayloadCodecSpec extends Specification {
+
+    PayloadCodec payloadCodec = new PayloadCodec(true, 16, 64)
+
+    @Unroll('isInline should return #inline for a decoded input of size #size')
+    def 'isInline should compare the size with the inline maximum size'() {
+        expect: 'inputs up to the inline maximum size to be stored inline'
+        payloadCodec.isInline(size) == inline
+
+        where:
+        size | inline
+        0    | true
+        64   | true
+        65   | false
+    }
+
+    def 'constructor should accept an inline maximum size up to the maximum inline size'() {
+        expect: 'the maximum inline size to be stored inline'
+        new PayloadCodec(true, 16, PayloadCodec.MAX_INLINE_SIZE).isInline(PayloadCodec.MAX_INLINE_SIZE)
+    }
+
+    def 'constructor should reject an inline maximum size greater than the maximum inline size'() {
+        when: 'a codec is constructed with an inline maximum size too large for both inputs to fit in a document'
+        new PayloadCodec(true, 16, PayloadCodec.MAX_INLINE_SIZE + 1)
+
+        then: 'an IllegalArgumentException should be thrown'
+        IllegalArgumentException illegalArgumentException = thrown(IllegalArgumentException)
+        illegalArgumentException.message == 'the inline maximum size must be at most 6291456: 6291457'
+    }
+
+    def 'encode should deflate a compressible input from the compression threshold'() {
+        given: 'a compressible input'
+        byte[] decoded = ('abcd' * 64).bytes
+
+        when: 'the input is encoded'
+        byte[] payload = payloadCodec.encode(decoded)
+
+        then: 'the payload should be deflated and smaller than the input'
+        payload[0] == 1 as byte
+        payload.length < decoded.length
+
+        and: 'the payload should be decoded to the input'
+        payloadCodec.decode(payload) == ByteBuffer.wrap(decoded)
+    }
+
+    def 'encode should keep the raw input if deflating it does not save any space'() {
+        given: 'an incompressible input'
+        byte[] decoded = new byte[256]
+        new Random(256).nextBytes(decoded)
+
+        when: 'the input is encoded'
+        byte[] payload = payloadCodec.encode(decoded)
+
+        then: 'the payload should be raw'
+        payload[0] == 0 as byte
+        payload.length == decoded.length + 1
+        payloadCodec.decode(payload) == ByteBuffer.wrap(decoded)
+    }
+
+    @Unroll('encode should keep the raw input of size #size when the compression is #compression with the threshold #threshold')
+    def 'encode should keep the raw input below the compression threshold or if the compression is disabled'() {
+        given: 'a compressible input'
+        byte[] decoded = new byte[size]
+
+        when: 'the input is encoded'
+        byte[] payload = new PayloadCodec(compression, threshold, 64).encode(decoded)
+
+        then: 'the payload should be raw'
+        payload[0] == 0 as byte
+        payload.length == size + 1
+        new PayloadCodec(compression, threshold, 64).decode(payload) == ByteBuffer.wrap(decoded)
+
+        where:
+        compression | threshold | size
+        true        | 16        | 15
+        true        | 0         | 5
+        true        | 0         | 0
+        false       | 0         | 32
+    }
+
+    def 'decode should throw UncheckedIOException if the payload could not be inflated'() {
+        given: 'a corrupted deflated payload'
+        byte[] payload = payloadCodec.encode(new byte[256])
+        payload[payload.length - 1] = (byte) (payload[payload.length - 1] ^ 0x55)
+
+        when: 'the payload is decoded'
+        payloadCodec.decode(payload)
+
+        then: 'UncheckedIOException is thrown'
+        UncheckedIOException uncheckedIOException = thrown(UncheckedIOException)
+        uncheckedIOException.cause instanceof ZipException
+        uncheckedIOException.cause.message.startsWith('could not inflate the stored input: ')
+    }
+
+    def 'decode should throw UncheckedIOException if the payload is truncated'() {
+        given: 'a truncated deflated payload'
+        byte[] payload = payloadCodec.encode(('abcd' * 64).bytes)
+
+        when: 'the payload is decoded'
+        payloadCodec.decode(Arrays.copyOf(payload, payload.length - 4))
+
+        then: 'UncheckedIOException is thrown'
+        thrown(UncheckedIOException)
+    }
+
+    @Unroll('decodedSize should return the size of a #format input without decoding it')
+    def 'decodedSize should read the size of the decoded input from the payload'() {
+        expect: 'the size of the decoded input'
+        payloadCodec.decodedSize(payloadCodec.encode(decoded)) == decoded.length
+
+        where:
+        format     | decoded
+        'raw'      | 'abcd'.bytes
+        'deflated' | ('abcd' * 64).bytes
+    }
+}
@@ -0,0 +1,176 @@
+package com.limac.diffservice.repository
+
+import com.mongodb.MongoGridFSException
+import com.mongodb.client.gridfs.GridFSBucket
+import com.mongodb.client.gridfs.GridFSDownloadStream
+import com.mongodb.client.gridfs.model.GridFSFile
+import org.bson.BsonObjectId
+import org.bson.Document
+import org.bson.types.ObjectId
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+
+class PayloadRepositorySpec extends Specification {
+
+    GridFSBucket gridFsBucket = Mock(GridFSBucket)
+    GridFSDownloadStream downloadStream = Mock(GridFSDownloadStream)
+
+    PayloadSpill payloadSpill = Mock(PayloadSpill)
+
+    PayloadRepository payloadRepository = new PayloadRepository(gridFsBucket, payloadSpill)
+
+    ObjectId fileId = new ObjectId()
+
+    def 'load should read the whole content of the file'() {
+        given: 'a stored file'
+        byte[] content = [1, 2, 3, 4] as byte[]
+
+        1 * gridFsBucket.openDownloadStream(fileId) >> downloadStream
+        downloadStream.gridFSFile >> gridFsFile(content.length)
+        downloadStream.read(_ as byte[], _ as Integer, _ as Integer) >> { byte[] buffer, int offset, int length ->
+            System.arraycopy(content, 0, buffer, offset, length)
+            length
+        }
+
+        when: 'load is executed'
+        ByteBuffer byteBuffer = payloadRepository.load(fileId.toHexString())
+
+        then: 'the content should be returned'
+        byteBuffer.array() == content
+        1 * downloadStream.close()
+    }
+
+    def 'load should spill the content of a large file to a memory-mapped buffer'() {
+        given: 'a stored file large enough to be spilled'
+        ByteBuffer mapped = ByteBuffer.allocateDirect(4)
+
+        1 * gridFsBucket.openDownloadStream(fileId) >> downloadStream
+        downloadStream.gridFSFile >> gridFsFile(4)
+        payloadSpill.isSpilled(4) >> true
+
+        when: 'load is executed'
+        ByteBuffer byteBuffer = payloadRepository.load(fileId.toHexString())
+
+        then: 'the content should be mapped from the spilled file'
+        1 * payloadSpill.map(_ as InputStream, 4) >> mapped
+        byteBuffer.is(mapped)
+        1 * downloadStream.close()
+    }
+
+    def 'load should throw UncheckedIOException if the file could not be spilled'() {
+        given: 'a stored file that could not be spilled'
+        1 * gridFsBucket.openDownloadStream(fileId) >> downloadStream
+        downloadStream.gridFSFile >> gridFsFile(4)
+        payloadSpill.isSpilled(4) >> true
+        payloadSpill.map(_ as InputStream, 4) >> { throw new EOFException('truncated') }
+
+        when: 'load is executed'
+        payloadRepository.load(fileId.toHexString())
+
+        then: 'UncheckedIOException is thrown and the file is closed'
+        UncheckedIOException uncheckedIOException = thrown(UncheckedIOException)
+        uncheckedIOException.message == "could not read the stored input: ${fileId.toHexString()}"
+        1 * downloadStream.close()
+    }
+
+    def 'load should throw UncheckedIOException if the file could not be read'() {
+        given: 'a truncated file'
+        1 * gridFsBucket.openDownloadStream(fileId) >> downloadStream
+        downloadStream.gridFSFile >> gridFsFile(4)
+        downloadStream.read(_ as byte[], _ as Integer, _ as Integer) >> -1
+
+        when: 'load is executed'
+        payloadRepository.load(fileId.toHexString())
+
+        then: 'UncheckedIOException is thrown'
+        UncheckedIOException uncheckedIOException = thrown(UncheckedIOException)
+        uncheckedIOException.message == "could not read the stored input: ${fileId.toHexString()}"
+    }
+
+    def 'load should skip the content of the file before the window'() {
+        given: 'a stored file'
+        byte[] content = [1, 2, 3, 4] as byte[]
+
+        1 * gridFsBucket.openDownloadStream(fileId) >> downloadStream
+        downloadStream.gridFSFile >> gridFsFile(content.length)
+        downloadStream.read(_ as byte[], _ as Integer, _ as Integer) >> { byte[] buffer, int offset, int length ->
+            System.arraycopy(content, 2, buffer, offset, length)
+            length
+        }
+
+        when: 'load is executed with a window ending after the file'
+        ByteBuffer byteBuffer = payloadRepository.load(fileId.toHexString(), 2, 10)
+
+        then: 'the content before the window should be skipped without being read'
+        1 * downloadStream.skip(2) >> 2
+
+        and: 'only the content of the window should be returned'
+        byteBuffer.array() == [3, 4] as byte[]
+        1 * downloadStream.close()
+    }
+
+    def 'load should only read the window of a large file when it is spilled'() {
+        given: 'a stored file much larger than the window and a spill of the windows from 2 bytes'
+        File directory = File.createTempDir()
+        PayloadRepository spillingRepository = new PayloadRepository(gridFsBucket, new PayloadSpill(2, directory.toPath()))
+        long bytesRead = 0
+
+        1 * gridFsBucket.openDownloadStream(fileId) >> downloadStream
+        downloadStream.gridFSFile >> gridFsFile(1024)
+        downloadStream.skip(2) >> 2
+        downloadStream.read(_ as byte[], _ as Integer, _ as Integer) >> { byte[] buffer, int offset, int length ->
+            Arrays.fill(buffer, offset, offset + length, 7 as byte)
+            bytesRead += length
+            length
+        }
+
+        when: 'load is executed with a window near the start of the file'
+        ByteBuffer byteBuffer = spillingRepository.load(fileId.toHexString(), 2, 6)
+
+        then: 'only the window should be read and mapped'
+        bytesRead == 4
+        byteBuffer.direct
+        byteBuffer == ByteBuffer.wrap([7, 7, 7, 7] as byte[])
+
+        cleanup:
+        directory.deleteDir()
+    }
+
+    def 'load should throw UncheckedIOException if the file could not be skipped until the window'() {
+        given: 'a stored file'
+        1 * gridFsBucket.openDownloadStream(fileId) >> downloadStream
+        downloadStream.gridFSFile >> gridFsFile(4)
+        downloadStream.skip(2) >> 1
+
+        when: 'load is executed with a window'
+        payloadRepository.load(fileId.toHexString(), 2, 4)
+
+        then: 'UncheckedIOException is thrown'
+        UncheckedIOException uncheckedIOException = thrown(UncheckedIOException)
+        uncheckedIOException.cause.message == 'could not skip to offset 2'
+    }
+
+    def 'delete should delete the file from GridFS'() {
+        when: 'delete is executed'
+        payloadRepository.delete(fileId.toHexString())
+
+        then: 'the file should be deleted'
+        1 * gridFsBucket.delete(fileId)
+    }
+
+    def 'delete should ignore a file that no longer exists'() {
+        given: 'a non existing file'
+        1 * gridFsBucket.delete(fileId) >> { throw new MongoGridFSException('No file found') }
+
+        when: 'delete is executed'
+        payloadRepository.delete(fileId.toHexString())
+
+        then: 'no exception is thrown'
+        noExceptionThrown()
+    }
+
+    private GridFSFile gridFsFile(long length) {
+        new GridFSFile(new BsonObjectId(fileId), 'diffId/left', length, 255, new Date(), 'md5', new Document())
+    }
+}
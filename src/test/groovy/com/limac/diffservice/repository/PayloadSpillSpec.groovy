@@ -0,0 +1,89 @@
+package com.limac.diffservice.repository
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.ByteBuffer
+
+class PayloadSpillSpec extends Specification {
+
+    File directory = File.createTempDir()
+
+    PayloadSpill payloadSpill = new PayloadSpill(4, directory.toPath())
+
+    def cleanup() {
+        directory.deleteDir()
+    }
+
+    @Unroll('isSpilled should return #spilled for an input of size #size')
+    def 'isSpilled should compare the size with the threshold'() {
+        expect: 'inputs from the threshold to be spilled'
+        payloadSpill.isSpilled(size) == spilled
+
+        where:
+        size | spilled
+        3    | false
+        4    | true
+    }
+
+    def 'map should return the memory-mapped input and delete the temporary file'() {
+        given: 'an input'
+        byte[] content = [1, 2, 3, 4, 5] as byte[]
+
+        when: 'map is executed'
+        ByteBuffer byteBuffer = payloadSpill.map(new ByteArrayInputStream(content), content.length)
+
+        then: 'the input should be mapped outside of the heap'
+        byteBuffer.direct
+        byteBuffer == ByteBuffer.wrap(content)
+
+        and: 'the temporary file should be deleted'
+        directory.list().length == 0
+    }
+
+    def 'map should copy only the expected size of a longer input'() {
+        given: 'an input longer than the expected size'
+        ByteArrayInputStream inputStream = new ByteArrayInputStream([1, 2, 3, 4, 5, 6, 7, 8] as byte[])
+
+        when: 'map is executed'
+        ByteBuffer byteBuffer = payloadSpill.map(inputStream, 5)
+
+        then: 'only the expected size should be read and mapped'
+        byteBuffer == ByteBuffer.wrap([1, 2, 3, 4, 5] as byte[])
+        inputStream.available() == 3
+    }
+
+    def 'map should throw EOFException and delete the temporary file if the input is truncated'() {
+        when: 'map is executed with an input shorter than the expected size'
+        payloadSpill.map(new ByteArrayInputStream([1, 2, 3] as byte[]), 4)
+
+        then: 'EOFException is thrown'
+        EOFException eofException = thrown(EOFException)
+        eofException.message == 'expected 4 bytes but found 3'
+
+        and: 'the temporary file should be deleted'
+        directory.list().length == 0
+    }
+
+    def 'map should throw IOException if the temporary file was removed while it was written'() {
+        given: 'an input removing the temporary file once it is read'
+        InputStream inputStream = new InputStream() {
+            @Override
+            int read() {
+                directory.listFiles()*.delete()
+                -1
+            }
+
+            @Override
+            int read(byte[] buffer, int offset, int length) {
+                read()
+            }
+        }
+
+        when: 'map is executed'
+        payloadSpill.map(inputStream, 4)
+
+        then: 'IOException is thrown'
+        thrown(IOException)
+    }
+}
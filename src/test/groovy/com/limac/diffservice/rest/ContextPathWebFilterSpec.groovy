@@ -0,0 +1,76 @@
+package com.limac.diffservice.rest
+
+import org.springframework.http.HttpStatus
+import org.springframework.http.server.RequestPath
+import org.springframework.http.server.reactive.ServerHttpRequest
+import org.springframework.http.server.reactive.ServerHttpResponse
+import org.springframework.web.server.ServerWebExchange
+import org.springframework.web.server.WebFilterChain
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class ContextPathWebFilterSpec extends Specification {
+
+    ContextPathWebFilter contextPathWebFilter = new ContextPathWebFilter('/api/diff-service')
+
+    ServerWebExchange exchange = Mock(ServerWebExchange)
+    ServerHttpRequest request = Mock(ServerHttpRequest)
+    ServerHttpResponse response = Mock(ServerHttpResponse)
+    WebFilterChain chain = Mock(WebFilterChain)
+
+    def setup() {
+        exchange.request >> request
+        exchange.response >> response
+    }
+
+    @Unroll('filter should serve the path #path within the context path')
+    def 'filter should set the context path of the requests within it'() {
+        given: 'a request within the context path'
+        request.path >> RequestPath.parse(URI.create("http://localhost${path}"), null)
+
+        ServerHttpRequest.Builder requestBuilder = Mock(ServerHttpRequest.Builder)
+        ServerHttpRequest mutatedRequest = Mock(ServerHttpRequest)
+        ServerWebExchange.Builder exchangeBuilder = Mock(ServerWebExchange.Builder)
+        ServerWebExchange mutatedExchange = Mock(ServerWebExchange)
+
+        request.mutate() >> requestBuilder
+        exchange.mutate() >> exchangeBuilder
+
+        when: 'filter is executed'
+        contextPathWebFilter.filter(exchange, chain)
+
+        then: 'the request should continue with the context path'
+        1 * requestBuilder.contextPath('/api/diff-service') >> requestBuilder
+        1 * requestBuilder.build() >> mutatedRequest
+        1 * exchangeBuilder.request(mutatedRequest) >> exchangeBuilder
+        1 * exchangeBuilder.build() >> mutatedExchange
+        1 * chain.filter(mutatedExchange) >> Mono.empty()
+        0 * response.setStatusCode(_)
+
+        where:
+        path << ['/api/diff-service/v1/diff/diffId', '/api/diff-service']
+    }
+
+    @Unroll('filter should answer the path #path outside the context path with status 404')
+    def 'filter should answer the requests outside the context path with status 404'() {
+        given: 'a request outside the context path'
+        request.path >> RequestPath.parse(URI.create("http://localhost${path}"), null)
+
+        when: 'filter is executed'
+        contextPathWebFilter.filter(exchange, chain)
+
+        then: 'the request should be answered with status 404'
+        1 * response.setStatusCode(HttpStatus.NOT_FOUND)
+        1 * response.setComplete() >> Mono.empty()
+        0 * chain.filter(_)
+
+        where:
+        path << ['/v1/diff/diffId', '/api/diff-services/v1/diff/diffId']
+    }
+
+    def 'filter should run before any other filter'() {
+        expect: 'the highest precedence'
+        contextPathWebFilter.order == Integer.MIN_VALUE
+    }
+}
@@ -0,0 +1,72 @@
+package com.limac.diffservice.rest
+
+import org.springframework.core.io.buffer.DataBuffer
+import org.springframework.core.io.buffer.NettyDataBufferFactory
+import io.netty.buffer.UnpooledByteBufAllocator
+import reactor.core.publisher.Flux
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+class DataBufferInputStreamSpec extends Specification {
+
+    NettyDataBufferFactory dataBufferFactory = new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT)
+
+    def 'read should read the buffers of the body in order and release each one once read'() {
+        given: 'a body split in buffers, including an empty one'
+        List<DataBuffer> buffers = [dataBufferFactory.wrap([1, 2, 3] as byte[]), dataBufferFactory.wrap(new byte[0]), dataBufferFactory.wrap([4] as byte[])]
+        DataBufferInputStream inputStream = new DataBufferInputStream(Flux.fromIterable(buffers), 1)
+
+        byte[] bytes = new byte[2]
+
+        expect: 'the bytes to be read across the buffers until the end of the body'
+        inputStream.read() == 1
+        inputStream.read(bytes, 0, 0) == 0
+        inputStream.read(bytes, 0, 2) == 2
+        bytes == [2, 3] as byte[]
+        inputStream.read(bytes, 0, 2) == 1
+        bytes[0] == 4 as byte
+        inputStream.read(bytes, 0, 2) == -1
+        inputStream.read() == -1
+
+        and: 'every buffer to be released'
+        buffers.every { DataBuffer buffer -> buffer.nativeBuffer.refCnt() == 0 }
+    }
+
+    def 'read should return the unsigned value of a byte'() {
+        given: 'a body with a negative byte'
+        DataBufferInputStream inputStream = new DataBufferInputStream(Flux.just(dataBufferFactory.wrap([-1] as byte[])), 1)
+
+        expect: 'the unsigned value of the byte'
+        inputStream.read() == 255
+    }
+
+    def 'read should throw the error of the body'() {
+        given: 'a body failing after a buffer'
+        DataBufferInputStream inputStream = new DataBufferInputStream(
+            Flux.just(dataBufferFactory.wrap([1] as byte[])).concatWith(Flux.error(new IllegalStateException('failure'))), 1)
+
+        when: 'the body is read to the end'
+        inputStream.read()
+        inputStream.read()
+
+        then: 'the error of the body should be thrown'
+        IllegalStateException illegalStateException = thrown(IllegalStateException)
+        illegalStateException.message == 'failure'
+    }
+
+    def 'close should release the buffer being read and cancel the body'() {
+        given: 'a body read partially'
+        AtomicBoolean cancelled = new AtomicBoolean()
+        DataBuffer buffer = dataBufferFactory.wrap([1, 2] as byte[])
+        DataBufferInputStream inputStream = new DataBufferInputStream(Flux.just(buffer).concatWith(Flux.never()).doOnCancel { cancelled.set(true) }, 1)
+        inputStream.read()
+
+        when: 'the stream is closed'
+        inputStream.close()
+
+        then: 'the buffer should be released and the body cancelled'
+        buffer.nativeBuffer.refCnt() == 0
+        cancelled.get()
+    }
+}
@@ -1,15 +1,30 @@
 package com.limac.diffservice.rest
 
+import com.fasterxml.jackson.databind.ObjectMapper
 import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.exception.InvalidInputException
+import com.limac.diffservice.logging.PayloadLogArguments
 import com.limac.diffservice.mapping.DiffMapper
+import com.limac.diffservice.rest.dto.BulkDiffDto
+import com.limac.diffservice.rest.dto.BulkDiffRequestDto
+import com.limac.diffservice.rest.dto.BulkInputDto
+import com.limac.diffservice.rest.dto.BulkSaveDto
 import com.limac.diffservice.rest.dto.DiffDto
+import com.limac.diffservice.rest.dto.DiffSummaryDto
+import com.limac.diffservice.rest.dto.EditDto
 import com.limac.diffservice.rest.dto.Base64Dto
 import com.limac.diffservice.service.DiffService
+import com.limac.diffservice.type.EditType
 import com.limac.diffservice.type.InputType
+import com.limac.diffservice.validation.validator.Base64DecodingInputStream
+import org.springframework.http.ResponseEntity
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody
 import spock.lang.Specification
+import spock.lang.Unroll
 
 import java.nio.charset.StandardCharsets
 
+import static com.limac.diffservice.type.ResultType.DIFFERENT_SIZE
 import static com.limac.diffservice.type.ResultType.EQUAL
 
 class DiffControllerSpec extends Specification {
@@ -17,7 +32,9 @@ class DiffControllerSpec extends Specification {
     DiffService diffService = Mock(DiffService)
     DiffMapper diffMapper = Mock(DiffMapper)
 
-    DiffController diffController = new DiffController(diffService, diffMapper)
+    ObjectMapper objectMapper = new ObjectMapper()
+
+    DiffController diffController = new DiffController(diffService, diffMapper, objectMapper, new PayloadLogArguments(64, 0.0d))
 
     def 'saveLeft API should save the left input of a Diff'() {
         given: 'a diffId and an input to be saved'
@@ -75,6 +92,109 @@ class DiffControllerSpec extends Specification {
         diffDtoReturned.right == rightEncoded
     }
 
+    def 'saveLeftBinary API should stream the left input of a Diff to the service'() {
+        given: 'a diffId and a binary input to be saved'
+        String diffId = 'diffId'
+        InputStream inputStream = new ByteArrayInputStream('{"property":"value"}'.getBytes(StandardCharsets.UTF_8))
+
+        Diff diff = new Diff()
+        diff.diffId = diffId
+        diff.leftFileId = 'leftFileId'
+
+        DiffDto diffDto = new DiffDto.DiffDtoBuilder().diffId(diffId).build()
+
+        1 * diffService.save(diffId, InputType.LEFT, inputStream) >> diff
+        1 * diffMapper.diffToDiffDto(diff) >> diffDto
+
+        when: 'saveLeftBinary is executed'
+        DiffDto diffDtoReturned = diffController.saveLeftBinary(diffId, inputStream)
+
+        then: 'Diff with the left input should be saved'
+        noExceptionThrown()
+        diffDtoReturned == diffDto
+    }
+
+    def 'saveRightBinary API should stream the right input of a Diff to the service'() {
+        given: 'a diffId and a binary input to be saved'
+        String diffId = 'diffId'
+        InputStream inputStream = new ByteArrayInputStream('{"property":"value"}'.getBytes(StandardCharsets.UTF_8))
+
+        Diff diff = new Diff()
+        diff.diffId = diffId
+        diff.rightFileId = 'rightFileId'
+
+        DiffDto diffDto = new DiffDto.DiffDtoBuilder().diffId(diffId).build()
+
+        1 * diffService.save(diffId, InputType.RIGHT, inputStream) >> diff
+        1 * diffMapper.diffToDiffDto(diff) >> diffDto
+
+        when: 'saveRightBinary is executed'
+        DiffDto diffDtoReturned = diffController.saveRightBinary(diffId, inputStream)
+
+        then: 'Diff with the right input should be saved'
+        noExceptionThrown()
+        diffDtoReturned == diffDto
+    }
+
+    @Unroll('#inputType base64 stream API should decode the input and stream it to the service')
+    def 'base64 stream APIs should decode the input and stream it to the service'() {
+        given: 'a diffId and a base64 input to be saved'
+        String diffId = 'diffId'
+        InputStream inputStream = new ByteArrayInputStream('YmFzZTY0IQ=='.getBytes(StandardCharsets.US_ASCII))
+
+        Diff diff = new Diff()
+        diff.diffId = diffId
+
+        DiffDto diffDto = new DiffDto.DiffDtoBuilder().diffId(diffId).build()
+
+        1 * diffService.save(diffId, inputType, _ as Base64DecodingInputStream) >> diff
+        1 * diffMapper.diffToDiffDto(diff) >> diffDto
+
+        when: 'the base64 stream API is executed'
+        DiffDto diffDtoReturned = inputType == InputType.LEFT
+            ? diffController.saveLeftBase64Stream(diffId, inputStream)
+            : diffController.saveRightBase64Stream(diffId, inputStream)
+
+        then: 'Diff with the input should be saved'
+        noExceptionThrown()
+        diffDtoReturned == diffDto
+
+        where:
+        inputType << [InputType.LEFT, InputType.RIGHT]
+    }
+
+    def 'saveBulk API should save the inputs with their input types and return only the diffIds'() {
+        given: 'a left and a right input to be saved'
+        BulkInputDto leftInput = new BulkInputDto(diffId: 'first', inputType: InputType.LEFT, base64Value: 'YWJjZA==')
+        BulkInputDto rightInput = new BulkInputDto(diffId: 'second', inputType: InputType.RIGHT, base64Value: 'YWJlZA==')
+
+        Diff leftDiff = new Diff(diffId: 'first', left: 'YWJjZA==')
+        Diff rightDiff = new Diff(diffId: 'second', right: 'YWJlZA==')
+
+        1 * diffMapper.bulkInputDtoToLeftDiff(leftInput) >> leftDiff
+        1 * diffMapper.bulkInputDtoToRightDiff(rightInput) >> rightDiff
+        1 * diffService.saveAll([leftDiff, rightDiff]) >> [leftDiff, rightDiff]
+
+        when: 'saveBulk is executed'
+        List<DiffDto> diffDtos = diffController.saveBulk(new BulkSaveDto(inputs: [leftInput, rightInput]))
+
+        then: 'only the diffIds should be returned in the given order'
+        diffDtos == [DiffDto.builder().diffId('first').build(), DiffDto.builder().diffId('second').build()]
+    }
+
+    def 'diffBulk API should return the results of the service'() {
+        given: 'diffIds to be compared'
+        List<BulkDiffDto> bulkDiffDtos = [BulkDiffDto.builder().diffId('first').resultType(EQUAL).build()]
+
+        1 * diffService.diffAll(['first', 'second']) >> bulkDiffDtos
+
+        when: 'diffBulk is executed'
+        List<BulkDiffDto> bulkDiffDtosReturned = diffController.diffBulk(new BulkDiffRequestDto(diffIds: ['first', 'second']))
+
+        then: 'the results of the service should be returned'
+        bulkDiffDtosReturned == bulkDiffDtos
+    }
+
     def 'diff API should call the service to compare the left and right inputs of the given diffId'() {
         given: 'a diffId to be compared'
         String diffId = 'diffId'
@@ -89,14 +209,158 @@ class DiffControllerSpec extends Specification {
 
         DiffDto diffDto = new DiffDto.DiffDtoBuilder().diffId(diffId).left(inputEncoded).right(inputEncoded).resultType(EQUAL).build()
 
-        1 * diffService.findById(diffId) >> diff
-        1 * diffService.diff(diff) >> diffDto
+        1 * diffService.findById(diffId, true) >> diff
+        1 * diffService.diff(diff, true) >> diffDto
 
         when: 'diff is executed'
-        DiffDto diffDtoReturned = diffController.diff(diffId)
+        DiffDto diffDtoReturned = diffController.diff(diffId, true, 0, null, null, null, null, null)
 
         then: 'service to compare left and right inputs should be called and an instance of DiffDto should be returned containing the results'
         noExceptionThrown()
         diffDtoReturned == diffDto
     }
+
+    def 'diff API should return a page of the diff results without the inputs'() {
+        given: 'a diffId to be compared'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+
+        DiffDto diffDto = new DiffDto.DiffDtoBuilder().diffId('diffId').resultType(EQUAL).build()
+
+        1 * diffService.findById('diffId', false) >> diff
+        1 * diffService.diff(diff, 10, 5, false) >> diffDto
+
+        when: 'diff is executed with a cursor and a limit'
+        DiffDto diffDtoReturned = diffController.diff('diffId', false, 10, 5, null, null, null, null)
+
+        then: 'the page should be returned without the inputs'
+        diffDtoReturned.resultType == EQUAL
+        diffDtoReturned.left == null
+        diffDtoReturned.right == null
+    }
+
+    @Unroll('diff API should throw InvalidInputException for the cursor #cursor, the limit #limit and the window from #from to #to')
+    def 'diff API should throw InvalidInputException for an invalid page'() {
+        when: 'diff is executed with an invalid cursor, limit, merge gap, maximum number of runs or window'
+        diffController.diff('diffId', true, cursor, limit, mergeGap, maxRuns, from, to)
+
+        then: 'InvalidInputException is thrown'
+        InvalidInputException invalidInputException = thrown(InvalidInputException)
+        invalidInputException.message == message
+        0 * diffService._
+
+        where:
+        cursor  | limit | mergeGap  | maxRuns   | from  | to    | message
+        -1      | 5     | null      | null      | null  | null  | 'cursor must be greater than or equal to 0'
+        0       | 0     | null      | null      | null  | null  | 'limit must be greater than or equal to 1'
+        0       | null  | -1        | null      | null  | null  | 'mergeGap must be greater than or equal to 0'
+        0       | null  | null      | -1        | null  | null  | 'maxRuns must be greater than or equal to 0'
+        0       | 5     | 2         | null      | null  | null  | 'limit must not be combined with mergeGap or maxRuns'
+        0       | 5     | null      | 2         | null  | null  | 'limit must not be combined with mergeGap or maxRuns'
+        0       | null  | null      | null      | -1    | null  | 'from must be greater than or equal to 0'
+        0       | null  | null      | null      | 4     | 4     | 'to must be greater than from'
+        0       | null  | null      | null      | null  | 0     | 'to must be greater than from'
+        0       | 5     | null      | null      | 2     | null  | 'from and to must not be combined with limit, mergeGap or maxRuns'
+        0       | null  | 2         | null      | null  | 4     | 'from and to must not be combined with limit, mergeGap or maxRuns'
+    }
+
+    @Unroll('diff API should return the merged diff results with their summary for the merge gap #mergeGap and the maximum runs #maxRuns')
+    def 'diff API should return the merged diff results with their summary'() {
+        given: 'a diffId to be compared'
+        Diff diffFound = new Diff(diffId: 'diffId')
+
+        DiffDto summaryDto = DiffDto.builder().diffId('diffId').resultType(EQUAL)
+            .summary(DiffSummaryDto.builder().differingBytes(0).runs(0).truncated(false).build()).build()
+
+        1 * diffService.findById('diffId', false) >> diffFound
+        1 * diffService.summary(diffFound, expectedMergeGap, expectedMaxRuns, false) >> summaryDto
+
+        when: 'diff is executed with a merge gap or a maximum number of runs'
+        DiffDto diffDtoReturned = diffController.diff('diffId', false, 0, null, mergeGap, maxRuns, null, null)
+
+        then: 'the summary should be returned without the inputs'
+        diffDtoReturned.summary == summaryDto.summary
+        diffDtoReturned.left == null
+
+        where:
+        mergeGap    | maxRuns   | expectedMergeGap  | expectedMaxRuns
+        2           | null      | 2                 | Integer.MAX_VALUE
+        null        | 5         | 0                 | 5
+    }
+
+    @Unroll('diff API should compare only the window from #from to #to')
+    def 'diff API should compare only the window of the inputs'() {
+        given: 'a diffId to be compared'
+        Diff diffFound = new Diff(diffId: 'diffId')
+
+        DiffDto windowDto = DiffDto.builder().diffId('diffId').resultType(EQUAL).build()
+
+        1 * diffService.findById('diffId', false) >> diffFound
+        1 * diffService.window(diffFound, expectedFrom, expectedTo, false) >> windowDto
+
+        when: 'diff is executed with a window'
+        DiffDto diffDtoReturned = diffController.diff('diffId', false, 0, null, null, null, from, to)
+
+        then: 'the result of the window should be returned without the inputs'
+        diffDtoReturned.resultType == EQUAL
+        diffDtoReturned.left == null
+
+        where:
+        from    | to    | expectedFrom  | expectedTo
+        2       | null  | 2             | Integer.MAX_VALUE
+        null    | 8     | 0             | 8
+    }
+
+    def 'diffEdits API should return the edit script without the inputs'() {
+        given: 'a diffId to be compared'
+        Diff diffFound = new Diff(diffId: 'diffId')
+
+        DiffDto editsDto = DiffDto.builder().diffId('diffId').resultType(DIFFERENT_SIZE)
+            .edits([EditDto.builder().type(EditType.INSERT).leftOffset(0).rightOffset(0).length(1).build()]).coarse(false).build()
+
+        1 * diffService.findById('diffId', false) >> diffFound
+        1 * diffService.edits(diffFound, false) >> editsDto
+
+        when: 'diffEdits is executed without the inputs'
+        DiffDto diffDtoReturned = diffController.diffEdits('diffId', false)
+
+        then: 'the edit script should be returned without the inputs'
+        diffDtoReturned.edits == editsDto.edits
+        !diffDtoReturned.coarse
+        diffDtoReturned.left == null
+        diffDtoReturned.right == null
+    }
+
+    def 'diffEdits API should return the inputs by default'() {
+        given: 'a diffId to be compared'
+        Diff diffFound = new Diff(diffId: 'diffId')
+
+        DiffDto editsDto = DiffDto.builder().diffId('diffId').left('left').right('right').resultType(EQUAL).build()
+
+        1 * diffService.findById('diffId', true) >> diffFound
+        1 * diffService.edits(diffFound, true) >> editsDto
+
+        when: 'diffEdits is executed'
+        DiffDto diffDtoReturned = diffController.diffEdits('diffId', true)
+
+        then: 'the inputs should be returned'
+        diffDtoReturned.left == 'left'
+        diffDtoReturned.right == 'right'
+    }
+
+    def 'diffStream API should check the inputs before streaming the diff results'() {
+        given: 'a diffId to be compared'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+
+        1 * diffService.findById('diffId', false) >> diff
+
+        when: 'diffStream is executed'
+        ResponseEntity<StreamingResponseBody> responseEntity = diffController.diffStream('diffId')
+
+        then: 'the inputs should be checked and a newline delimited JSON body returned'
+        1 * diffService.checkInputs(diff)
+        responseEntity.headers.contentType.toString() == 'application/x-ndjson'
+        responseEntity.body instanceof NdjsonDiffResponseBody
+    }
 }
@@ -0,0 +1,55 @@
+package com.limac.diffservice.rest
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.engine.DiffResultListener
+import com.limac.diffservice.rest.dto.DiffDto
+import com.limac.diffservice.service.DiffService
+import com.limac.diffservice.type.ResultType
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class NdjsonDiffResponseBodySpec extends Specification {
+
+    DiffService diffService = Mock(DiffService)
+
+    Diff diff = new Diff()
+
+    NdjsonDiffResponseBody ndjsonDiffResponseBody = new NdjsonDiffResponseBody(new ObjectMapper(), diffService, diff)
+
+    def 'writeTo should write a line for each diff result and a last line with the result type'() {
+        given: 'an output stream'
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream()
+
+        1 * diffService.diff(diff, _ as DiffResultListener) >> { Diff diffCompared, DiffResultListener listener ->
+            listener.onDiffResult(2, 8)
+            listener.onDiffResult(13, 1)
+            DiffDto.builder().diffId('diffId').resultType(ResultType.SAME_SIZE_BUT_DIFFERENT).build()
+        }
+
+        when: 'writeTo is executed'
+        ndjsonDiffResponseBody.writeTo(outputStream)
+
+        then: 'the diff results and the result type should be written as newline delimited JSON'
+        new String(outputStream.toByteArray(), StandardCharsets.UTF_8) ==
+            '{"offset":2,"length":8}\n{"offset":13,"length":1}\n{"diffId":"diffId","resultType":"SAME_SIZE_BUT_DIFFERENT"}\n'
+    }
+
+    def 'writeTo should stop the comparison if the diff result could not be written'() {
+        given: 'an output stream that fails'
+        OutputStream outputStream = Mock(OutputStream)
+        outputStream.write(*_) >> { throw new IOException('broken pipe') }
+
+        1 * diffService.diff(diff, _ as DiffResultListener) >> { Diff diffCompared, DiffResultListener listener ->
+            (1..10000).each { listener.onDiffResult(it * 2, 1) }
+        }
+
+        when: 'writeTo is executed'
+        ndjsonDiffResponseBody.writeTo(outputStream)
+
+        then: 'UncheckedIOException is thrown'
+        UncheckedIOException uncheckedIOException = thrown(UncheckedIOException)
+        uncheckedIOException.message == 'could not write the diff result'
+    }
+}
@@ -0,0 +1,310 @@
+package com.limac.diffservice.rest
+
+import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.exception.InvalidInputException
+import com.limac.diffservice.logging.PayloadLogArguments
+import com.limac.diffservice.mapping.DiffMapper
+import com.limac.diffservice.rest.dto.Base64Dto
+import com.limac.diffservice.rest.dto.BulkDiffDto
+import com.limac.diffservice.rest.dto.BulkDiffRequestDto
+import com.limac.diffservice.rest.dto.BulkInputDto
+import com.limac.diffservice.rest.dto.BulkSaveDto
+import com.limac.diffservice.rest.dto.DiffDto
+import com.limac.diffservice.rest.dto.DiffSummaryDto
+import com.limac.diffservice.rest.dto.EditDto
+import com.limac.diffservice.rest.dto.DiffResultDto
+import com.limac.diffservice.service.ReactiveDiffService
+import com.limac.diffservice.type.EditType
+import com.limac.diffservice.type.InputType
+import com.limac.diffservice.validation.validator.Base64DecodingInputStream
+import org.springframework.core.io.buffer.DataBuffer
+import org.springframework.core.io.buffer.DefaultDataBufferFactory
+import org.springframework.http.ResponseEntity
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+import static com.limac.diffservice.type.ResultType.DIFFERENT_SIZE
+import static com.limac.diffservice.type.ResultType.EQUAL
+
+class ReactiveDiffControllerSpec extends Specification {
+
+    ReactiveDiffService reactiveDiffService = Mock(ReactiveDiffService)
+    DiffMapper diffMapper = Mock(DiffMapper)
+
+    ReactiveDiffController reactiveDiffController = new ReactiveDiffController(reactiveDiffService, diffMapper, new PayloadLogArguments(64, 0.0d))
+
+    DefaultDataBufferFactory dataBufferFactory = new DefaultDataBufferFactory()
+
+    Diff diff = new Diff(diffId: 'diffId')
+    DiffDto diffDto = DiffDto.builder().diffId('diffId').build()
+
+    @Unroll('save API should save the #inputType input of a Diff')
+    def 'save API should save the input of a Diff'() {
+        given: 'an input to be saved'
+        Base64Dto base64Dto = new Base64Dto(base64Value: 'YWJjZA==')
+
+        diffMapper.base64DtoToLeftDiff(base64Dto) >> diff
+        diffMapper.base64DtoToRightDiff(base64Dto) >> diff
+        1 * reactiveDiffService.save(diff, inputType) >> Mono.just(diff)
+        1 * diffMapper.diffToDiffDto(diff) >> diffDto
+
+        when: 'the save API is executed'
+        DiffDto diffDtoReturned = (inputType == InputType.LEFT
+            ? reactiveDiffController.saveLeft('diffId', base64Dto)
+            : reactiveDiffController.saveRight('diffId', base64Dto)).block()
+
+        then: 'the input should be saved with the diffId'
+        diff.diffId == 'diffId'
+        diffDtoReturned == diffDto
+
+        where:
+        inputType << [InputType.LEFT, InputType.RIGHT]
+    }
+
+    @Unroll('binary API should read the #inputType body as it is received and save it')
+    def 'binary APIs should read the body as it is received and save it'() {
+        given: 'a body split in buffers'
+        Flux<DataBuffer> body = Flux.just(dataBufferFactory.wrap([1, 2] as byte[]), dataBufferFactory.wrap([3] as byte[]))
+
+        1 * reactiveDiffService.save('diffId', inputType, { InputStream inputStream -> inputStream.bytes == [1, 2, 3] as byte[] }) >>
+            Mono.just(diff)
+        1 * diffMapper.diffToDiffDto(diff) >> diffDto
+
+        when: 'the binary API is executed'
+        DiffDto diffDtoReturned = (inputType == InputType.LEFT
+            ? reactiveDiffController.saveLeftBinary('diffId', body)
+            : reactiveDiffController.saveRightBinary('diffId', body)).block()
+
+        then: 'the whole body should be saved'
+        diffDtoReturned == diffDto
+
+        where:
+        inputType << [InputType.LEFT, InputType.RIGHT]
+    }
+
+    @Unroll('base64 stream API should decode the #inputType body and save it')
+    def 'base64 stream APIs should decode the body and save it'() {
+        given: 'a base64 body'
+        Flux<DataBuffer> body = Flux.just(dataBufferFactory.wrap('YWJjZA=='.getBytes(StandardCharsets.US_ASCII)))
+
+        1 * reactiveDiffService.save('diffId', inputType, { InputStream inputStream ->
+            inputStream instanceof Base64DecodingInputStream && inputStream.text == 'abcd'
+        }) >> Mono.just(diff)
+        1 * diffMapper.diffToDiffDto(diff) >> diffDto
+
+        when: 'the base64 stream API is executed'
+        DiffDto diffDtoReturned = (inputType == InputType.LEFT
+            ? reactiveDiffController.saveLeftBase64Stream('diffId', body)
+            : reactiveDiffController.saveRightBase64Stream('diffId', body)).block()
+
+        then: 'the decoded body should be saved'
+        diffDtoReturned == diffDto
+
+        where:
+        inputType << [InputType.LEFT, InputType.RIGHT]
+    }
+
+    def 'binary API should save an empty input for an empty body'() {
+        given: 'an empty body'
+        1 * reactiveDiffService.save('diffId', InputType.LEFT, { InputStream inputStream -> inputStream.read() == -1 }) >> Mono.just(diff)
+        1 * diffMapper.diffToDiffDto(diff) >> diffDto
+
+        when: 'the binary API is executed'
+        DiffDto diffDtoReturned = reactiveDiffController.saveLeftBinary('diffId', Flux.empty()).block()
+
+        then: 'an empty input should be saved'
+        diffDtoReturned == diffDto
+    }
+
+    def 'saveBulk API should save the inputs with their input types and return only the diffIds'() {
+        given: 'a left and a right input to be saved'
+        BulkInputDto leftInput = new BulkInputDto(diffId: 'first', inputType: InputType.LEFT, base64Value: 'YWJjZA==')
+        BulkInputDto rightInput = new BulkInputDto(diffId: 'second', inputType: InputType.RIGHT, base64Value: 'YWJlZA==')
+
+        Diff leftDiff = new Diff(diffId: 'first', left: 'YWJjZA==')
+        Diff rightDiff = new Diff(diffId: 'second', right: 'YWJlZA==')
+
+        1 * diffMapper.bulkInputDtoToLeftDiff(leftInput) >> leftDiff
+        1 * diffMapper.bulkInputDtoToRightDiff(rightInput) >> rightDiff
+        1 * reactiveDiffService.saveAll([leftDiff, rightDiff]) >> Mono.just([leftDiff, rightDiff])
+
+        when: 'saveBulk is executed'
+        List<DiffDto> diffDtos = reactiveDiffController.saveBulk(new BulkSaveDto(inputs: [leftInput, rightInput])).block()
+
+        then: 'only the diffIds should be returned in the given order'
+        diffDtos == [DiffDto.builder().diffId('first').build(), DiffDto.builder().diffId('second').build()]
+    }
+
+    def 'diffBulk API should return the results of the service'() {
+        given: 'diffIds to be compared'
+        List<BulkDiffDto> bulkDiffDtos = [BulkDiffDto.builder().diffId('first').resultType(EQUAL).build()]
+
+        1 * reactiveDiffService.diffAll(['first', 'second']) >> Mono.just(bulkDiffDtos)
+
+        when: 'diffBulk is executed'
+        List<BulkDiffDto> bulkDiffDtosReturned = reactiveDiffController.diffBulk(new BulkDiffRequestDto(diffIds: ['first', 'second'])).block()
+
+        then: 'the results of the service should be returned'
+        bulkDiffDtosReturned == bulkDiffDtos
+    }
+
+    def 'diff API should compare the left and right inputs of the given diffId'() {
+        given: 'a Diff to be compared'
+        DiffDto result = DiffDto.builder().diffId('diffId').left('left').right('right').resultType(EQUAL).build()
+
+        1 * reactiveDiffService.findById('diffId', true) >> Mono.just(diff)
+        1 * reactiveDiffService.diff(diff, true) >> Mono.just(result)
+
+        when: 'diff is executed'
+        DiffDto diffDtoReturned = reactiveDiffController.diff('diffId', true, 0, null, null, null, null, null).block()
+
+        then: 'the result should be returned with the inputs'
+        diffDtoReturned == result
+        diffDtoReturned.left == 'left'
+    }
+
+    def 'diff API should return a page of the diff results without the inputs'() {
+        given: 'a Diff to be compared'
+        DiffDto result = DiffDto.builder().diffId('diffId').resultType(EQUAL).build()
+
+        1 * reactiveDiffService.findById('diffId', false) >> Mono.just(diff)
+        1 * reactiveDiffService.diff(diff, 10, 5, false) >> Mono.just(result)
+
+        when: 'diff is executed with a cursor and a limit'
+        DiffDto diffDtoReturned = reactiveDiffController.diff('diffId', false, 10, 5, null, null, null, null).block()
+
+        then: 'the page should be returned without the inputs'
+        diffDtoReturned.resultType == EQUAL
+        diffDtoReturned.left == null
+        diffDtoReturned.right == null
+    }
+
+    @Unroll('diff API should throw InvalidInputException for the cursor #cursor, the limit #limit and the window from #from to #to')
+    def 'diff API should throw InvalidInputException for an invalid page'() {
+        when: 'diff is executed with an invalid cursor, limit, merge gap, maximum number of runs or window'
+        reactiveDiffController.diff('diffId', true, cursor, limit, mergeGap, maxRuns, from, to)
+
+        then: 'InvalidInputException is thrown'
+        InvalidInputException invalidInputException = thrown(InvalidInputException)
+        invalidInputException.message == message
+        0 * reactiveDiffService._
+
+        where:
+        cursor  | limit | mergeGap  | maxRuns   | from  | to    | message
+        -1      | 5     | null      | null      | null  | null  | 'cursor must be greater than or equal to 0'
+        0       | 0     | null      | null      | null  | null  | 'limit must be greater than or equal to 1'
+        0       | null  | -1        | null      | null  | null  | 'mergeGap must be greater than or equal to 0'
+        0       | null  | null      | -1        | null  | null  | 'maxRuns must be greater than or equal to 0'
+        0       | 5     | 2         | null      | null  | null  | 'limit must not be combined with mergeGap or maxRuns'
+        0       | 5     | null      | 2         | null  | null  | 'limit must not be combined with mergeGap or maxRuns'
+        0       | null  | null      | null      | -1    | null  | 'from must be greater than or equal to 0'
+        0       | null  | null      | null      | 4     | 4     | 'to must be greater than from'
+        0       | null  | null      | null      | null  | 0     | 'to must be greater than from'
+        0       | 5     | null      | null      | 2     | null  | 'from and to must not be combined with limit, mergeGap or maxRuns'
+        0       | null  | 2         | null      | null  | 4     | 'from and to must not be combined with limit, mergeGap or maxRuns'
+    }
+
+    @Unroll('diff API should return the merged diff results with their summary for the merge gap #mergeGap and the maximum runs #maxRuns')
+    def 'diff API should return the merged diff results with their summary'() {
+        given: 'a diffId to be compared'
+        Diff diffFound = new Diff(diffId: 'diffId')
+
+        DiffDto summaryDto = DiffDto.builder().diffId('diffId').resultType(EQUAL)
+            .summary(DiffSummaryDto.builder().differingBytes(0).runs(0).truncated(false).build()).build()
+
+        1 * reactiveDiffService.findById('diffId', false) >> Mono.just(diffFound)
+        1 * reactiveDiffService.summary(diffFound, expectedMergeGap, expectedMaxRuns, false) >> Mono.just(summaryDto)
+
+        when: 'diff is executed with a merge gap or a maximum number of runs'
+        DiffDto diffDtoReturned = reactiveDiffController.diff('diffId', false, 0, null, mergeGap, maxRuns, null, null).block()
+
+        then: 'the summary should be returned without the inputs'
+        diffDtoReturned.summary == summaryDto.summary
+        diffDtoReturned.left == null
+
+        where:
+        mergeGap    | maxRuns   | expectedMergeGap  | expectedMaxRuns
+        2           | null      | 2                 | Integer.MAX_VALUE
+        null        | 5         | 0                 | 5
+    }
+
+    @Unroll('diff API should compare only the window from #from to #to')
+    def 'diff API should compare only the window of the inputs'() {
+        given: 'a diffId to be compared'
+        Diff diffFound = new Diff(diffId: 'diffId')
+
+        DiffDto windowDto = DiffDto.builder().diffId('diffId').resultType(EQUAL).build()
+
+        1 * reactiveDiffService.findById('diffId', false) >> Mono.just(diffFound)
+        1 * reactiveDiffService.window(diffFound, expectedFrom, expectedTo, false) >> Mono.just(windowDto)
+
+        when: 'diff is executed with a window'
+        DiffDto diffDtoReturned = reactiveDiffController.diff('diffId', false, 0, null, null, null, from, to).block()
+
+        then: 'the result of the window should be returned without the inputs'
+        diffDtoReturned.resultType == EQUAL
+        diffDtoReturned.left == null
+
+        where:
+        from    | to    | expectedFrom  | expectedTo
+        2       | null  | 2             | Integer.MAX_VALUE
+        null    | 8     | 0             | 8
+    }
+
+    def 'diffEdits API should return the edit script without the inputs'() {
+        given: 'a diffId to be compared'
+        Diff diffFound = new Diff(diffId: 'diffId')
+
+        DiffDto editsDto = DiffDto.builder().diffId('diffId').resultType(DIFFERENT_SIZE)
+            .edits([EditDto.builder().type(EditType.INSERT).leftOffset(0).rightOffset(0).length(1).build()]).coarse(false).build()
+
+        1 * reactiveDiffService.findById('diffId', false) >> Mono.just(diffFound)
+        1 * reactiveDiffService.edits(diffFound, false) >> Mono.just(editsDto)
+
+        when: 'diffEdits is executed without the inputs'
+        DiffDto diffDtoReturned = reactiveDiffController.diffEdits('diffId', false).block()
+
+        then: 'the edit script should be returned without the inputs'
+        diffDtoReturned.edits == editsDto.edits
+        !diffDtoReturned.coarse
+        diffDtoReturned.left == null
+        diffDtoReturned.right == null
+    }
+
+    def 'diffEdits API should return the inputs by default'() {
+        given: 'a diffId to be compared'
+        Diff diffFound = new Diff(diffId: 'diffId')
+
+        DiffDto editsDto = DiffDto.builder().diffId('diffId').left('left').right('right').resultType(EQUAL).build()
+
+        1 * reactiveDiffService.findById('diffId', true) >> Mono.just(diffFound)
+        1 * reactiveDiffService.edits(diffFound, true) >> Mono.just(editsDto)
+
+        when: 'diffEdits is executed'
+        DiffDto diffDtoReturned = reactiveDiffController.diffEdits('diffId', true).block()
+
+        then: 'the inputs should be returned'
+        diffDtoReturned.left == 'left'
+        diffDtoReturned.right == 'right'
+    }
+
+    def 'diffStream API should check the inputs before streaming the diff results'() {
+        given: 'a Diff to be compared'
+        Flux<Object> stream = Flux.just(DiffResultDto.builder().offset(1).length(1).build(), diffDto)
+
+        1 * reactiveDiffService.findById('diffId', false) >> Mono.just(diff)
+        1 * reactiveDiffService.diffStream(diff) >> stream
+
+        when: 'diffStream is executed'
+        ResponseEntity<Flux<Object>> responseEntity = reactiveDiffController.diffStream('diffId').block()
+
+        then: 'the inputs should be checked and a newline delimited JSON body returned'
+        1 * reactiveDiffService.checkInputs(diff)
+        responseEntity.headers.contentType.toString() == 'application/x-ndjson'
+        responseEntity.body == stream
+    }
+}
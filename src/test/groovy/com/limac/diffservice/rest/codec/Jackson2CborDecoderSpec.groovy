@@ -0,0 +1,73 @@
+package com.limac.diffservice.rest.codec
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory
+import com.limac.diffservice.rest.dto.Base64Dto
+import org.springframework.core.ResolvableType
+import org.springframework.core.codec.DecodingException
+import org.springframework.core.io.buffer.DataBuffer
+import org.springframework.core.io.buffer.DefaultDataBufferFactory
+import org.springframework.util.MimeType
+import reactor.core.publisher.Flux
+import spock.lang.Specification
+
+class Jackson2CborDecoderSpec extends Specification {
+
+    static final MimeType APPLICATION_CBOR = MimeType.valueOf('application/cbor')
+
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory())
+
+    Jackson2CborDecoder jackson2CborDecoder = new Jackson2CborDecoder(cborMapper)
+
+    DefaultDataBufferFactory dataBufferFactory = new DefaultDataBufferFactory()
+
+    def 'decodeToMono should join the body and read it as CBOR'() {
+        given: 'a CBOR body split in buffers'
+        byte[] cbor = cborMapper.writeValueAsBytes(new Base64Dto(base64Value: 'YWJjZA=='))
+        Flux<DataBuffer> body = Flux.just(dataBufferFactory.wrap(cbor[0..2] as byte[]), dataBufferFactory.wrap(cbor[3..-1] as byte[]))
+
+        when: 'decodeToMono is executed'
+        Object decoded = jackson2CborDecoder.decodeToMono(body, ResolvableType.forClass(Base64Dto), APPLICATION_CBOR, [:]).block()
+
+        then: 'the body should be decoded'
+        decoded == new Base64Dto(base64Value: 'YWJjZA==')
+    }
+
+    def 'decode should read the body as a single value'() {
+        given: 'a CBOR body'
+        Flux<DataBuffer> body = Flux.just(dataBufferFactory.wrap(cborMapper.writeValueAsBytes(new Base64Dto(base64Value: 'YQ=='))))
+
+        when: 'decode is executed'
+        List<Object> decoded = jackson2CborDecoder.decode(body, ResolvableType.forClass(Base64Dto), APPLICATION_CBOR, [:]).collectList().block()
+
+        then: 'a single value should be decoded'
+        decoded == [new Base64Dto(base64Value: 'YQ==')]
+    }
+
+    def 'decodeToMono should signal DecodingException for an invalid body'() {
+        given: 'an invalid body'
+        Flux<DataBuffer> body = Flux.just(dataBufferFactory.wrap([0xff] as byte[]))
+
+        when: 'decodeToMono is executed'
+        jackson2CborDecoder.decodeToMono(body, ResolvableType.forClass(Base64Dto), APPLICATION_CBOR, [:]).block()
+
+        then: 'DecodingException is thrown'
+        DecodingException decodingException = thrown(DecodingException)
+        decodingException.message == 'could not decode the CBOR body'
+    }
+
+    def 'decoder should only decode the CBOR media type'() {
+        expect: 'only the CBOR media type to be decoded'
+        jackson2CborDecoder.canDecode(ResolvableType.forClass(Base64Dto), APPLICATION_CBOR)
+        !jackson2CborDecoder.canDecode(ResolvableType.forClass(Base64Dto), MimeType.valueOf('application/json'))
+        !jackson2CborDecoder.canDecode(ResolvableType.forClass(Base64Dto), null)
+    }
+
+    def 'decoder should require a CBOR mapper'() {
+        when: 'the decoder is created with a JSON mapper'
+        new Jackson2CborDecoder(new ObjectMapper())
+
+        then: 'IllegalArgumentException is thrown'
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,46 @@
+package com.limac.diffservice.rest.codec
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory
+import com.limac.diffservice.rest.dto.DiffDto
+import com.limac.diffservice.type.ResultType
+import org.springframework.core.ResolvableType
+import org.springframework.core.io.buffer.DataBuffer
+import org.springframework.core.io.buffer.DataBufferUtils
+import org.springframework.core.io.buffer.DefaultDataBufferFactory
+import org.springframework.util.MimeType
+import reactor.core.publisher.Mono
+import spock.lang.Specification
+
+class Jackson2CborEncoderSpec extends Specification {
+
+    ObjectMapper cborMapper = new ObjectMapper(new CBORFactory())
+
+    Jackson2CborEncoder jackson2CborEncoder = new Jackson2CborEncoder(cborMapper)
+
+    def 'encode should write the value as CBOR'() {
+        given: 'a DiffDto'
+        DiffDto diffDto = DiffDto.builder().diffId('diffId').resultType(ResultType.EQUAL).build()
+
+        when: 'encode is executed'
+        DataBuffer dataBuffer = DataBufferUtils.join(jackson2CborEncoder.encode(Mono.just(diffDto), new DefaultDataBufferFactory(),
+            ResolvableType.forClass(DiffDto), MimeType.valueOf('application/cbor'), [:])).block()
+
+        then: 'the DiffDto should be written as CBOR'
+        cborMapper.readValue(dataBuffer.asInputStream(true), DiffDto) == diffDto
+    }
+
+    def 'encoder should only encode the CBOR media type'() {
+        expect: 'the CBOR media type to be encoded'
+        jackson2CborEncoder.canEncode(ResolvableType.forClass(DiffDto), MimeType.valueOf('application/cbor'))
+        !jackson2CborEncoder.canEncode(ResolvableType.forClass(DiffDto), MimeType.valueOf('application/json'))
+    }
+
+    def 'encoder should require a CBOR mapper'() {
+        when: 'the encoder is created with a JSON mapper'
+        new Jackson2CborEncoder(new ObjectMapper())
+
+        then: 'IllegalArgumentException is thrown'
+        thrown(IllegalArgumentException)
+    }
+}
@@ -1,14 +1,18 @@
 package com.limac.diffservice.rest.exceptionhandler
 
+import com.limac.diffservice.exception.InvalidInputException
 import com.limac.diffservice.exception.MissingInputException
 import com.limac.diffservice.exception.NotFoundException
+import com.limac.diffservice.exception.OverloadedException
 import com.limac.diffservice.rest.dto.ErrorResponseDto
 import org.springframework.core.MethodParameter
+import org.springframework.http.HttpHeaders
 import org.springframework.http.ResponseEntity
 import org.springframework.validation.BindingResult
 import org.springframework.validation.FieldError
 import org.springframework.web.HttpMediaTypeNotSupportedException
 import org.springframework.web.bind.MethodArgumentNotValidException
+import org.springframework.web.bind.support.WebExchangeBindException
 import spock.lang.Specification
 
 import static org.springframework.http.HttpStatus.*
@@ -43,6 +47,39 @@ class ControllerExceptionHandlerSpec extends Specification {
         responseEntity.body.errorMessage == errorMessage
     }
 
+    def 'exception handler should handle the WebExchangeBindException and send the ErrorResponseDto with the error message'() {
+        given: 'a WebExchangeBindException'
+        BindingResult bindingResult = Mock(BindingResult)
+
+        FieldError fieldError = Mock(FieldError)
+        fieldError.field >> 'base64Value'
+        fieldError.defaultMessage >> 'must be base64 encoded'
+
+        bindingResult.fieldErrors >> [fieldError]
+
+        WebExchangeBindException webExchangeBindException = new WebExchangeBindException(Mock(MethodParameter), bindingResult)
+
+        when: 'the reactive bad request is handled'
+        ResponseEntity<ErrorResponseDto> responseEntity = controllerExceptionHandler.handleReactiveBadRequest(webExchangeBindException)
+
+        then: 'response entity with the errors is returned'
+        responseEntity.statusCode == BAD_REQUEST
+        responseEntity.body.errorMessage == 'base64Value must be base64 encoded'
+    }
+
+    def 'exception handler should handle the InvalidInputException and send the ErrorResponseDto with the error message'() {
+        given: 'an InvalidInputException'
+        String errorMessage = 'must be base64 encoded'
+        InvalidInputException invalidInputException = new InvalidInputException(errorMessage)
+
+        when: 'invalid input is handled'
+        ResponseEntity<ErrorResponseDto> responseEntity = controllerExceptionHandler.handleInvalidInput(invalidInputException)
+
+        then: 'response entity with the errors is returned'
+        responseEntity.statusCode == BAD_REQUEST
+        responseEntity.body.errorMessage == errorMessage
+    }
+
     def 'exception handler should handle the NotFoundException and send the ErrorResponseDto with the error message'() {
         given: 'a NotFoundException'
         String errorMessage = 'could not find diffId'
@@ -81,4 +118,18 @@ class ControllerExceptionHandlerSpec extends Specification {
         responseEntity.statusCode == INTERNAL_SERVER_ERROR
         responseEntity.body.errorMessage == errorMessage
     }
+
+    def 'exception handler should handle the OverloadedException and send the ErrorResponseDto with the Retry-After header'() {
+        given: 'an OverloadedException'
+        String errorMessage = 'too many comparisons in progress, retry later'
+        OverloadedException overloadedException = new OverloadedException(errorMessage, 5)
+
+        when: 'service unavailable is handled'
+        ResponseEntity<ErrorResponseDto> responseEntity = controllerExceptionHandler.handleOverloaded(overloadedException)
+
+        then: 'response entity with the errors and the delay to retry is returned'
+        responseEntity.statusCode == SERVICE_UNAVAILABLE
+        responseEntity.headers.getFirst(HttpHeaders.RETRY_AFTER) == '5'
+        responseEntity.body.errorMessage == errorMessage
+    }
 }
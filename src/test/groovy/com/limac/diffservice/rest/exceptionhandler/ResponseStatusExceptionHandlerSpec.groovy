@@ -0,0 +1,100 @@
+package com.limac.diffservice.rest.exceptionhandler
+
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonProcessingException
+import com.fasterxml.jackson.databind.JsonMappingException
+import com.fasterxml.jackson.databind.ObjectMapper
+import org.springframework.core.io.buffer.DataBuffer
+import org.springframework.core.io.buffer.DefaultDataBufferFactory
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpStatus
+import org.springframework.http.MediaType
+import org.springframework.http.server.reactive.ServerHttpResponse
+import org.springframework.web.server.ResponseStatusException
+import org.springframework.web.server.ServerWebExchange
+import org.springframework.web.server.UnsupportedMediaTypeStatusException
+import reactor.core.publisher.Flux
+import reactor.core.publisher.Signal
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class ResponseStatusExceptionHandlerSpec extends Specification {
+
+    ObjectMapper objectMapper = new ObjectMapper()
+
+    ResponseStatusExceptionHandler responseStatusExceptionHandler = new ResponseStatusExceptionHandler(objectMapper)
+
+    ServerWebExchange exchange = Mock(ServerWebExchange)
+    ServerHttpResponse response = Mock(ServerHttpResponse)
+    HttpHeaders headers = new HttpHeaders()
+
+    def setup() {
+        exchange.response >> response
+        response.headers >> headers
+        response.bufferFactory() >> new DefaultDataBufferFactory()
+    }
+
+    def 'handle should write the reason of the ResponseStatusException as an ErrorResponseDto with its status'() {
+        given: 'an unsupported media type'
+        UnsupportedMediaTypeStatusException exception = new UnsupportedMediaTypeStatusException(MediaType.APPLICATION_XML,
+            [MediaType.APPLICATION_JSON])
+
+        String body = null
+
+        when: 'handle is executed'
+        responseStatusExceptionHandler.handle(exchange, exception).block()
+
+        then: 'the error response should be written with status 415'
+        1 * response.setStatusCode(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+        1 * response.writeWith(_) >> { List arguments ->
+            Flux.from(arguments[0]).map { DataBuffer dataBuffer -> body = dataBuffer.toString(StandardCharsets.UTF_8) }.then()
+        }
+        headers.contentType == MediaType.APPLICATION_JSON
+        body == '{"errorMessage":"Content type \'application/xml\' not supported"}'
+    }
+
+    def 'handle should propagate the exceptions without a status'() {
+        given: 'an exception without a status'
+        IllegalStateException exception = new IllegalStateException('failure')
+
+        when: 'handle is executed'
+        responseStatusExceptionHandler.handle(exchange, exception).block()
+
+        then: 'the exception should be propagated'
+        IllegalStateException illegalStateException = thrown(IllegalStateException)
+        illegalStateException.is(exception)
+        0 * response.writeWith(_)
+    }
+
+    def 'handle should propagate the exceptions of a committed response'() {
+        given: 'a committed response'
+        response.committed >> true
+
+        when: 'handle is executed'
+        responseStatusExceptionHandler.handle(exchange, new ResponseStatusException(HttpStatus.NOT_FOUND)).block()
+
+        then: 'the exception should be propagated'
+        thrown(ResponseStatusException)
+        0 * response.writeWith(_)
+    }
+
+    def 'handle should propagate the exception if the error response could not be written'() {
+        given: 'a mapper failing to write the error response'
+        ObjectMapper failingObjectMapper = Mock(ObjectMapper)
+        failingObjectMapper.writeValueAsBytes(_) >> { throw JsonMappingException.from((JsonParser) null, 'failure') }
+
+        when: 'handle is executed'
+        Signal<Void> signal = new ResponseStatusExceptionHandler(failingObjectMapper)
+            .handle(exchange, new ResponseStatusException(HttpStatus.NOT_FOUND)).materialize().block()
+
+        then: 'the mapping exception should be propagated'
+        signal.throwable instanceof JsonProcessingException
+        0 * response.writeWith(_)
+    }
+
+    def 'handler should run before the error handler of Spring Boot'() {
+        expect: 'an order before -1'
+        responseStatusExceptionHandler.order == -2
+    }
+}
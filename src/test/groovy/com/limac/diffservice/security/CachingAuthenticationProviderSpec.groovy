@@ -0,0 +1,109 @@
+package com.limac.diffservice.security
+
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.security.authentication.AuthenticationProvider
+import org.springframework.security.authentication.BadCredentialsException
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken
+import org.springframework.security.core.Authentication
+import org.springframework.security.core.authority.SimpleGrantedAuthority
+import spock.lang.Specification
+
+import javax.crypto.spec.SecretKeySpec
+import java.nio.charset.StandardCharsets
+
+class CachingAuthenticationProviderSpec extends Specification {
+
+    AuthenticationProvider delegate = Mock(AuthenticationProvider)
+    Cache<String, Authentication> verifiedCredentials = Caffeine.newBuilder().recordStats().build()
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    CachingAuthenticationProvider cachingAuthenticationProvider = new CachingAuthenticationProvider(delegate, verifiedCredentials,
+        new SecretKeySpec('key'.getBytes(StandardCharsets.UTF_8), CachingAuthenticationProvider.ALGORITHM), meterRegistry)
+
+    Authentication verified = new UsernamePasswordAuthenticationToken('user', null, [new SimpleGrantedAuthority('ROLE_USER')])
+
+    def 'authenticate should verify the credentials once and return the cached authentication with the details of each request'() {
+        given: 'two requests with the same credentials'
+        Authentication first = request('user', 'pass', 'first')
+        Authentication second = request('user', 'pass', 'second')
+
+        when: 'authenticate is executed for both requests'
+        Authentication firstAuthenticated = cachingAuthenticationProvider.authenticate(first)
+        Authentication secondAuthenticated = cachingAuthenticationProvider.authenticate(second)
+
+        then: 'the credentials should be verified once by the delegate'
+        1 * delegate.authenticate(first) >> verified
+        firstAuthenticated.is(verified)
+
+        and: 'the second request should be authenticated with its own details'
+        secondAuthenticated.authenticated
+        secondAuthenticated.principal == 'user'
+        secondAuthenticated.authorities == verified.authorities
+        secondAuthenticated.details == 'second'
+
+        and: 'the verification should be measured'
+        meterRegistry.get('diff.auth.verification').timer().count() == 1
+        meterRegistry.get('diff.auth.saved').gauge().value() >= 0.0d
+    }
+
+    def 'authenticate should not cache the credentials under another password'() {
+        given: 'two requests with different passwords'
+        Authentication first = request('user', 'pass', 'first')
+        Authentication second = request('user', 'wrong', 'second')
+
+        delegate.authenticate(first) >> verified
+
+        cachingAuthenticationProvider.authenticate(first)
+
+        when: 'authenticate is executed with the other password'
+        cachingAuthenticationProvider.authenticate(second)
+
+        then: 'the credentials should be verified by the delegate'
+        1 * delegate.authenticate(second) >> { throw new BadCredentialsException('Bad credentials') }
+        thrown(BadCredentialsException)
+
+        and: 'only the verified credentials should be cached'
+        verifiedCredentials.estimatedSize() == 1
+        !verifiedCredentials.asMap().containsKey('user:pass')
+    }
+
+    def 'authenticate should not cache the credentials the delegate could not verify'() {
+        given: 'a request'
+        Authentication authentication = request('user', 'pass', 'first')
+
+        when: 'authenticate is executed'
+        Authentication authenticated = cachingAuthenticationProvider.authenticate(authentication)
+
+        then: 'the delegate result should be returned without being cached'
+        1 * delegate.authenticate(authentication) >> null
+        authenticated == null
+        verifiedCredentials.estimatedSize() == 0
+    }
+
+    def 'supports should be answered by the delegate'() {
+        when: 'supports is executed'
+        boolean supports = cachingAuthenticationProvider.supports(UsernamePasswordAuthenticationToken)
+
+        then: 'the delegate should answer'
+        1 * delegate.supports(UsernamePasswordAuthenticationToken) >> true
+        supports
+    }
+
+    def 'newMac should throw IllegalArgumentException if the algorithm is not supported'() {
+        when: 'newMac is executed with an unknown algorithm'
+        CachingAuthenticationProvider.newMac('unknown', new SecretKeySpec(new byte[1], 'unknown'))
+
+        then: 'IllegalArgumentException is thrown'
+        IllegalArgumentException illegalArgumentException = thrown(IllegalArgumentException)
+        illegalArgumentException.message == 'unsupported MAC algorithm: unknown'
+    }
+
+    private static Authentication request(String user, String pass, String details) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(user, pass)
+        authentication.details = details
+        authentication
+    }
+}
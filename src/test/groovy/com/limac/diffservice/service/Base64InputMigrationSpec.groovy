@@ -0,0 +1,57 @@
+package com.limac.diffservice.service
+
+import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.repository.DiffRepository
+import com.limac.diffservice.repository.PayloadCodec
+import com.limac.diffservice.type.InputType
+import org.springframework.boot.context.event.ApplicationReadyEvent
+import spock.lang.Specification
+
+class Base64InputMigrationSpec extends Specification {
+
+    DiffRepository diffRepository = Mock(DiffRepository)
+    PayloadCodec payloadCodec = new PayloadCodec(true, 256, 16)
+
+    Base64InputMigration base64InputMigration = new Base64InputMigration(diffRepository, payloadCodec, 2)
+
+    def 'migrate should replace the base64 inputs with their payloads batch by batch'() {
+        given: 'two batches of Diffs with base64 inputs'
+        1 * diffRepository.findBase64Inputs(null, 2) >> [new Diff(diffId: 'first', left: 'YWJjZA==', right: 'YWJlZA=='), new Diff(diffId: 'second', left: 'YWJjZA==')]
+        1 * diffRepository.findBase64Inputs('second', 2) >> [new Diff(diffId: 'third', right: 'YWJlZA==')]
+        1 * diffRepository.findBase64Inputs('third', 2) >> []
+
+        when: 'migrate is executed'
+        long migrated = base64InputMigration.migrate()
+
+        then: 'each input should be replaced with its payload'
+        1 * diffRepository.migrateInput('first', InputType.LEFT, 'YWJjZA==', payloadCodec.encode('abcd'.bytes)) >> true
+        1 * diffRepository.migrateInput('first', InputType.RIGHT, 'YWJlZA==', payloadCodec.encode('abed'.bytes)) >> true
+        1 * diffRepository.migrateInput('second', InputType.LEFT, 'YWJjZA==', _ as byte[]) >> true
+        1 * diffRepository.migrateInput('third', InputType.RIGHT, 'YWJlZA==', _ as byte[]) >> false
+
+        and: 'only the inputs not saved again meanwhile should be counted'
+        migrated == 3
+    }
+
+    def 'migrate should skip the invalid base64 inputs'() {
+        given: 'a Diff with an invalid base64 input'
+        1 * diffRepository.findBase64Inputs(null, 2) >> [new Diff(diffId: 'diffId', left: 'QQ=', right: 'YWJlZA==')]
+        1 * diffRepository.findBase64Inputs('diffId', 2) >> []
+
+        when: 'migrate is executed'
+        long migrated = base64InputMigration.migrate()
+
+        then: 'only the valid input should be migrated'
+        0 * diffRepository.migrateInput('diffId', InputType.LEFT, *_)
+        1 * diffRepository.migrateInput('diffId', InputType.RIGHT, 'YWJlZA==', _ as byte[]) >> true
+        migrated == 1
+    }
+
+    def 'onApplicationEvent should migrate the base64 inputs'() {
+        when: 'the application is ready'
+        base64InputMigration.onApplicationEvent(Mock(ApplicationReadyEvent))
+
+        then: 'the base64 inputs should be migrated'
+        1 * diffRepository.findBase64Inputs(null, 2) >> []
+    }
+}
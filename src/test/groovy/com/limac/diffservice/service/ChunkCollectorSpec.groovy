@@ -0,0 +1,50 @@
+package com.limac.diffservice.service
+
+import com.limac.diffservice.repository.ChunkRepository
+import spock.lang.Specification
+
+class ChunkCollectorSpec extends Specification {
+
+    ChunkRepository chunkRepository = Mock(ChunkRepository)
+
+    ChunkCollector chunkCollector = new ChunkCollector(chunkRepository, 60000, 0)
+
+    def 'collect should remove the chunks released before the grace period'() {
+        given: 'the current time'
+        long now = System.currentTimeMillis()
+
+        when: 'collect is executed'
+        long collected = chunkCollector.collect()
+
+        then: 'the chunks released before the grace period should be removed'
+        1 * chunkRepository.collect({ Date releasedBefore -> releasedBefore.time >= now - 60000 && releasedBefore.time <= System.currentTimeMillis() - 60000 }) >> count
+
+        and: 'the chunks of the Diffs should not be expired'
+        0 * chunkRepository.expire(_)
+
+        and: 'the number of chunks removed should be returned'
+        collected == count
+
+        where:
+        count << [0L, 2L]
+    }
+
+    def 'collect should also remove the chunks of the expired Diffs if the Diffs expire'() {
+        given: 'a collector of the chunks of Diffs expiring'
+        ChunkCollector expiringChunkCollector = new ChunkCollector(chunkRepository, 60000, 3600000)
+        long now = System.currentTimeMillis()
+
+        when: 'collect is executed'
+        long collected = expiringChunkCollector.collect()
+
+        then: 'the chunks released before the grace period should be removed'
+        1 * chunkRepository.collect(_) >> 2L
+
+        and: 'the chunks not referenced since the time to live and the grace period should be removed'
+        1 * chunkRepository.expire({ Date updatedBefore ->
+            updatedBefore.time >= now - 3660000 && updatedBefore.time <= System.currentTimeMillis() - 3660000 }) >> 3L
+
+        and: 'the number of chunks removed should be returned'
+        collected == 5
+    }
+}
@@ -1,109 +1,543 @@
 package com.limac.diffservice.service
 
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.limac.diffservice.admission.AdmissionController
+import com.limac.diffservice.cache.ContentDigest
+import com.limac.diffservice.domain.ChunkReference
 import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.domain.DiffResult
+import com.limac.diffservice.domain.MerkleTree
+import com.limac.diffservice.engine.DiffEngine
+import com.limac.diffservice.engine.MerkleTreeHasher
+import com.limac.diffservice.engine.MyersEditEngine
+import com.limac.diffservice.engine.WordDiffEngine
+import com.limac.diffservice.exception.InvalidInputException
 import com.limac.diffservice.exception.NotFoundException
+import com.limac.diffservice.exception.OverloadedException
+import com.limac.diffservice.logging.PayloadLogArguments
+import com.limac.diffservice.metrics.DiffMetrics
+import com.limac.diffservice.rest.dto.BulkDiffDto
 import com.limac.diffservice.rest.dto.DiffDto
 import com.limac.diffservice.rest.dto.DiffResultDto
+import com.limac.diffservice.rest.dto.DiffSummaryDto
+import com.limac.diffservice.rest.dto.EditDto
 import com.limac.diffservice.exception.MissingInputException
+import com.limac.diffservice.repository.ChunkRepository
 import com.limac.diffservice.repository.DiffRepository
+import com.limac.diffservice.repository.PayloadCodec
+import com.limac.diffservice.repository.PayloadRepository
+import com.limac.diffservice.type.EditType
 import com.limac.diffservice.type.InputType
 import com.limac.diffservice.type.ResultType
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.core.task.SimpleAsyncTaskExecutor
+import org.springframework.core.task.SyncTaskExecutor
+import org.springframework.core.task.TaskExecutor
+import org.springframework.core.task.TaskRejectedException
+import spock.lang.Shared
 import spock.lang.Specification
 import spock.lang.Unroll
 
+import java.nio.ByteBuffer
 import java.nio.charset.StandardCharsets
+import java.util.function.Supplier
 
 class DiffServiceImplSpec extends Specification {
 
     DiffRepository diffRepository = Mock(DiffRepository)
+    PayloadRepository payloadRepository = Mock(PayloadRepository)
+    ChunkRepository chunkRepository = Mock(ChunkRepository)
+    PayloadCodec payloadCodec = new PayloadCodec(true, 256, 16)
+    MerkleTreeHasher merkleTreeHasher = new MerkleTreeHasher(64)
 
-    DiffService diffService = new DiffServiceImpl(diffRepository)
+    @Shared
+    List<ChunkReference> chunks = [new ChunkReference('chunkDigest', 3)]
 
-    def 'non existing diffId should be saved in the repository'() {
-        given: 'a non existing diffId to be saved'
+    @Shared
+    String leftDigest = ContentDigest.digest('abcd'.getBytes(StandardCharsets.UTF_8))
+
+    @Shared
+    String rightDigest = ContentDigest.digest('abed'.getBytes(StandardCharsets.UTF_8))
+
+    DiffEngine diffEngine = Spy(WordDiffEngine)
+    MyersEditEngine editEngine = Spy(MyersEditEngine, constructorArgs: [10000, 1000L])
+    Cache<String, DiffDto> diffResultCache = Caffeine.newBuilder().build()
+    PayloadLogArguments payloadLogArguments = new PayloadLogArguments(64, 0.0d)
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+    DiffMetrics diffMetrics = new DiffMetrics(meterRegistry)
+    AdmissionController admissionController = new AdmissionController(Long.MAX_VALUE, 0, 2, 10, 1, diffMetrics)
+
+    DiffService diffService = new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine, editEngine, diffResultCache, new SyncTaskExecutor(),
+        new SyncTaskExecutor(), payloadLogArguments, diffMetrics, admissionController)
+
+    def cleanup() {
+        admissionController.shutdown()
+    }
+
+    @Unroll('save should upsert only the input type #inputType and return it without the other input')
+    def 'save should upsert only the input type and return it without the other input'() {
+        given: 'a Diff with both inputs'
         Diff newDiff = new Diff()
-        newDiff.diffId = 'newDiffId'
+        newDiff.diffId = 'diffId'
+        newDiff.left = 'bGVmdA=='
+        newDiff.right = 'cmlnaHQ='
 
-        1 * diffRepository.findById(newDiff.diffId) >> Optional.empty()
-        1 * diffRepository.save(newDiff) >> newDiff
+        when: 'save is called with the input type'
+        Diff diffSaved = diffService.save(newDiff, inputType)
 
-        when: 'save is executed'
-        Diff diffSaved = diffService.save(newDiff, InputType.LEFT)
+        then: 'only the input type should be upserted'
+        1 * diffRepository.upsertInput('diffId', inputType, payloadCodec.encode(expectedInput.decodeBase64()), null, null, ContentDigest.digest(expectedInput.decodeBase64())) >> Optional.empty()
+        0 * diffRepository.save(_)
+        0 * diffRepository.findById(_)
+        0 * payloadRepository.delete(_)
 
-        then: 'newDiff is saved in the repository'
-        noExceptionThrown()
-        diffSaved == newDiff
+        and: 'only the input type should be returned'
+        diffSaved.diffId == 'diffId'
+        diffSaved.left == expectedLeftInput
+        diffSaved.right == expectedRightInput
+
+        where:
+        inputType       | expectedInput | expectedLeftInput | expectedRightInput
+        InputType.LEFT  | 'bGVmdA=='    | 'bGVmdA=='        | null
+        InputType.RIGHT | 'cmlnaHQ='    | null              | 'cmlnaHQ='
+    }
+
+    def 'saveAll should write each input atomically, release the inputs it replaced and compare the Diffs with both inputs'() {
+        given: 'the left and right inputs of a new Diff and the left input of a stored Diff'
+        List<Diff> diffs = [new Diff(diffId: 'first', left: 'YWJjZA=='), new Diff(diffId: 'first', right: 'YWJlZA=='),
+                            new Diff(diffId: 'second', left: 'YWJjZA==')]
+
+        _ * diffRepository.findById(_ as String) >> { String diffId -> Optional.of(new Diff(diffId: diffId, left: 'YWJjZA==', right: 'YWJlZA==',
+            leftDigest: leftDigest, rightDigest: rightDigest)) }
+
+        when: 'saveAll is executed'
+        List<Diff> diffsSaved = diffService.saveAll(diffs)
+
+        then: 'each input should be written with its digest, returning the input it replaced'
+        1 * diffRepository.upsertInput('first', InputType.LEFT, _, null, null, leftDigest) >> Optional.empty()
+        1 * diffRepository.upsertInput('first', InputType.RIGHT, _, null, null, rightDigest) >> Optional.of(new Diff(diffId: 'first',
+            leftDigest: leftDigest))
+        1 * diffRepository.upsertInput('second', InputType.LEFT, _, null, null, leftDigest) >> Optional.of(new Diff(diffId: 'second',
+            leftFileId: 'replacedFileId', leftChunks: chunks, rightDigest: rightDigest))
+
+        and: 'the replaced file should be deleted and the replaced chunks released'
+        1 * payloadRepository.delete('replacedFileId')
+        1 * chunkRepository.release(chunks)
+
+        and: 'both Diffs should be compared in background'
+        1 * diffRepository.saveResult('first', leftDigest, rightDigest, ResultType.SAME_SIZE_BUT_DIFFERENT, _)
+        1 * diffRepository.saveResult('second', leftDigest, rightDigest, ResultType.SAME_SIZE_BUT_DIFFERENT, _)
+
+        and: 'the inputs saved should be returned in the given order'
+        diffsSaved*.diffId == ['first', 'first', 'second']
+        diffsSaved*.left == ['YWJjZA==', null, 'YWJjZA==']
+        meterRegistry.get('diff.service.bulk').tag('operation', 'save').timer().count() == 1
+    }
+
+    def 'saveAll should release the input written by a concurrent save rather than the input stored before it'() {
+        given: 'a stored left input and a large left input saved concurrently as chunks'
+        String largeInput = ('abcd' * 8).bytes.encodeBase64().toString()
+        List<ChunkReference> storedChunks = [new ChunkReference('storedDigest', 3)]
+        1 * chunkRepository.store('diffId', _ as InputStream) >> chunks
+
+        when: 'the concurrent save is executed before the bulk save of the same input'
+        diffService.save(new Diff(diffId: 'diffId', left: largeInput), InputType.LEFT)
+        diffService.saveAll([new Diff(diffId: 'diffId', left: 'YWJjZA==')])
+
+        then: 'the concurrent save should replace the stored input'
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, null, chunks, _, _) >> Optional.of(new Diff(diffId: 'diffId', leftChunks: storedChunks))
+        1 * chunkRepository.release(storedChunks)
+
+        then: 'the bulk save should replace the input of the concurrent save'
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, _, null, null, leftDigest) >> Optional.of(new Diff(diffId: 'diffId', leftChunks: chunks))
+        1 * chunkRepository.release(chunks)
+        0 * chunkRepository.release(_)
+    }
+
+    def 'saveAll should not compare the Diffs with a single input'() {
+        when: 'saveAll is executed'
+        diffService.saveAll([new Diff(diffId: 'diffId', right: 'YWJlZA==')])
+
+        then: 'the input should be written without comparing the inputs'
+        1 * diffRepository.upsertInput('diffId', InputType.RIGHT, _, null, null, rightDigest) >> Optional.empty()
+        0 * payloadRepository.delete(_)
+        0 * diffRepository.findById(_)
+        0 * diffRepository.saveResult(*_)
+    }
+
+    def 'saveAll should store the inputs larger than the inline maximum size as chunks'() {
+        given: 'a small left input and a right input larger than the inline maximum size'
+        String largeInput = ('abcd' * 8).bytes.encodeBase64().toString()
+
+        when: 'saveAll is executed'
+        List<Diff> diffsSaved = diffService.saveAll([new Diff(diffId: 'first', left: 'YWJjZA=='), new Diff(diffId: 'second', right: largeInput)])
+
+        then: 'only the large input should be stored as chunks'
+        1 * chunkRepository.store('second', _ as InputStream) >> { String diffId, InputStream stream ->
+            assert stream.bytes == ('abcd' * 8).bytes
+            chunks
+        }
+
+        and: 'the inputs should be written with their payload or chunks'
+        1 * diffRepository.upsertInput('first', InputType.LEFT, { it != null }, null, null, leftDigest) >> Optional.empty()
+        1 * diffRepository.upsertInput('second', InputType.RIGHT, null, chunks, _, ContentDigest.digest(('abcd' * 8).bytes)) >> Optional.empty()
+        0 * chunkRepository.release(_)
+
+        and: 'the inputs saved should be returned with their chunks'
+        diffsSaved*.rightChunks == [null, chunks]
+    }
+
+    def 'saveAll should release the stored chunks of an input if its write fails'() {
+        given: 'a left input larger than the inline maximum size and a small right input'
+        String largeInput = ('abcd' * 8).bytes.encodeBase64().toString()
+        1 * chunkRepository.store('diffId', _ as InputStream) >> chunks
+        diffRepository.upsertInput('diffId', InputType.RIGHT, *_) >> Optional.empty()
+
+        when: 'saveAll is executed and the write of the large input fails'
+        diffService.saveAll([new Diff(diffId: 'diffId', left: largeInput), new Diff(diffId: 'diffId', right: 'YWJlZA==')])
+
+        then: 'the write should fail'
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, *_) >> { throw new IllegalStateException('write failed') }
+        IllegalStateException illegalStateException = thrown(IllegalStateException)
+        illegalStateException.message == 'write failed'
+
+        and: 'only the stored chunks should be released'
+        1 * chunkRepository.release(chunks)
+        0 * chunkRepository.release(_)
+    }
+
+    def 'saveAll should rethrow the failure of an input once the other inputs are written and have released the inputs they replaced'() {
+        given: 'a concurrent bulk executor, a failing left input and a slower right input replacing stored chunks'
+        DiffService diffServiceConcurrent = new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine,
+            editEngine, diffResultCache, new SyncTaskExecutor(), new SimpleAsyncTaskExecutor(), payloadLogArguments, diffMetrics, admissionController)
+        List<ChunkReference> storedChunks = [new ChunkReference('storedDigest', 3)]
+
+        1 * diffRepository.upsertInput('first', InputType.LEFT, *_) >> { throw new IllegalStateException('write failed') }
+        1 * diffRepository.upsertInput('second', InputType.RIGHT, *_) >> {
+            Thread.sleep(200)
+            Optional.of(new Diff(diffId: 'second', rightChunks: storedChunks))
+        }
+
+        when: 'saveAll is executed'
+        diffServiceConcurrent.saveAll([new Diff(diffId: 'first', left: 'YWJjZA=='), new Diff(diffId: 'second', right: 'YWJlZA==')])
+
+        then: 'the failure should be rethrown'
+        IllegalStateException illegalStateException = thrown(IllegalStateException)
+        illegalStateException.message == 'write failed'
+
+        and: 'the written input should have released the input it replaced'
+        1 * chunkRepository.release(storedChunks)
+        0 * chunkRepository.release(_)
+    }
+
+    def 'saveAll should rethrow an error of an input as it is'() {
+        given: 'an input larger than the inline maximum size whose chunks can not be stored'
+        String largeInput = ('abcd' * 8).bytes.encodeBase64().toString()
+        1 * chunkRepository.store('diffId', _ as InputStream) >> { throw new OutOfMemoryError('failure') }
+
+        when: 'saveAll is executed'
+        diffService.saveAll([new Diff(diffId: 'diffId', left: largeInput)])
+
+        then: 'the error should be rethrown without writing the input'
+        OutOfMemoryError outOfMemoryError = thrown(OutOfMemoryError)
+        outOfMemoryError.message == 'failure'
+        0 * diffRepository.upsertInput(*_)
+    }
+
+    def 'saveAll should save the inputs on the calling thread if the bulk executor is full'() {
+        given: 'a full bulk executor'
+        TaskExecutor fullExecutor = Mock(TaskExecutor)
+        fullExecutor.execute(_ as Runnable) >> { throw new TaskRejectedException('full') }
+        DiffService diffServiceRejecting = new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine, editEngine,
+            diffResultCache, new SyncTaskExecutor(), fullExecutor, payloadLogArguments, diffMetrics, admissionController)
+
+        when: 'saveAll is executed'
+        List<Diff> diffsSaved = diffServiceRejecting.saveAll([new Diff(diffId: 'diffId', left: 'YWJjZA==')])
+
+        then: 'the input should still be written'
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, _, null, null, leftDigest) >> Optional.empty()
+        diffsSaved*.diffId == ['diffId']
+    }
+
+    @Unroll('save should throw InvalidInputException if the input type #inputType has no base64 value')
+    def 'save should throw InvalidInputException if the input has no base64 value'() {
+        when: 'save is executed with a Diff without base64 value'
+        diffService.save(new Diff(diffId: 'diffId'), inputType)
+
+        then: 'InvalidInputException is thrown without saving the input'
+        InvalidInputException invalidInputException = thrown(InvalidInputException)
+        invalidInputException.message == 'missing base64Value for diffId: diffId'
+        0 * diffRepository.upsertInput(*_)
+
+        where:
+        inputType << [InputType.LEFT, InputType.RIGHT]
     }
 
-    @Unroll('if the diffId already exists the Diff updated should be [leftInput: #expectedLeftInput, rightInput: #expectedRightInput] accordingly with the input type #inputType')
-    def 'if the diffId already exists the Diff input should be updated accordingly with the input type'() {
-        given: 'an existing diffId'
-        Diff existingDiff = new Diff()
-        existingDiff.diffId = 'existingDiffId'
-        existingDiff.left = existingLeftInput
-        existingDiff.right = existingRightInput
-        Optional<Diff> optionalExistingDiff = Optional.of(existingDiff)
+    def 'saveAll should throw InvalidInputException if any input has no base64 value'() {
+        when: 'saveAll is executed with an input without base64 value'
+        diffService.saveAll([new Diff(diffId: 'first', left: 'YWJjZA=='), new Diff(diffId: 'second')])
 
+        then: 'InvalidInputException is thrown without saving any input'
+        InvalidInputException invalidInputException = thrown(InvalidInputException)
+        invalidInputException.message == 'missing base64Value for diffId: second'
+        0 * diffRepository.upsertInput(*_)
+    }
+
+    def 'saveAll should throw InvalidInputException if the same input of a diffId is given more than once'() {
+        when: 'saveAll is executed with the right input of a diffId twice'
+        diffService.saveAll([new Diff(diffId: 'first', right: 'YWJjZA=='), new Diff(diffId: 'first', left: 'YWJjZA=='),
+                             new Diff(diffId: 'second', right: 'YWJjZA=='), new Diff(diffId: 'first', right: 'YWJlZA==')])
+
+        then: 'InvalidInputException is thrown without storing or saving any input'
+        InvalidInputException invalidInputException = thrown(InvalidInputException)
+        invalidInputException.message == 'duplicate RIGHT input for diffId: first'
+        0 * chunkRepository.store(*_)
+        0 * diffRepository.upsertInput(*_)
+    }
+
+    def 'diffAll should compare the Diffs found and return the error of the others'() {
+        given: 'a stored Diff, a missing Diff and a Diff with a single input'
+        1 * diffRepository.findAllById(['first', 'missing', 'first', 'incomplete']) >> [
+            new Diff(diffId: 'first', left: 'YWJjZA==', right: 'YWJlZA=='),
+            new Diff(diffId: 'incomplete', left: 'YWJjZA=='),
+        ]
+
+        when: 'diffAll is executed'
+        List<BulkDiffDto> bulkDiffDtos = diffService.diffAll(['first', 'missing', 'first', 'incomplete'])
+
+        then: 'the result or the error of each distinct diffId should be returned in the given order'
+        bulkDiffDtos == [
+            BulkDiffDto.builder().diffId('first').resultType(ResultType.SAME_SIZE_BUT_DIFFERENT)
+                .diffResults([DiffResultDto.builder().offset(2).length(1).build()]).build(),
+            BulkDiffDto.builder().diffId('missing').errorMessage('could not find diffId: missing').build(),
+            BulkDiffDto.builder().diffId('incomplete').errorMessage('left and/or right input is missing for diffId: incomplete').build(),
+        ]
+        0 * diffRepository.findById(_)
+        meterRegistry.get('diff.service.bulk').tag('operation', 'diff').timer().count() == 1
+    }
+
+    def 'diffAll should compare the Diffs on the calling thread if the bulk executor is full'() {
+        given: 'a full bulk executor'
+        TaskExecutor fullExecutor = Mock(TaskExecutor)
+        fullExecutor.execute(_ as Runnable) >> { throw new TaskRejectedException('full') }
+        DiffService diffServiceRejecting = new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine, editEngine,
+            diffResultCache, new SyncTaskExecutor(), fullExecutor, payloadLogArguments, diffMetrics, admissionController)
+
+        1 * diffRepository.findAllById(['diffId']) >> [storedDiff()]
+
+        when: 'diffAll is executed'
+        List<BulkDiffDto> bulkDiffDtos = diffServiceRejecting.diffAll(['diffId'])
+
+        then: 'the Diff should still be compared'
+        bulkDiffDtos*.resultType == [ResultType.SAME_SIZE_BUT_DIFFERENT]
+    }
+
+    @Unroll('saving an input over a binary input should delete the replaced file for the input type #inputType')
+    def 'saving an input over a binary input should delete the replaced file'() {
+        given: 'a Diff replacing a binary input'
         Diff newDiff = new Diff()
         newDiff.diffId = 'existingDiffId'
-        newDiff.left = newLeftInput
-        newDiff.right = newRightInput
+        newDiff.left = 'newInput'
+        newDiff.right = 'newInput'
+
+        Diff replacedDiff = new Diff()
+        replacedDiff.diffId = 'existingDiffId'
+        replacedDiff.leftFileId = replacedLeftFileId
+        replacedDiff.rightFileId = replacedRightFileId
 
-        1 * diffRepository.findById(newDiff.diffId) >> optionalExistingDiff
-        1 * diffRepository.save(existingDiff) >> optionalExistingDiff.get()
+        1 * diffRepository.upsertInput('existingDiffId', inputType, payloadCodec.encode('newInput'.decodeBase64()), null, null, _ as String) >> Optional.of(replacedDiff)
 
         when: 'save is called with a newDiff'
-        Diff diffSaved = diffService.save(newDiff, inputType)
+        diffService.save(newDiff, inputType)
 
-        then: 'left and right inputs should be updated accordingly with the inputType'
-        noExceptionThrown()
-        diffSaved.left == expectedLeftInput
-        diffSaved.right == expectedRightInput
+        then: 'the replaced file should be deleted'
+        1 * payloadRepository.delete(replacedFileId)
 
         where:
-        inputType       | existingLeftInput     | existingRightInput    | newLeftInput      | newRightInput     | expectedLeftInput     | expectedRightInput
-        InputType.LEFT  | 'existingLeftInput'   | 'existingRightInput'  | null              | 'newRightInput'   | null                  | 'existingRightInput'
-        InputType.LEFT  | 'existingLeftInput'   | 'existingRightInput'  | 'newLeftInput'    | null              | 'newLeftInput'        | 'existingRightInput'
-        InputType.LEFT  | null                  | 'existingRightInput'  | null              | 'newRightInput'   | null                  | 'existingRightInput'
-        InputType.LEFT  | null                  | 'existingRightInput'  | 'newLeftInput'    | null              | 'newLeftInput'        | 'existingRightInput'
-        InputType.LEFT  | 'existingLeftInput'   | null                  | null              | 'newRightInput'   | null                  | null
-        InputType.LEFT  | 'existingLeftInput'   | null                  | 'newLeftInput'    | null              | 'newLeftInput'        | null
-        InputType.RIGHT | 'existingLeftInput'   | 'existingRightInput'  | null              | 'newRightInput'   | 'existingLeftInput'   | 'newRightInput'
-        InputType.RIGHT | 'existingLeftInput'   | 'existingRightInput'  | 'newLeftInput'    | null              | 'existingLeftInput'   | null
-        InputType.RIGHT | null                  | 'existingRightInput'  | null              | 'newRightInput'   | null                  | 'newRightInput'
-        InputType.RIGHT | null                  | 'existingRightInput'  | 'newLeftInput'    | null              | null                  | null
-        InputType.RIGHT | 'existingLeftInput'   | null                  | null              | 'newRightInput'   | 'existingLeftInput'   | 'newRightInput'
-        InputType.RIGHT | 'existingLeftInput'   | null                  | 'newLeftInput'    | null              | 'existingLeftInput'   | null
+        inputType       | replacedLeftFileId    | replacedRightFileId   | replacedFileId
+        InputType.LEFT  | 'leftFileId'          | null                  | 'leftFileId'
+        InputType.RIGHT | null                  | 'rightFileId'         | 'rightFileId'
     }
 
-    def 'findById should return the Diff if the diffId is found'() {
-        given: 'an existing diffId'
-        String existingDiffId = 'existingDiffId'
+    def 'saving an input over a base64 input should not delete any file'() {
+        given: 'a Diff replacing a base64 input'
+        Diff newDiff = new Diff()
+        newDiff.diffId = 'existingDiffId'
+        newDiff.left = 'newInput'
 
-        Diff diff = new Diff()
-        diff.diffId = existingDiffId
+        Diff replacedDiff = new Diff()
+        replacedDiff.diffId = 'existingDiffId'
+
+        1 * diffRepository.upsertInput('existingDiffId', InputType.LEFT, payloadCodec.encode('newInput'.decodeBase64()), null, null, _ as String) >> Optional.of(replacedDiff)
+
+        when: 'save is called with a newDiff'
+        diffService.save(newDiff, InputType.LEFT)
+
+        then: 'no file should be deleted'
+        0 * payloadRepository.delete(_)
+    }
+
+    def 'save should store a base64 input larger than the inline maximum size as chunks'() {
+        given: 'a Diff with a base64 input larger than the inline maximum size'
+        byte[] decoded = 'abcdefghijklmnopqrstuvwxyz'.getBytes(StandardCharsets.UTF_8)
+        Diff newDiff = new Diff(diffId: 'diffId', left: decoded.encodeBase64().toString())
+
+        1 * chunkRepository.store('diffId', _ as InputStream) >> { String diffId, InputStream stream ->
+            assert stream.bytes == decoded
+            chunks
+        }
+
+        when: 'save is executed'
+        Diff diffSaved = diffService.save(newDiff, InputType.LEFT)
+
+        then: 'the references to the chunks should be saved instead of the payload'
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, null, chunks, null, ContentDigest.digest(decoded)) >> Optional.empty()
+        0 * chunkRepository.release(_)
+
+        and: 'the base64 input should be returned'
+        diffSaved.left == newDiff.left
+        diffSaved.leftChunks == chunks
+    }
+
+    @Unroll('save with a stream should store the binary input as the chunks of the input type #inputType')
+    def 'save with a stream should store the binary input and save the references to its chunks'() {
+        given: 'a diffId and a binary input'
+        InputStream inputStream = new ByteArrayInputStream([1, 2, 3] as byte[])
+
+        String digest = ContentDigest.digest([1, 2, 3] as byte[])
+
+        1 * chunkRepository.store('diffId', _ as InputStream) >> { String diffId, InputStream stream ->
+            stream.bytes
+            chunks
+        }
+        1 * diffRepository.upsertInput('diffId', inputType, null, chunks, null, digest) >> Optional.empty()
+
+        when: 'save is executed'
+        Diff diffSaved = diffService.save('diffId', inputType, inputStream)
+
+        then: 'the references to the chunks and the digest of the streamed input should be saved as the input type'
+        diffSaved.diffId == 'diffId'
+        diffSaved.leftChunks == (inputType == InputType.LEFT ? chunks : null)
+        diffSaved.rightChunks == (inputType == InputType.RIGHT ? chunks : null)
+        diffSaved.leftDigest == (inputType == InputType.LEFT ? digest : null)
+        diffSaved.rightDigest == (inputType == InputType.RIGHT ? digest : null)
+        0 * chunkRepository.release(_)
+
+        where:
+        inputType << [InputType.LEFT, InputType.RIGHT]
+    }
+
+    def 'save with a stream should release the stored chunks if the Diff could not be saved'() {
+        given: 'a binary input and a repository failure'
+        InputStream inputStream = new ByteArrayInputStream([1, 2, 3] as byte[])
+
+        1 * chunkRepository.store('diffId', _ as InputStream) >> chunks
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, null, chunks, null, _ as String) >> { throw new IllegalStateException('failure') }
+
+        when: 'save is executed'
+        diffService.save('diffId', InputType.LEFT, inputStream)
+
+        then: 'the stored chunks should be released'
+        1 * chunkRepository.release(chunks)
+        thrown(IllegalStateException)
+    }
+
+    def 'save with a stream should keep the stored chunks if the Diff was saved but the replaced file could not be deleted'() {
+        given: 'a binary input replacing a file that can not be deleted'
+        InputStream inputStream = new ByteArrayInputStream([1, 2, 3] as byte[])
+
+        1 * chunkRepository.store('diffId', _ as InputStream) >> chunks
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, null, chunks, null, _ as String) >> Optional.of(new Diff(diffId: 'diffId',
+            leftFileId: 'replacedFileId'))
+        1 * payloadRepository.delete('replacedFileId') >> { throw new IllegalStateException('failure') }
+
+        when: 'save is executed'
+        diffService.save('diffId', InputType.LEFT, inputStream)
+
+        then: 'the stored chunks should not be released, as the saved Diff references them'
+        0 * chunkRepository.release(_)
+        thrown(IllegalStateException)
+    }
+
+    @Unroll('saving an input over a chunked input should release the replaced chunks for the input type #inputType')
+    def 'saving an input over a chunked input should release the replaced chunks'() {
+        given: 'a Diff replacing a chunked input'
+        Diff replacedDiff = new Diff(diffId: 'diffId', leftChunks: chunks, rightChunks: chunks)
+
+        1 * diffRepository.upsertInput('diffId', inputType, _ as byte[], null, null, _ as String) >> Optional.of(replacedDiff)
+
+        when: 'save is executed'
+        diffService.save(new Diff(diffId: 'diffId', left: 'YWJjZA==', right: 'YWJjZA=='), inputType)
+
+        then: 'the replaced chunks should be released'
+        1 * chunkRepository.release(chunks)
+        0 * payloadRepository.delete(_)
+
+        where:
+        inputType << [InputType.LEFT, InputType.RIGHT]
+    }
+
+    @Unroll('findById should return the Diff if the diffId is found with the read preference of the comparisons, with the inputs: #includeInputs, compared: #compared')
+    def 'findById should return the Diff if the diffId is found with the read preference of the comparisons'() {
+        given: 'an existing diffId, found without the payloads of its inputs'
+        String existingDiffId = 'existingDiffId'
 
-        1 * diffRepository.findById(existingDiffId) >> Optional.of(diff)
+        Diff diff = new Diff(diffId: existingDiffId, leftDigest: leftDigest, rightDigest: compared ? leftDigest : rightDigest)
+        Diff diffWithPayloads = storedDiff()
 
         when: 'findById is executed'
-        Diff diffFound = diffService.findById(existingDiffId)
+        Diff diffFound = diffService.findById(existingDiffId, includeInputs)
+
+        then: 'the Diff should only be found with its payloads if the inputs are included or its result is not known without them'
+        (includeInputs ? 0 : 1) * diffRepository.findForComparison(existingDiffId, false) >> Optional.of(diff)
+        (includeInputs || !compared ? 1 : 0) * diffRepository.findForComparison(existingDiffId, true) >> Optional.of(diffWithPayloads)
+        diffFound.is(includeInputs || !compared ? diffWithPayloads : diff)
+        0 * diffRepository.findById(_)
 
-        then: 'Diff is found'
-        diff == diffFound
+        where:
+        includeInputs | compared
+        true          | false
+        false         | true
+        false         | false
     }
 
+    @Unroll('findById should throw NotFoundException if the diffId does not exists, with the inputs: #includeInputs')
     def 'findById should throw NotFoundException if the diffId does not exists'() {
         given: 'a non existing diffId'
         String nonExistingDiffId = 'nonExistingDiffId'
 
-        1 * diffRepository.findById(nonExistingDiffId) >> Optional.empty()
+        1 * diffRepository.findForComparison(nonExistingDiffId, _) >> Optional.empty()
 
         when: 'findById is executed'
-        diffService.findById(nonExistingDiffId)
+        diffService.findById(nonExistingDiffId, includeInputs)
 
         then: 'NotFoundException is thrown'
         NotFoundException notFoundException = thrown(NotFoundException)
         notFoundException.message == "could not find diffId: ${nonExistingDiffId}"
+
+        where:
+        includeInputs << [true, false]
+    }
+
+    @Unroll('isCompared should be #compared for the stored result #resultType and the digests #left and #right')
+    def 'isCompared should check whether the result of the comparison is known without the payloads'() {
+        given: 'a Diff found without the payloads of its inputs'
+        Diff diff = new Diff(diffId: 'diffId', resultType: resultType, leftDigest: left, rightDigest: right, rightChunks: rightChunks)
+
+        expect: 'the result should only be known if it is stored or the digests are equal, with both inputs saved'
+        diffService.isCompared(diff) == compared
+
+        where:
+        resultType                         | left   | right   | rightChunks                            | compared
+        ResultType.SAME_SIZE_BUT_DIFFERENT | 'left' | 'right' | null                                   | true
+        null                               | 'left' | 'left'  | null                                   | true
+        null                               | 'left' | 'right' | null                                   | false
+        null                               | null   | null    | null                                   | false
+        ResultType.SAME_SIZE_BUT_DIFFERENT | null   | 'right' | null                                   | false
+        ResultType.SAME_SIZE_BUT_DIFFERENT | 'left' | null    | null                                   | false
+        ResultType.SAME_SIZE_BUT_DIFFERENT | 'left' | null    | [new ChunkReference('chunkDigest', 3)] | true
     }
 
     @Unroll('diff should be able define the result #resultType ')
@@ -116,7 +550,7 @@ class DiffServiceImplSpec extends Specification {
         diff.right = new String(Base64.encoder.encode(rightInput.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)
 
         when: 'diff is executed'
-        DiffDto diffDto = diffService.diff(diff)
+        DiffDto diffDto = diffService.diff(diff, true)
 
         then: 'DiffDto should be returned with the resultType expected'
         noExceptionThrown()
@@ -139,7 +573,7 @@ class DiffServiceImplSpec extends Specification {
         diff.right = new String(Base64.encoder.encode(rightInput.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)
 
         when: 'diff is executed'
-        DiffDto diffDto = diffService.diff(diff)
+        DiffDto diffDto = diffService.diff(diff, true)
 
         then: 'DiffDto should be returned with the resultType expected'
         noExceptionThrown()
@@ -148,7 +582,173 @@ class DiffServiceImplSpec extends Specification {
 
         where:
         leftInput               | rightInput                | resultType                            | diffResults
-        '{"sameSize":"value"}'  | '{"property":"false"}'    | ResultType.SAME_SIZE_BUT_DIFFERENT    | Arrays.asList(DiffResultDto.builder().offset(3).length(10).build(), DiffResultDto.builder().offset(17).length(1).build(), DiffResultDto.builder().offset(22).length(1).build())
+        '{"sameSize":"value"}'  | '{"property":"false"}'    | ResultType.SAME_SIZE_BUT_DIFFERENT    | Arrays.asList(DiffResultDto.builder().offset(2).length(8).build(), DiffResultDto.builder().offset(13).length(1).build(), DiffResultDto.builder().offset(16).length(1).build())
+    }
+
+    def 'diff should return EQUAL if different base64 inputs decode to the same bytes'() {
+        given: 'a Diff with base64 inputs that only differ in the padding bits'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.left = 'QQ=='
+        diff.right = 'QR=='
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffService.diff(diff, true)
+
+        then: 'DiffDto should be returned with the EQUAL resultType'
+        noExceptionThrown()
+        diffDto.resultType == ResultType.EQUAL
+        diffDto.diffResults == null
+    }
+
+    def 'diff should compare the binary inputs loaded from the storage'() {
+        given: 'a Diff with a binary left input and a base64 right input'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.leftFileId = 'leftFileId'
+        diff.right = new String(Base64.encoder.encode('abcd'.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8)
+
+        1 * payloadRepository.load('leftFileId') >> ByteBuffer.wrap('abed'.getBytes(StandardCharsets.UTF_8))
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffService.diff(diff, true)
+
+        then: 'the binary input should be compared without being returned'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults == [DiffResultDto.builder().offset(2).length(1).build()]
+        diffDto.left == null
+        diffDto.right == diff.right
+    }
+
+    def 'diff should only compare the ranges of the chunked inputs outside their shared chunks'() {
+        given: 'a Diff with chunked inputs sharing their first and last chunks'
+        Diff diff = chunkedDiff()
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffService.diff(diff, true)
+
+        then: 'only the chunks not shared should be loaded and compared'
+        0 * chunkRepository.load(diff.leftChunks)
+        0 * chunkRepository.load(diff.rightChunks)
+        1 * diffEngine.compare({ ByteBuffer left -> left.remaining() == 4 }, { ByteBuffer right -> right.remaining() == 4 }, _)
+
+        and: 'the diff results should have the offsets of the whole inputs'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults.collect { [it.offset, it.length] } == [[4, 1], [7, 1]]
+    }
+
+    @Unroll('diff should return a page of the chunked inputs from the cursor #cursor with the limit #limit')
+    def 'diff should return a page of the chunked inputs outside their shared chunks'() {
+        given: 'a Diff with chunked inputs sharing their first and last chunks'
+        Diff diff = chunkedDiff()
+
+        when: 'diff is executed with a cursor and a limit'
+        DiffDto diffDto = diffService.diff(diff, cursor, limit, true)
+
+        then: 'the page of the diff results should be returned with the cursor of the next page'
+        diffDto.diffResults?.collect { [it.offset, it.length] } == diffResults
+        diffDto.nextCursor == nextCursor
+
+        where:
+        cursor  | limit | diffResults           | nextCursor
+        0       | 1     | [[4, 1]]              | 5
+        5       | 2     | [[7, 1]]              | null
+        8       | 2     | null                  | null
+    }
+
+    def 'diff should compare the whole chunked inputs if their chunks are not aligned'() {
+        given: 'a Diff with chunked inputs split at different offsets'
+        Diff diff = new Diff(diffId: 'diffId', leftChunks: [new ChunkReference('first', 4), new ChunkReference('second', 4)],
+            rightChunks: [new ChunkReference('other', 2), new ChunkReference('second', 6)])
+
+        1 * chunkRepository.load(diff.leftChunks) >> ByteBuffer.wrap('abcdefgh'.getBytes(StandardCharsets.UTF_8))
+        1 * chunkRepository.load(diff.rightChunks) >> ByteBuffer.wrap('abcdefgX'.getBytes(StandardCharsets.UTF_8))
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffService.diff(diff, true)
+
+        then: 'the whole inputs should be compared'
+        1 * diffEngine.compare({ ByteBuffer left -> left.remaining() == 8 }, _, _)
+        diffDto.diffResults.collect { [it.offset, it.length] } == [[7, 1]]
+    }
+
+    def 'diff should return DIFFERENT_SIZE from the sizes of the stored chunks without loading them'() {
+        given: 'a Diff with chunked inputs of different sizes'
+        Diff diff = new Diff(diffId: 'diffId', leftChunks: [new ChunkReference('first', 4)], rightChunks: [new ChunkReference('first', 4),
+            new ChunkReference('second', 4)])
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffService.diff(diff, true)
+
+        then: 'DIFFERENT_SIZE should be returned without loading any chunk'
+        0 * chunkRepository.load(_)
+        diffDto.resultType == ResultType.DIFFERENT_SIZE
+    }
+
+    def 'diff should load the whole inputs if the size of any of them is only known once loaded'() {
+        given: 'a Diff with a left input stored as a payload and a base64 right input'
+        Diff diff = new Diff(diffId: 'diffId', leftPayload: payloadCodec.encode('abcd'.bytes), right: 'YWJlZA==')
+
+        when: 'diff is executed with a cursor'
+        DiffDto diffDto = diffService.diff(diff, 0, 1, true)
+
+        then: 'the whole inputs should be compared'
+        1 * diffEngine.compare({ ByteBuffer left -> left.remaining() == 4 }, { ByteBuffer right -> right.remaining() == 4 }, _)
+        diffDto.diffResults.collect { [it.offset, it.length] } == [[2, 1]]
+    }
+
+    def 'save should build the Merkle tree of an input larger than a block'() {
+        given: 'a Diff with an input larger than a block'
+        byte[] decoded = ('abcd' * 20).bytes
+        Diff newDiff = new Diff(diffId: 'diffId', left: decoded.encodeBase64().toString())
+
+        1 * chunkRepository.store('diffId', _ as InputStream) >> chunks
+
+        when: 'save is executed'
+        Diff diffSaved = diffService.save(newDiff, InputType.LEFT)
+
+        then: 'the Merkle tree of the input should be saved with its chunks'
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, null, chunks, { MerkleTree tree ->
+            tree.blockSize == 64 && tree.levels*.length == [32, 16]
+        }, ContentDigest.digest(decoded)) >> Optional.empty()
+        diffSaved.leftTree.levels*.toList() == merkleTreeHasher.tree(decoded).levels*.toList()
+    }
+
+    def 'save with a stream should build the Merkle tree of a binary input larger than a block'() {
+        given: 'a binary input larger than a block'
+        byte[] content = ('abcd' * 20).bytes
+
+        1 * chunkRepository.store('diffId', _ as InputStream) >> { String diffId, InputStream stream ->
+            stream.bytes
+            chunks
+        }
+
+        when: 'save is executed'
+        Diff diffSaved = diffService.save('diffId', InputType.RIGHT, new ByteArrayInputStream(content))
+
+        then: 'the Merkle tree of the streamed input should be saved with its chunks'
+        1 * diffRepository.upsertInput('diffId', InputType.RIGHT, null, chunks, _ as MerkleTree, ContentDigest.digest(content)) >> Optional.empty()
+        diffSaved.rightTree.levels*.toList() == merkleTreeHasher.tree(content).levels*.toList()
+    }
+
+    def 'diff should only compare the blocks of the inputs whose hashes differ in their Merkle trees'() {
+        given: 'a Diff with inputs of four blocks differing in the third block'
+        byte[] left = ('abcdefgh' * 32).bytes
+        byte[] right = left.clone()
+        right[150] = 88 as byte
+
+        Diff diff = new Diff(diffId: 'diffId', leftPayload: payloadCodec.encode(left), rightPayload: payloadCodec.encode(right),
+            leftTree: merkleTreeHasher.tree(left), rightTree: merkleTreeHasher.tree(right))
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffService.diff(diff, true)
+
+        then: 'only the differing block should be compared'
+        1 * diffEngine.compare({ ByteBuffer leftBlock -> leftBlock.position() == 128 && leftBlock.limit() == 192 }, _, _)
+
+        and: 'the diff results should have the offsets of the whole inputs'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults.collect { [it.offset, it.length] } == [[150, 1]]
     }
 
     def 'diff should throw MissingInputException if any input is missing'() {
@@ -160,7 +760,7 @@ class DiffServiceImplSpec extends Specification {
         diff.right = rightInput
 
         when: 'diff is executed'
-        diffService.diff(diff)
+        diffService.diff(diff, true)
 
         then: 'MissingInputException is thrown'
         MissingInputException missingInputException = thrown(MissingInputException)
@@ -177,4 +777,889 @@ class DiffServiceImplSpec extends Specification {
         ''                      | ''
         ''                      | null
     }
+
+    def 'diff should return EQUAL without loading the inputs if their digests are equal'() {
+        given: 'a Diff with binary inputs having the same digest'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.leftFileId = 'leftFileId'
+        diff.rightFileId = 'rightFileId'
+        diff.leftDigest = 'digest'
+        diff.rightDigest = 'digest'
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffService.diff(diff, true)
+
+        then: 'EQUAL should be returned without loading nor comparing the inputs'
+        diffDto.resultType == ResultType.EQUAL
+        0 * payloadRepository.load(_)
+        0 * diffEngine.compare(_, _)
+    }
+
+    def 'diff should cache the result by the digests of the inputs'() {
+        given: 'two Diffs with the same digests'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.leftFileId = 'leftFileId'
+        diff.rightFileId = 'rightFileId'
+        diff.leftDigest = 'leftDigest'
+        diff.rightDigest = 'rightDigest'
+
+        Diff anotherDiff = new Diff()
+        anotherDiff.diffId = 'anotherDiffId'
+        anotherDiff.leftFileId = 'anotherLeftFileId'
+        anotherDiff.rightFileId = 'anotherRightFileId'
+        anotherDiff.leftDigest = 'leftDigest'
+        anotherDiff.rightDigest = 'rightDigest'
+
+        when: 'diff is executed for both Diffs'
+        DiffDto diffDto = diffService.diff(diff, true)
+        DiffDto anotherDiffDto = diffService.diff(anotherDiff, true)
+
+        then: 'the inputs should be loaded and compared only once'
+        1 * payloadRepository.load('leftFileId') >> ByteBuffer.wrap('abcd'.getBytes(StandardCharsets.UTF_8))
+        1 * payloadRepository.load('rightFileId') >> ByteBuffer.wrap('abed'.getBytes(StandardCharsets.UTF_8))
+        0 * payloadRepository.load(_)
+        1 * diffEngine.compare(_, _)
+
+        and: 'both Diffs should have the same result'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        anotherDiffDto.diffId == 'anotherDiffId'
+        anotherDiffDto.resultType == diffDto.resultType
+        anotherDiffDto.diffResults == [DiffResultDto.builder().offset(2).length(1).build()]
+        diffResultCache.getIfPresent('leftDigest:rightDigest').resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+    }
+
+    @Unroll('save should compare the inputs in background when the input type #inputType completes the Diff')
+    def 'save should compare the inputs in background when the other input is already saved'() {
+        given: 'a Diff completed by the input type'
+        Diff newDiff = new Diff()
+        newDiff.diffId = 'diffId'
+        newDiff.left = 'YWJjZA=='
+        newDiff.right = 'YWJlZA=='
+
+        Diff replacedDiff = new Diff()
+        replacedDiff.leftDigest = replacedLeftDigest
+        replacedDiff.rightDigest = replacedRightDigest
+
+        Diff storedDiff = storedDiff()
+
+        1 * diffRepository.upsertInput('diffId', inputType, _ as byte[], null, null, _ as String) >> Optional.of(replacedDiff)
+
+        when: 'save is executed'
+        diffService.save(newDiff, inputType)
+
+        then: 'the inputs should be found in the primary, compared and the result saved'
+        1 * diffRepository.findById('diffId') >> Optional.of(storedDiff)
+        0 * diffRepository.findForComparison(*_)
+        1 * diffRepository.saveResult('diffId', leftDigest, rightDigest, ResultType.SAME_SIZE_BUT_DIFFERENT, [new DiffResult(2, 1)]) >> true
+
+        where:
+        inputType       | replacedLeftDigest    | replacedRightDigest
+        InputType.LEFT  | null                  | rightDigest
+        InputType.RIGHT | leftDigest            | null
+    }
+
+    def 'save should store the result of equal inputs compared in background without diff results'() {
+        given: 'a Diff completed by an input equal to the other one'
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, _ as byte[], null, null, leftDigest) >> Optional.of(new Diff(rightDigest: leftDigest))
+
+        when: 'save is executed'
+        diffService.save(new Diff(diffId: 'diffId', left: 'YWJjZA=='), InputType.LEFT)
+
+        then: 'the result should be saved without diff results'
+        1 * diffRepository.findById('diffId') >> Optional.of(new Diff(diffId: 'diffId', leftDigest: leftDigest, rightDigest: leftDigest))
+        1 * diffRepository.saveResult('diffId', leftDigest, leftDigest, ResultType.EQUAL, null) >> true
+    }
+
+    def 'save should not fail if the comparison in background is rejected'() {
+        given: 'a full executor'
+        TaskExecutor fullExecutor = Mock(TaskExecutor)
+        fullExecutor.execute(_ as Runnable) >> { throw new TaskRejectedException('full') }
+        DiffService diffServiceRejecting = new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine, editEngine,
+            diffResultCache, fullExecutor, new SyncTaskExecutor(), payloadLogArguments, diffMetrics, admissionController)
+
+        Diff newDiff = new Diff()
+        newDiff.diffId = 'diffId'
+        newDiff.left = 'YWJjZA=='
+
+        Diff replacedDiff = new Diff()
+        replacedDiff.rightDigest = 'rightDigest'
+
+        1 * diffRepository.upsertInput('diffId', InputType.LEFT, payloadCodec.encode('YWJjZA=='.decodeBase64()), null, null, _ as String) >> Optional.of(replacedDiff)
+
+        when: 'save is executed'
+        Diff diffSaved = diffServiceRejecting.save(newDiff, InputType.LEFT)
+
+        then: 'the input should be saved without comparing the inputs'
+        diffSaved.left == 'YWJjZA=='
+        0 * diffRepository.saveResult(*_)
+    }
+
+    def 'diff should return the stored result without comparing the inputs'() {
+        given: 'a Diff with a stored result'
+        Diff diff = storedDiff()
+        diff.resultType = ResultType.SAME_SIZE_BUT_DIFFERENT
+        diff.diffResults = [new DiffResult(9, 9)]
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffService.diff(diff, true)
+
+        then: 'the stored result should be returned'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults == [DiffResultDto.builder().offset(9).length(9).build()]
+        0 * diffEngine.compare(_, _)
+    }
+
+    def 'diff should decode the stored payloads and return them as base64'() {
+        given: 'a Diff with the inputs stored as payloads'
+        Diff diff = new Diff(diffId: 'diffId', leftPayload: payloadCodec.encode('abcd'.bytes), rightPayload: payloadCodec.encode('abed'.bytes))
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffService.diff(diff, true)
+
+        then: 'the decoded payloads should be compared and returned as base64'
+        diffDto.left == 'YWJjZA=='
+        diffDto.right == 'YWJlZA=='
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults == [DiffResultDto.builder().offset(2).length(1).build()]
+    }
+
+    @Unroll('#operation should not encode the stored payloads as base64 if the inputs are not included')
+    def 'the comparisons should not encode the stored payloads as base64 if the inputs are not included'() {
+        given: 'a Diff with the inputs stored as payloads'
+        Diff diff = new Diff(diffId: 'diffId', leftPayload: payloadCodec.encode('abcd'.bytes), rightPayload: payloadCodec.encode('abed'.bytes))
+
+        when: 'the comparison is executed without the inputs'
+        DiffDto diffDto = comparison(diffService, diff)
+
+        then: 'the result should be returned without the inputs'
+        diffDto.left == null
+        diffDto.right == null
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+
+        where:
+        operation   | comparison
+        'diff'      | { DiffService service, Diff compared -> service.diff(compared, false) }
+        'page'      | { DiffService service, Diff compared -> service.diff(compared, 0, 1, false) }
+        'summary'   | { DiffService service, Diff compared -> service.summary(compared, 0, 1, false) }
+        'window'    | { DiffService service, Diff compared -> service.window(compared, 0, 4, false) }
+        'edits'     | { DiffService service, Diff compared -> service.edits(compared, false) }
+    }
+
+    def 'summary should merge and cap the diff results while summarizing all of them in a single pass'() {
+        given: 'a Diff with inputs differing in three runs'
+        Diff diff = new Diff(diffId: 'diffId', left: 'abcdefgh'.bytes.encodeBase64().toString(), right: 'aXcXefgX'.bytes.encodeBase64().toString())
+
+        when: 'summary is executed merging the runs one byte apart and keeping one run'
+        DiffDto diffDto = diffService.summary(diff, 1, 1, true)
+
+        then: 'the inputs should be compared once'
+        1 * diffEngine.compare(_, _, _)
+
+        and: 'only the first merged run should be returned with the summary of all of them'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults == [DiffResultDto.builder().offset(1).length(3).build()]
+        diffDto.summary == DiffSummaryDto.builder().differingBytes(3).runs(2).firstOffset(1).lastOffset(7).truncated(true).build()
+        meterRegistry.get('diff.service.diff').tag('mode', 'summary').timer().count() == 1
+    }
+
+    def 'summary should merge the stored diff results without comparing the inputs'() {
+        given: 'a Diff with a stored result'
+        Diff diff = storedDiff()
+        diff.resultType = ResultType.SAME_SIZE_BUT_DIFFERENT
+        diff.diffResults = [new DiffResult(0, 1), new DiffResult(2, 1)]
+
+        when: 'summary is executed'
+        DiffDto diffDto = diffService.summary(diff, 1, 10, true)
+
+        then: 'the stored diff results should be merged'
+        0 * diffEngine.compare(*_)
+        diffDto.diffResults == [DiffResultDto.builder().offset(0).length(3).build()]
+        diffDto.summary == DiffSummaryDto.builder().differingBytes(2).runs(1).firstOffset(0).lastOffset(2).truncated(false).build()
+    }
+
+    def 'summary should not summarize inputs with different sizes'() {
+        given: 'a Diff with inputs of different sizes'
+        Diff diff = new Diff(diffId: 'diffId', left: 'YWJjZA==', right: 'YWJj')
+
+        when: 'summary is executed'
+        DiffDto diffDto = diffService.summary(diff, 0, 10, true)
+
+        then: 'only the result type should be returned'
+        diffDto.resultType == ResultType.DIFFERENT_SIZE
+        diffDto.diffResults == null
+        diffDto.summary == null
+    }
+
+    def 'window should compare only the window of the inputs and return the diff results with their absolute offsets'() {
+        given: 'a Diff with inputs differing in two runs'
+        Diff diff = new Diff(diffId: 'diffId', left: 'abcdefgh'.bytes.encodeBase64().toString(), right: 'aXXXefgX'.bytes.encodeBase64().toString())
+
+        when: 'window is executed from the middle of the first run'
+        DiffDto diffDto = diffService.window(diff, 2, 8, true)
+
+        then: 'only the window should be compared'
+        1 * diffEngine.compare({ ByteBuffer left -> left.remaining() == 6 }, { ByteBuffer right -> right.remaining() == 6 }, _)
+
+        and: 'the diff results should have the offsets of the whole inputs'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults.collect { [it.offset, it.length] } == [[2, 2], [7, 1]]
+        meterRegistry.get('diff.service.diff').tag('mode', 'window').timer().count() == 1
+    }
+
+    def 'window should load only the chunks holding the window'() {
+        given: 'a Diff with chunked inputs'
+        Diff diff = chunkedDiff()
+
+        when: 'window is executed within the middle chunks'
+        DiffDto diffDto = diffService.window(diff, 4, 7, true)
+
+        then: 'only the middle chunks should be loaded'
+        1 * chunkRepository.load([new ChunkReference('left', 4)]) >> ByteBuffer.wrap('efgh'.getBytes(StandardCharsets.UTF_8))
+        1 * chunkRepository.load([new ChunkReference('right', 4)]) >> ByteBuffer.wrap('XfgY'.getBytes(StandardCharsets.UTF_8))
+
+        and: 'only the diff results within the window should be returned'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults.collect { [it.offset, it.length] } == [[4, 1]]
+    }
+
+    def 'window should load only the part of the files in GridFS holding the window'() {
+        given: 'a Diff with binary inputs'
+        Diff diff = new Diff(diffId: 'diffId', leftFileId: 'leftFileId', rightFileId: 'rightFileId')
+
+        when: 'window is executed'
+        DiffDto diffDto = diffService.window(diff, 1, 3, true)
+
+        then: 'only the window of the files should be loaded'
+        1 * payloadRepository.load('leftFileId', 1, 3) >> ByteBuffer.wrap('bc'.getBytes(StandardCharsets.UTF_8))
+        1 * payloadRepository.load('rightFileId', 1, 3) >> ByteBuffer.wrap('bX'.getBytes(StandardCharsets.UTF_8))
+        0 * payloadRepository.load(_)
+
+        and: 'the diff results should have the offsets of the whole inputs'
+        diffDto.diffResults.collect { [it.offset, it.length] } == [[2, 1]]
+    }
+
+    def 'window should return EQUAL without loading any chunk if the window is beyond the inputs'() {
+        given: 'a Diff with chunked inputs'
+        Diff diff = chunkedDiff()
+
+        when: 'window is executed after the end of the inputs'
+        DiffDto diffDto = diffService.window(diff, 20, 30, true)
+
+        then: 'no chunk should be loaded'
+        0 * chunkRepository.load(_)
+        diffDto.resultType == ResultType.EQUAL
+        diffDto.diffResults == null
+    }
+
+    @Unroll('window should bound the known result #resultType to the window without comparing the inputs')
+    def 'window should bound the known result to the window without comparing the inputs'() {
+        given: 'a Diff with a stored result'
+        Diff diff = storedDiff()
+        diff.resultType = resultType
+        diff.diffResults = storedResults?.collect { new DiffResult(it[0], it[1]) }
+
+        when: 'window is executed'
+        DiffDto diffDto = diffService.window(diff, 3, 10, true)
+
+        then: 'the stored diff results should be bounded to the window'
+        0 * diffEngine.compare(*_)
+        diffDto.resultType == windowResultType
+        diffDto.diffResults?.collect { [it.offset, it.length] } == diffResults
+
+        where:
+        resultType                         | storedResults      | windowResultType                   | diffResults
+        ResultType.EQUAL                   | null               | ResultType.EQUAL                   | null
+        ResultType.SAME_SIZE_BUT_DIFFERENT | [[0, 1], [2, 3]]   | ResultType.SAME_SIZE_BUT_DIFFERENT | [[3, 2]]
+        ResultType.SAME_SIZE_BUT_DIFFERENT | [[0, 1], [11, 1]] | ResultType.EQUAL                   | null
+    }
+
+    @Unroll('window from #from to #to of inputs with different sizes should return #windowResultType')
+    def 'window should compare the windows of inputs with different sizes'() {
+        given: 'a Diff with inputs of different sizes and a stored result'
+        Diff diff = new Diff(diffId: 'diffId', left: 'YWJjZA==', right: 'YWJj', resultType: ResultType.DIFFERENT_SIZE)
+
+        when: 'window is executed'
+        DiffDto diffDto = diffService.window(diff, from, to, true)
+
+        then: 'the windows bounded by the size of each input should be compared'
+        diffDto.resultType == windowResultType
+        diffDto.diffResults == null
+
+        where:
+        from | to | windowResultType
+        0    | 3  | ResultType.EQUAL
+        0    | 4  | ResultType.DIFFERENT_SIZE
+    }
+
+    def 'edits should return the edit script of inputs with different sizes'() {
+        given: 'a Diff with inputs of different sizes'
+        Diff diff = new Diff(diffId: 'diffId', left: 'abcdef'.bytes.encodeBase64().toString(), right: 'abXdf'.bytes.encodeBase64().toString())
+
+        when: 'edits is executed'
+        DiffDto diffDto = diffService.edits(diff, true)
+
+        then: 'the edit script should be returned with the result type'
+        diffDto.resultType == ResultType.DIFFERENT_SIZE
+        diffDto.edits == [
+            EditDto.builder().type(EditType.EQUAL).leftOffset(0).rightOffset(0).length(2).build(),
+            EditDto.builder().type(EditType.DELETE).leftOffset(2).rightOffset(2).length(1).build(),
+            EditDto.builder().type(EditType.INSERT).leftOffset(3).rightOffset(2).length(1).build(),
+            EditDto.builder().type(EditType.EQUAL).leftOffset(3).rightOffset(3).length(1).build(),
+            EditDto.builder().type(EditType.DELETE).leftOffset(4).rightOffset(4).length(1).build(),
+            EditDto.builder().type(EditType.EQUAL).leftOffset(5).rightOffset(4).length(1).build(),
+        ]
+        !diffDto.coarse
+        meterRegistry.get('diff.service.diff').tag('mode', 'edits').timer().count() == 1
+    }
+
+    def 'edits should return the coarse edit script once the budget is exhausted'() {
+        given: 'a Diff with inputs of different sizes and an edit engine without budget'
+        DiffService diffServiceWithoutBudget = new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine, new MyersEditEngine(0, 1000L),
+            diffResultCache, new SyncTaskExecutor(), new SyncTaskExecutor(), payloadLogArguments, diffMetrics, admissionController)
+
+        Diff diff = new Diff(diffId: 'diffId', left: 'abcdef'.bytes.encodeBase64().toString(), right: 'abXdf'.bytes.encodeBase64().toString())
+
+        when: 'edits is executed'
+        DiffDto diffDto = diffServiceWithoutBudget.edits(diff, true)
+
+        then: 'the range after the common prefix and suffix should be replaced as a whole'
+        diffDto.edits == [
+            EditDto.builder().type(EditType.EQUAL).leftOffset(0).rightOffset(0).length(2).build(),
+            EditDto.builder().type(EditType.DELETE).leftOffset(2).rightOffset(2).length(3).build(),
+            EditDto.builder().type(EditType.INSERT).leftOffset(5).rightOffset(2).length(2).build(),
+            EditDto.builder().type(EditType.EQUAL).leftOffset(5).rightOffset(4).length(1).build(),
+        ]
+        diffDto.coarse
+    }
+
+    @Unroll('window of inputs with different sizes should find the Diff again with the payloads left out, with the left digest #leftDigestFound')
+    def 'window should find the Diff again with the payloads left out to compare the windows of inputs with different sizes'() {
+        given: 'a Diff with a stored result of inputs with different sizes, found without the payloads'
+        Diff diff = new Diff(diffId: 'diffId', left: left, leftDigest: leftDigestFound, rightDigest: rightDigest, resultType: ResultType.DIFFERENT_SIZE)
+
+        when: 'window is executed'
+        DiffDto diffDto = diffService.window(diff, 0, 4, false)
+
+        then: 'the Diff should be found again with its payloads and the windows compared'
+        1 * diffRepository.findForComparison('diffId', true) >> Optional.of(
+            new Diff(diffId: 'diffId', left: 'YWJjZA==', right: 'YWJj', resultType: ResultType.DIFFERENT_SIZE))
+        diffDto.resultType == ResultType.DIFFERENT_SIZE
+
+        where:
+        left       | leftDigestFound
+        null       | leftDigest
+        'YWJjZA==' | null
+    }
+
+    def 'edits should find the Diff again with the payloads left out to find the edit script'() {
+        given: 'a Diff with a stored result of inputs with different sizes, found without the payloads'
+        Diff diff = new Diff(diffId: 'diffId', leftDigest: leftDigest, rightDigest: rightDigest, resultType: ResultType.DIFFERENT_SIZE)
+
+        when: 'edits is executed'
+        DiffDto diffDto = diffService.edits(diff, false)
+
+        then: 'the Diff should be found again with its payloads and the edit script returned'
+        1 * diffRepository.findForComparison('diffId', true) >> Optional.of(
+            new Diff(diffId: 'diffId', left: 'abcdef'.bytes.encodeBase64().toString(), right: 'abXdf'.bytes.encodeBase64().toString()))
+        diffDto.resultType == ResultType.DIFFERENT_SIZE
+        diffDto.edits.size() == 6
+        diffDto.left == null
+    }
+
+    def 'edits should not find the edit script of inputs with the same size'() {
+        given: 'a Diff with inputs of the same size'
+        Diff diff = new Diff(diffId: 'diffId', left: 'YWJjZA==', right: 'YWJlZA==')
+
+        when: 'edits is executed'
+        DiffDto diffDto = diffService.edits(diff, true)
+
+        then: 'only the diff results should be returned'
+        0 * editEngine.compare(_, _)
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults == [DiffResultDto.builder().offset(2).length(1).build()]
+        diffDto.edits == null
+        diffDto.coarse == null
+    }
+
+    def 'diff should wait for the comparison in background of the same inputs'() {
+        given: 'a comparison in background of the inputs'
+        List<Runnable> comparisons = []
+        DiffService diffServiceDeferring = new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine, editEngine, diffResultCache,
+            { Runnable comparison -> comparisons << comparison } as TaskExecutor, new SyncTaskExecutor(), payloadLogArguments, diffMetrics, admissionController)
+
+        Diff diff = storedDiff()
+        _ * diffRepository.findById('diffId') >> Optional.of(diff)
+
+        diffRepository.upsertInput('diffId', InputType.RIGHT, payloadCodec.encode('YWJlZA=='.decodeBase64()), null, null, rightDigest) >> Optional.of(replacedDiff())
+
+        diffServiceDeferring.save(rightDiff(), InputType.RIGHT)
+
+        when: 'diff is executed while the comparison is in progress'
+        Thread.start {
+            sleep(100)
+            comparisons*.run()
+        }
+        DiffDto diffDto = diffServiceDeferring.diff(diff, true)
+
+        then: 'the result of the comparison in background should be returned'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults == [DiffResultDto.builder().offset(2).length(1).build()]
+        1 * diffEngine.compare(_, _)
+    }
+
+    def 'diff should compare the inputs again if the comparison in background failed'() {
+        given: 'a comparison in background that fails'
+        List<Runnable> comparisons = []
+        DiffService diffServiceDeferring = new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine, editEngine, diffResultCache,
+            { Runnable comparison -> comparisons << comparison } as TaskExecutor, new SyncTaskExecutor(), payloadLogArguments, diffMetrics, admissionController)
+
+        Diff diff = storedDiff()
+        1 * diffRepository.findById('diffId') >> { throw new IllegalStateException('failure') }
+
+        diffRepository.upsertInput('diffId', InputType.RIGHT, payloadCodec.encode('YWJlZA=='.decodeBase64()), null, null, rightDigest) >> Optional.of(replacedDiff())
+
+        diffServiceDeferring.save(rightDiff(), InputType.RIGHT)
+
+        when: 'diff is executed while the comparison is in progress'
+        Thread.start {
+            sleep(100)
+            comparisons*.run()
+        }
+        DiffDto diffDto = diffServiceDeferring.diff(diff, true)
+
+        then: 'the inputs should be compared again'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        1 * diffEngine.compare(_, _)
+        0 * diffRepository.saveResult(*_)
+    }
+
+    @Unroll('diff should compare the inputs again if the #inputType input was replaced before the comparison in background')
+    def 'diff should compare the inputs again if an input was replaced before the comparison in background'() {
+        given: 'a comparison in background of inputs replaced before it runs'
+        List<Runnable> comparisons = []
+        DiffService diffServiceDeferring = new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine, editEngine, diffResultCache,
+            { Runnable comparison -> comparisons << comparison } as TaskExecutor, new SyncTaskExecutor(), payloadLogArguments, diffMetrics, admissionController)
+
+        Diff diff = storedDiff()
+        1 * diffRepository.findById('diffId') >> Optional.of(new Diff(diffId: 'diffId', left: 'YWJjZA==', right: 'YWJjZA==', leftDigest: storedLeftDigest,
+            rightDigest: storedRightDigest))
+
+        diffRepository.upsertInput('diffId', InputType.RIGHT, payloadCodec.encode('YWJlZA=='.decodeBase64()), null, null, rightDigest) >> Optional.of(replacedDiff())
+
+        diffServiceDeferring.save(rightDiff(), InputType.RIGHT)
+
+        when: 'diff is executed with the replaced inputs while the comparison is in progress'
+        Thread.start {
+            sleep(100)
+            comparisons*.run()
+        }
+        DiffDto diffDto = diffServiceDeferring.diff(diff, true)
+
+        then: 'the comparison in background should not compare the new inputs under the replaced ones'
+        0 * diffRepository.saveResult(*_)
+
+        and: 'the replaced inputs should be compared again'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults == [DiffResultDto.builder().offset(2).length(1).build()]
+        1 * diffEngine.compare(_, _)
+
+        where:
+        inputType       | storedLeftDigest | storedRightDigest
+        InputType.LEFT  | 'newDigest'      | rightDigest
+        InputType.RIGHT | leftDigest       | 'newDigest'
+    }
+
+    @Unroll('diff should return the page of the diff results from the cursor #cursor limited to #limit')
+    def 'diff should return a page of the diff results'() {
+        given: 'a Diff with base64 inputs'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.left = 'YWJjZGVmZ2g='
+        diff.right = 'YVhjZFhmZ1g='
+
+        when: 'diff is executed with a cursor and a limit'
+        DiffDto diffDto = diffService.diff(diff, cursor, limit, true)
+
+        then: 'the page of the diff results should be returned with the cursor of the next page'
+        diffDto.resultType == resultType
+        diffDto.diffResults?.collect { [it.offset, it.length] } == diffResults
+        diffDto.nextCursor == nextCursor
+
+        where:
+        cursor  | limit | resultType                            | diffResults               | nextCursor
+        0       | 2     | ResultType.SAME_SIZE_BUT_DIFFERENT    | [[1, 1], [4, 1]]          | 5
+        5       | 2     | ResultType.SAME_SIZE_BUT_DIFFERENT    | [[7, 1]]                  | null
+        0       | 3     | ResultType.SAME_SIZE_BUT_DIFFERENT    | [[1, 1], [4, 1], [7, 1]]  | null
+        8       | 2     | ResultType.SAME_SIZE_BUT_DIFFERENT    | null                      | null
+        100     | 2     | ResultType.SAME_SIZE_BUT_DIFFERENT    | null                      | null
+    }
+
+    @Unroll('diff should return the result type #resultType of the whole inputs for an empty page from the cursor #cursor')
+    def 'diff should return the result type of the whole inputs for an empty page'() {
+        given: 'a Diff with base64 inputs without digests, equal ones only differing in the padding bits'
+        Diff diff = new Diff(diffId: 'diffId', left: 'YWJjZGVmZ2g=', right: right)
+
+        when: 'diff is executed with a cursor after the last diff result'
+        DiffDto diffDto = diffService.diff(diff, cursor, 2, true)
+
+        then: 'the result type should be the one of the whole inputs'
+        diffDto.resultType == resultType
+        diffDto.diffResults == null
+        diffDto.nextCursor == null
+
+        where:
+        right           | cursor    | resultType
+        'YWJjZGVmZ2h='  | 4         | ResultType.EQUAL
+        'YWJjZGVmZ2h='  | 100       | ResultType.EQUAL
+        'YVhjZGVmZ2g='  | 4         | ResultType.SAME_SIZE_BUT_DIFFERENT
+    }
+
+    @Unroll('diff should return the page of #resultType for inputs that are not different')
+    def 'diff should return an empty page for inputs that are not different'() {
+        given: 'a Diff with base64 inputs'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.left = left
+        diff.right = right
+
+        when: 'diff is executed with a cursor and a limit'
+        DiffDto diffDto = diffService.diff(diff, 0, 2, true)
+
+        then: 'the result type should be returned without diff results'
+        diffDto.resultType == resultType
+        diffDto.diffResults == null
+        diffDto.nextCursor == null
+
+        where:
+        left        | right         | resultType
+        'QQ=='      | 'QR=='        | ResultType.EQUAL
+        'QQ=='      | 'QQ=='        | ResultType.EQUAL
+        'QQ=='      | 'QUI='        | ResultType.DIFFERENT_SIZE
+    }
+
+    def 'diff should return a page of the stored result without comparing the inputs'() {
+        given: 'a Diff with a stored result'
+        Diff diff = storedDiff()
+        diff.resultType = ResultType.SAME_SIZE_BUT_DIFFERENT
+        diff.diffResults = [new DiffResult(1, 1), new DiffResult(4, 1), new DiffResult(7, 1)]
+
+        when: 'diff is executed with a cursor and a limit'
+        DiffDto diffDto = diffService.diff(diff, 2, 1, true)
+
+        then: 'the page should be taken from the stored result'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.diffResults == [DiffResultDto.builder().offset(4).length(1).build()]
+        diffDto.nextCursor == 5
+        0 * diffEngine.compare(*_)
+        0 * payloadRepository.load(_)
+    }
+
+    def 'diff should return a page of the stored result EQUAL'() {
+        given: 'a Diff with the stored result EQUAL'
+        Diff diff = storedDiff()
+        diff.resultType = ResultType.EQUAL
+
+        when: 'diff is executed with a cursor and a limit'
+        DiffDto diffDto = diffService.diff(diff, 0, 1, true)
+
+        then: 'the stored result should be returned without diff results'
+        diffDto.resultType == ResultType.EQUAL
+        diffDto.diffResults == null
+        0 * diffEngine.compare(*_)
+    }
+
+    def 'diff should return a page of the cached result and compare the inputs if it is not cached'() {
+        given: 'a Diff with digests'
+        Diff diff = storedDiff()
+
+        when: 'diff is executed with a cursor and a limit before the result is cached'
+        DiffDto diffDtoCompared = diffService.diff(diff, 0, 1, true)
+
+        then: 'the inputs should be compared'
+        diffDtoCompared.diffResults == [DiffResultDto.builder().offset(2).length(1).build()]
+        1 * diffEngine.compare(*_)
+
+        when: 'diff is executed with a cursor and a limit after the result is cached'
+        diffResultCache.put("${leftDigest}:${rightDigest}".toString(), DiffDto.builder()
+            .resultType(ResultType.SAME_SIZE_BUT_DIFFERENT).diffResults([DiffResultDto.builder().offset(2).length(1).build()]).build())
+        DiffDto diffDtoCached = diffService.diff(diff, 0, 1, true)
+
+        then: 'the cached result should be returned'
+        diffDtoCached.diffResults == [DiffResultDto.builder().offset(2).length(1).build()]
+        0 * diffEngine.compare(*_)
+    }
+
+    def 'diff with a listener should pass each diff result to the listener'() {
+        given: 'a Diff with base64 inputs'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.left = 'YWJjZGVmZ2g='
+        diff.right = 'YVhjZFhmZ1g='
+
+        List<List<Integer>> diffResults = []
+
+        when: 'diff is executed with a listener'
+        DiffDto diffDto = diffService.diff(diff) { int offset, int length ->
+            diffResults << [offset, length]
+            true
+        }
+
+        then: 'the diff results should be passed to the listener and only the result type returned'
+        diffResults == [[1, 1], [4, 1], [7, 1]]
+        diffDto.diffId == 'diffId'
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+        diffDto.left == null
+        diffDto.diffResults == null
+    }
+
+    def 'checkInputs should not throw MissingInputException for the inputs found without their payloads'() {
+        given: 'a Diff found without the payloads of its inputs'
+        Diff diff = new Diff(diffId: 'diffId', leftDigest: leftDigest, rightDigest: rightDigest)
+
+        when: 'checkInputs is executed'
+        diffService.checkInputs(diff)
+
+        then: 'the inputs with a digest should be saved'
+        noExceptionThrown()
+    }
+
+    def 'checkInputs should throw MissingInputException if any input is missing'() {
+        given: 'a Diff without the right input'
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.leftFileId = 'leftFileId'
+
+        when: 'checkInputs is executed'
+        diffService.checkInputs(diff)
+
+        then: 'MissingInputException is thrown'
+        MissingInputException missingInputException = thrown(MissingInputException)
+        missingInputException.message == 'left and/or right input is missing for diffId: diffId'
+    }
+
+    def 'save and diff should record the time, the payload sizes and the results'() {
+        given: 'a Diff with both inputs'
+        Diff diff = storedDiff()
+
+        diffRepository.upsertInput(*_) >> Optional.empty()
+        diffRepository.findById('diffId') >> Optional.of(diff)
+        diffRepository.findForComparison('diffId', true) >> Optional.of(diff)
+        chunkRepository.store('diffId', _ as InputStream) >> { String diffId, InputStream inputStream ->
+            inputStream.bytes
+            chunks
+        }
+
+        when: 'the inputs are saved, found and compared'
+        diffService.save(diff, InputType.LEFT)
+        diffService.save('diffId', InputType.RIGHT, new ByteArrayInputStream('abcdef'.getBytes(StandardCharsets.UTF_8)))
+        diffService.diff(diffService.findById('diffId', true), true)
+        diffService.diff(diff, 0, 1, true)
+        diffService.diff(diff) { int offset, int length -> true }
+
+        then: 'the time of each operation should be recorded'
+        meterRegistry.get('diff.service.save').tag('inputType', 'LEFT').timer().count() == 1
+        meterRegistry.get('diff.service.save').tag('inputType', 'RIGHT').timer().count() == 1
+        meterRegistry.get('diff.service.find').timer().count() == 1
+        meterRegistry.get('diff.service.diff').tag('mode', 'full').timer().count() == 1
+        meterRegistry.get('diff.service.diff').tag('mode', 'page').timer().count() == 1
+        meterRegistry.get('diff.service.diff').tag('mode', 'stream').timer().count() == 1
+
+        and: 'the decoded size of each input should be recorded'
+        meterRegistry.get('diff.payload.size').tag('inputType', 'LEFT').summary().totalAmount() == 4
+        meterRegistry.get('diff.payload.size').tag('inputType', 'RIGHT').summary().totalAmount() == 6
+
+        and: 'the result type and the diff results of the whole comparisons should be recorded'
+        meterRegistry.get('diff.results').tag('resultType', 'SAME_SIZE_BUT_DIFFERENT').counter().count() == 2
+        meterRegistry.get('diff.result.runs').summary().totalAmount() == 2
+    }
+
+    def 'save should be admitted with the decoded size of the input'() {
+        given: 'an admission controller'
+        AdmissionController mockAdmissionController = Mock(AdmissionController)
+        DiffService diffServiceAdmitted = admittedDiffService(mockAdmissionController)
+
+        diffRepository.upsertInput(*_) >> Optional.empty()
+        chunkRepository.store('diffId', _ as InputStream) >> chunks
+
+        when: 'the inputs are saved'
+        diffServiceAdmitted.save(storedDiff(), InputType.LEFT)
+        diffServiceAdmitted.save('diffId', InputType.RIGHT, new ByteArrayInputStream('abed'.getBytes(StandardCharsets.UTF_8)))
+        diffServiceAdmitted.saveAll([new Diff(diffId: 'diffId', left: 'YWJjZA=='), new Diff(diffId: 'otherDiffId', right: 'YWJlZA==')])
+
+        then: 'the base64 inputs should be admitted with their decoded size'
+        1 * mockAdmissionController.admit(6, _) >> { long size, Supplier<Diff> save -> save.get() }
+        1 * mockAdmissionController.admit(12, _) >> { long size, Supplier<List<Diff>> save -> save.get() }
+
+        and: 'the streamed input should be admitted as a stream'
+        1 * mockAdmissionController.admitStream(_) >> { Supplier<Diff> save -> save.get() }
+    }
+
+    @Unroll('diff should be admitted with the size of both #storage inputs')
+    def 'diff should be admitted with the size of both inputs'() {
+        given: 'an admission controller'
+        AdmissionController mockAdmissionController = Mock(AdmissionController)
+        DiffService diffServiceAdmitted = admittedDiffService(mockAdmissionController)
+
+        Diff diff = [base64: storedDiff(), payload: payloadDiff(), chunked: chunkedDiff()][storage]
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffServiceAdmitted.diff(diff, true)
+
+        then: 'the comparison should be admitted with the size of both inputs'
+        1 * mockAdmissionController.compare(size, _) >> { long inputsSize, Supplier<DiffDto> comparison -> comparison.get() }
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+
+        where:
+        storage   | size
+        'base64'  | 12
+        'payload' | 8
+        'chunked' | 24
+    }
+
+    @Unroll('window from #from to #to should be admitted with the size of #size bytes')
+    def 'window should be admitted with the size of the windows bounded by the size of both inputs'() {
+        given: 'an admission controller'
+        AdmissionController mockAdmissionController = Mock(AdmissionController)
+        DiffService diffServiceAdmitted = admittedDiffService(mockAdmissionController)
+
+        when: 'window is executed'
+        DiffDto diffDto = diffServiceAdmitted.window(storedDiff(), from, to, true)
+
+        then: 'the comparison should be admitted with the size of the windows'
+        1 * mockAdmissionController.compare(size, _) >> { long windowsSize, Supplier<DiffDto> comparison -> comparison.get() }
+        diffDto.resultType == resultType
+
+        where:
+        from | to                | size | resultType
+        0    | 2                 | 4    | ResultType.EQUAL
+        0    | Integer.MAX_VALUE | 12   | ResultType.SAME_SIZE_BUT_DIFFERENT
+    }
+
+    def 'window should not be admitted if its result is already known'() {
+        given: 'an admission controller and a Diff with a stored result'
+        AdmissionController mockAdmissionController = Mock(AdmissionController)
+        DiffService diffServiceAdmitted = admittedDiffService(mockAdmissionController)
+
+        Diff diff = storedDiff()
+        diff.resultType = ResultType.EQUAL
+
+        when: 'window is executed'
+        DiffDto diffDto = diffServiceAdmitted.window(diff, 0, 2, true)
+
+        then: 'the stored result should be bounded without being admitted'
+        0 * mockAdmissionController._
+        diffDto.resultType == ResultType.EQUAL
+    }
+
+    def 'diff should not be admitted if its result is already known'() {
+        given: 'an admission controller and a Diff with a stored result'
+        AdmissionController mockAdmissionController = Mock(AdmissionController)
+        DiffService diffServiceAdmitted = admittedDiffService(mockAdmissionController)
+
+        Diff diff = storedDiff()
+        diff.resultType = ResultType.EQUAL
+
+        when: 'diff is executed'
+        DiffDto diffDto = diffServiceAdmitted.diff(diff, true)
+
+        then: 'the stored result should be returned without being admitted'
+        0 * mockAdmissionController._
+        diffDto.resultType == ResultType.EQUAL
+    }
+
+    def 'diff with a listener should be admitted with the size of both inputs and run on the calling thread'() {
+        given: 'an admission controller'
+        AdmissionController mockAdmissionController = Mock(AdmissionController)
+        DiffService diffServiceAdmitted = admittedDiffService(mockAdmissionController)
+
+        Thread listenerThread = null
+
+        when: 'diff is executed with a listener'
+        DiffDto diffDto = diffServiceAdmitted.diff(storedDiff()) { int offset, int length ->
+            listenerThread = Thread.currentThread()
+            true
+        }
+
+        then: 'the streamed comparison should only be admitted with the bytes of both inputs'
+        1 * mockAdmissionController.admit(12, _) >> { long inputsSize, Supplier<DiffDto> comparison -> comparison.get() }
+        0 * mockAdmissionController.compare(*_)
+
+        and: 'the diff results should be passed to the listener on the calling thread'
+        listenerThread == Thread.currentThread()
+        diffDto.resultType == ResultType.SAME_SIZE_BUT_DIFFERENT
+    }
+
+    def 'diff with a listener should not be admitted if its result is already known'() {
+        given: 'an admission controller and a Diff with a stored result'
+        AdmissionController mockAdmissionController = Mock(AdmissionController)
+        DiffService diffServiceAdmitted = admittedDiffService(mockAdmissionController)
+
+        Diff diff = storedDiff()
+        diff.resultType = ResultType.EQUAL
+
+        when: 'diff is executed with a listener'
+        DiffDto diffDto = diffServiceAdmitted.diff(diff) { int offset, int length -> true }
+
+        then: 'the stored result should be streamed without being admitted'
+        0 * mockAdmissionController._
+        diffDto.resultType == ResultType.EQUAL
+    }
+
+    def 'diff should throw OverloadedException if the comparison is rejected'() {
+        given: 'an admission controller rejecting the comparisons'
+        AdmissionController mockAdmissionController = Mock(AdmissionController)
+        DiffService diffServiceAdmitted = admittedDiffService(mockAdmissionController)
+
+        mockAdmissionController.compare(*_) >> { throw new OverloadedException('too many comparisons in progress, retry later', 1) }
+
+        when: 'diff is executed'
+        diffServiceAdmitted.diff(storedDiff(), true)
+
+        then: 'OverloadedException is thrown without comparing the inputs'
+        thrown(OverloadedException)
+        0 * diffEngine.compare(*_)
+    }
+
+    private DiffService admittedDiffService(AdmissionController mockAdmissionController) {
+        new DiffServiceImpl(diffRepository, payloadRepository, chunkRepository, payloadCodec, merkleTreeHasher, diffEngine, editEngine, diffResultCache,
+            new SyncTaskExecutor(), new SyncTaskExecutor(), payloadLogArguments, diffMetrics, mockAdmissionController)
+    }
+
+    private Diff storedDiff() {
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.left = 'YWJjZA=='
+        diff.right = 'YWJlZA=='
+        diff.leftDigest = leftDigest
+        diff.rightDigest = rightDigest
+        diff
+    }
+
+    private Diff chunkedDiff() {
+        Diff diff = new Diff(diffId: 'diffId', leftChunks: [new ChunkReference('first', 4), new ChunkReference('left', 4), new ChunkReference('last', 4)],
+            rightChunks: [new ChunkReference('first', 4), new ChunkReference('right', 4), new ChunkReference('last', 4)])
+
+        chunkRepository.load([new ChunkReference('left', 4)]) >> ByteBuffer.wrap('efgh'.getBytes(StandardCharsets.UTF_8))
+        chunkRepository.load([new ChunkReference('right', 4)]) >> ByteBuffer.wrap('XfgY'.getBytes(StandardCharsets.UTF_8))
+        diff
+    }
+
+    private Diff payloadDiff() {
+        new Diff(diffId: 'diffId', leftPayload: payloadCodec.encode('abcd'.bytes), rightPayload: payloadCodec.encode('abed'.bytes))
+    }
+
+    private Diff rightDiff() {
+        Diff diff = new Diff()
+        diff.diffId = 'diffId'
+        diff.right = 'YWJlZA=='
+        diff
+    }
+
+    private Diff replacedDiff() {
+        Diff diff = new Diff()
+        diff.leftDigest = leftDigest
+        diff
+    }
 }
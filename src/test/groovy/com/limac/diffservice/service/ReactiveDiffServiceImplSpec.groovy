@@ -0,0 +1,283 @@
+package com.limac.diffservice.service
+
+import com.limac.diffservice.domain.Diff
+import com.limac.diffservice.engine.DiffResultListener
+import com.limac.diffservice.exception.MissingInputException
+import com.limac.diffservice.exception.NotFoundException
+import com.limac.diffservice.metrics.DiffMetrics
+import com.limac.diffservice.repository.ReactiveDiffRepository
+import com.limac.diffservice.rest.dto.BulkDiffDto
+import com.limac.diffservice.rest.dto.DiffDto
+import com.limac.diffservice.rest.dto.DiffResultDto
+import com.limac.diffservice.type.InputType
+import com.limac.diffservice.type.ResultType
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.reactivestreams.Subscription
+import reactor.core.publisher.BaseSubscriber
+import reactor.core.publisher.Mono
+import reactor.core.scheduler.Scheduler
+import reactor.core.scheduler.Schedulers
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.lang.Timeout
+import spock.lang.Unroll
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ReactiveDiffServiceImplSpec extends Specification {
+
+    ReactiveDiffRepository reactiveDiffRepository = Mock(ReactiveDiffRepository)
+    DiffService diffService = Mock(DiffService)
+    MeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    @Shared
+    Scheduler diffScheduler = Schedulers.newSingle('diff-reactive-test')
+
+    ReactiveDiffService reactiveDiffService = new ReactiveDiffServiceImpl(reactiveDiffRepository, diffService, diffScheduler,
+        new DiffMetrics(meterRegistry))
+
+    Diff diff = new Diff(diffId: 'diffId')
+
+    def cleanupSpec() {
+        diffScheduler.dispose()
+    }
+
+    def 'save should save the input with the blocking service on the scheduler'() {
+        given: 'the thread saving the input'
+        String thread = null
+
+        when: 'save is executed'
+        Diff diffSaved = reactiveDiffService.save(diff, InputType.LEFT).block()
+
+        then: 'the input should be saved off the calling thread'
+        1 * diffService.save(diff, InputType.LEFT) >> {
+            thread = Thread.currentThread().name
+            diff
+        }
+        diffSaved == diff
+        thread.startsWith('diff-reactive-test')
+    }
+
+    def 'save should save the binary input with the blocking service'() {
+        given: 'a binary input'
+        InputStream inputStream = new ByteArrayInputStream([1, 2] as byte[])
+
+        when: 'save is executed'
+        Diff diffSaved = reactiveDiffService.save('diffId', InputType.RIGHT, inputStream).block()
+
+        then: 'the binary input should be saved'
+        1 * diffService.save('diffId', InputType.RIGHT, inputStream) >> diff
+        diffSaved == diff
+    }
+
+    def 'saveAll should save the inputs with the blocking service'() {
+        when: 'saveAll is executed'
+        List<Diff> diffsSaved = reactiveDiffService.saveAll([diff]).block()
+
+        then: 'the inputs should be saved'
+        1 * diffService.saveAll([diff]) >> [diff]
+        diffsSaved == [diff]
+    }
+
+    def 'diffAll should compare the inputs with the blocking service'() {
+        given: 'the results of the comparisons'
+        List<BulkDiffDto> bulkDiffDtos = [BulkDiffDto.builder().diffId('diffId').resultType(ResultType.EQUAL).build()]
+
+        when: 'diffAll is executed'
+        List<BulkDiffDto> bulkDiffDtosReturned = reactiveDiffService.diffAll(['diffId']).block()
+
+        then: 'the inputs should be compared'
+        1 * diffService.diffAll(['diffId']) >> bulkDiffDtos
+        bulkDiffDtosReturned == bulkDiffDtos
+    }
+
+    def 'findById should find the Diff with the reactive repository and time it'() {
+        when: 'findById is executed with the inputs'
+        Diff diffFound = reactiveDiffService.findById('diffId', true).block()
+
+        then: 'the Diff should be found with its payloads'
+        1 * reactiveDiffRepository.findById('diffId') >> Mono.just(diff)
+        0 * reactiveDiffRepository.findWithoutPayloadsById(_)
+        0 * diffService._
+        diffFound == diff
+
+        and: 'the find should be timed'
+        meterRegistry.get('diff.service.find').timer().count() == 1
+    }
+
+    @Unroll('findById without the inputs should find the Diff with its payloads only if it is not compared: #compared')
+    def 'findById without the inputs should find the Diff with its payloads only if it is not compared'() {
+        given: 'a Diff found without its payloads'
+        Diff diffWithoutPayloads = new Diff(diffId: 'diffId', leftDigest: 'digest', rightDigest: 'digest')
+
+        reactiveDiffRepository.findWithoutPayloadsById('diffId') >> Mono.just(diffWithoutPayloads)
+        diffService.isCompared(diffWithoutPayloads) >> compared
+
+        when: 'findById is executed without the inputs'
+        Diff diffFound = reactiveDiffService.findById('diffId', false).block()
+
+        then: 'the Diff should only be found again with its payloads if its result is not known without them'
+        (compared ? 0 : 1) * reactiveDiffRepository.findById('diffId') >> Mono.just(diff)
+        diffFound == (compared ? diffWithoutPayloads : diff)
+
+        where:
+        compared << [true, false]
+    }
+
+    @Unroll('findById should signal NotFoundException if there is no Diff, with the inputs: #includeInputs')
+    def 'findById should signal NotFoundException if there is no Diff'() {
+        given: 'no Diff stored'
+        reactiveDiffRepository.findById('diffId') >> Mono.empty()
+        reactiveDiffRepository.findWithoutPayloadsById('diffId') >> Mono.empty()
+
+        when: 'findById is executed'
+        reactiveDiffService.findById('diffId', includeInputs).block()
+
+        then: 'NotFoundException is thrown'
+        NotFoundException notFoundException = thrown(NotFoundException)
+        notFoundException.message == 'could not find diffId: diffId'
+
+        where:
+        includeInputs << [true, false]
+    }
+
+    def 'checkInputs should check the inputs with the blocking service'() {
+        given: 'missing inputs'
+        diffService.checkInputs(diff) >> { throw new MissingInputException('missing') }
+
+        when: 'checkInputs is executed'
+        reactiveDiffService.checkInputs(diff)
+
+        then: 'MissingInputException is thrown'
+        thrown(MissingInputException)
+    }
+
+    def 'diff should compare the inputs with the blocking service'() {
+        given: 'the result of the comparison'
+        DiffDto diffDto = DiffDto.builder().diffId('diffId').resultType(ResultType.EQUAL).build()
+
+        when: 'diff is executed'
+        DiffDto result = reactiveDiffService.diff(diff, false).block()
+
+        then: 'the result should be returned'
+        1 * diffService.diff(diff, false) >> diffDto
+        result == diffDto
+    }
+
+    def 'diff should compare a page of the inputs with the blocking service'() {
+        given: 'the page of the comparison'
+        DiffDto diffDto = DiffDto.builder().diffId('diffId').resultType(ResultType.SAME_SIZE_BUT_DIFFERENT).nextCursor(4).build()
+
+        when: 'diff is executed with a cursor and a limit'
+        DiffDto result = reactiveDiffService.diff(diff, 2, 1, true).block()
+
+        then: 'the page should be returned'
+        1 * diffService.diff(diff, 2, 1, true) >> diffDto
+        result == diffDto
+    }
+
+    def 'summary should summarize the comparison with the blocking service'() {
+        given: 'the summary of the comparison'
+        DiffDto diffDto = DiffDto.builder().diffId('diffId').resultType(ResultType.EQUAL).build()
+
+        when: 'summary is executed with a merge gap and a maximum number of runs'
+        DiffDto result = reactiveDiffService.summary(diff, 2, 10, true).block()
+
+        then: 'the summary should be returned'
+        1 * diffService.summary(diff, 2, 10, true) >> diffDto
+        result == diffDto
+    }
+
+    def 'window should compare the window with the blocking service'() {
+        given: 'the result of the window'
+        DiffDto diffDto = DiffDto.builder().diffId('diffId').resultType(ResultType.EQUAL).build()
+
+        when: 'window is executed with offsets'
+        DiffDto result = reactiveDiffService.window(diff, 2, 8, true).block()
+
+        then: 'the result of the window should be returned'
+        1 * diffService.window(diff, 2, 8, true) >> diffDto
+        result == diffDto
+    }
+
+    def 'edits should find the edit script with the blocking service'() {
+        given: 'the result of the comparison with the edit script'
+        DiffDto diffDto = DiffDto.builder().diffId('diffId').resultType(ResultType.DIFFERENT_SIZE).edits([]).coarse(false).build()
+
+        when: 'edits is executed'
+        DiffDto result = reactiveDiffService.edits(diff, false).block()
+
+        then: 'the result should be returned'
+        1 * diffService.edits(diff, false) >> diffDto
+        result == diffDto
+    }
+
+    def 'diffStream should emit the diff results followed by the result type'() {
+        given: 'a comparison finding two diff results'
+        DiffDto diffDto = DiffDto.builder().diffId('diffId').resultType(ResultType.SAME_SIZE_BUT_DIFFERENT).build()
+
+        1 * diffService.diff(diff, _ as DiffResultListener) >> { Diff diffCompared, DiffResultListener listener ->
+            listener.onDiffResult(1, 2)
+            listener.onDiffResult(5, 1)
+            diffDto
+        }
+
+        when: 'diffStream is executed'
+        List<Object> emitted = reactiveDiffService.diffStream(diff).collectList().block()
+
+        then: 'the diff results and the result type should be emitted'
+        emitted == [
+            DiffResultDto.builder().offset(1).length(2).build(),
+            DiffResultDto.builder().offset(5).length(1).build(),
+            diffDto,
+        ]
+    }
+
+    @Timeout(10)
+    def 'diffStream should wait for the demand and stop the comparison when cancelled'() {
+        given: 'a comparison finding diff results until it is stopped'
+        CountDownLatch compared = new CountDownLatch(1)
+        int accepted = 0
+
+        diffService.diff(diff, _ as DiffResultListener) >> { Diff diffCompared, DiffResultListener listener ->
+            while (listener.onDiffResult(accepted * 2, 1)) {
+                accepted++
+            }
+            compared.countDown()
+            DiffDto.builder().diffId('diffId').resultType(ResultType.SAME_SIZE_BUT_DIFFERENT).build()
+        }
+
+        and: 'a subscriber requesting one diff result at a time'
+        List<Object> received = [].asSynchronized()
+        BaseSubscriber<Object> subscriber = new BaseSubscriber<Object>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1)
+            }
+
+            @Override
+            protected void hookOnNext(Object value) {
+                received << value
+            }
+        }
+        PollingConditions conditions = new PollingConditions(timeout: 5)
+
+        when: 'diffStream is subscribed and a second diff result is requested after the first one'
+        reactiveDiffService.diffStream(diff).subscribe(subscriber)
+        conditions.eventually { assert received.size() == 1 }
+
+        subscriber.request(1)
+        conditions.eventually { assert received.size() == 2 }
+
+        and: 'the subscription is cancelled'
+        subscriber.cancel()
+
+        then: 'the comparison should stop having emitted only the diff results requested'
+        compared.await(5, TimeUnit.SECONDS)
+        received == [DiffResultDto.builder().offset(0).length(1).build(), DiffResultDto.builder().offset(2).length(1).build()]
+        accepted == 2
+    }
+}
@@ -0,0 +1,84 @@
+package com.limac.diffservice.validation.validator
+
+import com.limac.diffservice.exception.InvalidInputException
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+class Base64DecodingInputStreamSpec extends Specification {
+
+    @Unroll('the stream should decode a random value of #size bytes')
+    def 'the stream should decode the base64 value'() {
+        given: 'a random value encoded in base64'
+        byte[] value = new byte[size]
+        new Random(size).nextBytes(value)
+        byte[] encoded = Base64.encoder.encode(value)
+
+        when: 'the stream is read'
+        InputStream inputStream = new Base64DecodingInputStream(new ByteArrayInputStream(encoded))
+        byte[] decoded = inputStream.bytes
+
+        then: 'the decoded value should be returned'
+        decoded == value
+
+        where:
+        size << [1, 2, 3, 4, 8191, 8192, 8193, 100000]
+    }
+
+    def 'the stream should be read byte by byte'() {
+        given: 'a base64 value'
+        InputStream inputStream = new Base64DecodingInputStream(new ByteArrayInputStream('YmFzZTY0IQ=='.getBytes(StandardCharsets.US_ASCII)))
+
+        when: 'the stream is read byte by byte'
+        List<Integer> decoded = []
+
+        for (int value = inputStream.read(); value >= 0; value = inputStream.read()) {
+            decoded << value
+        }
+
+        then: 'the decoded value should be returned'
+        decoded == 'base64!'.bytes.toList().collect { it & 0xFF }
+    }
+
+    def 'reading zero bytes should not read the underlying stream'() {
+        given: 'a base64 stream'
+        InputStream underlyingStream = Mock(InputStream)
+        InputStream inputStream = new Base64DecodingInputStream(underlyingStream)
+
+        when: 'zero bytes are read'
+        int count = inputStream.read(new byte[1], 0, 0)
+
+        then: 'the underlying stream should not be read'
+        count == 0
+        0 * underlyingStream._
+    }
+
+    @Unroll('the stream should throw InvalidInputException for the value [#value]')
+    def 'the stream should throw InvalidInputException for an invalid value'() {
+        given: 'an invalid base64 value'
+        InputStream inputStream = new Base64DecodingInputStream(new ByteArrayInputStream(value.getBytes(StandardCharsets.ISO_8859_1)))
+
+        when: 'the stream is read'
+        inputStream.bytes
+
+        then: 'InvalidInputException is thrown'
+        InvalidInputException invalidInputException = thrown(InvalidInputException)
+        invalidInputException.message == 'must be base64 encoded'
+
+        where:
+        value << ['', 'QQ=', 'QQ==QUJD', 'QU J', 'QUJD\n']
+    }
+
+    def 'close should close the underlying stream'() {
+        given: 'a base64 stream'
+        InputStream underlyingStream = Mock(InputStream)
+        InputStream inputStream = new Base64DecodingInputStream(underlyingStream)
+
+        when: 'the stream is closed'
+        inputStream.close()
+
+        then: 'the underlying stream should be closed'
+        1 * underlyingStream.close()
+    }
+}
@@ -0,0 +1,61 @@
+package com.limac.diffservice.validation.validator
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.regex.Pattern
+
+class Base64ValidatorSpec extends Specification {
+
+    static final Pattern BASE64_PATTERN = Pattern.compile('^([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{4}|[A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{2}==)$')
+
+    Base64Validator base64Validator = new Base64Validator()
+
+    @Unroll('isValid should return #valid for the value [#value]')
+    def 'isValid should check the alphabet, the length and the padding of the value'() {
+        expect: 'the value to be validated'
+        base64Validator.isValid(value, null) == valid
+
+        where:
+        value           | valid
+        null            | true
+        'QUJD'          | true
+        'QUI='          | true
+        'QQ=='          | true
+        'YmFzZTY0IQ=='  | true
+        'a+/9'          | true
+        ''              | false
+        'QQ='           | false
+        'QQ'            | false
+        'Q==='          | false
+        '===='          | false
+        'QQ==QUJD'      | false
+        'Q=QD'          | false
+        'QU J'          | false
+        'QUJ\u00E9'     | false
+    }
+
+    def 'isValid should validate a large value without overflowing the stack'() {
+        given: 'a large base64 value'
+        String value = 'QUJD' * 4_000_000
+
+        expect: 'the value to be valid'
+        base64Validator.isValid(value, null)
+    }
+
+    @Unroll('isBase64 should agree with the base64 regex for random values of length #length')
+    def 'isBase64 should agree with the base64 regex for random values'() {
+        given: 'random values built from base64 symbols and invalid symbols'
+        Random random = new Random(length)
+        String symbols = 'AZaz09+/==-. '
+
+        expect: 'the validation to be the same as the one done by the regex'
+        (1..500).every {
+            String value = (0..<length).collect { symbols[random.nextInt(symbols.length())] }.join()
+            Base64Validator.isBase64(value) == BASE64_PATTERN.matcher(value).matches()
+        }
+
+        where:
+        length << [1, 2, 3, 4, 5, 7, 8, 12]
+    }
+}
@@ -0,0 +1,46 @@
+package com.limac.diffservice.validation.validator
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.nio.charset.StandardCharsets
+
+class StreamingBase64ValidatorSpec extends Specification {
+
+    @Unroll('finish should return #valid for the value [#value] split at #split')
+    def 'the value received in chunks should be validated as a whole'() {
+        given: 'a value split in two chunks'
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1)
+        StreamingBase64Validator streamingBase64Validator = new StreamingBase64Validator()
+
+        when: 'the chunks are validated'
+        streamingBase64Validator.update(bytes, 0, split)
+        streamingBase64Validator.update(bytes, split, bytes.length - split)
+
+        then: 'the whole value should be validated'
+        streamingBase64Validator.finish() == valid
+
+        where:
+        value           | split | valid
+        'QUJD'          | 0     | true
+        'QUJD'          | 2     | true
+        'QUI='          | 3     | true
+        'YmFzZTY0IQ=='  | 11    | true
+        ''              | 0     | false
+        'QQ='           | 2     | false
+        'Q==='          | 2     | false
+        'QQ==QUJD'      | 4     | false
+        'QU J'          | 2     | false
+    }
+
+    def 'update should return false as soon as the value is known to be invalid'() {
+        given: 'an invalid chunk'
+        StreamingBase64Validator streamingBase64Validator = new StreamingBase64Validator()
+
+        expect: 'the first chunk to be valid and the invalid chunk to be reported'
+        streamingBase64Validator.update('QU'.bytes, 0, 2)
+        !streamingBase64Validator.update('-J'.bytes, 0, 2)
+        !streamingBase64Validator.update('QUJD'.bytes, 0, 4)
+        !streamingBase64Validator.finish()
+    }
+}